@@ -4,6 +4,8 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import com.redbook.tool.manager.BrowserManager;
+import com.redbook.tool.manager.PlaywrightPreloader;
 import com.redbook.tool.ui.controller.ArticleCrawlController;
 import com.redbook.tool.ui.controller.MainController;
 
@@ -12,10 +14,12 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * 小红书笔记获取工具应用主入口
  */
+@Slf4j
 @SpringBootApplication
 public class RedBookNoteFetchToolApplication extends Application {
     
@@ -27,14 +31,33 @@ public class RedBookNoteFetchToolApplication extends Application {
     
     @Override
     public void init() {
+        // 在后台预加载Playwright驱动，与Spring上下文启动并行
+        PlaywrightPreloader.start();
+        
         // 初始化Spring上下文
+        long start = System.currentTimeMillis();
         springContext = SpringApplication.run(RedBookNoteFetchToolApplication.class);
+        log.info("启动阶段[Spring上下文]耗时{}ms", System.currentTimeMillis() - start);
+    }
+    
+    /**
+     * 按配置在后台预热浏览器，与界面加载并行
+     */
+    private void warmUpBrowser() {
+        boolean enabled = springContext.getEnvironment()
+                .getProperty("app.browser.warmup.enabled", Boolean.class, true);
+        if (enabled) {
+            springContext.getBean(BrowserManager.class).warmUpAsync();
+        }
     }
     
     @Override
     public void start(Stage primaryStage) throws Exception {
+        warmUpBrowser();
+        
         try {
             // 尝试加载主界面
+            long start = System.currentTimeMillis();
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/main-layout.fxml"));
             loader.setControllerFactory(springContext::getBean);
             
@@ -58,6 +81,7 @@ public class RedBookNoteFetchToolApplication extends Application {
             articleCrawlController.setHostServices(getHostServices());
             
             System.out.println("主界面加载成功！");
+            log.info("启动阶段[主界面加载]耗时{}ms", System.currentTimeMillis() - start);
         } catch (Exception e) {
             // 如果加载失败，显示错误并回退到简单界面
             e.printStackTrace();
@@ -81,6 +105,9 @@ public class RedBookNoteFetchToolApplication extends Application {
     
     @Override
     public void stop() {
+        // 先关闭共享的浏览器和Playwright实例，避免残留Chromium进程
+        springContext.getBean(BrowserManager.class).shutdown();
+        
         // 关闭Spring上下文
         springContext.close();
     }
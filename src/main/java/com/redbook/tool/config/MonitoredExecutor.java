@@ -0,0 +1,211 @@
+package com.redbook.tool.config;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 带统计的有界执行器，记录排队数、执行中的任务数以及任务的等待和执行耗时
+ * <p>
+ * 同时执行的任务数由信号量限制，排队(已提交但未开始)的任务超过容量时拒绝提交。
+ * 底层可以是固定大小的平台线程池，也可以是每个任务一个虚拟线程(JDK 21及以上)，
+ * 虚拟线程模式下排队的任务在各自的虚拟线程中等待信号量，不占用平台线程。
+ */
+@Slf4j
+public class MonitoredExecutor extends AbstractExecutorService {
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final boolean virtual;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final AtomicLong maxRunNanos = new AtomicLong();
+
+    /**
+     * 执行器统计快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final String name;
+        private final boolean virtual;
+        private final int maxConcurrency;
+        private final int queueDepth;
+        private final int activeCount;
+        private final long completedCount;
+        private final long failedCount;
+        private final long rejectedCount;
+        private final double averageWaitMs;
+        private final double averageRunMs;
+        private final double maxRunMs;
+
+        @Override
+        public String toString() {
+            return String.format("%s[%s]: 执行中%d/%d，排队%d，完成%d，失败%d，拒绝%d，平均等待%.1fms，平均执行%.1fms，最长执行%.1fms",
+                    name, virtual ? "虚拟线程" : "平台线程", activeCount, maxConcurrency, queueDepth,
+                    completedCount, failedCount, rejectedCount, averageWaitMs, averageRunMs, maxRunMs);
+        }
+    }
+
+    private MonitoredExecutor(String name, ExecutorService delegate, int maxConcurrency, int queueCapacity, boolean virtual) {
+        this.name = name;
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.virtual = virtual;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * 创建使用固定数量平台线程的执行器
+     *
+     * @param name 执行器名称，同时作为线程名前缀
+     * @param threads 线程数，即同时执行的任务数
+     * @param queueCapacity 排队任务数上限
+     */
+    public static MonitoredExecutor platform(String name, int threads, int queueCapacity) {
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new MonitoredExecutor(name, pool, size, Math.max(1, queueCapacity), false);
+    }
+
+    /**
+     * 创建I/O型执行器：运行在JDK 21及以上且允许时每个任务使用一个虚拟线程，否则退回平台线程池
+     *
+     * @param name 执行器名称，同时作为线程名前缀
+     * @param maxConcurrency 同时执行的任务数
+     * @param queueCapacity 排队任务数上限
+     * @param preferVirtual 是否优先使用虚拟线程
+     */
+    public static MonitoredExecutor io(String name, int maxConcurrency, int queueCapacity, boolean preferVirtual) {
+        if (preferVirtual && Runtime.version().feature() >= 21) {
+            ExecutorService virtualPool = newVirtualThreadExecutor(name);
+            if (virtualPool != null) {
+                return new MonitoredExecutor(name, virtualPool, Math.max(1, maxConcurrency), Math.max(1, queueCapacity), true);
+            }
+        }
+        return platform(name, maxConcurrency, queueCapacity);
+    }
+
+    /**
+     * 通过反射创建虚拟线程执行器，编译目标为JDK 17，不能直接引用JDK 21的API
+     */
+    private static ExecutorService newVirtualThreadExecutor(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method create = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) create.invoke(null, factory);
+        } catch (Exception e) {
+            log.warn("创建虚拟线程执行器[{}]失败，改用平台线程: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("执行器[" + name + "]排队任务已满(" + queueCapacity + ")");
+        }
+        long submittedAt = System.nanoTime();
+        try {
+            delegate.execute(() -> runTask(task, submittedAt));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    private void runTask(Runnable task, long submittedAt) {
+        permits.acquireUninterruptibly();
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        long startedAt = System.nanoTime();
+        totalWaitNanos.add(startedAt - submittedAt);
+        try {
+            task.run();
+        } catch (RuntimeException | Error e) {
+            failed.increment();
+            throw e;
+        } finally {
+            long runNanos = System.nanoTime() - startedAt;
+            totalRunNanos.add(runNanos);
+            maxRunNanos.accumulateAndGet(runNanos, Math::max);
+            completed.increment();
+            active.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    /**
+     * 获取当前统计快照
+     */
+    public Stats getStats() {
+        long done = completed.sum();
+        return new Stats(name, virtual, maxConcurrency, queued.get(), active.get(), done, failed.sum(), rejected.sum(),
+                done == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / done,
+                done == 0 ? 0 : totalRunNanos.sum() / 1_000_000.0 / done,
+                maxRunNanos.get() / 1_000_000.0);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
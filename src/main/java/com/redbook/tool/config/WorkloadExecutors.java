@@ -0,0 +1,126 @@
+package com.redbook.tool.config;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按工作负载划分的执行器，代替CompletableFuture默认使用的ForkJoinPool.commonPool
+ * <p>
+ * 浏览器操作(搜索、详情、发布、登录)会长时间阻塞，使用固定数量的平台线程；
+ * 磁盘读写和协调类任务在JDK 21及以上使用虚拟线程；图片解码是CPU密集型，线程数按CPU核数计算。
+ * 各执行器的排队数、执行中的任务数和耗时定期写入日志。
+ */
+@Slf4j
+@Component
+public class WorkloadExecutors {
+
+    // 同时执行的浏览器操作数
+    @Value("${app.executor.browser.threads:8}")
+    private int browserThreads;
+
+    @Value("${app.executor.browser.queue-capacity:256}")
+    private int browserQueueCapacity;
+
+    // 同时执行的磁盘读写和协调任务数
+    @Value("${app.executor.io.threads:16}")
+    private int ioThreads;
+
+    @Value("${app.executor.io.queue-capacity:1024}")
+    private int ioQueueCapacity;
+
+    // JDK 21及以上是否为磁盘读写任务使用虚拟线程
+    @Value("${app.executor.io.virtual-threads:true}")
+    private boolean ioVirtualThreads;
+
+    // 图片解码线程数，0表示CPU核数的一半
+    @Value("${app.executor.image.threads:0}")
+    private int imageThreads;
+
+    @Value("${app.executor.image.queue-capacity:512}")
+    private int imageQueueCapacity;
+
+    // 统计信息写入日志的间隔(ms)，0表示不记录
+    @Value("${app.executor.report-interval:60000}")
+    private long reportIntervalMs;
+
+    private MonitoredExecutor browser;
+    private MonitoredExecutor io;
+    private MonitoredExecutor image;
+    private ScheduledExecutorService reporter;
+
+    @PostConstruct
+    public void init() {
+        int imageSize = imageThreads > 0 ? imageThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        browser = MonitoredExecutor.platform("browser", browserThreads, browserQueueCapacity);
+        io = MonitoredExecutor.io("io", ioThreads, ioQueueCapacity, ioVirtualThreads);
+        image = MonitoredExecutor.platform("image", imageSize, imageQueueCapacity);
+
+        if (reportIntervalMs > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "executor-stats");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleWithFixedDelay(this::logStats, reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("工作负载执行器已初始化: 浏览器{}线程，磁盘读写{}并发({})，图片解码{}线程",
+                browser.getStats().getMaxConcurrency(), io.getStats().getMaxConcurrency(),
+                io.getStats().isVirtual() ? "虚拟线程" : "平台线程", imageSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        for (MonitoredExecutor executor : List.of(browser, io, image)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 浏览器操作执行器，用于搜索、笔记详情、发布和登录
+     */
+    public MonitoredExecutor browser() {
+        return browser;
+    }
+
+    /**
+     * 磁盘读写和协调任务执行器，用于读写用户数据、下载头像以及等待其它任务完成的协调任务
+     */
+    public MonitoredExecutor io() {
+        return io;
+    }
+
+    /**
+     * 图片解码执行器
+     */
+    public MonitoredExecutor image() {
+        return image;
+    }
+
+    /**
+     * 获取所有执行器的统计快照
+     */
+    public List<MonitoredExecutor.Stats> getStats() {
+        return List.of(browser.getStats(), io.getStats(), image.getStats());
+    }
+
+    private void logStats() {
+        for (MonitoredExecutor.Stats stats : getStats()) {
+            // 没有执行过任务的执行器不记录
+            if (stats.getCompletedCount() > 0 || stats.getActiveCount() > 0 || stats.getQueueDepth() > 0) {
+                log.info("执行器统计 {}", stats);
+            }
+        }
+    }
+}
@@ -21,7 +21,8 @@ public class PublishResultDTO {
         SUCCESS,        // 发布成功
         FAILED,         // 发布失败
         LOGIN_EXPIRED,  // 登录已过期
-        INTERRUPTED     // 发布被中断
+        INTERRUPTED,    // 发布被中断
+        CIRCUIT_OPEN    // 账号发布接口熔断中，未发送请求
     }
     
     /**
@@ -75,6 +76,16 @@ public class PublishResultDTO {
                 .build();
     }
     
+    /**
+     * 创建熔断结果
+     */
+    public static PublishResultDTO circuitOpen() {
+        return PublishResultDTO.builder()
+                .status(Status.CIRCUIT_OPEN)
+                .errorMessage("账号发布接口熔断中，请稍后再试")
+                .build();
+    }
+    
     /**
      * 创建中断结果
      */
@@ -51,6 +51,18 @@ public class SearchResultDTO {
                 .build();
     }
     
+    /**
+     * 构建被取消的结果，保留取消前已获取的笔记
+     */
+    public static SearchResultDTO interrupted(String userId, String keyword, List<NoteInfo> noteList) {
+        return SearchResultDTO.builder()
+                .status(SearchResult.INTERRUPTED)
+                .noteList(noteList)
+                .keyword(keyword)
+                .userId(userId)
+                .build();
+    }
+    
     /**
      * 构建失败结果
      */
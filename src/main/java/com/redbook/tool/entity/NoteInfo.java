@@ -1,5 +1,6 @@
 package com.redbook.tool.entity;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import lombok.AllArgsConstructor;
@@ -56,6 +57,26 @@ public class NoteInfo {
      */
     private String likeCount;
     
+    /**
+     * 收藏数
+     */
+    private String collectCount;
+    
+    /**
+     * 评论数
+     */
+    private String commentCount;
+    
+    /**
+     * 分享数
+     */
+    private String shareCount;
+    
+    /**
+     * 发布时间
+     */
+    private LocalDateTime publishTime;
+    
     /**
      * 笔记正文内容
      */
@@ -0,0 +1,135 @@
+package com.redbook.tool.entity;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 后台任务实体类，对应任务队列中的一个搜索、详情或发布任务
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskJob {
+
+    /**
+     * 任务类型
+     */
+    public enum Type {
+        SEARCH("关键词搜索"),
+        DETAIL("笔记详情"),
+        PUBLISH("发布笔记");
+
+        private final String description;
+
+        Type(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        QUEUED("排队中"),
+        RUNNING("执行中"),
+        SUCCEEDED("已完成"),
+        FAILED("失败"),
+        CANCELLED("已取消");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * 是否为不会再执行的最终状态
+         */
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    /**
+     * 任务ID
+     */
+    private long id;
+
+    /**
+     * 任务类型
+     */
+    private Type type;
+
+    /**
+     * 任务状态
+     */
+    private Status status;
+
+    /**
+     * 执行任务的账号ID，为空时由账号调度器自动分配
+     */
+    private String userId;
+
+    /**
+     * 任务描述，如关键词或笔记标题
+     */
+    private String title;
+
+    /**
+     * 任务参数JSON
+     */
+    private String payload;
+
+    /**
+     * 任务结果JSON，如搜索到的笔记列表
+     */
+    private String result;
+
+    /**
+     * 最近一次执行的状态信息或错误信息
+     */
+    private String message;
+
+    /**
+     * 当前进度，0-100
+     */
+    private int progress;
+
+    /**
+     * 已执行次数
+     */
+    private int attempts;
+
+    /**
+     * 最多执行次数
+     */
+    private int maxAttempts;
+
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+
+    /**
+     * 最早可以执行的时间，重试时按退避时间推迟
+     */
+    private LocalDateTime nextRunAt;
+}
@@ -0,0 +1,16 @@
+package com.redbook.tool.manager;
+
+import com.microsoft.playwright.PlaywrightException;
+
+/**
+ * 操作过程中浏览器崩溃、断开或因无响应被强制关闭
+ * <p>
+ * 抛出时浏览器管理器已经重启或丢弃了出问题的浏览器，可以通过
+ * {@link BrowserManager#retryOnCrash(String, java.util.function.Supplier, java.util.function.Function)} 重新执行一次操作。
+ */
+public class BrowserCrashedException extends PlaywrightException {
+
+    public BrowserCrashedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,1259 @@
+package com.redbook.tool.manager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.options.Cookie;
+import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.service.UserService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 浏览器管理器，负责在应用生命周期内维护Playwright实例和一个小型浏览器池
+ * <p>
+ * 各服务通过 {@link #callWithBrowser(LeaseWork)} 借用浏览器执行操作，操作结束后自动归还，
+ * 避免每次操作都重新启动Node驱动和Chromium进程。
+ * <p>
+ * 需要登录态的操作通过 {@link #callWithContext(UserInfo, LeaseWork)} 借用按用户ID缓存的浏览器上下文，
+ * 同一账号的连续操作可直接复用已加载cookies的上下文。每个浏览器缓存的上下文数量有上限，
+ * 超出上限或空闲超时的上下文会被淘汰，淘汰前将最新cookies回写到 {@link UserService}。
+ * <p>
+ * Playwright Java对象不是线程安全的，因此池中每个浏览器都绑定自己的Playwright连接和一个所属线程，
+ * 该浏览器的创建、页面操作、健康检查和关闭都在所属线程中执行，调用方线程只负责等待结果；
+ * 需要异步执行时使用 {@link #submitWithContext(UserInfo, LeaseWork)}。多个操作通过不同的浏览器并行，
+ * 同一浏览器同一时刻只会被一个租约持有。
+ * <p>
+ * 浏览器由后台任务监管：定期检查空闲浏览器和上下文是否响应，断开时自动重启；
+ * 上下文租约期间长时间没有页面活动视为卡死，强制关闭该浏览器的Playwright连接，
+ * 使阻塞的调用立即失败，归还后丢弃并按需重建。租约归还时检测到崩溃的，
+ * 调用方可以通过 {@link #retryOnCrash(String, Supplier, Function)} 重新执行一次操作。
+ */
+@Slf4j
+@Component
+public class BrowserManager {
+
+    @Value("${app.browser.pool-size:2}")
+    private int poolSize;
+
+    @Value("${app.browser.headless:true}")
+    private boolean headless;
+
+    @Value("${app.browser.acquire-timeout:60000}")
+    private long acquireTimeoutMs;
+
+    @Value("${app.browser.context.max-per-browser:3}")
+    private int maxContextsPerBrowser;
+
+    @Value("${app.browser.context.idle-timeout:600000}")
+    private long contextIdleTimeoutMs;
+
+    @Value("${app.browser.warmup.accounts:2}")
+    private int warmupAccounts;
+
+    // 空闲浏览器健康检查间隔(ms)，0表示不检查
+    @Value("${app.browser.health.interval:30000}")
+    private long healthCheckIntervalMs;
+
+    // 上下文租约超过该时间(ms)没有页面活动视为卡死，0表示不检测
+    @Value("${app.browser.health.hang-timeout:180000}")
+    private long hangTimeoutMs;
+
+    private final UserService userService;
+
+    private final RequestFilterPolicy requestFilterPolicy;
+
+    private final ExecutionPacing executionPacing;
+
+    // 空闲的浏览器槽位
+    private final BlockingQueue<BrowserSlot> idleSlots = new LinkedBlockingQueue<>();
+    // 已创建的所有浏览器槽位
+    private final List<BrowserSlot> allSlots = new CopyOnWriteArrayList<>();
+    // 已创建的槽位数量，用于控制池大小
+    private final AtomicInteger createdSlots = new AtomicInteger(0);
+    // 是否已关闭
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+    // 定期清理空闲上下文、检查浏览器健康状态；卡死检测使用另一个线程，不会被卡住的健康检查阻塞
+    private final ScheduledExecutorService sweeper = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "browser-supervisor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 故障次数，包括浏览器断开、页面崩溃和卡死
+    private final AtomicLong failureCount = new AtomicLong();
+    // 故障后重启浏览器的次数
+    private final AtomicLong restartCount = new AtomicLong();
+    // 因浏览器崩溃重新执行的操作数
+    private final AtomicLong retriedOperations = new AtomicLong();
+    // 已结束运行的浏览器累计运行时间(ms)
+    private final AtomicLong finishedUptimeMs = new AtomicLong();
+    // 上次健康检查记录统计时的故障次数
+    private long reportedFailures;
+
+    // 关闭时等待所属线程完成当前操作的时间(ms)，超时后强制关闭Playwright连接
+    private static final long CLOSE_TIMEOUT_MS = 10000;
+
+    /**
+     * 浏览器健康统计快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class HealthStats {
+        private final int browserCount;
+        private final long failureCount;
+        private final long restartCount;
+        private final long retriedOperations;
+        private final long totalUptimeMs;
+
+        /**
+         * 平均无故障运行时间(ms)，没有发生过故障时返回-1
+         */
+        public long getMeanTimeBetweenFailuresMs() {
+            return failureCount == 0 ? -1 : totalUptimeMs / failureCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("浏览器%d个，累计运行%.1f分钟，故障%d次，重启%d次，重新执行操作%d次，平均无故障时间%s",
+                    browserCount, totalUptimeMs / 60000.0, failureCount, restartCount, retriedOperations,
+                    failureCount == 0 ? "-" : String.format("%.1f分钟", getMeanTimeBetweenFailuresMs() / 60000.0));
+        }
+    }
+
+    public BrowserManager(UserService userService, RequestFilterPolicy requestFilterPolicy,
+            ExecutionPacing executionPacing) {
+        this.userService = userService;
+        this.requestFilterPolicy = requestFilterPolicy;
+        this.executionPacing = executionPacing;
+    }
+
+    /**
+     * 启动空闲上下文清理、健康检查和卡死检测任务
+     */
+    @PostConstruct
+    public void init() {
+        long period = Math.max(contextIdleTimeoutMs / 2, 30_000);
+        sweeper.scheduleWithFixedDelay(this::sweepIdleSlots, period, period, TimeUnit.MILLISECONDS);
+        if (healthCheckIntervalMs > 0) {
+            sweeper.scheduleWithFixedDelay(this::checkIdleSlots, healthCheckIntervalMs, healthCheckIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        if (hangTimeoutMs > 0) {
+            long watchPeriod = Math.max(hangTimeoutMs / 6, 5_000);
+            sweeper.scheduleWithFixedDelay(this::abortHungSlots, watchPeriod, watchPeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 预热浏览器：启动一个浏览器并为最近登录的有效账号预先打开上下文
+     * 在后台线程执行，与界面加载并行
+     *
+     * @return 预热完成的Future，结果为预热耗时(ms)
+     */
+    public CompletableFuture<Long> warmUpAsync() {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(warmUp());
+            } catch (Exception e) {
+                log.warn("浏览器预热失败: {}", e.getMessage(), e);
+                future.completeExceptionally(e);
+            }
+        }, "browser-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * 同步执行浏览器预热
+     *
+     * @return 预热耗时(ms)
+     */
+    private long warmUp() {
+        long start = System.currentTimeMillis();
+        BrowserSlot slot = takeSlot(null, true);
+        long browserReady = System.currentTimeMillis();
+        int opened = 0;
+        try {
+            int limit = Math.min(warmupAccounts, Math.max(maxContextsPerBrowser, 1));
+            List<UserInfo> recentUsers = userService.getAllUsers().stream()
+                    .filter(UserInfo::isActive)
+                    .filter(user -> user.getCookies() != null && !user.getCookies().isEmpty())
+                    .sorted(Comparator.comparing(UserInfo::getLastLoginTime,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .limit(Math.max(limit, 0))
+                    .collect(Collectors.toList());
+
+            opened = slot.call(() -> {
+                int created = 0;
+                for (UserInfo user : recentUsers) {
+                    if (!slot.contexts.containsKey(user.getUserId())) {
+                        slot.createContext(user);
+                        created++;
+                    }
+                }
+                return created;
+            });
+        } finally {
+            release(slot);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("启动阶段[浏览器预热]耗时{}ms，其中启动浏览器{}ms，预开账号上下文{}个",
+                elapsed, browserReady - start, opened);
+        return elapsed;
+    }
+
+    /**
+     * 借用一个浏览器执行操作，池中无空闲浏览器且未达上限时启动新的浏览器，否则等待归还
+     * <p>
+     * 操作在浏览器所属线程中执行，调用线程等待其完成，操作结束后浏览器自动归还。
+     *
+     * @param work 使用浏览器的操作
+     * @return 操作结果
+     * @throws E 操作抛出的受检异常
+     */
+    public <T, E extends Exception> T callWithBrowser(LeaseWork<BrowserLease, T, E> work) throws E {
+        return await(submitWithBrowser(work));
+    }
+
+    /**
+     * 借用一个浏览器异步执行操作，等待空闲浏览器时阻塞调用线程，操作本身在浏览器所属线程中执行
+     *
+     * @param work 使用浏览器的操作
+     * @return 操作结果，完成时浏览器已经归还
+     */
+    public <T> CompletableFuture<T> submitWithBrowser(LeaseWork<BrowserLease, T, ?> work) {
+        // 登录等操作会长时间等待用户扫码，不做卡死检测
+        BrowserSlot slot = takeSlot(null, false);
+        return dispatch(slot, () -> {
+            try (BrowserLease lease = new BrowserLease(slot)) {
+                return work.apply(lease);
+            }
+        });
+    }
+
+    /**
+     * 借用指定用户的已登录浏览器上下文执行操作，见 {@link #submitWithContext(UserInfo, LeaseWork)}
+     * <p>
+     * 调用线程等待操作完成，返回时租约已经归还，可以通过 {@link ContextLease#isCrashed()} 判断是否崩溃。
+     *
+     * @param user 用户信息，必须包含cookies
+     * @param work 使用上下文的操作
+     * @return 操作结果
+     * @throws E 操作抛出的受检异常
+     */
+    public <T, E extends Exception> T callWithContext(UserInfo user, LeaseWork<ContextLease, T, E> work) throws E {
+        return await(submitWithContext(user, work));
+    }
+
+    /**
+     * 借用指定用户的已登录浏览器上下文异步执行操作
+     * 优先选择已缓存该用户上下文的空闲浏览器，缓存失效或不存在时创建新上下文并加载cookies。
+     * 等待空闲浏览器时阻塞调用线程，上下文的准备和操作本身在浏览器所属线程中执行。
+     *
+     * @param user 用户信息，必须包含cookies
+     * @param work 使用上下文的操作
+     * @return 操作结果，完成时租约已经归还
+     */
+    public <T> CompletableFuture<T> submitWithContext(UserInfo user, LeaseWork<ContextLease, T, ?> work) {
+        if (user == null || user.getUserId() == null) {
+            throw new IllegalArgumentException("用户信息不能为空");
+        }
+
+        BrowserSlot slot = takeSlot(user.getUserId(), true);
+        return dispatch(slot, () -> {
+            try (ContextLease lease = openContext(slot, user)) {
+                return work.apply(lease);
+            }
+        });
+    }
+
+    /**
+     * 把操作提交到槽位的所属线程，提交失败时归还槽位
+     */
+    private <T> CompletableFuture<T> dispatch(BrowserSlot slot, Callable<T> task) {
+        try {
+            return slot.submit(task);
+        } catch (RejectedExecutionException e) {
+            release(slot);
+            throw new PlaywrightException("浏览器槽位[" + slot.id + "]已关闭");
+        }
+    }
+
+    /**
+     * 等待操作完成并抛出操作自身的异常
+     */
+    @SuppressWarnings("unchecked")
+    private static <T, E extends Exception> T await(CompletableFuture<T> future) throws E {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            // 操作只会抛出声明的受检异常
+            throw (E) cause;
+        }
+    }
+
+    /**
+     * 在槽位中准备用户的上下文，在所属线程中调用
+     */
+    private ContextLease openContext(BrowserSlot slot, UserInfo user) {
+        try {
+            slot.evictIdleContexts();
+
+            PooledContext pooled = slot.contexts.get(user.getUserId());
+            if (pooled != null && pooled.closed) {
+                log.info("用户[{}]缓存的浏览器上下文已关闭，重新创建", user.getUserId());
+                slot.removeContext(user.getUserId(), false);
+                pooled = null;
+            }
+            if (pooled != null && !pooled.matches(user)) {
+                // 用户重新登录过，缓存的cookies已过期，不回写直接丢弃
+                log.info("用户[{}]的登录信息已更新，重建浏览器上下文", user.getUserId());
+                slot.removeContext(user.getUserId(), false);
+                pooled = null;
+            }
+
+            if (pooled == null) {
+                pooled = slot.createContext(user);
+            } else {
+                log.debug("复用浏览器槽位[{}]中用户[{}]的上下文", slot.id, user.getUserId());
+            }
+            return new ContextLease(slot, pooled, !pooled.served);
+        } catch (RuntimeException e) {
+            release(slot);
+            throw e;
+        }
+    }
+
+    /**
+     * 执行使用浏览器的操作，操作因浏览器崩溃失败时在重启后的浏览器上重新执行一次
+     *
+     * @param operation 操作描述，用于日志
+     * @param attempt 操作，浏览器崩溃时应抛出 {@link BrowserCrashedException}
+     * @param onCrash 重新执行后仍然崩溃时的结果
+     * @return 操作结果
+     */
+    public <T> T retryOnCrash(String operation, Supplier<T> attempt, Function<BrowserCrashedException, T> onCrash) {
+        try {
+            return attempt.get();
+        } catch (BrowserCrashedException e) {
+            retriedOperations.incrementAndGet();
+            log.warn("{}时浏览器崩溃({})，在重启后的浏览器上重新执行一次", operation, e.getMessage());
+        }
+        try {
+            return attempt.get();
+        } catch (BrowserCrashedException e) {
+            log.error("{}重新执行后浏览器再次崩溃: {}", operation, e.getMessage());
+            return onCrash.apply(e);
+        }
+    }
+
+    /**
+     * 判断异常是否表示页面、上下文或浏览器已经不可用，此类异常不应按单条数据的失败处理
+     */
+    public static boolean isBrowserGone(PlaywrightException e) {
+        String message = e.getMessage();
+        return e instanceof BrowserCrashedException || (message != null && (message.contains("has been closed")
+                || message.contains("Target crashed") || message.contains("connection closed")
+                || message.contains("pipe closed")));
+    }
+
+    /**
+     * 获取浏览器健康统计
+     */
+    public HealthStats getHealthStats() {
+        long now = System.currentTimeMillis();
+        long uptime = finishedUptimeMs.get();
+        for (BrowserSlot slot : allSlots) {
+            uptime += slot.currentUptime(now);
+        }
+        return new HealthStats(allSlots.size(), failureCount.get(), restartCount.get(), retriedOperations.get(), uptime);
+    }
+
+    /**
+     * 获取一个浏览器槽位，preferUserId不为空时优先选择缓存了该用户上下文的空闲槽位
+     *
+     * @param watched 租约期间是否做卡死检测
+     */
+    private BrowserSlot takeSlot(String preferUserId, boolean watched) {
+        if (shutdown.get()) {
+            throw new PlaywrightException("浏览器管理器已关闭");
+        }
+
+        BrowserSlot slot = null;
+        if (preferUserId != null) {
+            for (BrowserSlot candidate : idleSlots) {
+                if (candidate.contexts.containsKey(preferUserId) && idleSlots.remove(candidate)) {
+                    slot = candidate;
+                    break;
+                }
+            }
+        }
+        if (slot == null) {
+            slot = idleSlots.poll();
+        }
+        if (slot == null) {
+            slot = tryCreateSlot();
+        }
+        if (slot == null) {
+            try {
+                log.info("浏览器池已满({}个)，等待空闲浏览器...", poolSize);
+                slot = idleSlots.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PlaywrightException("等待空闲浏览器时被中断");
+            }
+            if (slot == null) {
+                throw new PlaywrightException("等待空闲浏览器超时: " + acquireTimeoutMs + "ms");
+            }
+        }
+
+        try {
+            slot.ensureBrowser();
+        } catch (RuntimeException e) {
+            discardSlot(slot);
+            throw e;
+        }
+        slot.markLeased(watched);
+        return slot;
+    }
+
+    /**
+     * 在未达到池上限时创建新的浏览器槽位
+     */
+    private BrowserSlot tryCreateSlot() {
+        int slotId;
+        while (true) {
+            int current = createdSlots.get();
+            if (current >= Math.max(poolSize, 1)) {
+                return null;
+            }
+            if (createdSlots.compareAndSet(current, current + 1)) {
+                slotId = current + 1;
+                break;
+            }
+        }
+
+        try {
+            BrowserSlot slot = new BrowserSlot(slotId);
+            allSlots.add(slot);
+            return slot;
+        } catch (RuntimeException e) {
+            createdSlots.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还浏览器槽位，被强制关闭的槽位直接丢弃
+     */
+    private void release(BrowserSlot slot) {
+        slot.markIdle();
+        if (shutdown.get()) {
+            slot.close();
+            return;
+        }
+        if (slot.aborted) {
+            discardSlot(slot);
+            return;
+        }
+        idleSlots.offer(slot);
+    }
+
+    /**
+     * 丢弃无法使用的浏览器槽位，释放池容量
+     */
+    private void discardSlot(BrowserSlot slot) {
+        allSlots.remove(slot);
+        createdSlots.decrementAndGet();
+        slot.close();
+    }
+
+    /**
+     * 取出当前所有空闲槽位，由调用方处理后归还
+     */
+    private List<BrowserSlot> drainIdleSlots() {
+        List<BrowserSlot> taken = new ArrayList<>();
+        BrowserSlot slot;
+        while ((slot = idleSlots.poll()) != null) {
+            slot.markLeased(true);
+            taken.add(slot);
+        }
+        return taken;
+    }
+
+    /**
+     * 清理所有空闲槽位中超时的上下文
+     */
+    private void sweepIdleSlots() {
+        List<BrowserSlot> taken = drainIdleSlots();
+        try {
+            for (BrowserSlot s : taken) {
+                try {
+                    s.evictIdleContexts();
+                } catch (Exception e) {
+                    log.warn("清理浏览器槽位[{}]的空闲上下文时出错: {}", s.id, e.getMessage());
+                }
+            }
+        } finally {
+            taken.forEach(this::release);
+        }
+    }
+
+    /**
+     * 检查所有空闲槽位的浏览器和上下文是否响应，故障时重启，故障次数变化时记录统计
+     */
+    private void checkIdleSlots() {
+        List<BrowserSlot> taken = drainIdleSlots();
+        try {
+            for (BrowserSlot s : taken) {
+                try {
+                    s.checkHealth();
+                } catch (Exception e) {
+                    log.warn("检查浏览器槽位[{}]健康状态时出错: {}", s.id, e.getMessage());
+                }
+            }
+        } finally {
+            taken.forEach(this::release);
+        }
+        long failures = failureCount.get();
+        if (failures != reportedFailures) {
+            reportedFailures = failures;
+            log.info("浏览器健康统计 {}", getHealthStats());
+        }
+    }
+
+    /**
+     * 强制关闭租约期间长时间没有页面活动的浏览器
+     */
+    private void abortHungSlots() {
+        long now = System.currentTimeMillis();
+        for (BrowserSlot slot : allSlots) {
+            long inactiveMs = slot.inactiveMillis(now);
+            if (inactiveMs > hangTimeoutMs) {
+                slot.abort(inactiveMs);
+            }
+        }
+    }
+
+    /**
+     * 按执行节奏配置构建浏览器启动参数
+     */
+    private BrowserType.LaunchOptions buildLaunchOptions(PacingProfile profile) {
+        return new BrowserType.LaunchOptions()
+                .setHeadless(headless)
+                .setSlowMo(profile.getSlowMo());
+    }
+
+    /**
+     * 关闭所有浏览器和Playwright实例，可重复调用
+     * 关闭前会回写所有缓存上下文的cookies
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+
+        sweeper.shutdownNow();
+        PlaywrightPreloader.discard();
+        log.info("关闭浏览器管理器，共{}个浏览器，{}", allSlots.size(), getHealthStats());
+        executionPacing.getStats().forEach(stats -> log.info("操作耗时统计 {}", stats));
+        idleSlots.clear();
+        for (BrowserSlot slot : allSlots) {
+            slot.close();
+        }
+        allSlots.clear();
+    }
+
+    /**
+     * 缓存的用户浏览器上下文
+     */
+    private static class PooledContext {
+        private final String userId;
+        private final BrowserContext context;
+        // 创建上下文时用户的最后登录时间，用于判断cookies是否被重新登录替换
+        private final LocalDateTime loginTime;
+        private long lastUsedAt = System.currentTimeMillis();
+        // 是否已经服务过至少一次操作，预热创建的上下文尚未完成首次导航
+        private boolean served = false;
+        // 上下文是否已被浏览器关闭
+        private volatile boolean closed = false;
+
+        PooledContext(String userId, BrowserContext context, LocalDateTime loginTime) {
+            this.userId = userId;
+            this.context = context;
+            this.loginTime = loginTime;
+        }
+
+        boolean matches(UserInfo user) {
+            return Objects.equals(loginTime, user.getLastLoginTime());
+        }
+    }
+
+    /**
+     * 浏览器槽位，持有一个Playwright连接、其启动的Chromium浏览器以及按用户缓存的上下文
+     */
+    private class BrowserSlot {
+        private final int id;
+        // 所属线程，该槽位的所有Playwright调用都在这个线程中执行
+        private final ExecutorService owner;
+        private volatile Thread ownerThread;
+        private final Playwright playwright;
+        private Browser browser;
+        // 按访问顺序排列的上下文缓存，最久未使用的在最前
+        private final Map<String, PooledContext> contexts = new LinkedHashMap<>(16, 0.75f, true);
+        // 借出时间，0表示空闲；是否对本次借出做卡死检测；最近一次页面活动时间
+        private volatile long leasedAt;
+        private volatile boolean watched;
+        private volatile long lastActivityAt;
+        // Playwright连接已被卡死检测强制关闭，槽位不能再使用
+        private volatile boolean aborted;
+        // 正在主动关闭浏览器，此时的断开不算故障
+        private volatile boolean closing;
+        // 当前浏览器的启动时间，以及其断开是否已经记为故障
+        private long launchedAt;
+        private boolean disconnectRecorded;
+        // 当前浏览器启动时使用的执行节奏配置
+        private volatile PacingProfile launchedProfile;
+        // 正在按新的执行节奏配置重启浏览器，此时的断开不算故障
+        private boolean relaunching;
+
+        BrowserSlot(int id) {
+            this.id = id;
+            this.owner = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "browser-slot-" + id);
+                thread.setDaemon(true);
+                ownerThread = thread;
+                return thread;
+            });
+            long start = System.currentTimeMillis();
+            try {
+                this.playwright = call(() -> {
+                    // 优先接管启动阶段预加载的Playwright实例，之后只在所属线程中使用
+                    Playwright preloaded = PlaywrightPreloader.take(acquireTimeoutMs);
+                    log.info("浏览器槽位[{}]Playwright实例{}，耗时{}ms", id,
+                            preloaded != null ? "接管预加载实例" : "创建成功", System.currentTimeMillis() - start);
+                    return preloaded != null ? preloaded : Playwright.create();
+                });
+            } catch (RuntimeException e) {
+                owner.shutdown();
+                throw e;
+            }
+        }
+
+        /**
+         * 在所属线程中异步执行任务
+         */
+        <T> CompletableFuture<T> submit(Callable<T> task) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            owner.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        }
+
+        /**
+         * 在所属线程中执行任务并等待结果，已在所属线程中时直接执行
+         */
+        <T> T call(Callable<T> task) {
+            if (Thread.currentThread() == ownerThread) {
+                try {
+                    return task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new PlaywrightException(e.getMessage(), e);
+                }
+            }
+            return BrowserManager.<T, RuntimeException>await(submit(task));
+        }
+
+        void run(Runnable task) {
+            call(() -> {
+                task.run();
+                return null;
+            });
+        }
+
+        /**
+         * 确认当前线程是所属线程，租约对象只能在操作内部使用
+         */
+        void checkOwnerThread() {
+            if (Thread.currentThread() != ownerThread) {
+                throw new IllegalStateException("浏览器槽位[" + id + "]只能在其所属线程中使用，当前线程: "
+                        + Thread.currentThread().getName());
+            }
+        }
+
+        /**
+         * 确保浏览器处于连接状态，断开时重新启动
+         */
+        void ensureBrowser() {
+            run(this::ensureBrowserOnOwner);
+        }
+
+        private void ensureBrowserOnOwner() {
+            if (aborted) {
+                throw new PlaywrightException("浏览器槽位[" + id + "]已因无响应被强制关闭");
+            }
+            PacingProfile profile = executionPacing.getActiveProfile();
+            if (browser != null && browser.isConnected()) {
+                if (profile.getSlowMo() != launchedProfile.getSlowMo()) {
+                    relaunchForProfile(profile);
+                } else {
+                    launchedProfile = profile;
+                }
+                return;
+            }
+            if (browser != null) {
+                recordFailure("浏览器已断开", true);
+                log.warn("浏览器槽位[{}]的浏览器已断开，重新启动", id);
+                // 浏览器断开后上下文已不可用
+                contexts.clear();
+                restartCount.incrementAndGet();
+            }
+            launch(profile);
+        }
+
+        /**
+         * 执行节奏配置的慢速模式变化后关闭当前浏览器，回写cookies后按新配置重新启动
+         */
+        private void relaunchForProfile(PacingProfile profile) {
+            log.info("浏览器槽位[{}]的执行节奏配置由{}切换为{}，重启浏览器", id, launchedProfile, profile);
+            for (String userId : new ArrayList<>(contexts.keySet())) {
+                removeContext(userId, true);
+            }
+            synchronized (this) {
+                if (!disconnectRecorded) {
+                    disconnectRecorded = true;
+                    finishedUptimeMs.addAndGet(System.currentTimeMillis() - launchedAt);
+                }
+            }
+            relaunching = true;
+            try {
+                browser.close();
+            } catch (PlaywrightException e) {
+                log.warn("关闭浏览器槽位[{}]的浏览器时出错: {}", id, e.getMessage());
+            } finally {
+                relaunching = false;
+            }
+            launch(profile);
+        }
+
+        private void launch(PacingProfile profile) {
+            long start = System.currentTimeMillis();
+            Browser launched = playwright.chromium().launch(buildLaunchOptions(profile));
+            launched.onDisconnected(b -> {
+                if (!closing && !relaunching) {
+                    recordFailure("浏览器进程意外断开", true);
+                }
+            });
+            synchronized (this) {
+                browser = launched;
+                launchedProfile = profile;
+                launchedAt = System.currentTimeMillis();
+                disconnectRecorded = false;
+            }
+            log.info("浏览器槽位[{}]启动Chromium完成，无头模式: {}，执行配置: {}，耗时{}ms",
+                    id, headless, profile, System.currentTimeMillis() - start);
+        }
+
+        void markLeased(boolean watchHang) {
+            long now = System.currentTimeMillis();
+            lastActivityAt = now;
+            watched = watchHang;
+            leasedAt = now;
+        }
+
+        void markIdle() {
+            leasedAt = 0;
+        }
+
+        /**
+         * 记录页面活动，卡死检测以最近一次活动时间为准
+         */
+        void touch() {
+            lastActivityAt = System.currentTimeMillis();
+        }
+
+        /**
+         * 借出期间距最近一次页面活动的时间，空闲或不检测时返回-1
+         */
+        long inactiveMillis(long now) {
+            long leased = leasedAt;
+            if (leased == 0 || !watched || aborted) {
+                return -1;
+            }
+            return now - Math.max(leased, lastActivityAt);
+        }
+
+        /**
+         * 当前浏览器已运行的时间，已断开并计入累计时间的返回0
+         */
+        synchronized long currentUptime(long now) {
+            return browser == null || disconnectRecorded || aborted ? 0 : now - launchedAt;
+        }
+
+        /**
+         * 记录一次故障
+         *
+         * @param browserLost 浏览器是否已不可用，同一个浏览器只记录一次，其运行时间计入累计时间
+         */
+        synchronized void recordFailure(String reason, boolean browserLost) {
+            long uptime = System.currentTimeMillis() - launchedAt;
+            if (browserLost) {
+                if (disconnectRecorded || browser == null) {
+                    return;
+                }
+                disconnectRecorded = true;
+                finishedUptimeMs.addAndGet(uptime);
+            }
+            long failures = failureCount.incrementAndGet();
+            log.warn("浏览器槽位[{}]发生故障: {}，本次已运行{}秒，累计故障{}次", id, reason, uptime / 1000, failures);
+        }
+
+        /**
+         * 强制关闭卡死的浏览器：关闭Playwright连接使持有者阻塞中的调用立即失败，槽位归还时被丢弃
+         * <p>
+         * 由监管线程调用，是唯一不经过所属线程的操作：所属线程此时正阻塞在Playwright调用中，
+         * 这里只关闭底层连接，不操作页面和浏览器。
+         */
+        void abort(long inactiveMs) {
+            synchronized (this) {
+                if (aborted) {
+                    return;
+                }
+                recordFailure(inactiveMs / 1000 + "秒没有页面活动，判定为卡死", true);
+                aborted = true;
+            }
+            log.warn("浏览器槽位[{}]已卡死，强制关闭其Playwright连接", id);
+            try {
+                playwright.close();
+            } catch (Exception e) {
+                log.warn("强制关闭浏览器槽位[{}]的Playwright连接时出错: {}", id, e.getMessage());
+            }
+        }
+
+        /**
+         * 上下文租约检测到崩溃后恢复：丢弃上下文，浏览器已断开时立即重启
+         */
+        void recover(PooledContext pooled) {
+            if (aborted) {
+                return;
+            }
+            removeContext(pooled.userId, false);
+            if (browser.isConnected()) {
+                recordFailure("用户[" + pooled.userId + "]的页面或上下文崩溃", false);
+                return;
+            }
+            try {
+                ensureBrowserOnOwner();
+            } catch (RuntimeException e) {
+                log.warn("浏览器槽位[{}]重启失败，下次借用时重试: {}", id, e.getMessage());
+            }
+        }
+
+        /**
+         * 健康检查：浏览器断开时重启，逐个检查缓存的上下文是否响应，没有上下文时创建临时上下文检查浏览器
+         */
+        void checkHealth() {
+            run(this::checkHealthOnOwner);
+        }
+
+        private void checkHealthOnOwner() {
+            if (aborted || browser == null) {
+                return;
+            }
+            try {
+                for (PooledContext pooled : new ArrayList<>(contexts.values())) {
+                    if (pooled.closed) {
+                        removeContext(pooled.userId, false);
+                        continue;
+                    }
+                    try {
+                        pooled.context.cookies();
+                    } catch (PlaywrightException e) {
+                        if (!browser.isConnected()) {
+                            throw e;
+                        }
+                        recordFailure("用户[" + pooled.userId + "]的上下文无响应: " + e.getMessage(), false);
+                        removeContext(pooled.userId, false);
+                    }
+                }
+                if (contexts.isEmpty()) {
+                    browser.newContext().close();
+                }
+            } catch (PlaywrightException e) {
+                log.warn("浏览器槽位[{}]健康检查失败: {}", id, e.getMessage());
+            }
+            if (!aborted && !browser.isConnected()) {
+                ensureBrowserOnOwner();
+            }
+        }
+
+        /**
+         * 为用户创建新的上下文并加载cookies，超过缓存上限时淘汰最久未使用的上下文，在所属线程中调用
+         */
+        PooledContext createContext(UserInfo user) {
+            while (contexts.size() >= Math.max(maxContextsPerBrowser, 1)) {
+                String eldest = contexts.keySet().iterator().next();
+                log.info("浏览器槽位[{}]上下文数量达到上限，淘汰用户[{}]的上下文", id, eldest);
+                removeContext(eldest, true);
+            }
+
+            BrowserContext context = browser.newContext();
+            context.addCookies(user.getCookies());
+            PooledContext pooled = new PooledContext(user.getUserId(), context, user.getLastLoginTime());
+            context.onClose(c -> pooled.closed = true);
+            contexts.put(user.getUserId(), pooled);
+            log.info("浏览器槽位[{}]为用户[{}]创建新上下文，当前缓存{}个", id, user.getUserId(), contexts.size());
+            return pooled;
+        }
+
+        /**
+         * 淘汰空闲超时的上下文
+         */
+        void evictIdleContexts() {
+            run(this::evictIdleContextsOnOwner);
+        }
+
+        private void evictIdleContextsOnOwner() {
+            long now = System.currentTimeMillis();
+            Iterator<PooledContext> iterator = new ArrayList<>(contexts.values()).iterator();
+            while (iterator.hasNext()) {
+                PooledContext pooled = iterator.next();
+                if (now - pooled.lastUsedAt > contextIdleTimeoutMs) {
+                    log.info("浏览器槽位[{}]中用户[{}]的上下文空闲超时", id, pooled.userId);
+                    removeContext(pooled.userId, true);
+                }
+            }
+        }
+
+        /**
+         * 移除并关闭上下文，在所属线程中调用
+         *
+         * @param writeBack 是否在关闭前将最新cookies回写到用户存储
+         */
+        void removeContext(String userId, boolean writeBack) {
+            PooledContext pooled = contexts.remove(userId);
+            if (pooled == null) {
+                return;
+            }
+            if (writeBack && !pooled.closed && browser != null && browser.isConnected()) {
+                try {
+                    List<Cookie> cookies = pooled.context.cookies();
+                    userService.updateUserCookies(userId, cookies);
+                } catch (Exception e) {
+                    log.warn("回写用户[{}]的cookies失败: {}", userId, e.getMessage());
+                }
+            }
+            try {
+                pooled.context.close();
+            } catch (Exception e) {
+                log.debug("关闭用户[{}]的上下文时出错: {}", userId, e.getMessage());
+            }
+        }
+
+        /**
+         * 在所属线程中关闭浏览器和Playwright连接，可重复调用
+         * 所属线程正在执行的操作超过等待时间仍未结束时，直接关闭Playwright连接
+         */
+        void close() {
+            synchronized (this) {
+                if (closing) {
+                    return;
+                }
+                closing = true;
+            }
+            if (Thread.currentThread() == ownerThread) {
+                closeOnOwner();
+                owner.shutdown();
+                return;
+            }
+            try {
+                submit(() -> {
+                    closeOnOwner();
+                    return null;
+                }).get(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("浏览器槽位[{}]的操作{}ms内未结束，强制关闭其Playwright连接", id, CLOSE_TIMEOUT_MS);
+                try {
+                    playwright.close();
+                } catch (Exception ex) {
+                    log.warn("强制关闭浏览器槽位[{}]的Playwright连接时出错: {}", id, ex.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | RejectedExecutionException e) {
+                log.warn("关闭浏览器槽位[{}]时出错: {}", id, e.getMessage());
+            } finally {
+                owner.shutdown();
+            }
+        }
+
+        private void closeOnOwner() {
+            if (aborted) {
+                // 连接已关闭，上下文和浏览器都不可用
+                contexts.clear();
+            }
+            for (String userId : new ArrayList<>(contexts.keySet())) {
+                removeContext(userId, true);
+            }
+            synchronized (this) {
+                if (browser != null && !disconnectRecorded && !aborted) {
+                    disconnectRecorded = true;
+                    finishedUptimeMs.addAndGet(System.currentTimeMillis() - launchedAt);
+                }
+            }
+            try {
+                if (browser != null && !aborted) {
+                    browser.close();
+                }
+            } catch (Exception e) {
+                log.warn("关闭浏览器槽位[{}]的浏览器时出错: {}", id, e.getMessage());
+            }
+            try {
+                playwright.close();
+            } catch (Exception e) {
+                log.warn("关闭浏览器槽位[{}]的Playwright时出错: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 浏览器租约，操作结束时将浏览器归还到池中，只能在操作内部使用
+     */
+    public class BrowserLease implements AutoCloseable {
+        private final BrowserSlot slot;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private BrowserLease(BrowserSlot slot) {
+            this.slot = slot;
+        }
+
+        /**
+         * 获取借用的浏览器
+         */
+        public Browser getBrowser() {
+            slot.checkOwnerThread();
+            return slot.browser;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(slot);
+            }
+        }
+    }
+
+    /**
+     * 用户上下文租约，操作结束时关闭本次打开的页面并将浏览器归还到池中，上下文保留供后续复用
+     * <p>
+     * 除 {@link #isCrashed()} 外只能在操作内部使用。
+     */
+    public class ContextLease implements AutoCloseable {
+        private final BrowserSlot slot;
+        private final PooledContext pooled;
+        private final boolean fresh;
+        private final List<Page> pages = new ArrayList<>();
+        private final List<RequestFilterStats> filterStats = new ArrayList<>();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private boolean invalidated = false;
+        // 租约期间是否有页面崩溃
+        private volatile boolean pageCrashed = false;
+        // 归还时检测到的崩溃状态
+        private boolean crashed = false;
+        // 本次操作使用的执行节奏配置、开始时间，以及首个过滤页面的操作类型，用于耗时统计
+        private final PacingProfile pacingProfile;
+        private final long openedAt = System.currentTimeMillis();
+        private OperationType operationType;
+
+        private ContextLease(BrowserSlot slot, PooledContext pooled, boolean fresh) {
+            this.slot = slot;
+            this.pooled = pooled;
+            this.fresh = fresh;
+            this.pacingProfile = slot.launchedProfile;
+        }
+
+        /**
+         * 获取已加载用户cookies的浏览器上下文
+         */
+        public BrowserContext getContext() {
+            slot.checkOwnerThread();
+            return pooled.context;
+        }
+
+        /**
+         * 在上下文中打开新页面，页面会在租约关闭时自动关闭
+         */
+        public Page newPage() {
+            slot.checkOwnerThread();
+            Page page = pooled.context.newPage();
+            // 页面的网络响应和加载事件作为活动记录，用于卡死检测
+            page.onResponse(response -> slot.touch());
+            page.onLoad(p -> slot.touch());
+            page.onCrash(p -> {
+                log.warn("用户[{}]的页面渲染进程崩溃: {}", pooled.userId, p.url());
+                pageCrashed = true;
+            });
+            pages.add(page);
+            return page;
+        }
+
+        /**
+         * 在上下文中打开新页面并按操作类型安装请求过滤策略
+         */
+        public Page newPage(OperationType operationType) {
+            Page page = newPage();
+            filterStats.add(requestFilterPolicy.apply(page, operationType));
+            if (this.operationType == null) {
+                this.operationType = operationType;
+            }
+            return page;
+        }
+
+        /**
+         * 获取最近一个过滤页面的请求统计，未使用过滤页面时返回null
+         */
+        public RequestFilterStats getFilterStats() {
+            return filterStats.isEmpty() ? null : filterStats.get(filterStats.size() - 1);
+        }
+
+        /**
+         * 本次操作使用的执行节奏配置，即浏览器启动时的配置，操作期间不会改变
+         */
+        public PacingProfile getPacingProfile() {
+            return pacingProfile;
+        }
+
+        /**
+         * 上下文是否尚未服务过任何操作，此类上下文尚未完成首次导航的cookies握手
+         */
+        public boolean isFresh() {
+            return fresh;
+        }
+
+        /**
+         * 标记上下文失效（如检测到登录已失效），归还时直接关闭且不回写cookies
+         */
+        public void invalidate() {
+            invalidated = true;
+        }
+
+        /**
+         * 页面、上下文或浏览器是否已崩溃。租约归还时会实际检查一次上下文是否响应，
+         * 因此操作失败后应在归还租约之后再判断
+         */
+        public boolean isCrashed() {
+            return released.get() ? crashed : detectCrash(false);
+        }
+
+        /**
+         * 检测崩溃状态，ping为true时通过读取cookies确认上下文仍然响应，同时处理积压的断开和关闭事件
+         */
+        private boolean detectCrash(boolean ping) {
+            if (pageCrashed || slot.aborted || pooled.closed || !slot.browser.isConnected()) {
+                return true;
+            }
+            if (!ping) {
+                return false;
+            }
+            try {
+                pooled.context.cookies();
+            } catch (PlaywrightException e) {
+                log.debug("检查用户[{}]的上下文时出错: {}", pooled.userId, e.getMessage());
+                return true;
+            }
+            return pageCrashed || pooled.closed || !slot.browser.isConnected();
+        }
+
+        @Override
+        public void close() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                for (Page page : pages) {
+                    try {
+                        if (!page.isClosed()) {
+                            page.close();
+                        }
+                    } catch (Exception e) {
+                        log.debug("关闭页面时出错: {}", e.getMessage());
+                    }
+                }
+                for (RequestFilterStats stats : filterStats) {
+                    log.info("用户[{}]{}", pooled.userId, stats.summary());
+                }
+                crashed = detectCrash(true);
+                if (operationType != null && !crashed) {
+                    executionPacing.recordRun(pacingProfile, operationType, System.currentTimeMillis() - openedAt);
+                }
+                if (crashed) {
+                    slot.recover(pooled);
+                } else if (invalidated) {
+                    slot.removeContext(pooled.userId, false);
+                } else {
+                    pooled.served = true;
+                    pooled.lastUsedAt = System.currentTimeMillis();
+                }
+            } finally {
+                release(slot);
+            }
+        }
+    }
+}
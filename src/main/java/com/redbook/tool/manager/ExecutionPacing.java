@@ -0,0 +1,115 @@
+package com.redbook.tool.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 当前生效的执行节奏配置，以及各配置下操作耗时的统计
+ * <p>
+ * 配置可以在运行时切换：新的操作立即使用新配置，浏览器的慢速模式在下次借用该浏览器时重启生效，
+ * 正在执行的操作沿用开始时的配置。
+ */
+@Slf4j
+@Component
+public class ExecutionPacing {
+
+    @Value("${app.pacing.profile:production}")
+    private String configuredProfile;
+
+    private volatile PacingProfile activeProfile = PacingProfile.PRODUCTION;
+
+    // 按配置和操作类型统计的完成次数与总耗时
+    private final Map<String, LongAdder> runCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> runMillis = new ConcurrentHashMap<>();
+
+    /**
+     * 某个配置下某类操作的耗时统计快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RunStats {
+        private final PacingProfile profile;
+        private final OperationType operationType;
+        private final long runCount;
+        private final double averageMs;
+
+        @Override
+        public String toString() {
+            return String.format("执行配置[%s]%s: 完成%d次，平均耗时%.0fms",
+                    profile, operationType.getConfigKey(), runCount, averageMs);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            activeProfile = PacingProfile.fromName(configuredProfile);
+        } catch (IllegalArgumentException e) {
+            log.warn("未知的执行节奏配置[{}]，使用{}", configuredProfile, PacingProfile.PRODUCTION);
+        }
+        log.info("执行节奏配置: {}", activeProfile);
+    }
+
+    public PacingProfile getActiveProfile() {
+        return activeProfile;
+    }
+
+    /**
+     * 切换执行节奏配置
+     */
+    public void setActiveProfile(PacingProfile profile) {
+        if (profile == null || profile == activeProfile) {
+            return;
+        }
+        log.info("执行节奏配置由{}切换为{}", activeProfile, profile);
+        activeProfile = profile;
+    }
+
+    /**
+     * 记录一次完成的浏览器操作
+     *
+     * @param profile 操作使用的配置
+     * @param operationType 操作类型
+     * @param elapsedMs 操作耗时(ms)
+     */
+    public void recordRun(PacingProfile profile, OperationType operationType, long elapsedMs) {
+        String key = key(profile, operationType);
+        runCounts.computeIfAbsent(key, k -> new LongAdder()).increment();
+        runMillis.computeIfAbsent(key, k -> new LongAdder()).add(elapsedMs);
+        log.info("操作[{}]完成，执行配置{}，耗时{}ms", operationType.getConfigKey(), profile, elapsedMs);
+    }
+
+    /**
+     * 获取各配置下各类操作的耗时统计
+     */
+    public List<RunStats> getStats() {
+        List<RunStats> stats = new ArrayList<>();
+        for (PacingProfile profile : PacingProfile.values()) {
+            for (OperationType operationType : OperationType.values()) {
+                String key = key(profile, operationType);
+                LongAdder count = runCounts.get(key);
+                if (count == null || count.sum() == 0) {
+                    continue;
+                }
+                long runs = count.sum();
+                stats.add(new RunStats(profile, operationType, runs, runMillis.get(key).sum() / (double) runs));
+            }
+        }
+        return stats;
+    }
+
+    private static String key(PacingProfile profile, OperationType operationType) {
+        return profile.name() + ":" + operationType.name();
+    }
+}
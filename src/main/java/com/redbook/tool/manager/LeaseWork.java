@@ -0,0 +1,16 @@
+package com.redbook.tool.manager;
+
+/**
+ * 在浏览器所属线程中使用租约执行的操作
+ * <p>
+ * 租约及其页面、上下文只能在操作内部使用，操作返回后租约已经归还，不能再访问Playwright对象。
+ *
+ * @param <L> 租约类型
+ * @param <T> 操作结果
+ * @param <E> 操作可能抛出的受检异常
+ */
+@FunctionalInterface
+public interface LeaseWork<L, T, E extends Exception> {
+
+    T apply(L lease) throws E;
+}
@@ -0,0 +1,32 @@
+package com.redbook.tool.manager;
+
+/**
+ * 浏览器操作类型，用于为不同操作选择请求过滤策略
+ */
+public enum OperationType {
+    /**
+     * 关键词搜索，只需要搜索结果DOM
+     */
+    SEARCH("search"),
+    /**
+     * 笔记详情，需要图片URL但不需要图片内容
+     */
+    DETAIL("detail"),
+    /**
+     * 发布笔记，需要完整加载页面
+     */
+    PUBLISH("publish");
+
+    private final String configKey;
+
+    OperationType(String configKey) {
+        this.configKey = configKey;
+    }
+
+    /**
+     * 配置项中使用的名称
+     */
+    public String getConfigKey() {
+        return configKey;
+    }
+}
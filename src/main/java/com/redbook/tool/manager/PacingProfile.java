@@ -0,0 +1,106 @@
+package com.redbook.tool.manager;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.microsoft.playwright.Page;
+import com.redbook.tool.util.CancellationToken;
+import com.redbook.tool.util.PageWaitUtil;
+
+/**
+ * 浏览器操作的执行节奏配置
+ * <p>
+ * 调试配置保留开发时便于观察的慢速模式和固定等待；生产配置不做额外等待，只等待页面条件成立；
+ * 拟人配置在页面操作之间加入随机间隔并逐字输入。
+ */
+public enum PacingProfile {
+    /**
+     * 调试：每个Playwright操作后延迟100ms，页面操作之间固定等待，滚动后等满设定时间
+     */
+    DEBUG("调试", 100, 500, 0, 0, true),
+    /**
+     * 生产：不加任何固定延迟
+     */
+    PRODUCTION("生产", 0, 0, 0, 0, false),
+    /**
+     * 拟人：页面操作之间随机等待，逐字输入文本
+     */
+    STEALTH("拟人", 20, 800, 0.5, 60, false);
+
+    private final String displayName;
+    private final double slowMo;
+    private final long actionDelayMs;
+    private final double jitter;
+    private final double typingDelayMs;
+    private final boolean fixedWaits;
+
+    PacingProfile(String displayName, double slowMo, long actionDelayMs, double jitter, double typingDelayMs,
+            boolean fixedWaits) {
+        this.displayName = displayName;
+        this.slowMo = slowMo;
+        this.actionDelayMs = actionDelayMs;
+        this.jitter = jitter;
+        this.typingDelayMs = typingDelayMs;
+        this.fixedWaits = fixedWaits;
+    }
+
+    /**
+     * 按配置项中的名称查找，忽略大小写
+     *
+     * @throws IllegalArgumentException 名称不存在时
+     */
+    public static PacingProfile fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 每个Playwright操作之后的延迟(ms)，启动浏览器时生效
+     */
+    public double getSlowMo() {
+        return slowMo;
+    }
+
+    /**
+     * 逐字输入时每个字符之间的间隔(ms)，0表示直接填入文本
+     */
+    public double getTypingDelayMs() {
+        return typingDelayMs;
+    }
+
+    /**
+     * 是否按固定时间等待页面更新，否则条件成立后立即继续
+     */
+    public boolean isFixedWaits() {
+        return fixedWaits;
+    }
+
+    /**
+     * 本次页面操作之间的间隔(ms)，按浮动比例随机变化
+     */
+    public long nextActionDelayMs() {
+        if (actionDelayMs <= 0 || jitter <= 0) {
+            return actionDelayMs;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Math.round(actionDelayMs * factor);
+    }
+
+    /**
+     * 在两步页面操作之间等待，间隔为0时立即返回
+     *
+     * @return 等待完整结束返回true，被取消返回false
+     */
+    public boolean pauseBetweenActions(Page page, CancellationToken token) {
+        long delay = nextActionDelayMs();
+        return delay <= 0 || PageWaitUtil.pause(page, delay, token);
+    }
+
+    @Override
+    public String toString() {
+        return displayName + "(" + name().toLowerCase(Locale.ROOT) + ")";
+    }
+}
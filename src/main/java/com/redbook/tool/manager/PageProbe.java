@@ -0,0 +1,133 @@
+package com.redbook.tool.manager;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.microsoft.playwright.JSHandle;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.TimeoutError;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 页面探测器，在一次页面脚本调用中检查多个页面标记
+ * <p>
+ * 登录状态探测把已登录、未登录的所有标记交给同一个 {@code waitForFunction}，
+ * 由浏览器在每一帧检查，任一标记可见即返回，不再逐个选择器轮询或串行等待。
+ */
+@Slf4j
+@Component
+public class PageProbe {
+
+    /**
+     * 已登录标记：侧边栏中的用户入口，主选择器在前，备用选择器在后
+     */
+    private static final List<String> LOGGED_IN_SELECTORS = List.of("li.user.side-bar-component", "li.user");
+
+    /**
+     * 未登录标记：侧边栏中的登录按钮
+     */
+    private static final List<String> LOGGED_OUT_SELECTORS = List.of("div.side-bar-component.login-btn", "div.login-btn");
+
+    /**
+     * 未登录时页面上出现的登录按钮文本
+     */
+    private static final String LOGIN_TEXT = "登录";
+
+    /**
+     * 在页面中检查所有标记的脚本，返回 "in:选择器" / "out:选择器" / "out:text"，都未命中时返回null以继续等待
+     */
+    private static final String LOGIN_PROBE_SCRIPT = String.join("\n",
+            "(m) => {",
+            "  const visible = (el) => !!(el && (el.offsetWidth || el.offsetHeight || el.getClientRects().length));",
+            "  for (const sel of m.loggedIn) { if (visible(document.querySelector(sel))) return 'in:' + sel; }",
+            "  for (const sel of m.loggedOut) { if (visible(document.querySelector(sel))) return 'out:' + sel; }",
+            "  const texts = document.querySelectorAll('button, a, span, div');",
+            "  for (const el of texts) {",
+            "    if (el.childElementCount === 0 && (el.textContent || '').trim() === m.loginText && visible(el)) return 'out:text';",
+            "  }",
+            "  return null;",
+            "}");
+
+    /**
+     * 登录状态
+     */
+    public enum LoginState {
+        LOGGED_IN,
+        LOGGED_OUT,
+        UNKNOWN
+    }
+
+    /**
+     * 登录状态探测结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class LoginProbeResult {
+        /**
+         * 登录状态
+         */
+        private final LoginState state;
+        /**
+         * 命中的标记，未命中时为null
+         */
+        private final String marker;
+        /**
+         * 探测耗时(ms)
+         */
+        private final long elapsedMs;
+    }
+
+    // 登录状态探测的最长等待时间，实际超时由TimeoutManager按观察到的耗时收紧
+    @Value("${app.browser.probe.login-timeout:10000}")
+    private long loginTimeoutMs;
+
+    private final TimeoutManager timeoutManager;
+
+    public PageProbe(TimeoutManager timeoutManager) {
+        this.timeoutManager = timeoutManager;
+    }
+
+    /**
+     * 探测页面的登录状态，任一已登录或未登录标记可见时立即返回
+     *
+     * @param page 已导航到小红书页面的页面对象
+     * @return 探测结果，超时未命中任何标记时状态为UNKNOWN
+     */
+    public LoginProbeResult probeLoginState(Page page) {
+        long start = System.currentTimeMillis();
+        Map<String, Object> markers = Map.of(
+                "loggedIn", LOGGED_IN_SELECTORS,
+                "loggedOut", LOGGED_OUT_SELECTORS,
+                "loginText", LOGIN_TEXT);
+
+        LoginProbeResult result;
+        try {
+            JSHandle handle = timeoutManager.await("probe", "login-state", loginTimeoutMs,
+                    timeout -> page.waitForFunction(LOGIN_PROBE_SCRIPT, markers,
+                            new Page.WaitForFunctionOptions().setTimeout(timeout)));
+            String matched = String.valueOf(handle.jsonValue());
+            handle.dispose();
+            LoginState state = matched.startsWith("in:") ? LoginState.LOGGED_IN : LoginState.LOGGED_OUT;
+            result = new LoginProbeResult(state, matched.substring(matched.indexOf(':') + 1),
+                    System.currentTimeMillis() - start);
+        } catch (TimeoutError e) {
+            result = new LoginProbeResult(LoginState.UNKNOWN, null, System.currentTimeMillis() - start);
+        } catch (PlaywrightException e) {
+            if (BrowserManager.isBrowserGone(e)) {
+                throw e;
+            }
+            log.warn("探测登录状态时出错: {}", e.getMessage());
+            result = new LoginProbeResult(LoginState.UNKNOWN, null, System.currentTimeMillis() - start);
+        }
+
+        log.info("登录状态探测结果: {}，命中标记: {}，耗时{}ms", result.getState(), result.getMarker(), result.getElapsedMs());
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package com.redbook.tool.manager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.microsoft.playwright.Playwright;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Playwright驱动预加载器
+ * <p>
+ * 在Spring上下文启动之前于后台线程中解压驱动并创建Playwright实例，
+ * 浏览器管理器创建第一个浏览器槽位时直接接管该实例，避免首次操作承担驱动冷启动的耗时。
+ */
+@Slf4j
+public final class PlaywrightPreloader {
+
+    private static final AtomicReference<CompletableFuture<Playwright>> PRELOADED = new AtomicReference<>();
+
+    private PlaywrightPreloader() {
+    }
+
+    /**
+     * 在后台线程中开始预加载，可重复调用，只会启动一次
+     */
+    public static void start() {
+        CompletableFuture<Playwright> future = new CompletableFuture<>();
+        if (!PRELOADED.compareAndSet(null, future)) {
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            try {
+                Playwright playwright = Playwright.create();
+                log.info("启动阶段[Playwright驱动预加载]耗时{}ms", System.currentTimeMillis() - start);
+                future.complete(playwright);
+            } catch (Exception e) {
+                log.warn("Playwright驱动预加载失败，将在首次使用时重新创建: {}", e.getMessage());
+                future.completeExceptionally(e);
+            }
+        }, "playwright-preloader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 取走预加载的Playwright实例，仅第一个调用者能取到
+     *
+     * @param timeoutMs 预加载尚未完成时的最长等待时间
+     * @return 预加载的实例，未启动预加载或预加载失败时返回null
+     */
+    static Playwright take(long timeoutMs) {
+        CompletableFuture<Playwright> future = PRELOADED.getAndSet(null);
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discardLater(future);
+            return null;
+        } catch (Exception e) {
+            discardLater(future);
+            return null;
+        }
+    }
+
+    /**
+     * 关闭尚未被取走的预加载实例
+     */
+    static void discard() {
+        CompletableFuture<Playwright> future = PRELOADED.getAndSet(null);
+        if (future != null) {
+            discardLater(future);
+        }
+    }
+
+    private static void discardLater(CompletableFuture<Playwright> future) {
+        future.thenAccept(playwright -> {
+            try {
+                playwright.close();
+            } catch (Exception e) {
+                log.debug("关闭预加载的Playwright实例时出错: {}", e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.redbook.tool.manager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Request;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 请求过滤策略，按操作类型中止不需要的资源请求以节省带宽和页面加载时间
+ * <p>
+ * 每种操作拦截的资源类型通过 {@code app.browser.filter.<操作>.blocked-types} 配置，
+ * 取值为Playwright的资源类型（image、media、font、stylesheet等）；
+ * {@code app.browser.filter.blocked-url-patterns} 中的URL片段（埋点、监控上报等）
+ * 对所有拦截资源的操作生效。
+ * <p>
+ * 浏览器上下文按账号缓存并在不同操作之间复用，因此路由安装在页面而不是上下文上。
+ */
+@Slf4j
+@Component
+public class RequestFilterPolicy {
+
+    @Value("${app.browser.filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.browser.filter.blocked-url-patterns:}")
+    private String blockedUrlPatterns;
+
+    private final Environment environment;
+
+    private final Map<OperationType, Set<String>> blockedTypes = new EnumMap<>(OperationType.class);
+    private List<String> urlPatterns = Collections.emptyList();
+
+    public RequestFilterPolicy(Environment environment) {
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void init() {
+        for (OperationType type : OperationType.values()) {
+            String value = environment.getProperty("app.browser.filter." + type.getConfigKey() + ".blocked-types", "");
+            blockedTypes.put(type, splitToList(value).stream().collect(Collectors.toSet()));
+        }
+        urlPatterns = splitToList(blockedUrlPatterns);
+        log.info("请求过滤策略: 启用={}，拦截资源类型={}，拦截URL片段={}", enabled, blockedTypes, urlPatterns);
+    }
+
+    /**
+     * 为页面安装请求过滤路由并开始统计
+     *
+     * @param page 新打开的页面
+     * @param operationType 操作类型
+     * @return 本次操作的过滤统计
+     */
+    public RequestFilterStats apply(Page page, OperationType operationType) {
+        RequestFilterStats stats = new RequestFilterStats(operationType);
+        Set<String> types = blockedTypes.getOrDefault(operationType, Collections.emptySet());
+
+        if (enabled && !types.isEmpty()) {
+            page.route("**/*", route -> {
+                Request request = route.request();
+                String resourceType = request.resourceType();
+                if (types.contains(resourceType)) {
+                    stats.recordBlocked(resourceType);
+                    route.abort();
+                } else if (matchesUrlPattern(request.url())) {
+                    stats.recordBlocked("tracking");
+                    route.abort();
+                } else {
+                    stats.recordAllowed();
+                    route.resume();
+                }
+            });
+        } else {
+            page.onRequest(request -> stats.recordAllowed());
+        }
+
+        page.onResponse(response -> {
+            String contentLength = response.headers().get("content-length");
+            if (contentLength != null) {
+                try {
+                    stats.recordAllowedBytes(Long.parseLong(contentLength.trim()));
+                } catch (NumberFormatException ignored) {
+                    // 非法的Content-Length不计入统计
+                }
+            }
+        });
+        return stats;
+    }
+
+    private boolean matchesUrlPattern(String url) {
+        for (String pattern : urlPatterns) {
+            if (url.contains(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> splitToList(String value) {
+        if (value == null || value.isBlank()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
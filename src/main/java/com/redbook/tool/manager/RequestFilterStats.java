@@ -0,0 +1,74 @@
+package com.redbook.tool.manager;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单次操作的请求过滤统计
+ * <p>
+ * 被拦截的请求在发出前即中止，无法得知其响应大小，因此只统计拦截数量；
+ * 放行的请求按响应头中的Content-Length累计字节数（分块传输的响应不计入）。
+ */
+public class RequestFilterStats {
+
+    private final OperationType operationType;
+    private final AtomicLong allowedRequests = new AtomicLong();
+    private final AtomicLong allowedBytes = new AtomicLong();
+    private final AtomicLong blockedRequests = new AtomicLong();
+    private final Map<String, AtomicLong> blockedByType = new ConcurrentHashMap<>();
+
+    public RequestFilterStats(OperationType operationType) {
+        this.operationType = operationType;
+    }
+
+    void recordAllowed() {
+        allowedRequests.incrementAndGet();
+    }
+
+    void recordAllowedBytes(long bytes) {
+        if (bytes > 0) {
+            allowedBytes.addAndGet(bytes);
+        }
+    }
+
+    void recordBlocked(String resourceType) {
+        blockedRequests.incrementAndGet();
+        blockedByType.computeIfAbsent(resourceType, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public OperationType getOperationType() {
+        return operationType;
+    }
+
+    public long getAllowedRequests() {
+        return allowedRequests.get();
+    }
+
+    public long getAllowedBytes() {
+        return allowedBytes.get();
+    }
+
+    public long getBlockedRequests() {
+        return blockedRequests.get();
+    }
+
+    /**
+     * 按资源类型统计的拦截数量
+     */
+    public Map<String, Long> getBlockedByType() {
+        Map<String, Long> result = new TreeMap<>();
+        blockedByType.forEach((type, count) -> result.put(type, count.get()));
+        return result;
+    }
+
+    /**
+     * 生成统计摘要
+     */
+    public String summary() {
+        return String.format("请求过滤[%s]: 放行%d个请求(%.1fKB)，拦截%d个请求%s",
+                operationType, getAllowedRequests(), getAllowedBytes() / 1024.0,
+                getBlockedRequests(), blockedByType.isEmpty() ? "" : " " + getBlockedByType());
+    }
+}
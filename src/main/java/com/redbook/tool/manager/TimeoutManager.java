@@ -0,0 +1,330 @@
+package com.redbook.tool.manager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.microsoft.playwright.ElementHandle;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.TimeoutError;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 自适应超时管理器，按操作和等待目标(登录探测、选择器等)统计等待耗时，从观察到的p99推导超时时间
+ * <p>
+ * 只用于超时后还有退路的等待，如登录探测、主选择器失效后改用备用选择器。导航、图片上传、发布结果等
+ * 超时即判定失败的等待不经过这里，保持原有的固定超时，避免平时很快的页面偶尔变慢时被误判为失败。
+ * <p>
+ * 超时时间为p99乘以(1+margin)，不小于配置的下限，也不超过调用方给出的默认值和 app.playwright.timeout。
+ * 样本不足时直接使用默认值。超时的等待只计入超时次数，不作为耗时样本，学到的超时时间因此只取决于成功等待的耗时分布；
+ * 超时次数占比超过max-timeout-rate时说明超时时间收得过紧，改用默认值，直到成功的等待把占比拉回来。
+ * 常用选择器的超时因此收紧到实际耗时附近，主选择器失效时能尽快改用备用选择器。
+ * <p>
+ * 直方图保存在repository目录下，程序重启后继续使用；关闭时按累计等待时间输出各等待目标的统计。
+ */
+@Slf4j
+@Component
+public class TimeoutManager {
+
+    private static final Path STORE_FILE = Paths.get("repository", "timeouts.json");
+
+    // 直方图桶的上界(ms)，从10ms起按1.25倍递增到120s
+    private static final long[] BUCKET_BOUNDS = buildBucketBounds();
+
+    // 每个直方图保留的样本数上限，超过后所有计数减半，使统计逐渐反映最近的情况
+    private static final long MAX_SAMPLES = 2000;
+
+    @Value("${app.timeout.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.timeout.adaptive.margin:0.5}")
+    private double margin;
+
+    @Value("${app.timeout.adaptive.min:500}")
+    private long minTimeoutMs;
+
+    @Value("${app.timeout.adaptive.min-samples:20}")
+    private int minSamples;
+
+    // 超时次数占全部等待的比例超过该值时使用默认超时
+    @Value("${app.timeout.adaptive.max-timeout-rate:0.05}")
+    private double maxTimeoutRate;
+
+    // 所有Playwright等待的最长超时时间
+    @Value("${app.playwright.timeout:30000}")
+    private long maxTimeoutMs;
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * 带超时的等待
+     */
+    @FunctionalInterface
+    public interface TimedWait<T> {
+        /**
+         * 执行等待，超时时返回null或false，或者抛出 {@link TimeoutError}
+         */
+        T await(long timeoutMs);
+    }
+
+    /**
+     * 某个等待目标的统计快照
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class TimeoutStats {
+        private final String key;
+        private final long sampleCount;
+        private final long timeoutCount;
+        private final long totalWaitMs;
+        private final long p50Ms;
+        private final long p99Ms;
+
+        @Override
+        public String toString() {
+            return String.format("%s: 等待%d次，超时%d次，累计等待%.1f秒，p50=%dms，p99=%dms",
+                    key, sampleCount, timeoutCount, totalWaitMs / 1000.0, p50Ms, p99Ms);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!Files.exists(STORE_FILE)) {
+            return;
+        }
+        try {
+            JSONObject stored = JSONUtil.parseObj(Files.readString(STORE_FILE, StandardCharsets.UTF_8));
+            for (String key : stored.keySet()) {
+                Histogram histogram = Histogram.fromJson(stored.getJSONObject(key));
+                if (histogram != null) {
+                    histograms.put(key, histogram);
+                }
+            }
+            log.info("已加载{}个等待目标的耗时直方图", histograms.size());
+        } catch (Exception e) {
+            log.warn("加载耗时直方图失败，重新开始统计: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        getStats().forEach(stats -> log.info("等待耗时统计 {}", stats));
+        JSONObject stored = new JSONObject();
+        histograms.forEach((key, histogram) -> stored.set(key, histogram.toJson()));
+        try {
+            Files.createDirectories(STORE_FILE.getParent());
+            Files.writeString(STORE_FILE, stored.toString(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("保存耗时直方图失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取等待目标当前的超时时间
+     *
+     * @param operation 操作名称，如search、detail、publish
+     * @param target 等待目标，如选择器
+     * @param defaultMs 原有的固定超时时间，样本不足时使用，同时作为上限
+     */
+    public long timeoutFor(String operation, String target, long defaultMs) {
+        long upper = Math.min(defaultMs, maxTimeoutMs);
+        Histogram histogram = histograms.get(key(operation, target));
+        if (!enabled || histogram == null || histogram.count() < minSamples
+                || histogram.timeoutRate() > maxTimeoutRate) {
+            return upper;
+        }
+        long learned = Math.round(histogram.percentile(0.99) * (1 + margin));
+        return Math.max(Math.min(minTimeoutMs, upper), Math.min(learned, upper));
+    }
+
+    /**
+     * 按学习到的超时时间执行等待并记录耗时，超时时只记录超时次数
+     *
+     * @return 等待结果
+     */
+    public <T> T await(String operation, String target, long defaultMs, TimedWait<T> wait) {
+        String key = key(operation, target);
+        long timeout = timeoutFor(operation, target, defaultMs);
+        long start = System.currentTimeMillis();
+        T result;
+        try {
+            result = wait.await(timeout);
+        } catch (TimeoutError e) {
+            record(key, timeout, true);
+            throw e;
+        }
+        boolean timedOut = result == null || Boolean.FALSE.equals(result);
+        record(key, System.currentTimeMillis() - start, timedOut);
+        return result;
+    }
+
+    /**
+     * 等待元素出现，超时抛出 {@link TimeoutError}
+     */
+    public ElementHandle waitForSelector(Page page, String operation, String selector, long defaultMs) {
+        return await(operation, selector, defaultMs,
+                timeout -> page.waitForSelector(selector, new Page.WaitForSelectorOptions().setTimeout(timeout)));
+    }
+
+    /**
+     * 记录一次不经过 {@link #await} 的操作耗时，如整个详情请求的耗时
+     */
+    public void observe(String operation, String target, long elapsedMs) {
+        record(key(operation, target), elapsedMs, false);
+    }
+
+    /**
+     * 获取观察到的耗时分位数
+     * <p>
+     * 只读取统计，不受app.timeout.adaptive.enabled影响，关闭自适应超时后对冲请求等依赖耗时分布的功能照常工作。
+     *
+     * @param quantile 分位，如0.95
+     * @return 分位数(ms)，样本不足时返回-1
+     */
+    public long percentile(String operation, String target, double quantile) {
+        Histogram histogram = histograms.get(key(operation, target));
+        if (histogram == null || histogram.count() < minSamples) {
+            return -1;
+        }
+        return histogram.percentile(quantile);
+    }
+
+    /**
+     * 获取所有等待目标的统计，累计等待时间长的在前
+     */
+    public List<TimeoutStats> getStats() {
+        List<TimeoutStats> stats = new ArrayList<>();
+        histograms.forEach((key, histogram) -> stats.add(histogram.snapshot(key)));
+        stats.sort(Comparator.comparingLong(TimeoutStats::getTotalWaitMs).reversed());
+        return stats;
+    }
+
+    private void record(String key, long elapsedMs, boolean timedOut) {
+        histograms.computeIfAbsent(key, k -> new Histogram()).add(elapsedMs, timedOut);
+    }
+
+    private static String key(String operation, String target) {
+        return operation + " " + target;
+    }
+
+    private static long[] buildBucketBounds() {
+        List<Long> bounds = new ArrayList<>();
+        double bound = 10;
+        while (bound < 120_000) {
+            bounds.add(Math.round(bound));
+            bound *= 1.25;
+        }
+        bounds.add(120_000L);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 对数分桶的耗时直方图
+     */
+    private static class Histogram {
+        // 只统计成功的等待，超时的等待只计入timeouts
+        private final long[] counts = new long[BUCKET_BOUNDS.length];
+        private long timeouts;
+        private long totalMs;
+
+        synchronized void add(long elapsedMs, boolean timedOut) {
+            totalMs += elapsedMs;
+            if (timedOut) {
+                timeouts++;
+            } else {
+                int bucket = 0;
+                while (bucket < BUCKET_BOUNDS.length - 1 && elapsedMs > BUCKET_BOUNDS[bucket]) {
+                    bucket++;
+                }
+                counts[bucket]++;
+            }
+            if (count() + timeouts > MAX_SAMPLES) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] /= 2;
+                }
+                timeouts /= 2;
+                totalMs /= 2;
+            }
+        }
+
+        synchronized long count() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        /**
+         * 超时次数占全部等待的比例
+         */
+        synchronized double timeoutRate() {
+            long total = count() + timeouts;
+            return total == 0 ? 0 : (double) timeouts / total;
+        }
+
+        /**
+         * 估算分位数，返回所在桶的上界
+         */
+        synchronized long percentile(double quantile) {
+            long total = count();
+            long threshold = (long) Math.ceil(total * quantile);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= threshold && cumulative > 0) {
+                    return BUCKET_BOUNDS[i];
+                }
+            }
+            return BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1];
+        }
+
+        synchronized TimeoutStats snapshot(String key) {
+            long total = count();
+            return new TimeoutStats(key, total + timeouts, timeouts, totalMs,
+                    total == 0 ? 0 : percentile(0.5), total == 0 ? 0 : percentile(0.99));
+        }
+
+        synchronized JSONObject toJson() {
+            return new JSONObject()
+                    .set("counts", new JSONArray(counts))
+                    .set("timeouts", timeouts)
+                    .set("totalMs", totalMs);
+        }
+
+        /**
+         * 从保存的数据恢复，桶的划分与当前不一致时返回null
+         */
+        static Histogram fromJson(JSONObject json) {
+            JSONArray stored = json.getJSONArray("counts");
+            if (stored == null || stored.size() != BUCKET_BOUNDS.length) {
+                return null;
+            }
+            Histogram histogram = new Histogram();
+            for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+                histogram.counts[i] = stored.getLong(i);
+            }
+            histogram.timeouts = json.getLong("timeouts", 0L);
+            histogram.totalMs = json.getLong("totalMs", 0L);
+            return histogram;
+        }
+    }
+}
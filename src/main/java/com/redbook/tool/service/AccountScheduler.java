@@ -0,0 +1,482 @@
+package com.redbook.tool.service;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.manager.OperationType;
+import com.redbook.tool.service.CircuitBreakerRegistry.Endpoint;
+import com.redbook.tool.util.CancellationToken;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 账号调度器，为每个账号维护每分钟令牌桶和每日配额，并在多个账号之间轮换分配搜索和详情请求
+ * <p>
+ * 自动分配时只考虑登录有效且该操作未熔断的账号，优先选择正在执行的操作最少、剩余令牌最多的账号；
+ * 指定账号时只做限流。配额计数定期写入repository目录，重启后继续累计。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountScheduler {
+
+    private static final String QUOTA_FILE = "repository/account-quota.json";
+    private static final long SAVE_INTERVAL_MS = 5000;
+    // 没有令牌可计算等待时间时(账号均在忙)的重新检查间隔
+    private static final long RECHECK_INTERVAL_MS = 5000;
+
+    private final UserService userService;
+    private final CircuitBreakerRegistry circuitBreakers;
+
+    @Value("${app.account.scheduler.enabled:true}")
+    private boolean enabled;
+
+    // 每个账号每分钟允许的操作数，同时也是令牌桶容量
+    @Value("${app.account.quota.per-minute:6}")
+    private int perMinute;
+
+    // 每个账号每天允许的操作数
+    @Value("${app.account.quota.per-day:500}")
+    private int perDay;
+
+    // 自动分配时每个账号同时执行的操作数上限
+    @Value("${app.account.scheduler.max-concurrent-per-account:1}")
+    private int maxConcurrentPerAccount;
+
+    // 等待令牌的最长时间(ms)
+    @Value("${app.account.scheduler.acquire-timeout:120000}")
+    private long acquireTimeoutMs;
+
+    private final Map<String, AccountQuota> quotas = new HashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private ScheduledExecutorService saver;
+
+    /**
+     * 单个账号的配额状态，所有字段都在调度器锁内读写
+     */
+    private static class AccountQuota {
+        double minuteTokens;
+        long lastRefillMs;
+        LocalDate day;
+        int dailyUsed;
+        int inFlight;
+    }
+
+    /**
+     * 账号使用许可，操作结束后必须关闭以释放并发占用
+     */
+    public class AccountPermit implements AutoCloseable {
+        private final String userId;
+        private final CancellationToken token;
+        private boolean closed;
+
+        private AccountPermit(String userId, CancellationToken token) {
+            this.userId = userId;
+            this.token = token;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        /**
+         * 在同一个许可下再消耗一个令牌，用于一次任务中包含多个请求的场景
+         *
+         * @return 等待超时、操作被取消或当日配额用完时返回false
+         */
+        public boolean consume() {
+            return consumeToken(userId, token);
+        }
+
+        @Override
+        public void close() {
+            synchronized (AccountScheduler.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                AccountQuota quota = quotas.get(userId);
+                if (quota != null && quota.inFlight > 0) {
+                    quota.inFlight--;
+                }
+                AccountScheduler.this.notifyAll();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        load();
+        saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "account-quota-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(this::saveIfDirty, SAVE_INTERVAL_MS, SAVE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        log.info("账号调度器已初始化: 每分钟{}次，每天{}次，自动分配时每账号并发{}", perMinute, perDay, maxConcurrentPerAccount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (saver != null) {
+            saver.shutdownNow();
+        }
+        saveIfDirty();
+    }
+
+    /**
+     * 获取账号使用许可
+     *
+     * @param userId 指定的账号ID，为空时自动选择负载最低的有效账号
+     * @param operationType 操作类型，自动分配时跳过该操作已熔断的账号
+     * @return 许可，等待超时、没有可用账号或当日配额用完时返回null
+     */
+    public AccountPermit acquire(String userId, OperationType operationType) {
+        return acquire(userId, operationType, CancellationToken.NONE);
+    }
+
+    /**
+     * 获取账号使用许可，等待期间操作被取消时返回null
+     *
+     * @param userId 指定的账号ID，为空时自动选择负载最低的有效账号
+     * @param operationType 操作类型，自动分配时跳过该操作已熔断的账号
+     * @param token 取消令牌，同时用于许可内后续令牌的等待
+     * @return 许可，等待超时、操作被取消、没有可用账号或当日配额用完时返回null
+     */
+    public AccountPermit acquire(String userId, OperationType operationType, CancellationToken token) {
+        if (token.isCancelled()) {
+            return null;
+        }
+        if (userId != null && !userId.isEmpty()) {
+            return acquireFor(userId, operationType, token);
+        }
+
+        List<String> candidates = candidatesFor(operationType, null);
+        if (candidates.isEmpty()) {
+            log.warn("没有登录有效且未熔断的账号可供{}操作分配", operationType);
+            return null;
+        }
+        if (!enabled) {
+            return new AccountPermit(candidates.get(0), token);
+        }
+
+        long deadline = System.currentTimeMillis() + acquireTimeoutMs;
+        Runnable wakeUp = this::wakeUpWaiters;
+        token.addListener(wakeUp);
+        try {
+            synchronized (this) {
+                while (true) {
+                    if (token.isCancelled()) {
+                        return null;
+                    }
+                    long now = System.currentTimeMillis();
+                    List<String> available = new ArrayList<>();
+                    boolean anyWithDailyQuota = false;
+                    long nextTokenMs = Long.MAX_VALUE;
+                    for (String candidate : candidates) {
+                        AccountQuota quota = refill(candidate, now);
+                        if (quota.dailyUsed >= perDay) {
+                            continue;
+                        }
+                        anyWithDailyQuota = true;
+                        if (quota.inFlight >= Math.max(1, maxConcurrentPerAccount)) {
+                            continue;
+                        }
+                        if (quota.minuteTokens >= 1) {
+                            available.add(candidate);
+                        } else {
+                            nextTokenMs = Math.min(nextTokenMs, millisUntilToken(quota));
+                        }
+                    }
+
+                    if (!available.isEmpty()) {
+                        String chosen = leastLoaded(available);
+                        take(chosen);
+                        log.info("为{}操作分配账号[{}]，{}", operationType, chosen, describe(chosen));
+                        return new AccountPermit(chosen, token);
+                    }
+                    if (!anyWithDailyQuota) {
+                        log.warn("所有有效账号的当日配额均已用完");
+                        return null;
+                    }
+
+                    long wait = Math.min(deadline - now, nextTokenMs == Long.MAX_VALUE ? RECHECK_INTERVAL_MS : nextTokenMs);
+                    if (deadline - now <= 0) {
+                        log.warn("等待可用账号超时({}ms)", acquireTimeoutMs);
+                        return null;
+                    }
+                    if (!await(Math.max(1, wait))) {
+                        return null;
+                    }
+                }
+            }
+        } finally {
+            token.removeListener(wakeUp);
+        }
+    }
+
+    /**
+     * 立即为操作分配另一个空闲账号，不等待令牌，用于对冲请求
+     *
+     * @param excludedUserId 正在执行原请求的账号，不会被选中
+     * @param operationType 操作类型，跳过该操作已熔断的账号
+     * @param token 取消令牌，同时用于许可内后续令牌的等待
+     * @return 许可，没有同时满足登录有效、未熔断、未在忙且有剩余令牌的账号时返回null
+     */
+    public AccountPermit tryAcquireOther(String excludedUserId, OperationType operationType, CancellationToken token) {
+        if (token.isCancelled()) {
+            return null;
+        }
+        List<String> candidates = candidatesFor(operationType, excludedUserId);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (!enabled) {
+            return new AccountPermit(candidates.get(0), token);
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            List<String> available = new ArrayList<>();
+            for (String candidate : candidates) {
+                AccountQuota quota = refill(candidate, now);
+                if (quota.dailyUsed < perDay && quota.inFlight < Math.max(1, maxConcurrentPerAccount)
+                        && quota.minuteTokens >= 1) {
+                    available.add(candidate);
+                }
+            }
+            if (available.isEmpty()) {
+                return null;
+            }
+            String chosen = leastLoaded(available);
+            take(chosen);
+            log.info("为{}操作分配备用账号[{}]，{}", operationType, chosen, describe(chosen));
+            return new AccountPermit(chosen, token);
+        }
+    }
+
+    /**
+     * 可自动分配的账号：登录有效、有cookies且该操作未熔断
+     *
+     * @param excludedUserId 需要排除的账号，可为null
+     */
+    private List<String> candidatesFor(OperationType operationType, String excludedUserId) {
+        return userService.getAllUsers().stream()
+                .filter(UserInfo::isActive)
+                .filter(u -> u.getCookies() != null && !u.getCookies().isEmpty())
+                .filter(u -> !u.getUserId().equals(excludedUserId))
+                .filter(u -> circuitBreakers.isCallPermitted(u.getUserId(), Endpoint.of(operationType)))
+                .map(UserInfo::getUserId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 选择正在执行的操作最少、剩余令牌最多的账号，必须在锁内调用
+     */
+    private String leastLoaded(List<String> available) {
+        return available.stream()
+                .min(Comparator.<String>comparingInt(id -> quotas.get(id).inFlight)
+                        .thenComparingDouble(id -> -quotas.get(id).minuteTokens)
+                        .thenComparingInt(id -> quotas.get(id).dailyUsed))
+                .get();
+    }
+
+    /**
+     * 获取指定账号的使用许可，只受令牌桶和每日配额限制
+     */
+    private AccountPermit acquireFor(String userId, OperationType operationType, CancellationToken token) {
+        if (!enabled) {
+            return new AccountPermit(userId, token);
+        }
+        if (!consumeToken(userId, token)) {
+            return null;
+        }
+        synchronized (this) {
+            quotas.get(userId).inFlight++;
+        }
+        log.info("账号[{}]执行{}操作，{}", userId, operationType, describe(userId));
+        return new AccountPermit(userId, token);
+    }
+
+    /**
+     * 等待并消耗指定账号的一个令牌，取消时不再等待
+     */
+    private boolean consumeToken(String userId, CancellationToken token) {
+        if (!enabled) {
+            return !token.isCancelled();
+        }
+        long deadline = System.currentTimeMillis() + acquireTimeoutMs;
+        Runnable wakeUp = this::wakeUpWaiters;
+        token.addListener(wakeUp);
+        try {
+            synchronized (this) {
+                while (true) {
+                    if (token.isCancelled()) {
+                        return false;
+                    }
+                    long now = System.currentTimeMillis();
+                    AccountQuota quota = refill(userId, now);
+                    if (quota.dailyUsed >= perDay) {
+                        log.warn("账号[{}]当日配额已用完({}次)", userId, perDay);
+                        return false;
+                    }
+                    if (quota.minuteTokens >= 1) {
+                        quota.minuteTokens -= 1;
+                        quota.dailyUsed++;
+                        dirty.set(true);
+                        return true;
+                    }
+                    if (deadline - now <= 0) {
+                        log.warn("账号[{}]等待令牌超时({}ms)", userId, acquireTimeoutMs);
+                        return false;
+                    }
+                    long wait = Math.min(deadline - now, millisUntilToken(quota));
+                    log.debug("账号[{}]每分钟配额已用完，等待{}ms", userId, wait);
+                    if (!await(Math.max(1, wait))) {
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            token.removeListener(wakeUp);
+        }
+    }
+
+    /**
+     * 唤醒等待令牌的线程，用于取消时让等待立即结束
+     */
+    private synchronized void wakeUpWaiters() {
+        notifyAll();
+    }
+
+    /**
+     * 当前账号配额的简要描述，用于日志
+     */
+    public synchronized String describe(String userId) {
+        AccountQuota quota = refill(userId, System.currentTimeMillis());
+        return String.format("本分钟剩余%d次，今日已用%d/%d次，进行中%d个",
+                (int) quota.minuteTokens, quota.dailyUsed, perDay, quota.inFlight);
+    }
+
+    private void take(String userId) {
+        AccountQuota quota = quotas.get(userId);
+        quota.minuteTokens -= 1;
+        quota.dailyUsed++;
+        quota.inFlight++;
+        dirty.set(true);
+    }
+
+    /**
+     * 按经过的时间补充令牌，跨天时重置每日计数，必须在锁内调用
+     */
+    private AccountQuota refill(String userId, long now) {
+        AccountQuota quota = quotas.computeIfAbsent(userId, id -> {
+            AccountQuota created = new AccountQuota();
+            created.minuteTokens = perMinute;
+            created.lastRefillMs = now;
+            created.day = LocalDate.now();
+            return created;
+        });
+        LocalDate today = LocalDate.now();
+        if (!today.equals(quota.day)) {
+            quota.day = today;
+            quota.dailyUsed = 0;
+            dirty.set(true);
+        }
+        long elapsed = now - quota.lastRefillMs;
+        if (elapsed > 0) {
+            quota.minuteTokens = Math.min(perMinute, quota.minuteTokens + elapsed * perMinute / 60000.0);
+            quota.lastRefillMs = now;
+        }
+        return quota;
+    }
+
+    private long millisUntilToken(AccountQuota quota) {
+        double missing = 1 - quota.minuteTokens;
+        return Math.max(1, (long) Math.ceil(missing * 60000.0 / Math.max(1, perMinute)));
+    }
+
+    private boolean await(long millis) {
+        try {
+            wait(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 读取保存的配额计数
+     */
+    private synchronized void load() {
+        File file = Paths.get(QUOTA_FILE).toFile();
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            JSONObject root = JSONUtil.parseObj(FileUtil.readString(file, StandardCharsets.UTF_8));
+            long now = System.currentTimeMillis();
+            for (String userId : root.keySet()) {
+                JSONObject item = root.getJSONObject(userId);
+                AccountQuota quota = new AccountQuota();
+                quota.day = LocalDate.parse(item.getStr("day", LocalDate.now().toString()));
+                quota.dailyUsed = item.getInt("dailyUsed", 0);
+                quota.minuteTokens = Math.min(perMinute, item.getDouble("minuteTokens", (double) perMinute));
+                quota.lastRefillMs = Math.min(now, item.getLong("lastRefillMs", now));
+                quotas.put(userId, quota);
+            }
+            log.info("已加载{}个账号的配额计数", quotas.size());
+        } catch (Exception e) {
+            log.warn("读取账号配额文件失败，将重新计数: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 配额有变化时写入文件
+     */
+    private void saveIfDirty() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        JSONObject root = new JSONObject();
+        synchronized (this) {
+            for (Map.Entry<String, AccountQuota> entry : quotas.entrySet()) {
+                AccountQuota quota = entry.getValue();
+                JSONObject item = new JSONObject();
+                item.set("day", quota.day.toString());
+                item.set("dailyUsed", quota.dailyUsed);
+                item.set("minuteTokens", quota.minuteTokens);
+                item.set("lastRefillMs", quota.lastRefillMs);
+                root.set(entry.getKey(), item);
+            }
+        }
+        try {
+            FileUtil.writeString(root.toStringPretty(), Paths.get(QUOTA_FILE).toFile(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            dirty.set(true);
+            log.warn("保存账号配额文件失败: {}", e.getMessage());
+        }
+    }
+}
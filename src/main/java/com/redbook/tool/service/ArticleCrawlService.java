@@ -1,28 +1,49 @@
 package com.redbook.tool.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.microsoft.playwright.Browser;
-import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.PlaywrightException;
-import com.microsoft.playwright.options.LoadState;
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.dto.SearchResultDTO;
 import com.redbook.tool.entity.NoteInfo;
 import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.manager.BrowserCrashedException;
+import com.redbook.tool.manager.BrowserManager;
+import com.redbook.tool.manager.BrowserManager.ContextLease;
+import com.redbook.tool.manager.OperationType;
+import com.redbook.tool.manager.PacingProfile;
+import com.redbook.tool.manager.PageProbe;
+import com.redbook.tool.manager.PageProbe.LoginProbeResult;
+import com.redbook.tool.manager.PageProbe.LoginState;
+import com.redbook.tool.manager.TimeoutManager;
+import com.redbook.tool.service.AccountScheduler.AccountPermit;
+import com.redbook.tool.service.CircuitBreakerRegistry.Endpoint;
+import com.redbook.tool.service.CrawlPacer.ThrottleSignal;
+import com.redbook.tool.util.CancellationToken;
+import com.redbook.tool.util.PageWaitUtil;
 
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,25 +57,64 @@ public class ArticleCrawlService {
 
     private static final String SEARCH_URL_BASE = "https://www.xiaohongshu.com/search_result?keyword=";
     
-    // 登录状态检测选择器 - 简化版，不使用data-v属性
-    private static final String LOGGED_IN_SELECTOR = "li.user.side-bar-component";
-    private static final String LOGGED_OUT_SELECTOR = "div.side-bar-component.login-btn";
-    // 备用选择器 - 更宽松的选择器
-    private static final String LOGGED_IN_SELECTOR_BACKUP = "li.user";
-    private static final String LOGGED_OUT_SELECTOR_BACKUP = "div.login-btn";
-    private static final String LOGIN_TEXT_SELECTOR = "text='登录'";
+    private final UserService userService;
+    private final BrowserManager browserManager;
+    private final PageProbe pageProbe;
+    private final AccountScheduler accountScheduler;
+    private final CrawlPacer crawlPacer;
+    private final WorkloadExecutors workloadExecutors;
+    private final TimeoutManager timeoutManager;
+    private final CircuitBreakerRegistry circuitBreakers;
     
-    // 检查超时设置
-    private static final int LOGIN_CHECK_TIMEOUT = 10000; // 总超时时间10秒
+    /**
+     * 搜索结果提取方式：api 从搜索接口响应中解析（失败时回退到DOM），dom 仅解析页面元素
+     */
+    @Value("${app.crawl.search.extraction-mode:api}")
+    private String extractionMode;
     
-    private final UserService userService;
+    /**
+     * 等待搜索接口响应的超时时间(ms)
+     */
+    @Value("${app.crawl.search.api-timeout:8000}")
+    private long searchApiTimeoutMs;
+    
+    /**
+     * 页面元素提取器：batch 单次脚本调用批量提取，legacy 逐元素提取
+     */
+    @Value("${app.crawl.search.dom-extractor:batch}")
+    private String domExtractor;
+    
+    /**
+     * 是否同时运行两种页面元素提取器并输出每页耗时对比
+     */
+    @Value("${app.crawl.search.dom-extractor-benchmark:false}")
+    private boolean domExtractorBenchmark;
+    
+    /**
+     * 默认最大笔记条数
+     */
+    @Value("${app.crawl.search.max-results:50}")
+    private int defaultMaxResults;
+    
+    /**
+     * 每次滚动后等待新结果的时间(ms)
+     */
+    @Value("${app.crawl.search.scroll-wait:2000}")
+    private long scrollWaitMs;
+    
+    /**
+     * 连续多少次滚动没有新笔记时停止加载
+     */
+    @Value("${app.crawl.search.max-idle-scrolls:3}")
+    private int maxIdleScrolls;
     
     // 定义搜索结果状态
     public enum SearchResult {
         SUCCESS,          // 搜索成功
         FAILED,           // 搜索失败
-        INTERRUPTED,      // 搜索被中断(用户手动关闭浏览器)
-        LOGIN_EXPIRED     // 登录状态已失效
+        INTERRUPTED,      // 搜索被中断(用户取消或手动关闭浏览器)
+        LOGIN_EXPIRED,    // 登录状态已失效
+        CIRCUIT_OPEN      // 账号该接口熔断中，未发送请求
     }
     
     /**
@@ -104,11 +164,59 @@ public class ArticleCrawlService {
     private static final String LIKE_COUNT_SELECTOR = "span.count";
     private static final String LIKE_COUNT_BACKUP_SELECTOR = "span[class*='count']";
     
+    /**
+     * 等待页面元素的默认超时时间(ms)，实际超时由 {@link TimeoutManager} 按观察到的耗时收紧
+     */
+    private static final long SELECTOR_TIMEOUT_MS = 5000;
+    
     /**
      * 笔记ID提取正则表达式
      */
     private static final Pattern NOTE_ID_PATTERN = Pattern.compile("/search_result/([^?]+)");
     
+    /**
+     * 作者ID提取正则表达式
+     */
+    private static final Pattern AUTHOR_ID_PATTERN = Pattern.compile("/user/profile/([^?]+)");
+    
+    /**
+     * 获取最后一个笔记项快照的页面脚本，搜索结果是虚拟列表，滚动后笔记项数量可能不变，因此同时比较内容
+     */
+    private static final String LAST_ITEM_SNAPSHOT_SCRIPT = "(s) => { const items = document.querySelectorAll(s); "
+            + "return items.length + ':' + (items.length ? items[items.length - 1].textContent : ''); }";
+    
+    /**
+     * 批量提取笔记项的页面脚本，每个字段依次尝试主选择器和备用选择器，
+     * 找不到封面链接时回退到笔记项中任意指向搜索结果的链接
+     */
+    private static final String BATCH_EXTRACT_SCRIPT = String.join("\n",
+            "(s) => {",
+            "  const first = (root, list) => {",
+            "    for (const sel of list) { const el = root.querySelector(sel); if (el) return el; }",
+            "    return null;",
+            "  };",
+            "  const text = (el) => el ? (el.textContent || '').trim() : null;",
+            "  return JSON.stringify(Array.from(document.querySelectorAll(s.item)).map(item => {",
+            "    const cover = first(item, s.cover);",
+            "    let href = cover ? cover.getAttribute('href') : null;",
+            "    if (!href) {",
+            "      const link = Array.from(item.querySelectorAll('a'))",
+            "        .find(a => (a.getAttribute('href') || '').includes('/search_result/'));",
+            "      href = link ? link.getAttribute('href') : null;",
+            "    }",
+            "    const img = cover ? cover.querySelector('img') : null;",
+            "    const author = first(item, s.author);",
+            "    return {",
+            "      href: href,",
+            "      cover: img ? img.getAttribute('src') : null,",
+            "      title: text(first(item, s.title)),",
+            "      authorHref: author ? author.getAttribute('href') : null,",
+            "      authorName: author ? text(first(author, s.authorName)) : null,",
+            "      likeCount: text(first(item, s.likeCount))",
+            "    };",
+            "  }));",
+            "}");
+    
     // 用于状态回调的函数式接口
     @FunctionalInterface
     public interface LogCallback {
@@ -124,8 +232,9 @@ public class ArticleCrawlService {
     /**
      * 使用指定用户的cookies搜索关键词，支持实时获取笔记和状态更新
      * 
-     * @param userId 要使用的用户ID
+     * @param userId 要使用的用户ID，为空时由账号调度器自动分配
      * @param keyword 搜索关键词
+     * @param maxResults 最大笔记条数，小于等于0时使用默认配置
      * @param noteConsumer 笔记消费者回调，用于实时获取爬取到的笔记
      * @param logCallback 日志回调，用于实时获取日志信息
      * @param progressCallback 进度回调，用于实时获取进度信息
@@ -134,57 +243,152 @@ public class ArticleCrawlService {
     public CompletableFuture<SearchResultDTO> searchWithUserCookies(
             String userId, 
             String keyword, 
+            int maxResults,
             Consumer<NoteInfo> noteConsumer,
             LogCallback logCallback,
             ProgressCallback progressCallback) {
+        return searchWithUserCookies(userId, keyword, maxResults, noteConsumer, logCallback, progressCallback,
+                CancellationToken.NONE);
+    }
+    
+    /**
+     * 使用指定用户的cookies搜索关键词，可以通过取消令牌中途停止
+     * <p>
+     * 取消后在当前步骤结束时停止滚动，立即归还浏览器上下文，
+     * 返回状态为INTERRUPTED并包含取消前已获取的笔记。
+     * 
+     * @param userId 要使用的用户ID，为空时由账号调度器自动分配
+     * @param keyword 搜索关键词
+     * @param maxResults 最大笔记条数，小于等于0时使用默认配置
+     * @param noteConsumer 笔记消费者回调，用于实时获取爬取到的笔记
+     * @param logCallback 日志回调，用于实时获取日志信息
+     * @param progressCallback 进度回调，用于实时获取进度信息
+     * @param token 取消令牌，为null时不可取消
+     * @return CompletableFuture<SearchResultDTO> 表示搜索操作的结果及数据
+     */
+    public CompletableFuture<SearchResultDTO> searchWithUserCookies(
+            String userId, 
+            String keyword, 
+            int maxResults,
+            Consumer<NoteInfo> noteConsumer,
+            LogCallback logCallback,
+            ProgressCallback progressCallback,
+            CancellationToken token) {
+        
+        final CancellationToken cancellation = CancellationToken.orNone(token);
+        final int resultLimit = maxResults > 0 ? maxResults : defaultMaxResults;
         
-        if (userId == null || userId.isEmpty() || keyword == null || keyword.isEmpty()) {
-            log.warn("用户ID或关键词为空，无法执行搜索");
+        if (keyword == null || keyword.isEmpty()) {
+            log.warn("关键词为空，无法执行搜索");
             if (logCallback != null) {
-                logCallback.log("用户ID或关键词为空，无法执行搜索");
+                logCallback.log("关键词为空，无法执行搜索");
             }
             return CompletableFuture.completedFuture(SearchResultDTO.failed(userId, keyword, SearchResult.FAILED));
         }
         
         return CompletableFuture.supplyAsync(() -> {
-            // 用于标记是否是用户主动关闭浏览器
-            AtomicBoolean browserClosedByUser = new AtomicBoolean(false);
-            
-            try {
-                log.info("开始使用用户[{}]搜索关键词: {}", userId, keyword);
-                if (logCallback != null) {
-                    logCallback.log("开始使用用户[" + userId + "]搜索关键词: " + keyword);
+            // 指定的账号搜索接口熔断中时直接返回，不占用配额也不启动浏览器
+            if (userId != null && !circuitBreakers.tryAcquire(userId, Endpoint.SEARCH)) {
+                return circuitOpen(userId, keyword, logCallback);
+            }
+            // 经账号调度器限流，未指定用户时由调度器选择负载最低、未熔断的有效账号
+            try (AccountPermit permit = accountScheduler.acquire(userId, OperationType.SEARCH, cancellation)) {
+                if (cancellation.isCancelled()) {
+                    circuitBreakers.release(userId, Endpoint.SEARCH);
+                    log.info("搜索[{}]在开始前已取消", keyword);
+                    return SearchResultDTO.interrupted(userId, keyword, new ArrayList<>());
                 }
-                
-                // 加载用户信息
-                UserInfo user = userService.getUserById(userId);
-                if (user == null || user.getCookies() == null || user.getCookies().isEmpty()) {
-                    log.warn("未找到用户[{}]的信息或cookies为空", userId);
+                if (permit == null) {
+                    circuitBreakers.release(userId, Endpoint.SEARCH);
+                    log.warn("没有可用的账号配额，无法执行搜索");
                     if (logCallback != null) {
-                        logCallback.log("未找到用户[" + userId + "]的信息或cookies为空");
+                        logCallback.log("没有可用的账号配额(配额已用完或等待超时)，无法执行搜索");
                     }
                     return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
                 }
-                
-                if (progressCallback != null) {
-                    progressCallback.onProgress(0, 100, "初始化浏览器...");
+                if (userId == null && !circuitBreakers.tryAcquire(permit.getUserId(), Endpoint.SEARCH)) {
+                    return circuitOpen(permit.getUserId(), keyword, logCallback);
                 }
-                
-                // 使用try-with-resources确保资源正确关闭
-                try (Playwright playwright = Playwright.create()) {
-                    // 创建浏览器实例 - 使用Chromium
-                    BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                            .setHeadless(true)  // 非无头模式，可以看到界面
-                            .setSlowMo(100);     // 减缓操作速度，便于观察
-                    
-                    try (Browser browser = playwright.chromium().launch(launchOptions)) {
-                        // 创建浏览器上下文
-                        try (BrowserContext context = browser.newContext()) {
-                            // 添加用户的cookies
-                context.addCookies(user.getCookies());
+                // 浏览器崩溃时重新搜索一次，已经输出过的笔记不再重复输出
+                Set<String> emitted = ConcurrentHashMap.newKeySet();
+                Consumer<NoteInfo> distinctConsumer = noteConsumer == null ? null : note -> {
+                    String key = note.getNoteId() != null ? note.getNoteId() : note.getNoteUrl();
+                    if (key == null || emitted.add(key)) {
+                        noteConsumer.accept(note);
+                    }
+                };
+                String accountId = permit.getUserId();
+                SearchResultDTO result = browserManager.retryOnCrash("搜索关键词[" + keyword + "]",
+                        () -> searchWithAccount(accountId, keyword, resultLimit, distinctConsumer, logCallback,
+                                progressCallback, cancellation),
+                        e -> SearchResultDTO.failed(accountId, keyword, SearchResult.FAILED));
+                circuitBreakers.onResult(accountId, Endpoint.SEARCH, result.getStatus());
+                return result;
+            }
+        }, workloadExecutors.browser());
+    }
+    
+    /**
+     * 账号搜索接口熔断中，不发送请求直接返回
+     */
+    private SearchResultDTO circuitOpen(String userId, String keyword, LogCallback logCallback) {
+        log.warn("账号[{}]搜索接口熔断中，跳过关键词: {}", userId, keyword);
+        if (logCallback != null) {
+            logCallback.log("账号[" + userId + "]搜索接口熔断中，稍后自动恢复，本次未发送请求");
+        }
+        return SearchResultDTO.failed(userId, keyword, SearchResult.CIRCUIT_OPEN);
+    }
+    
+    /**
+     * 使用已分配的账号执行搜索
+     */
+    private SearchResultDTO searchWithAccount(
+            String userId, 
+            String keyword, 
+            int resultLimit,
+            Consumer<NoteInfo> noteConsumer,
+            LogCallback logCallback,
+            ProgressCallback progressCallback,
+            CancellationToken token) {
+        // 本次借用的上下文租约，出错时用于判断浏览器是否崩溃
+        AtomicReference<ContextLease> leaseRef = new AtomicReference<>();
+        
+        try {
+            log.info("开始使用用户[{}]搜索关键词: {}", userId, keyword);
+            if (logCallback != null) {
+                logCallback.log("开始使用用户[" + userId + "]搜索关键词: " + keyword);
+            }
+            
+            // 加载用户信息
+            UserInfo user = userService.getUserById(userId);
+            if (user == null || user.getCookies() == null || user.getCookies().isEmpty()) {
+                log.warn("未找到用户[{}]的信息或cookies为空", userId);
+                if (logCallback != null) {
+                    logCallback.log("未找到用户[" + userId + "]的信息或cookies为空");
+                }
+                return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
+            }
+            
+            // 按该账号当前的速率等待后再借用浏览器，等待期间不占用浏览器，可以取消
+            if (!crawlPacer.acquire(userId, token)) {
+                log.info("搜索[{}]已取消", keyword);
+                if (logCallback != null) {
+                    logCallback.log("搜索已取消");
+                }
+                return SearchResultDTO.interrupted(userId, keyword, new ArrayList<>());
+            }
+            
+            if (progressCallback != null) {
+                progressCallback.onProgress(0, 100, "初始化浏览器...");
+            }
+            
+            // 借用该用户已登录的浏览器上下文，操作在浏览器所属线程中执行，结束后自动归还
+            return browserManager.callWithContext(user, lease -> {
+                leaseRef.set(lease);
                 
                 if (logCallback != null) {
-                    logCallback.log("浏览器初始化完成，正在加载cookies");
+                    logCallback.log(lease.isFresh() ? "浏览器初始化完成，已加载cookies" : "复用已登录的浏览器上下文");
+                    logCallback.log("执行配置: " + lease.getPacingProfile());
                 }
                 
                 // 构建搜索URL
@@ -200,60 +404,68 @@ public class ArticleCrawlService {
                 if (logCallback != null) {
                     logCallback.log("正在导航到搜索页面: " + searchUrl);
                 }
-                            
-                            // 创建新页面并导航到URL
-                            Page page = context.newPage();
                 
-                // 设置页面关闭事件监听器
-                            page.onClose(p -> {
-                    log.info("检测到页面关闭");
-                                // 页面被关闭但不是由我们的代码关闭的，视为用户手动关闭
-                        log.info("页面被用户手动关闭");
-                        if (logCallback != null) {
-                            logCallback.log("页面被用户手动关闭，搜索已中断");
-                        }
-                        browserClosedByUser.set(true);
-                });
+                // 创建新页面并导航到URL
+                Page page = lease.newPage(OperationType.SEARCH);
+                
+                // 接口捕获模式需在导航前注册响应监听
+                SearchApiCapture apiCapture = "api".equalsIgnoreCase(extractionMode)
+                        ? SearchApiCapture.attach(page) : null;
+                
+                // 导航到URL并等待加载，等待期间可以取消
+                PageWaitUtil.navigate(page, searchUrl, token);
                 
-                            // 导航到URL并等待加载
-                            page.navigate(searchUrl);
-                            page.waitForLoadState(LoadState.DOMCONTENTLOADED);
-                            
                 log.info("搜索页面加载完成");
                 if (logCallback != null) {
                     logCallback.log("搜索页面加载完成");
                 }
                 
+                // 被重定向到验证页时降速并结束本次搜索
+                if (CrawlPacer.classifyUrl(page.url()) == ThrottleSignal.CAPTCHA) {
+                    crawlPacer.onThrottle(userId, ThrottleSignal.CAPTCHA, page.url());
+                    circuitBreakers.onCaptcha(userId, Endpoint.SEARCH, page.url());
+                    log.warn("搜索页面被重定向到验证页: {}", page.url());
+                    if (logCallback != null) {
+                        logCallback.log("搜索页面被重定向到验证页，已降低请求速率，请稍后再试");
+                    }
+                    return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
+                }
+                
                 if (progressCallback != null) {
                     progressCallback.onProgress(20, 100, "检查登录状态...");
                 }
                 
-                            // 检查登录状态
+                // 检查登录状态
                 log.info("开始检查登录状态...");
                 if (logCallback != null) {
                     logCallback.log("正在检查登录状态...");
                 }
-                            
-                            Boolean isLoginExpired = checkLoginStatus(page, userId);
+                
+                LoginProbeResult loginProbe = pageProbe.probeLoginState(page);
+                if (logCallback != null) {
+                    logCallback.log("登录状态检测完成，耗时" + loginProbe.getElapsedMs() + "ms");
+                }
                 
                 // 如果无法确定状态，默认认为登录有效
-                if (isLoginExpired == null) {
+                if (loginProbe.getState() == LoginState.UNKNOWN) {
                     log.warn("无法确定用户[{}]登录状态，默认认为登录有效", userId);
                     if (logCallback != null) {
                         logCallback.log("无法确定用户登录状态，默认认为登录有效");
                     }
-                    isLoginExpired = false;
                 }
                 
                 // 如果登录已失效，则标记用户并返回
-                if (isLoginExpired) {
+                if (loginProbe.getState() == LoginState.LOGGED_OUT) {
+                    crawlPacer.onThrottle(userId, ThrottleSignal.LOGIN_WALL, page.url());
                     // 调用UserService方法标记用户登录失效
                     userService.markUserLoginExpired(user);
+                    lease.invalidate();
                     if (logCallback != null) {
                         logCallback.log("用户登录已失效，请重新登录");
                     }
                     return SearchResultDTO.failed(userId, keyword, SearchResult.LOGIN_EXPIRED);
                 }
+                token.throwIfCancelled();
                 
                 if (progressCallback != null) {
                     progressCallback.onProgress(30, 100, "开始爬取搜索结果...");
@@ -268,10 +480,7 @@ public class ArticleCrawlService {
                 // 创建计数器跟踪笔记数量，用于进度更新
                 AtomicInteger noteCounter = new AtomicInteger(0);
                 
-                // 爬取前估计结果数量（用于进度计算）
-                            final int estimatedTotal = estimateResultCount(page);
-                
-                            List<NoteInfo> noteList = crawlSearchResults(page, note -> {
+                List<NoteInfo> noteList = crawlSearchResults(page, lease.getPacingProfile(), userId, apiCapture, resultLimit, token, logCallback, note -> {
                     // 每当获取到一条笔记时，更新计数器和进度
                     int count = noteCounter.incrementAndGet();
                     
@@ -282,12 +491,12 @@ public class ArticleCrawlService {
                     
                     // 更新进度
                     if (progressCallback != null) {
-                        // 进度从30%到90%，按笔记数量比例计算
-                        int progress = 30 + (int)((count / (double)Math.max(estimatedTotal, 1)) * 60);
+                        // 进度从30%到90%，按已获取条数占最大条数的比例计算
+                        int progress = 30 + (int)((count / (double)resultLimit) * 60);
                         progressCallback.onProgress(
                             Math.min(progress, 90), 
                             100, 
-                            "已获取 " + count + " 条笔记..."
+                            "已获取 " + count + "/" + resultLimit + " 条笔记..."
                         );
                     }
                     
@@ -297,60 +506,67 @@ public class ArticleCrawlService {
                     }
                 });
                 
+                // 取消时返回已获取的笔记，操作结束后立即归还浏览器上下文
+                if (token.isCancelled()) {
+                    log.info("搜索[{}]已取消，保留已获取的{}条笔记", keyword, noteList.size());
+                    if (logCallback != null) {
+                        logCallback.log("搜索已取消，保留已获取的 " + noteList.size() + " 条笔记");
+                    }
+                    return SearchResultDTO.interrupted(userId, keyword, noteList);
+                }
+                
                 log.info("爬取到 {} 条笔记信息", noteList.size());
                 if (logCallback != null) {
                     logCallback.log("爬取完成，共获取到 " + noteList.size() + " 条笔记");
+                    if (lease.getFilterStats() != null) {
+                        logCallback.log(lease.getFilterStats().summary());
+                    }
                 }
                 
                 if (progressCallback != null) {
                     progressCallback.onProgress(100, 100, "搜索完成");
                 }
                 
-                // 预留一些时间查看页面状态
-                try {
-                                page.waitForTimeout(2000);
-                } catch (PlaywrightException e) {
-                    if (e.getMessage().contains("Target page, context or browser has been closed")) {
-                        log.info("浏览器在等待期间被关闭");
-                        if (browserClosedByUser.get()) {
-                            return SearchResultDTO.failed(userId, keyword, SearchResult.INTERRUPTED);
-                        }
-                    }
-                    throw e;
-                }
-                
                 return SearchResultDTO.success(userId, keyword, noteList);
-                        }
-                    }
-                }
-            } catch (PlaywrightException e) {
-                // 检查是否是浏览器被手动关闭的异常
-                if (e.getMessage().contains("Target page, context or browser has been closed")) {
-                    if (browserClosedByUser.get()) {
-                        log.info("搜索过程被用户中断");
-                        return SearchResultDTO.failed(userId, keyword, SearchResult.INTERRUPTED);
-                    } else {
-                        log.error("浏览器被意外关闭: {}", e.getMessage());
-                        if (logCallback != null) {
-                            logCallback.log("浏览器被意外关闭: " + e.getMessage());
-                        }
-                        return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
-                    }
-                } else {
-                    log.error("搜索过程中发生Playwright错误: {}", e.getMessage(), e);
-                    if (logCallback != null) {
-                        logCallback.log("搜索过程中发生错误: " + e.getMessage());
-                    }
-                    return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
-                }
-            } catch (Exception e) {
-                log.error("执行搜索过程中发生错误: {}", e.getMessage(), e);
+            });
+        } catch (CancellationException e) {
+            log.info("搜索[{}]已取消", keyword);
+            if (logCallback != null) {
+                logCallback.log("搜索已取消");
+            }
+            return SearchResultDTO.interrupted(userId, keyword, new ArrayList<>());
+        } catch (PlaywrightException e) {
+            // 浏览器崩溃时租约归还时已重启浏览器，交给上层重新执行
+            if (leaseRef.get() != null && leaseRef.get().isCrashed()) {
                 if (logCallback != null) {
-                    logCallback.log("执行搜索过程中发生错误: " + e.getMessage());
+                    logCallback.log("浏览器崩溃，已自动重启: " + e.getMessage());
                 }
-                return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
+                throw new BrowserCrashedException("搜索过程中浏览器崩溃", e);
             }
-        });
+            log.error("搜索过程中发生Playwright错误: {}", e.getMessage(), e);
+            if (logCallback != null) {
+                logCallback.log("搜索过程中发生错误: " + e.getMessage());
+            }
+            return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
+        } catch (Exception e) {
+            log.error("执行搜索过程中发生错误: {}", e.getMessage(), e);
+            if (logCallback != null) {
+                logCallback.log("执行搜索过程中发生错误: " + e.getMessage());
+            }
+            return SearchResultDTO.failed(userId, keyword, SearchResult.FAILED);
+        }
+    }
+    
+    /**
+     * 兼容原有方法，使用默认最大条数
+     */
+    public CompletableFuture<SearchResultDTO> searchWithUserCookies(
+            String userId, 
+            String keyword, 
+            Consumer<NoteInfo> noteConsumer,
+            LogCallback logCallback,
+            ProgressCallback progressCallback) {
+        return searchWithUserCookies(userId, keyword, 0, noteConsumer, logCallback, progressCallback);
     }
     
     /**
@@ -360,169 +576,359 @@ public class ArticleCrawlService {
             String userId, 
             String keyword, 
             Consumer<NoteInfo> noteConsumer) {
-        return searchWithUserCookies(userId, keyword, noteConsumer, null, null);
+        return searchWithUserCookies(userId, keyword, 0, noteConsumer, null, null);
     }
     
     /**
-     * 检查用户登录状态
-     * 
+     * 滚动分页爬取搜索结果，直到达到最大条数或连续多次滚动没有新笔记
+     * <p>
+     * 首屏优先从捕获的搜索接口响应中解析，未捕获到数据时改为解析页面元素，后续滚动沿用首屏的方式。
+     * 笔记按笔记ID去重，每条新笔记在发现时立即交给消费者回调。
+     * 每次滚动前按账号当前的速率等待，有新笔记时提高速率，首屏为空、接口限流或跳转验证页时降速。
+     * 取消后不再滚动，返回已获取的笔记。
+     *
      * @param page Playwright页面对象
-     * @param userId 用户ID，用于日志
-     * @return Boolean 登录是否已失效，如果无法确定则返回null
+     * @param pacing 执行节奏配置，决定滚动前的间隔以及解析页面元素时是否固定等待
+     * @param userId 当前使用的账号ID，用于节奏控制
+     * @param apiCapture 搜索接口响应捕获器，为null时直接解析DOM
+     * @param maxResults 最大笔记条数
+     * @param token 取消令牌
+     * @param logCallback 日志回调，可为null
+     * @param noteConsumer 笔记消费者回调，可为null
+     * @return 爬取到的笔记信息列表
      */
-    private Boolean checkLoginStatus(Page page, String userId) {
-        // 检查时间起点
-        final long startTime = System.currentTimeMillis();
-        final long endTime = startTime + LOGIN_CHECK_TIMEOUT;
-        
-        // 检查结果
-        boolean loggedInFound = false;
-        boolean loggedOutFound = false;
+    private List<NoteInfo> crawlSearchResults(Page page, PacingProfile pacing, String userId, SearchApiCapture apiCapture,
+            int maxResults, CancellationToken token, LogCallback logCallback, Consumer<NoteInfo> noteConsumer) {
+        Map<String, NoteInfo> seenNotes = new LinkedHashMap<>();
         
         try {
-            
-            // 循环检查，直到找到结果或超时
-            while (System.currentTimeMillis() < endTime) {
-                // 检查是否存在已登录元素 - 依次尝试两个选择器
-                try {
-                    // 检查主选择器
-                    if (page.isVisible(LOGGED_IN_SELECTOR)) {
-                        log.info("检测到已登录状态元素: {}", LOGGED_IN_SELECTOR);
-                        loggedInFound = true;
-                        break;
-                    }
-                } catch (PlaywrightException e) {
-                    // 忽略元素未找到异常，继续尝试备用选择器
-                    try {
-                        // 检查备用选择器
-                        if (page.isVisible(LOGGED_IN_SELECTOR_BACKUP)) {
-                            log.info("检测到已登录状态元素(备用): {}", LOGGED_IN_SELECTOR_BACKUP);
-                            loggedInFound = true;
-                            break;
-                        }
-                    } catch (PlaywrightException ex) {
-                        // 忽略元素未找到异常，继续检查未登录元素
-                    }
+            // 首屏结果
+            boolean apiMode = false;
+            String itemSelector = null;
+            if (apiCapture != null) {
+                apiMode = collectNewNotes(crawlFromSearchApi(page, apiCapture, token), seenNotes, maxResults, noteConsumer) > 0;
+                if (token.isCancelled()) {
+                    return new ArrayList<>(seenNotes.values());
                 }
-                
-                // 检查是否存在未登录元素 - 依次尝试两个选择器和文本
-                try {
-                    // 检查主选择器
-                    if (page.isVisible(LOGGED_OUT_SELECTOR)) {
-                        log.info("检测到未登录状态元素: {}", LOGGED_OUT_SELECTOR);
-                        loggedOutFound = true;
-                        break;
+                if (!apiMode) {
+                    log.warn("未从搜索接口获取到笔记，回退到页面元素解析");
+                    if (logCallback != null) {
+                        logCallback.log("未从搜索接口获取到笔记，改为解析页面元素");
                     }
-                } catch (PlaywrightException e) {
-                    // 忽略元素未找到异常，尝试备用选择器
                 }
-                
-                try {
-                    // 检查备用选择器
-                    if (page.isVisible(LOGGED_OUT_SELECTOR_BACKUP)) {
-                        log.info("检测到未登录状态元素(备用): {}", LOGGED_OUT_SELECTOR_BACKUP);
-                        loggedOutFound = true;
-                        break;
-                    }
-                } catch (PlaywrightException e) {
-                    // 忽略元素未找到异常，尝试文本检查
+            }
+            if (!apiMode) {
+                if (reportThrottle(page, userId, apiCapture, logCallback)) {
+                    return new ArrayList<>();
+                }
+                itemSelector = waitForNoteItems(page);
+                collectNewNotes(extractDomNotes(page, itemSelector, domExtractorBenchmark),
+                        seenNotes, maxResults, noteConsumer);
+            }
+            if (seenNotes.isEmpty()) {
+                crawlPacer.onThrottle(userId, ThrottleSignal.EMPTY_FEED, page.url());
+                if (logCallback != null) {
+                    logCallback.log("搜索首屏没有结果，已降低请求速率");
+                }
+            } else {
+                crawlPacer.onSuccess(userId);
+            }
+            
+            // 滚动加载更多结果
+            int idleScrolls = 0;
+            int round = 0;
+            while (seenNotes.size() < maxResults && idleScrolls < maxIdleScrolls && !token.isCancelled()) {
+                if (apiMode && !apiCapture.hasMore()) {
+                    log.info("搜索接口提示没有更多结果");
+                    break;
+                }
+                round++;
+                if (!crawlPacer.acquire(userId, token) || !pacing.pauseBetweenActions(page, token)) {
+                    break;
                 }
+                String lastItem = apiMode ? null : lastItemSnapshot(page, itemSelector);
+                page.evaluate("() => window.scrollBy(0, document.documentElement.scrollHeight)");
                 
-                try {
-                    // 检查登录文本
-                    if (page.isVisible(LOGIN_TEXT_SELECTOR)) {
-                        log.info("检测到'登录'文本，可能是未登录状态");
-                        loggedOutFound = true;
-                        break;
-                    }
-                } catch (PlaywrightException e) {
-                    // 忽略元素未找到异常，继续下一轮检查
+                List<NoteInfo> batch;
+                if (apiMode) {
+                    batch = apiCapture.awaitResponse(page, scrollWaitMs, token) ? apiCapture.drain() : List.of();
+                } else if (waitForMoreItems(page, pacing, itemSelector, lastItem, token)) {
+                    batch = extractDomNotes(page, itemSelector, false);
+                } else {
+                    break;
                 }
                 
-                // 短暂等待后继续检查
-                page.waitForTimeout(200);
+                if (reportThrottle(page, userId, apiCapture, logCallback)) {
+                    break;
+                }
+                int added = collectNewNotes(batch, seenNotes, maxResults, noteConsumer);
+                idleScrolls = added == 0 ? idleScrolls + 1 : 0;
+                if (added > 0) {
+                    crawlPacer.onSuccess(userId);
+                }
+                log.debug("第{}次滚动新增 {} 条笔记，累计 {} 条", round, added, seenNotes.size());
             }
             
-            // 判断结果
-            if (loggedOutFound) {
-                log.warn("用户[{}]的登录状态已失效", userId);
-                return true;
-            } else if (loggedInFound) {
-                log.info("用户[{}]的登录状态有效", userId);
-                return false;
-            } else {
-                // 超时，无法确定状态
-                log.warn("无法确定用户[{}]的登录状态，可能是页面结构已变更", userId);
-                return null;
+            if (token.isCancelled()) {
+                log.info("搜索已取消，停止滚动加载");
+            } else if (seenNotes.size() < maxResults && idleScrolls >= maxIdleScrolls) {
+                log.info("连续{}次滚动没有新笔记，停止加载", idleScrolls);
+            }
+        } catch (PlaywrightException e) {
+            // 页面关闭、浏览器崩溃等异常交由上层处理，已获取的笔记已经通过回调输出
+            if (BrowserManager.isBrowserGone(e)) {
+                throw e;
             }
+            log.error("爬取搜索结果时发生错误: {}", e.getMessage(), e);
         } catch (Exception e) {
-            log.error("检查登录状态时发生错误: {}", e.getMessage(), e);
-            return null;
+            log.error("爬取搜索结果时发生错误: {}", e.getMessage(), e);
         }
+        
+        return new ArrayList<>(seenNotes.values());
     }
     
     /**
-     * 爬取搜索结果页面的笔记信息
+     * 检查搜索接口的限流返回以及页面是否被重定向到验证页，发现时通知节奏控制器降速
      *
-     * @param page Playwright页面对象
-     * @param noteConsumer 笔记消费者回调，可为null
-     * @return 爬取到的笔记信息列表
+     * @return 页面已被重定向到验证页或登录页，应停止加载
+     */
+    private boolean reportThrottle(Page page, String userId, SearchApiCapture apiCapture, LogCallback logCallback) {
+        if (apiCapture != null) {
+            ThrottleSignal apiSignal = apiCapture.takeThrottleSignal();
+            if (apiSignal != null) {
+                crawlPacer.onThrottle(userId, apiSignal, apiCapture.getThrottleDetail());
+                if (logCallback != null) {
+                    logCallback.log("搜索接口检测到" + apiSignal.getDescription() + "(" + apiCapture.getThrottleDetail() + ")，已降低请求速率");
+                }
+            }
+        }
+        ThrottleSignal pageSignal = CrawlPacer.classifyUrl(page.url());
+        if (pageSignal != null) {
+            crawlPacer.onThrottle(userId, pageSignal, page.url());
+            if (pageSignal == ThrottleSignal.CAPTCHA) {
+                circuitBreakers.onCaptcha(userId, Endpoint.SEARCH, page.url());
+            }
+            log.warn("搜索页面被重定向: {}", page.url());
+            if (logCallback != null) {
+                logCallback.log("搜索页面检测到" + pageSignal.getDescription() + "，停止加载并降低请求速率");
+            }
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 将一批笔记按笔记ID去重后加入结果集，新笔记立即交给消费者回调
+     *
+     * @return 本批新增的笔记数量
+     */
+    private int collectNewNotes(List<NoteInfo> batch, Map<String, NoteInfo> seenNotes,
+            int maxResults, Consumer<NoteInfo> noteConsumer) {
+        int added = 0;
+        for (NoteInfo noteInfo : batch) {
+            if (seenNotes.size() >= maxResults) {
+                break;
+            }
+            String key = noteInfo.getNoteId() != null && !noteInfo.getNoteId().isEmpty()
+                    ? noteInfo.getNoteId() : noteInfo.getNoteUrl();
+            if (key == null || seenNotes.putIfAbsent(key, noteInfo) != null) {
+                continue;
+            }
+            added++;
+            if (noteConsumer != null) {
+                noteConsumer.accept(noteInfo);
+            }
+        }
+        return added;
+    }
+    
+    /**
+     * 从捕获的搜索接口响应中解析首屏笔记信息
+     */
+    private List<NoteInfo> crawlFromSearchApi(Page page, SearchApiCapture apiCapture, CancellationToken token) {
+        log.info("等待搜索接口响应...");
+        boolean received;
+        try {
+            received = timeoutManager.await("search", "search-api", searchApiTimeoutMs, timeout -> {
+                boolean arrived = apiCapture.awaitResponse(page, timeout, token);
+                token.throwIfCancelled();
+                return arrived;
+            });
+        } catch (CancellationException e) {
+            return List.of();
+        }
+        if (!received) {
+            log.warn("等待搜索接口响应超时({}ms)", timeoutManager.timeoutFor("search", "search-api", searchApiTimeoutMs));
+            return List.of();
+        }
+        List<NoteInfo> notes = apiCapture.drain();
+        log.info("从搜索接口解析到 {} 条笔记", notes.size());
+        return notes;
+    }
+    
+    /**
+     * 当前最后一个笔记项的快照，用于判断滚动后是否加载了新笔记
+     */
+    private String lastItemSnapshot(Page page, String itemSelector) {
+        return (String) page.evaluate(LAST_ITEM_SNAPSHOT_SCRIPT, itemSelector);
+    }
+    
+    /**
+     * 滚动后等待新笔记加载：调试配置固定等待，其它配置最后一个笔记项变化后立即继续，最长等待滚动等待时间
+     *
+     * @return 未被取消返回true
+     */
+    private boolean waitForMoreItems(Page page, PacingProfile pacing, String itemSelector, String lastItem,
+            CancellationToken token) {
+        if (pacing.isFixedWaits()) {
+            return PageWaitUtil.pause(page, scrollWaitMs, token);
+        }
+        try {
+            PageWaitUtil.waitForFunction(page, "([s, last]) => (" + LAST_ITEM_SNAPSHOT_SCRIPT + ")(s) !== last",
+                    Arrays.asList(itemSelector, lastItem), scrollWaitMs, token);
+        } catch (CancellationException e) {
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 等待笔记容器和笔记项加载
+     *
+     * @return 匹配到笔记项的选择器
      */
-    private List<NoteInfo> crawlSearchResults(Page page, Consumer<NoteInfo> noteConsumer) {
-        List<NoteInfo> noteList = new ArrayList<>();
+    private String waitForNoteItems(Page page) {
+        // 等待笔记容器加载 - 尝试主选择器，然后是备用选择器
+        log.info("等待笔记容器加载...");
+        try {
+            timeoutManager.waitForSelector(page, "search", FEEDS_CONTAINER_SELECTOR, SELECTOR_TIMEOUT_MS);
+            log.info("使用主选择器找到笔记容器");
+        } catch (PlaywrightException e) {
+            log.warn("使用主选择器未找到笔记容器，尝试备用选择器");
+            timeoutManager.waitForSelector(page, "search", FEEDS_CONTAINER_BACKUP_SELECTOR, SELECTOR_TIMEOUT_MS);
+            log.info("使用备用选择器找到笔记容器");
+        }
         
+        // 等待笔记项加载 - 尝试主选择器，然后是备用选择器
+        log.info("等待笔记项加载...");
         try {
-            // 等待笔记容器加载 - 尝试主选择器，然后是备用选择器
-            log.info("等待笔记容器加载...");
-            try {
-                page.waitForSelector(FEEDS_CONTAINER_SELECTOR, new Page.WaitForSelectorOptions().setTimeout(5000));
-                log.info("使用主选择器找到笔记容器");
-            } catch (PlaywrightException e) {
-                log.warn("使用主选择器未找到笔记容器，尝试备用选择器");
-                page.waitForSelector(FEEDS_CONTAINER_BACKUP_SELECTOR, new Page.WaitForSelectorOptions().setTimeout(5000));
-                log.info("使用备用选择器找到笔记容器");
+            timeoutManager.waitForSelector(page, "search", NOTE_ITEM_SELECTOR, SELECTOR_TIMEOUT_MS);
+            log.info("使用主选择器找到笔记项");
+            return NOTE_ITEM_SELECTOR;
+        } catch (PlaywrightException e) {
+            log.warn("使用主选择器未找到笔记项，尝试备用选择器");
+            timeoutManager.waitForSelector(page, "search", NOTE_ITEM_BACKUP_SELECTOR, SELECTOR_TIMEOUT_MS);
+            log.info("使用备用选择器找到笔记项");
+            return NOTE_ITEM_BACKUP_SELECTOR;
+        }
+    }
+    
+    /**
+     * 使用配置的提取器解析当前页面上的笔记项
+     *
+     * @param page Playwright页面对象
+     * @param itemSelector 已确认存在的笔记项选择器
+     * @param benchmark 是否同时运行另一种提取器并输出耗时对比
+     * @return 笔记信息列表
+     */
+    private List<NoteInfo> extractDomNotes(Page page, String itemSelector, boolean benchmark) {
+        boolean legacy = "legacy".equalsIgnoreCase(domExtractor);
+        long start = System.nanoTime();
+        List<NoteInfo> extracted = legacy
+                ? extractNotesWithElementHandles(page, itemSelector)
+                : extractNotesWithBatchScript(page, itemSelector);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("{}提取器解析 {} 条笔记，耗时{}ms", legacy ? "逐元素" : "批量脚本", extracted.size(), elapsedMs);
+        
+        // 对比模式下用另一种提取器再解析一遍，输出两者每页耗时
+        if (benchmark) {
+            long otherStart = System.nanoTime();
+            int otherCount = legacy
+                    ? extractNotesWithBatchScript(page, itemSelector).size()
+                    : extractNotesWithElementHandles(page, itemSelector).size();
+            long otherMs = (System.nanoTime() - otherStart) / 1_000_000;
+            log.info("提取器耗时对比(ms/页): 逐元素={}({}条), 批量脚本={}({}条)",
+                    legacy ? elapsedMs : otherMs, legacy ? extracted.size() : otherCount,
+                    legacy ? otherMs : elapsedMs, legacy ? otherCount : extracted.size());
+        }
+        
+        if (extracted.isEmpty()) {
+            log.warn("未找到任何笔记项，可能是页面结构已变更或搜索结果为空");
+        }
+        return extracted;
+    }
+    
+    /**
+     * 通过一次页面脚本调用提取页面上所有笔记项，脚本以JSON数组字符串返回结果
+     *
+     * @param page Playwright页面对象
+     * @param itemSelector 已确认存在的笔记项选择器
+     * @return 笔记信息列表
+     */
+    private List<NoteInfo> extractNotesWithBatchScript(Page page, String itemSelector) {
+        Map<String, Object> selectors = new HashMap<>();
+        selectors.put("item", itemSelector);
+        selectors.put("cover", List.of(COVER_LINK_SELECTOR, COVER_LINK_BACKUP_SELECTOR));
+        selectors.put("title", List.of(TITLE_SELECTOR, TITLE_BACKUP_SELECTOR));
+        selectors.put("author", List.of(AUTHOR_SELECTOR, AUTHOR_BACKUP_SELECTOR));
+        selectors.put("authorName", List.of(AUTHOR_NAME_SELECTOR, AUTHOR_NAME_BACKUP_SELECTOR));
+        selectors.put("likeCount", List.of(LIKE_COUNT_SELECTOR, LIKE_COUNT_BACKUP_SELECTOR));
+        
+        String json = (String) page.evaluate(BATCH_EXTRACT_SCRIPT, selectors);
+        List<NoteInfo> notes = new ArrayList<>();
+        JSONArray items = JSONUtil.parseArray(json);
+        for (int i = 0; i < items.size(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            String href = item.getStr("href", "");
+            if (href.isEmpty()) {
+                log.warn("无法找到笔记链接，跳过此笔记");
+                continue;
             }
             
-            // 等待笔记项加载 - 尝试主选择器，然后是备用选择器
-            log.info("等待笔记项加载...");
-            List<ElementHandle> noteItems = null;
-            try {
-                page.waitForSelector(NOTE_ITEM_SELECTOR, new Page.WaitForSelectorOptions().setTimeout(5000));
-                noteItems = page.querySelectorAll(NOTE_ITEM_SELECTOR);
-                log.info("使用主选择器找到 {} 个笔记项", noteItems.size());
-            } catch (PlaywrightException e) {
-                log.warn("使用主选择器未找到笔记项，尝试备用选择器");
-                page.waitForSelector(NOTE_ITEM_BACKUP_SELECTOR, new Page.WaitForSelectorOptions().setTimeout(5000));
-                noteItems = page.querySelectorAll(NOTE_ITEM_BACKUP_SELECTOR);
-                log.info("使用备用选择器找到 {} 个笔记项", noteItems.size());
+            String noteId = "";
+            Matcher matcher = NOTE_ID_PATTERN.matcher(href);
+            if (matcher.find()) {
+                noteId = matcher.group(1);
             }
             
-            if (noteItems == null || noteItems.isEmpty()) {
-                log.warn("未找到任何笔记项，可能是页面结构已变更或搜索结果为空");
-                return noteList;
+            String authorHref = item.getStr("authorHref", "");
+            String authorId = "";
+            Matcher authorMatcher = AUTHOR_ID_PATTERN.matcher(authorHref);
+            if (authorMatcher.find()) {
+                authorId = authorMatcher.group(1);
             }
             
-            // 遍历并解析每个笔记项
-            for (ElementHandle noteItem : noteItems) {
-                try {
-                    NoteInfo noteInfo = extractNoteInfo(noteItem);
-                    if (noteInfo != null) {
-                        noteList.add(noteInfo);
-                        
-                        // 如果有消费者回调，实时通知新的笔记信息
-                        if (noteConsumer != null) {
-                            noteConsumer.accept(noteInfo);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.warn("解析笔记项时发生错误: {}", e.getMessage(), e);
+            notes.add(NoteInfo.builder()
+                    .noteId(noteId)
+                    .noteUrl(REDBOOK_BASE_URL + href)
+                    .title(item.getStr("title", "未获取到标题"))
+                    .coverImageUrl(item.getStr("cover", ""))
+                    .authorId(authorId)
+                    .authorUrl(authorHref.isEmpty() ? "" : REDBOOK_BASE_URL + authorHref)
+                    .authorName(item.getStr("authorName", "未获取到作者"))
+                    .likeCount(item.getStr("likeCount", "0"))
+                    .build());
+        }
+        return notes;
+    }
+    
+    /**
+     * 逐个笔记项元素提取笔记信息，每条笔记需要多次IPC调用，保留用于对比和兜底
+     */
+    private List<NoteInfo> extractNotesWithElementHandles(Page page, String itemSelector) {
+        List<NoteInfo> notes = new ArrayList<>();
+        List<ElementHandle> noteItems = page.querySelectorAll(itemSelector);
+        for (ElementHandle noteItem : noteItems) {
+            try {
+                NoteInfo noteInfo = extractNoteInfo(noteItem);
+                if (noteInfo != null) {
+                    notes.add(noteInfo);
                 }
+            } catch (Exception e) {
+                log.warn("解析笔记项时发生错误: {}", e.getMessage(), e);
             }
-        } catch (Exception e) {
-            log.error("爬取搜索结果时发生错误: {}", e.getMessage(), e);
         }
-        
-        return noteList;
+        return notes;
     }
     
     /**
@@ -632,8 +1038,7 @@ public class ArticleCrawlService {
                     authorUrl = REDBOOK_BASE_URL + authorHref;
                     
                     // 提取作者ID
-                    Pattern authorIdPattern = Pattern.compile("/user/profile/([^?]+)");
-                    Matcher authorMatcher = authorIdPattern.matcher(authorHref);
+                    Matcher authorMatcher = AUTHOR_ID_PATTERN.matcher(authorHref);
                     if (authorMatcher.find()) {
                         authorId = authorMatcher.group(1);
                     }
@@ -693,43 +1098,4 @@ public class ArticleCrawlService {
             return null;
         }
     }
-    
-    /**
-     * 估计搜索结果的数量，用于更准确的进度计算
-     */
-    private int estimateResultCount(Page page) {
-        try {
-            // 尝试查找分页信息或者结果计数元素
-            String[] selectors = {
-                "div.page-count", // 常见的分页计数元素
-                "span.result-count", // 结果数量元素
-                "div.pagination"  // 分页容器
-            };
-            
-            for (String selector : selectors) {
-                try {
-                    ElementHandle element = page.querySelector(selector);
-                    if (element != null) {
-                        String text = element.textContent();
-                        // 尝试从文本中提取数字
-                        if (text != null && !text.isEmpty()) {
-                            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("\\d+");
-                            java.util.regex.Matcher matcher = pattern.matcher(text);
-                            if (matcher.find()) {
-                                return Integer.parseInt(matcher.group());
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    // 忽略单个选择器的错误，继续尝试下一个
-                }
-            }
-            
-            // 如果无法确定，默认估计20条结果
-            return 20;
-        } catch (Exception e) {
-            log.debug("估计结果数量失败: {}", e.getMessage());
-            return 20; // 默认值
-        }
-    }
 } 
\ No newline at end of file
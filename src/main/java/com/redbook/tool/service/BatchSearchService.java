@@ -0,0 +1,290 @@
+package com.redbook.tool.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.redbook.tool.config.WorkloadExecutors;
+import com.redbook.tool.dto.SearchResultDTO;
+import com.redbook.tool.entity.NoteInfo;
+import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.service.ArticleCrawlService.LogCallback;
+import com.redbook.tool.service.ArticleCrawlService.SearchResult;
+import com.redbook.tool.util.CancellationToken;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 批量关键词搜索服务，将多个关键词分配给一个或多个账号执行
+ * <p>
+ * 所有关键词放在同一个队列中，每个账号按并发上限启动若干工作线程从队列中领取关键词，
+ * 先完成的账号自动多领；笔记按笔记ID全局去重，每个关键词完成后立即报告其吞吐量。
+ * 未指定账号时按有效账号数启动工作线程，每个关键词由账号调度器分配账号。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchSearchService {
+
+    private final ArticleCrawlService articleCrawlService;
+    private final UserService userService;
+    private final WorkloadExecutors workloadExecutors;
+
+    // 每个账号同时执行的搜索数
+    @Value("${app.crawl.batch.per-account-concurrency:1}")
+    private int perAccountConcurrency;
+
+    /**
+     * 单个关键词的执行报告
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class KeywordReport {
+        private final String keyword;
+        private final String userId;
+        private final SearchResult status;
+        /**
+         * 该关键词搜索到的笔记数，含与其它关键词重复的笔记
+         */
+        private final int fetchedCount;
+        /**
+         * 去重后新增的笔记数
+         */
+        private final int newCount;
+        private final long elapsedMs;
+
+        /**
+         * 每分钟获取的笔记数
+         */
+        public double getNotesPerMinute() {
+            return elapsedMs <= 0 ? 0 : fetchedCount * 60000.0 / elapsedMs;
+        }
+    }
+
+    /**
+     * 批量搜索汇总
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BatchSummary {
+        private final int keywordCount;
+        private final int succeededKeywords;
+        private final int uniqueNotes;
+        private final long elapsedMs;
+        private final List<KeywordReport> reports;
+    }
+
+    /**
+     * 执行批量关键词搜索
+     *
+     * @param keywords 关键词列表，重复的关键词只搜索一次
+     * @param userIds 参与搜索的账号ID，为空时由账号调度器在所有有效账号间自动分配
+     * @param maxResultsPerKeyword 每个关键词的最大条数，小于等于0时使用默认值
+     * @param noteConsumer 去重后的新笔记回调，在工作线程中调用
+     * @param reportCallback 单个关键词完成时的回调，在工作线程中调用
+     * @param logCallback 日志回调
+     * @return CompletableFuture<BatchSummary> 全部关键词完成后的汇总
+     */
+    public CompletableFuture<BatchSummary> runBatchSearch(
+            List<String> keywords,
+            List<String> userIds,
+            int maxResultsPerKeyword,
+            Consumer<NoteInfo> noteConsumer,
+            Consumer<KeywordReport> reportCallback,
+            LogCallback logCallback) {
+        return runBatchSearch(keywords, userIds, maxResultsPerKeyword, noteConsumer, reportCallback, logCallback,
+                CancellationToken.NONE);
+    }
+
+    /**
+     * 执行可取消的批量关键词搜索，取消后正在搜索的关键词返回已获取的部分结果，未开始的关键词记为中断
+     *
+     * @param token 取消令牌，为null时不可取消
+     * @see #runBatchSearch(List, List, int, Consumer, Consumer, LogCallback)
+     */
+    public CompletableFuture<BatchSummary> runBatchSearch(
+            List<String> keywords,
+            List<String> userIds,
+            int maxResultsPerKeyword,
+            Consumer<NoteInfo> noteConsumer,
+            Consumer<KeywordReport> reportCallback,
+            LogCallback logCallback,
+            CancellationToken token) {
+
+        CancellationToken cancellation = CancellationToken.orNone(token);
+
+        List<String> keywordList = keywords == null ? new ArrayList<>() : new ArrayList<>(new LinkedHashSet<>(keywords));
+        List<String> accountList = userIds == null ? new ArrayList<>() : new ArrayList<>(new LinkedHashSet<>(userIds));
+        if (keywordList.isEmpty()) {
+            log.warn("关键词列表为空，无法执行批量搜索");
+            if (logCallback != null) {
+                logCallback.log("关键词列表为空，无法执行批量搜索");
+            }
+            return CompletableFuture.completedFuture(new BatchSummary(keywordList.size(), 0, 0, 0, new ArrayList<>()));
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            int concurrency = Math.max(1, perAccountConcurrency);
+            ConcurrentLinkedDeque<String> queue = new ConcurrentLinkedDeque<>(keywordList);
+            Set<String> seenNoteIds = ConcurrentHashMap.newKeySet();
+            List<KeywordReport> reports = new ArrayList<>();
+            // 登录失效的关键词只重新入队一次，避免所有账号都失效时无限循环
+            Set<String> requeued = ConcurrentHashMap.newKeySet();
+
+            // 自动分配模式下每个工作线程的账号为null，由调度器为每个关键词选择账号
+            boolean autoAssign = accountList.isEmpty();
+            if (autoAssign) {
+                long activeCount = userService.getAllUsers().stream().filter(UserInfo::isActive).count();
+                for (long i = 0; i < Math.max(1, activeCount); i++) {
+                    accountList.add(null);
+                }
+            }
+
+            log.info("开始批量搜索: {}个关键词，{}{}个账号，每个账号并发{}", keywordList.size(),
+                    autoAssign ? "自动分配" : "", accountList.size(), concurrency);
+            if (logCallback != null) {
+                logCallback.log(String.format("开始批量搜索: %d个关键词，%s%d个账号，每个账号并发%d",
+                        keywordList.size(), autoAssign ? "自动分配" : "", accountList.size(), concurrency));
+            }
+
+            // 工作线程共用受监控的I/O线程池，每个账号的工作线程数即该账号的并发上限
+            List<CompletableFuture<Void>> workers = new ArrayList<>();
+            for (String userId : accountList) {
+                AtomicBoolean accountExpired = new AtomicBoolean(false);
+                for (int i = 0; i < concurrency; i++) {
+                    CompletableFuture<Void> worker;
+                    try {
+                        worker = CompletableFuture.runAsync(() -> {
+                            String keyword;
+                            while (!accountExpired.get() && !cancellation.isCancelled()
+                                    && (keyword = queue.poll()) != null) {
+                                KeywordReport report = searchKeyword(userId, keyword, maxResultsPerKeyword,
+                                        seenNoteIds, noteConsumer, logCallback, cancellation);
+                                if (report.getStatus() == SearchResult.LOGIN_EXPIRED
+                                        || report.getStatus() == SearchResult.CIRCUIT_OPEN) {
+                                    // 自动分配时失效或熔断的账号不会再被调度器选中，工作线程继续
+                                    accountExpired.set(userId != null);
+                                    if (requeued.add(keyword)) {
+                                        queue.addFirst(keyword);
+                                        if (logCallback != null) {
+                                            logCallback.log("账号[" + report.getUserId() + "]"
+                                                    + (report.getStatus() == SearchResult.CIRCUIT_OPEN ? "搜索接口熔断中" : "登录已失效")
+                                                    + "，关键词[" + keyword + "]交给其它账号");
+                                        }
+                                        continue;
+                                    }
+                                }
+                                synchronized (reports) {
+                                    reports.add(report);
+                                }
+                                if (reportCallback != null) {
+                                    try {
+                                        reportCallback.accept(report);
+                                    } catch (Exception e) {
+                                        log.warn("处理关键词[{}]报告时出错: {}", keyword, e.getMessage());
+                                    }
+                                }
+                            }
+                        }, workloadExecutors.io());
+                    } catch (RejectedExecutionException e) {
+                        // 未能启动的工作线程不影响其它工作线程领取关键词
+                        log.warn("I/O线程池繁忙，少启动一个批量搜索工作线程");
+                        continue;
+                    }
+                    workers.add(worker.exceptionally(e -> {
+                        log.warn("批量搜索工作线程出错: {}", e.getMessage());
+                        return null;
+                    }));
+                }
+            }
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).join();
+
+            // 取消后未开始的关键词记为中断，否则是账号失效或熔断后未能被其它账号领取的关键词，记为登录失效
+            SearchResult leftoverStatus = cancellation.isCancelled() ? SearchResult.INTERRUPTED : SearchResult.LOGIN_EXPIRED;
+            String keyword;
+            while ((keyword = queue.poll()) != null) {
+                KeywordReport report = new KeywordReport(keyword, null, leftoverStatus, 0, 0, 0);
+                reports.add(report);
+                if (reportCallback != null) {
+                    reportCallback.accept(report);
+                }
+            }
+
+            int succeeded = (int) reports.stream().filter(r -> r.getStatus() == SearchResult.SUCCESS).count();
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("批量搜索完成: {}/{}个关键词成功，去重后共{}条笔记，耗时{}ms",
+                    succeeded, keywordList.size(), seenNoteIds.size(), elapsed);
+            if (logCallback != null) {
+                logCallback.log(String.format("批量搜索完成: %d/%d个关键词成功，去重后共%d条笔记，耗时%.1f秒",
+                        succeeded, keywordList.size(), seenNoteIds.size(), elapsed / 1000.0));
+            }
+            return new BatchSummary(keywordList.size(), succeeded, seenNoteIds.size(), elapsed, reports);
+        }, workloadExecutors.io());
+    }
+
+    /**
+     * 使用指定账号搜索单个关键词，只把未出现过的笔记交给回调
+     */
+    private KeywordReport searchKeyword(String userId, String keyword, int maxResults,
+            Set<String> seenNoteIds, Consumer<NoteInfo> noteConsumer, LogCallback logCallback,
+            CancellationToken token) {
+        long start = System.currentTimeMillis();
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicInteger added = new AtomicInteger();
+
+        if (logCallback != null) {
+            logCallback.log((userId != null ? "账号[" + userId + "]" : "") + "开始搜索关键词: " + keyword);
+        }
+
+        SearchResult status;
+        String usedUserId = userId;
+        try {
+            SearchResultDTO result = articleCrawlService.searchWithUserCookies(userId, keyword, maxResults,
+                    note -> {
+                        fetched.incrementAndGet();
+                        String noteId = note.getNoteId() != null ? note.getNoteId() : note.getNoteUrl();
+                        if (noteId != null && seenNoteIds.add(noteId)) {
+                            added.incrementAndGet();
+                            if (noteConsumer != null) {
+                                noteConsumer.accept(note);
+                            }
+                        }
+                    },
+                    null, null, token).join();
+            status = result.getStatus();
+            if (result.getUserId() != null) {
+                usedUserId = result.getUserId();
+            }
+        } catch (Exception e) {
+            log.error("关键词[{}]搜索时发生错误: {}", keyword, e.getMessage(), e);
+            status = SearchResult.FAILED;
+        }
+
+        KeywordReport report = new KeywordReport(keyword, usedUserId, status, fetched.get(), added.get(),
+                System.currentTimeMillis() - start);
+        log.info("关键词[{}]完成: 状态{}，获取{}条，新增{}条，耗时{}ms，{}条/分钟", keyword, status,
+                report.getFetchedCount(), report.getNewCount(), report.getElapsedMs(),
+                String.format("%.1f", report.getNotesPerMinute()));
+        if (logCallback != null) {
+            logCallback.log(String.format("关键词[%s]完成: %s，获取%d条，新增%d条，耗时%.1f秒，%.1f条/分钟",
+                    keyword, status, report.getFetchedCount(), report.getNewCount(),
+                    report.getElapsedMs() / 1000.0, report.getNotesPerMinute()));
+        }
+        return report;
+    }
+}
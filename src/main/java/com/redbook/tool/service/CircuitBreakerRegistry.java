@@ -0,0 +1,464 @@
+package com.redbook.tool.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.redbook.tool.manager.OperationType;
+import com.redbook.tool.service.ArticleCrawlService.SearchResult;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按账号和接口(搜索、详情、发布、用户信息接口)划分的熔断器
+ * <p>
+ * 同一账号的同一接口连续失败或连续遇到验证码达到阈值后熔断，熔断期间的请求直接返回，不再启动浏览器等待超时。
+ * 熔断时间到后由定时任务转为半开状态，半开状态只放行一个试探请求：成功则恢复，失败则重新熔断并加倍熔断时间。
+ * 账号重新登录成功后清除该账号的全部熔断状态。状态变化通过监听器通知界面。
+ */
+@Slf4j
+@Service
+public class CircuitBreakerRegistry {
+
+    // 界面提示中熔断原因的最大长度
+    private static final int REASON_MAX_LENGTH = 60;
+
+    @Value("${app.circuit.enabled:true}")
+    private boolean enabled;
+
+    // 连续失败多少次后熔断
+    @Value("${app.circuit.failure-threshold:3}")
+    private int failureThreshold;
+
+    // 连续遇到多少次验证码后熔断
+    @Value("${app.circuit.captcha-threshold:2}")
+    private int captchaThreshold;
+
+    // 首次熔断的时间(ms)，试探失败后加倍
+    @Value("${app.circuit.open-duration:300000}")
+    private long openDurationMs;
+
+    // 熔断时间的上限(ms)
+    @Value("${app.circuit.max-open-duration:1800000}")
+    private long maxOpenDurationMs;
+
+    // 试探请求的最长占用时间(ms)，超过后未返回结果的试探不再阻止新的试探
+    @Value("${app.circuit.probe-timeout:180000}")
+    private long probeTimeoutMs;
+
+    // 检查熔断是否到期的间隔(ms)
+    @Value("${app.circuit.check-interval:5000}")
+    private long checkIntervalMs;
+
+    private final Map<String, Map<Endpoint, Breaker>> breakers = new HashMap<>();
+    private final List<Consumer<BreakerEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "circuit-breaker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 受熔断保护的接口
+     */
+    public enum Endpoint {
+        SEARCH("搜索"),
+        DETAIL("详情"),
+        PUBLISH("发布"),
+        USER_ME("登录校验");
+
+        private final String displayName;
+
+        Endpoint(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * 浏览器操作类型对应的接口
+         */
+        public static Endpoint of(OperationType operationType) {
+            switch (operationType) {
+                case SEARCH:
+                    return SEARCH;
+                case DETAIL:
+                    return DETAIL;
+                default:
+                    return PUBLISH;
+            }
+        }
+    }
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED("正常"),
+        OPEN("熔断"),
+        HALF_OPEN("试探");
+
+        private final String displayName;
+
+        State(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 熔断器状态变化事件
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class BreakerEvent {
+        private final String userId;
+        private final Endpoint endpoint;
+        private final State previousState;
+        private final State state;
+        /**
+         * 熔断原因，恢复时为null
+         */
+        private final String reason;
+    }
+
+    /**
+     * 单个账号单个接口的熔断状态，所有字段都在注册表锁内读写
+     */
+    private static class Breaker {
+        State state = State.CLOSED;
+        int consecutiveFailures;
+        int consecutiveCaptchas;
+        long openUntilMs;
+        long currentOpenMs;
+        long probeStartedMs;
+        String reason;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::halfOpenExpired, checkIntervalMs, checkIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 请求前检查是否放行，半开状态下放行的请求即为试探请求，必须随后记录结果或调用 {@link #release}
+     *
+     * @return 放行返回true，熔断中返回false
+     */
+    public boolean tryAcquire(String userId, Endpoint endpoint) {
+        if (!enabled || userId == null) {
+            return true;
+        }
+        synchronized (this) {
+            Breaker breaker = breakerOf(userId, endpoint);
+            long now = System.currentTimeMillis();
+            switch (breaker.state) {
+                case OPEN:
+                    return false;
+                case HALF_OPEN:
+                    if (breaker.probeStartedMs > 0 && now - breaker.probeStartedMs < probeTimeoutMs) {
+                        return false;
+                    }
+                    breaker.probeStartedMs = now;
+                    log.info("账号[{}]{}接口放行试探请求", userId, endpoint.getDisplayName());
+                    return true;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * 检查是否会放行请求，不占用半开状态的试探名额，用于自动分配账号时筛选
+     */
+    public synchronized boolean isCallPermitted(String userId, Endpoint endpoint) {
+        if (!enabled || userId == null) {
+            return true;
+        }
+        Breaker breaker = lookup(userId, endpoint);
+        if (breaker == null || breaker.state == State.CLOSED) {
+            return true;
+        }
+        return breaker.state == State.HALF_OPEN
+                && (breaker.probeStartedMs == 0 || System.currentTimeMillis() - breaker.probeStartedMs >= probeTimeoutMs);
+    }
+
+    /**
+     * 是否处于熔断状态(不含半开)
+     */
+    public synchronized boolean isOpen(String userId, Endpoint endpoint) {
+        Breaker breaker = enabled && userId != null ? lookup(userId, endpoint) : null;
+        return breaker != null && breaker.state == State.OPEN;
+    }
+
+    /**
+     * 放弃已放行但没有结果的请求(被取消、没有执行等)，半开状态下允许下一个试探
+     */
+    public synchronized void release(String userId, Endpoint endpoint) {
+        Breaker breaker = enabled && userId != null ? lookup(userId, endpoint) : null;
+        if (breaker != null) {
+            breaker.probeStartedMs = 0;
+        }
+    }
+
+    /**
+     * 记录一次成功的请求，清零连续失败计数，半开状态下恢复正常
+     */
+    public void onSuccess(String userId, Endpoint endpoint) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        BreakerEvent event = null;
+        synchronized (this) {
+            Breaker breaker = lookup(userId, endpoint);
+            if (breaker == null) {
+                return;
+            }
+            breaker.consecutiveFailures = 0;
+            breaker.consecutiveCaptchas = 0;
+            breaker.probeStartedMs = 0;
+            if (breaker.state != State.CLOSED) {
+                event = new BreakerEvent(userId, endpoint, breaker.state, State.CLOSED, null);
+                breaker.state = State.CLOSED;
+                breaker.currentOpenMs = 0;
+                breaker.reason = null;
+            }
+        }
+        if (event != null) {
+            log.info("账号[{}]{}接口试探成功，熔断已恢复", userId, endpoint.getDisplayName());
+            publish(event);
+        }
+    }
+
+    /**
+     * 记录一次失败的请求，连续失败达到阈值或试探失败时熔断
+     *
+     * @param reason 失败原因，用于界面提示
+     */
+    public void onFailure(String userId, Endpoint endpoint, String reason) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        BreakerEvent event;
+        synchronized (this) {
+            Breaker breaker = breakerOf(userId, endpoint);
+            breaker.consecutiveFailures++;
+            if (breaker.state == State.OPEN
+                    || (breaker.state == State.CLOSED && breaker.consecutiveFailures < failureThreshold)) {
+                return;
+            }
+            event = trip(userId, endpoint, breaker, "连续失败" + breaker.consecutiveFailures + "次"
+                    + (reason != null ? ": " + brief(reason) : ""));
+        }
+        publish(event);
+    }
+
+    /**
+     * 记录一次验证码/人机验证，连续次数达到阈值或试探时遇到验证码时熔断
+     *
+     * @param detail 验证页URL等详情，可为null
+     */
+    public void onCaptcha(String userId, Endpoint endpoint, String detail) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        BreakerEvent event;
+        synchronized (this) {
+            Breaker breaker = breakerOf(userId, endpoint);
+            breaker.consecutiveCaptchas++;
+            if (breaker.state == State.OPEN
+                    || (breaker.state == State.CLOSED && breaker.consecutiveCaptchas < captchaThreshold)) {
+                return;
+            }
+            event = trip(userId, endpoint, breaker, "连续遇到验证码" + breaker.consecutiveCaptchas + "次"
+                    + (detail != null ? ": " + brief(detail) : ""));
+        }
+        publish(event);
+    }
+
+    /**
+     * 按搜索或详情的结果状态记录：成功、失败分别计数，登录失效时cookies已被清除，取消等不计入
+     */
+    public void onResult(String userId, Endpoint endpoint, SearchResult status) {
+        if (status == SearchResult.SUCCESS) {
+            onSuccess(userId, endpoint);
+        } else if (status == SearchResult.FAILED) {
+            onFailure(userId, endpoint, null);
+        } else {
+            release(userId, endpoint);
+        }
+    }
+
+    /**
+     * 清除账号全部接口的熔断状态，账号重新登录成功后调用
+     */
+    public void reset(String userId) {
+        if (userId == null) {
+            return;
+        }
+        List<BreakerEvent> events = new ArrayList<>();
+        synchronized (this) {
+            Map<Endpoint, Breaker> removed = breakers.remove(userId);
+            if (removed == null) {
+                return;
+            }
+            removed.forEach((endpoint, breaker) -> {
+                if (breaker.state != State.CLOSED) {
+                    events.add(new BreakerEvent(userId, endpoint, breaker.state, State.CLOSED, null));
+                }
+            });
+        }
+        if (!events.isEmpty()) {
+            log.info("账号[{}]重新登录成功，已清除熔断状态", userId);
+        }
+        events.forEach(this::publish);
+    }
+
+    /**
+     * 获取账号各接口中不处于正常状态的熔断器状态
+     */
+    public synchronized Map<Endpoint, State> getStates(String userId) {
+        Map<Endpoint, State> states = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, Breaker> userBreakers = userId != null ? breakers.get(userId) : null;
+        if (userBreakers != null) {
+            userBreakers.forEach((endpoint, breaker) -> {
+                if (breaker.state != State.CLOSED) {
+                    states.put(endpoint, breaker.state);
+                }
+            });
+        }
+        return states;
+    }
+
+    /**
+     * 账号熔断状态的文字说明，每个接口一行，全部正常时返回null
+     */
+    public synchronized String describe(String userId) {
+        Map<Endpoint, Breaker> userBreakers = userId != null ? breakers.get(userId) : null;
+        if (userBreakers == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        StringBuilder text = new StringBuilder();
+        for (Endpoint endpoint : Endpoint.values()) {
+            Breaker breaker = userBreakers.get(endpoint);
+            if (breaker == null || breaker.state == State.CLOSED) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(endpoint.getDisplayName()).append(": ").append(breaker.state.getDisplayName());
+            if (breaker.state == State.OPEN) {
+                text.append("，").append(Math.max(0, (breaker.openUntilMs - now + 59999) / 60000)).append("分钟后试探");
+            }
+            if (breaker.reason != null) {
+                text.append("(").append(breaker.reason).append(")");
+            }
+        }
+        return text.length() > 0 ? text.toString() : null;
+    }
+
+    /**
+     * 注册状态变化监听器，回调在触发变化的工作线程或定时线程中执行
+     */
+    public void addListener(Consumer<BreakerEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<BreakerEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 熔断，试探失败后熔断时间加倍
+     */
+    private BreakerEvent trip(String userId, Endpoint endpoint, Breaker breaker, String reason) {
+        State previous = breaker.state;
+        breaker.currentOpenMs = breaker.currentOpenMs == 0
+                ? openDurationMs : Math.min(maxOpenDurationMs, breaker.currentOpenMs * 2);
+        breaker.state = State.OPEN;
+        breaker.openUntilMs = System.currentTimeMillis() + breaker.currentOpenMs;
+        breaker.probeStartedMs = 0;
+        breaker.reason = reason;
+        log.warn("账号[{}]{}接口{}，熔断{}秒", userId, endpoint.getDisplayName(), reason, breaker.currentOpenMs / 1000);
+        return new BreakerEvent(userId, endpoint, previous, State.OPEN, reason);
+    }
+
+    /**
+     * 熔断时间到期的转为半开状态，等待下一个请求试探
+     */
+    private void halfOpenExpired() {
+        List<BreakerEvent> events = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            breakers.forEach((userId, userBreakers) -> userBreakers.forEach((endpoint, breaker) -> {
+                if (breaker.state == State.OPEN && now >= breaker.openUntilMs) {
+                    breaker.state = State.HALF_OPEN;
+                    breaker.consecutiveFailures = 0;
+                    breaker.consecutiveCaptchas = 0;
+                    events.add(new BreakerEvent(userId, endpoint, State.OPEN, State.HALF_OPEN, breaker.reason));
+                }
+            }));
+        }
+        for (BreakerEvent event : events) {
+            log.info("账号[{}]{}接口熔断到期，允许试探", event.getUserId(), event.getEndpoint().getDisplayName());
+            publish(event);
+        }
+    }
+
+    /**
+     * 取原因的第一行并截断，Playwright的异常信息通常包含多行调用日志
+     */
+    private static String brief(String reason) {
+        String firstLine = reason.lines().findFirst().orElse("").trim();
+        return firstLine.length() > REASON_MAX_LENGTH ? firstLine.substring(0, REASON_MAX_LENGTH) + "..." : firstLine;
+    }
+
+    private Breaker breakerOf(String userId, Endpoint endpoint) {
+        return breakers.computeIfAbsent(userId, key -> new EnumMap<>(Endpoint.class))
+                .computeIfAbsent(endpoint, key -> new Breaker());
+    }
+
+    private Breaker lookup(String userId, Endpoint endpoint) {
+        Map<Endpoint, Breaker> userBreakers = breakers.get(userId);
+        return userBreakers != null ? userBreakers.get(endpoint) : null;
+    }
+
+    private void publish(BreakerEvent event) {
+        for (Consumer<BreakerEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.warn("处理熔断状态变化事件时出错: {}", e.getMessage());
+            }
+        }
+    }
+}
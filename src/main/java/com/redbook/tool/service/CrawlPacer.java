@@ -0,0 +1,339 @@
+package com.redbook.tool.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.redbook.tool.util.CancellationToken;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 爬取节奏控制器，按账号自适应调整搜索翻页、详情页等请求的发送速率(AIMD)
+ * <p>
+ * 请求正常时每次成功按固定步长加快速率，直到上限；遇到验证码/人机验证页、空结果、
+ * 接口限流状态码或跳转登录页等信号时按比例降低速率，并在冷却期内不再加速。
+ * 同一个请求间隔内的多次限流信号只降速一次，避免并发页面同时触发时速率瞬间降到下限。
+ * 速率变化通过监听器通知界面。
+ * <p>
+ * 降速后间隔可达数十秒，调用方应在借用浏览器上下文之前调用 {@link #acquire} 等待；
+ * 已占用浏览器时只用 {@link #tryAcquire} 获取立即可用的请求位置，不在浏览器所属线程中等待。
+ */
+@Slf4j
+@Service
+public class CrawlPacer {
+
+    // 未指定账号时使用的节奏键
+    private static final String DEFAULT_KEY = "default";
+
+    @Value("${app.pacing.enabled:true}")
+    private boolean enabled;
+
+    // 初始速率(次/分钟)
+    @Value("${app.pacing.initial-rate:20}")
+    private double initialRate;
+
+    // 降速后的最低速率(次/分钟)
+    @Value("${app.pacing.min-rate:2}")
+    private double minRate;
+
+    // 加速的上限(次/分钟)
+    @Value("${app.pacing.max-rate:60}")
+    private double maxRate;
+
+    // 每次成功请求增加的速率(次/分钟)
+    @Value("${app.pacing.additive-increase:0.5}")
+    private double additiveIncrease;
+
+    // 遇到限流信号时速率乘以的系数
+    @Value("${app.pacing.backoff-factor:0.5}")
+    private double backoffFactor;
+
+    // 降速后暂停加速的时间(ms)
+    @Value("${app.pacing.cooldown:30000}")
+    private long cooldownMs;
+
+    private final Map<String, PaceState> states = new HashMap<>();
+    private final List<Consumer<PacingEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 限流信号
+     */
+    public enum ThrottleSignal {
+        CAPTCHA("验证码/人机验证"),
+        EMPTY_FEED("返回空结果"),
+        RATE_LIMITED("接口限流"),
+        LOGIN_WALL("跳转登录页");
+
+        private final String description;
+
+        ThrottleSignal(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 速率变化事件类型
+     */
+    public enum EventType {
+        INCREASE,   // 请求正常，速率提高
+        BACKOFF     // 遇到限流信号，速率降低
+    }
+
+    /**
+     * 速率变化事件
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PacingEvent {
+        private final String userId;
+        private final EventType type;
+        /**
+         * 触发降速的信号，加速事件为null
+         */
+        private final ThrottleSignal signal;
+        private final double previousRate;
+        private final double rate;
+        private final String detail;
+    }
+
+    /**
+     * 单个账号的节奏状态，所有字段都在控制器锁内读写
+     */
+    private static class PaceState {
+        double rate;
+        long nextAllowedMs;
+        long lastBackoffMs;
+    }
+
+    /**
+     * 等待到该账号允许发送下一个请求的时间并占用这个时间点
+     *
+     * @param userId 账号ID，可为null
+     */
+    public void acquire(String userId) {
+        acquire(userId, CancellationToken.NONE);
+    }
+
+    /**
+     * 等待到该账号允许发送下一个请求的时间，取消时立即返回
+     *
+     * @param userId 账号ID，可为null
+     * @param token 取消令牌
+     * @return 等待完整结束返回true，被取消返回false
+     */
+    public boolean acquire(String userId, CancellationToken token) {
+        if (!enabled) {
+            return !token.isCancelled();
+        }
+        long waitMs;
+        synchronized (this) {
+            PaceState state = stateOf(userId);
+            long now = System.currentTimeMillis();
+            long slot = Math.max(now, state.nextAllowedMs);
+            state.nextAllowedMs = slot + intervalMs(state.rate);
+            waitMs = slot - now;
+        }
+        if (waitMs <= 0) {
+            return !token.isCancelled();
+        }
+        log.debug("账号[{}]按当前速率等待{}ms", keyOf(userId), waitMs);
+        return token.sleep(waitMs);
+    }
+
+    /**
+     * 该账号当前允许立即发送请求时占用这个请求位置，否则直接返回，不等待
+     *
+     * @param userId 账号ID，可为null
+     * @return 是否已占用请求位置，返回false时应释放浏览器后再调用 {@link #acquire} 等待
+     */
+    public boolean tryAcquire(String userId) {
+        if (!enabled) {
+            return true;
+        }
+        synchronized (this) {
+            PaceState state = stateOf(userId);
+            long now = System.currentTimeMillis();
+            if (state.nextAllowedMs > now) {
+                return false;
+            }
+            state.nextAllowedMs = now + intervalMs(state.rate);
+            return true;
+        }
+    }
+
+    /**
+     * 记录一次正常的请求，冷却期过后按步长提高速率
+     *
+     * @param userId 账号ID，可为null
+     */
+    public void onSuccess(String userId) {
+        if (!enabled) {
+            return;
+        }
+        PacingEvent event;
+        synchronized (this) {
+            PaceState state = stateOf(userId);
+            long now = System.currentTimeMillis();
+            if (state.rate >= maxRate || now - state.lastBackoffMs < cooldownMs) {
+                return;
+            }
+            double previous = state.rate;
+            state.rate = Math.min(maxRate, state.rate + additiveIncrease);
+            event = new PacingEvent(keyOf(userId), EventType.INCREASE, null, previous, state.rate, null);
+        }
+        publish(event);
+    }
+
+    /**
+     * 记录一次限流信号，按比例降低速率并推迟下一个请求
+     *
+     * @param userId 账号ID，可为null
+     * @param signal 限流信号
+     * @param detail 信号详情，如URL或接口返回码，可为null
+     */
+    public void onThrottle(String userId, ThrottleSignal signal, String detail) {
+        if (!enabled || signal == null) {
+            return;
+        }
+        PacingEvent event;
+        synchronized (this) {
+            PaceState state = stateOf(userId);
+            long now = System.currentTimeMillis();
+            // 同一个请求间隔内的重复信号来自同一轮请求，只降速一次
+            if (now - state.lastBackoffMs < intervalMs(state.rate)) {
+                log.debug("账号[{}]在同一间隔内再次收到限流信号({})，不重复降速", keyOf(userId), signal);
+                return;
+            }
+            double previous = state.rate;
+            state.rate = Math.max(minRate, state.rate * backoffFactor);
+            state.lastBackoffMs = now;
+            state.nextAllowedMs = Math.max(state.nextAllowedMs, now + intervalMs(state.rate));
+            event = new PacingEvent(keyOf(userId), EventType.BACKOFF, signal, previous, state.rate, detail);
+        }
+        log.warn("账号[{}]遇到{}，速率从{}降至{}次/分钟{}", event.getUserId(), signal.getDescription(),
+                String.format("%.1f", event.getPreviousRate()), String.format("%.1f", event.getRate()),
+                detail != null ? ": " + detail : "");
+        publish(event);
+    }
+
+    /**
+     * 获取账号当前的速率(次/分钟)
+     */
+    public synchronized double getRate(String userId) {
+        PaceState state = states.get(keyOf(userId));
+        return state != null ? state.rate : initialRate;
+    }
+
+    /**
+     * 获取所有账号当前速率的快照
+     */
+    public synchronized Map<String, Double> snapshot() {
+        Map<String, Double> rates = new HashMap<>();
+        states.forEach((key, state) -> rates.put(key, state.rate));
+        return rates;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 注册速率变化监听器，回调在发生变化的工作线程中执行
+     */
+    public void addListener(Consumer<PacingEvent> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<PacingEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 根据页面或响应的URL判断是否被重定向到验证页或登录页
+     *
+     * @return 对应的限流信号，正常页面返回null
+     */
+    public static ThrottleSignal classifyUrl(String url) {
+        if (url == null) {
+            return null;
+        }
+        String lower = url.toLowerCase();
+        int query = lower.indexOf('?');
+        String path = query >= 0 ? lower.substring(0, query) : lower;
+        if (path.contains("captcha") || path.contains("verify") || path.contains("/website-login/error")) {
+            return ThrottleSignal.CAPTCHA;
+        }
+        if (path.contains("/login")) {
+            return ThrottleSignal.LOGIN_WALL;
+        }
+        return null;
+    }
+
+    /**
+     * 根据HTTP状态码判断是否被限流：461/471为需要人机验证，429为请求过于频繁
+     *
+     * @return 对应的限流信号，其它状态码返回null
+     */
+    public static ThrottleSignal classifyStatus(int status) {
+        if (status == 461 || status == 471) {
+            return ThrottleSignal.CAPTCHA;
+        }
+        if (status == 429) {
+            return ThrottleSignal.RATE_LIMITED;
+        }
+        return null;
+    }
+
+    /**
+     * 根据网页版接口返回的业务码判断是否被限流：-100为登录失效，300011~300015为访问频次异常或账号/IP风控
+     *
+     * @return 对应的限流信号，其它业务码返回null
+     */
+    public static ThrottleSignal classifyApiCode(int code) {
+        if (code == -100) {
+            return ThrottleSignal.LOGIN_WALL;
+        }
+        if (code >= 300011 && code <= 300015) {
+            return ThrottleSignal.RATE_LIMITED;
+        }
+        return null;
+    }
+
+    private PaceState stateOf(String userId) {
+        return states.computeIfAbsent(keyOf(userId), key -> {
+            PaceState state = new PaceState();
+            state.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+            return state;
+        });
+    }
+
+    private static String keyOf(String userId) {
+        return userId == null || userId.isEmpty() ? DEFAULT_KEY : userId;
+    }
+
+    private static long intervalMs(double rate) {
+        return (long) (60000 / Math.max(rate, 0.1));
+    }
+
+    private void publish(PacingEvent event) {
+        for (Consumer<PacingEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.warn("处理速率变化事件时出错: {}", e.getMessage());
+            }
+        }
+    }
+}
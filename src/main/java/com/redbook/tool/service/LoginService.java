@@ -2,26 +2,37 @@ package com.redbook.tool.service;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.APIResponse;
 import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.Route;
 import com.microsoft.playwright.options.Cookie;
 import com.microsoft.playwright.options.LoadState;
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.entity.LoginResult;
 import com.redbook.tool.entity.UserInfo;
 import com.redbook.tool.entity.UserInfoResponse;
+import com.redbook.tool.manager.BrowserManager;
+import com.redbook.tool.service.CircuitBreakerRegistry.Endpoint;
 
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -40,6 +51,58 @@ public class LoginService {
     
     // 添加UserService依赖
     private final UserService userService;
+    // 共享浏览器管理器
+    private final BrowserManager browserManager;
+    // 用户信息接口客户端
+    private final UserMeClient userMeClient;
+    // 账号接口熔断器
+    private final CircuitBreakerRegistry circuitBreakers;
+    // 共享的工作负载执行器
+    private final WorkloadExecutors workloadExecutors;
+    
+    // 是否先通过用户信息接口校验cookies
+    @Value("${app.login.api-check.enabled:true}")
+    private boolean apiCheckEnabled;
+    
+    // 批量续期时同时校验的账号数
+    @Value("${app.login.renew-all.concurrency:4}")
+    private int renewAllConcurrency;
+    
+    /**
+     * 单个账号的续期结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RenewResult {
+        private final String userId;
+        /**
+         * 续期后重新读取的用户信息，读取失败时为原用户信息
+         */
+        private final UserInfo user;
+        private final boolean success;
+        /**
+         * 单个账号校验耗时(ms)
+         */
+        private final long elapsedMs;
+    }
+    
+    /**
+     * 批量续期汇总
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RenewSummary {
+        private final int total;
+        private final int successCount;
+        /**
+         * 批量续期总耗时(ms)
+         */
+        private final long elapsedMs;
+        
+        public double getSuccessRate() {
+            return total == 0 ? 0 : successCount * 100.0 / total;
+        }
+    }
 
     /**
      * 检查登录状态并尝试登录
@@ -141,6 +204,38 @@ public class LoginService {
             log.warn("用户信息或cookies为空，无法尝试登录");
             return false;
         }
+        
+        // 先通过本地过期检查和一次用户信息接口请求校验，无法确定时再打开浏览器；接口熔断时直接使用浏览器
+        if (apiCheckEnabled && circuitBreakers.tryAcquire(user.getUserId(), Endpoint.USER_ME)) {
+            UserMeClient.Result apiResult = userMeClient.check(user.getCookies());
+            log.info("用户[{}]接口校验结果: {}，耗时{}ms", user.getNickname(), apiResult.getStatus(), apiResult.getElapsedMs());
+            // 接口给出明确结论即视为接口正常，无法确定(网络错误、需要签名等)计为一次失败
+            if (apiResult.getStatus() == UserMeClient.Status.UNKNOWN) {
+                circuitBreakers.onFailure(user.getUserId(), Endpoint.USER_ME, "接口无法确定登录状态");
+            } else {
+                circuitBreakers.onSuccess(user.getUserId(), Endpoint.USER_ME);
+            }
+            if (apiResult.getStatus() == UserMeClient.Status.VALID) {
+                try {
+                    user.setActive(true);
+                    user.setLastLoginTime(LocalDateTime.now());
+                    applyUserInfoResponse(user, apiResult.getUserInfo());
+                    userService.saveUserInfo(user);
+                    circuitBreakers.reset(user.getUserId());
+                    return true;
+                } catch (IOException e) {
+                    log.error("保存用户信息时发生错误: {}", e.getMessage(), e);
+                    return false;
+                }
+            }
+            if (apiResult.getStatus() == UserMeClient.Status.INVALID) {
+                userService.markUserLoginExpired(user);
+                return false;
+            }
+            log.info("接口校验无法确定用户[{}]的登录状态，改用浏览器校验", user.getNickname());
+        } else if (apiCheckEnabled) {
+            log.info("用户[{}]的用户信息接口熔断中，直接使用浏览器校验", user.getNickname());
+        }
             
             // 使用原子类来标记状态
             AtomicBoolean loginSuccess = new AtomicBoolean(false);
@@ -149,14 +244,10 @@ public class LoginService {
             // 捕获用户信息响应
             UserInfoResponse[] userInfoData = new UserInfoResponse[1];
         
-        try (Playwright playwright = Playwright.create()) {
-            // 创建浏览器和上下文
-            BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                    .setHeadless(true)  // 非无头模式，可以看到界面
-                    .setSlowMo(100);     // 减缓操作速度，便于观察
-                    
-            try (Browser browser = playwright.chromium().launch(launchOptions)) {
-                try (BrowserContext context = browser.newContext()) {
+        // 从浏览器池借用浏览器，页面操作在浏览器所属线程中执行
+        try {
+            return browserManager.callWithBrowser(lease -> {
+                try (BrowserContext context = lease.getBrowser().newContext()) {
                     // 添加用户的cookies
                     context.addCookies(user.getCookies());
             
@@ -173,59 +264,38 @@ public class LoginService {
                 
                 log.info("拦截到用户信息API请求(v2版本): {}", route.request().url());
                 
-                // 使用fetch获取响应
+                // 使用fetch获取响应，之后用同一个响应完成请求，避免接口被请求两次
+                APIResponse apiResponse;
+                try {
+                    apiResponse = route.fetch();
+                } catch (Exception e) {
+                    log.error("获取用户信息响应时出错: {}", e.getMessage(), e);
+                    route.resume();
+                    return;
+                }
+                
                 try {
-                    com.microsoft.playwright.APIResponse apiResponse = route.fetch();
                     String responseText = apiResponse.text();
                     log.info("获取到响应内容: {}", responseText);
                     
                     // 解析响应
                     JSONObject jsonObject = JSONUtil.parseObj(responseText);
-                    log.info("解析响应JSON: {}", jsonObject.toString());
-                    
-                    // 检查响应状态
-                    if (jsonObject.containsKey("success") && jsonObject.getBool("success", false)) {
-                        if (jsonObject.containsKey("data")) {
-                            JSONObject data = jsonObject.getJSONObject("data");
-                            
-                            // 检查是否为guest用户，guest=true表示游客模式
-                            if (data.containsKey("guest") && data.getBool("guest", false)) {
-                                log.info("检测到游客模式用户，需要完成登录");
-                                route.resume();
-                                return;
-                            }
-                            
-                            UserInfoResponse infoResponse = new UserInfoResponse();
-                            
-                            // 正确匹配API字段 - 使用 user_id而不是userId
-                            if (data.containsKey("user_id")) infoResponse.setUserId(data.getStr("user_id"));
-                            if (data.containsKey("nickname")) infoResponse.setNickname(data.getStr("nickname"));
-                            if (data.containsKey("desc")) infoResponse.setDesc(data.getStr("desc"));
-                            if (data.containsKey("gender")) infoResponse.setGender(data.getInt("gender", 0));
-                            if (data.containsKey("image")) infoResponse.setImages(data.getStr("image"));
-                            if (data.containsKey("images")) infoResponse.setImages(data.getStr("images")); // 尝试两种可能的字段名
-                            if (data.containsKey("imageb")) infoResponse.setImageb(data.getStr("imageb"));
-                            if (data.containsKey("red_id")) infoResponse.setRedId(data.getStr("red_id"));
-                            if (data.containsKey("redId")) infoResponse.setRedId(data.getStr("redId")); // 尝试两种可能的字段名
-                            
-                            // 确保至少有用户ID和昵称，才认为有效
-                            if (infoResponse.getUserId() != null && !infoResponse.getUserId().isEmpty()) {
-                                userInfoData[0] = infoResponse;
-                                loginSuccess.set(true);
-                                log.info("从API响应中获取到用户信息，用户ID: {}, 昵称: {}", 
-                                    infoResponse.getUserId(), 
-                                    (infoResponse.getNickname() != null ? infoResponse.getNickname() : "未知昵称"));
-                            } else {
-                                log.warn("用户信息不完整，缺少必要字段: {}", data);
-                            }
+                    if (jsonObject.getBool("success", false)) {
+                        UserInfoResponse infoResponse = UserMeClient.parseUserInfo(jsonObject.getJSONObject("data"));
+                        if (infoResponse != null) {
+                            userInfoData[0] = infoResponse;
+                            loginSuccess.set(true);
+                            log.info("从API响应中获取到用户信息，用户ID: {}, 昵称: {}", 
+                                infoResponse.getUserId(), 
+                                (infoResponse.getNickname() != null ? infoResponse.getNickname() : "未知昵称"));
                         }
                     }
                 } catch (Exception e) {
                     log.error("处理用户信息响应时出错: {}", e.getMessage(), e);
                 }
                 
-                // 继续请求
-                route.resume();
+                // 用已获取的响应完成请求
+                route.fulfill(new Route.FulfillOptions().setResponse(apiResponse));
             });
             
             // 导航到探索页面
@@ -280,15 +350,12 @@ public class LoginService {
                 
                 // 如果从API获取到了更新的用户信息，则更新
                 if (userInfoData[0] != null) {
-                    user.setUserId(userInfoData[0].getUserId());
-                    user.setNickname(userInfoData[0].getNickname());
-                    user.setAvatar(userInfoData[0].getImages());
-                    user.setRedId(userInfoData[0].getRedId());
-                    user.setDescription(userInfoData[0].getDesc());
+                    applyUserInfoResponse(user, userInfoData[0]);
                 }
                 
                 // 保存更新的用户信息
                 userService.saveUserInfo(user);
+                circuitBreakers.reset(user.getUserId());
                 return true;
             }
             
@@ -296,27 +363,34 @@ public class LoginService {
             userService.markUserLoginExpired(user);
             return false;
                 }
-            }
+            });
         } catch (PlaywrightException | IOException e) {
             log.error("检查登录状态时发生错误: {}", e.getMessage(), e);
             return false;
         }
     }
     
+    /**
+     * 用接口返回的用户信息更新本地用户信息
+     */
+    private void applyUserInfoResponse(UserInfo user, UserInfoResponse infoResponse) {
+        user.setUserId(infoResponse.getUserId());
+        user.setNickname(infoResponse.getNickname());
+        user.setAvatar(infoResponse.getImages());
+        user.setRedId(infoResponse.getRedId());
+        user.setDescription(infoResponse.getDesc());
+    }
+    
     /**
      * 扫码登录流程
      *
      * @return true 如果登录成功, false 否则
      */
     private boolean scanLogin() {
-        try (Playwright playwright = Playwright.create()) {
-            // 创建浏览器选项
-            BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                    .setHeadless(true)  // 非无头模式，可以看到界面
-                    .setSlowMo(100);     // 减缓操作速度，便于观察
-            
-            try (Browser browser = playwright.chromium().launch(launchOptions)) {
-                try (BrowserContext context = browser.newContext()) {
+        // 从浏览器池借用浏览器，页面操作在浏览器所属线程中执行
+        try {
+            return browserManager.callWithBrowser(lease -> {
+                try (BrowserContext context = lease.getBrowser().newContext()) {
                     // 1. 打开登录页面
                     Page page = context.newPage();
                     page.navigate(LOGIN_URL);
@@ -357,6 +431,7 @@ public class LoginService {
                 
                 // 保存用户信息
                 userService.saveUserInfo(user);
+                circuitBreakers.reset(user.getUserId());
                 log.info("用户[{}]的信息和Cookies已保存", user.getNickname());
                 return true;
                 
@@ -365,7 +440,7 @@ public class LoginService {
                 return false;
             }
                 }
-            }
+            });
         } catch (PlaywrightException | IOException e) {
             log.error("登录过程中发生错误: {}", e.getMessage(), e);
             return false;
@@ -408,65 +483,48 @@ public class LoginService {
                 
                 log.info("拦截到用户信息API请求(v2版本): {}", route.request().url());
                 
-                // 使用fetch获取响应
+                // 使用fetch获取响应，之后用同一个响应完成请求，避免接口被请求两次
+                APIResponse apiResponse;
+                try {
+                    apiResponse = route.fetch();
+                } catch (Exception e) {
+                    if (e.getMessage() != null && e.getMessage().contains("Target page, context or browser has been closed")) {
+                        browserClosed.set(true);
+                        log.info("浏览器已被用户关闭，中断API监听");
+                    } else {
+                        log.error("获取用户信息响应时出错: {}", e.getMessage(), e);
+                        try {
+                            route.resume();
+                        } catch (Exception ignored) {
+                            // 忽略已关闭的路由错误
+                        }
+                    }
+                    return;
+                }
+                
                 try {
-                    com.microsoft.playwright.APIResponse apiResponse = route.fetch();
                     String responseText = apiResponse.text();
                     log.info("获取到响应内容: {}", responseText);
                     
                     // 解析响应
                     JSONObject jsonObject = JSONUtil.parseObj(responseText);
-                    log.info("解析响应JSON: {}", jsonObject.toString());
-                    
-                    // 检查响应状态
-                    if (jsonObject.containsKey("success") && jsonObject.getBool("success", false)) {
-                        if (jsonObject.containsKey("data")) {
-                            JSONObject data = jsonObject.getJSONObject("data");
-                            
-                            // 检查是否为guest用户，guest=true表示游客模式
-                            if (data.containsKey("guest") && data.getBool("guest", false)) {
-                                log.info("检测到游客模式用户，需要完成登录");
-                                route.resume();
-                                return;
-                            }
-                            
-                            UserInfoResponse userInfo = new UserInfoResponse();
-                            
-                            // 正确匹配API字段 - 使用user_id而不是userId
-                            if (data.containsKey("user_id")) userInfo.setUserId(data.getStr("user_id"));
-                            if (data.containsKey("nickname")) userInfo.setNickname(data.getStr("nickname"));
-                            if (data.containsKey("desc")) userInfo.setDesc(data.getStr("desc"));
-                            if (data.containsKey("gender")) userInfo.setGender(data.getInt("gender", 0));
-                            if (data.containsKey("image")) userInfo.setImages(data.getStr("image"));
-                            if (data.containsKey("images")) userInfo.setImages(data.getStr("images")); // 尝试两种可能的字段名
-                            if (data.containsKey("imageb")) userInfo.setImageb(data.getStr("imageb"));
-                            if (data.containsKey("red_id")) userInfo.setRedId(data.getStr("red_id"));
-                            if (data.containsKey("redId")) userInfo.setRedId(data.getStr("redId")); // 尝试两种可能的字段名
-                            
-                            // 确保至少有用户ID，才认为有效
-                            if (userInfo.getUserId() != null && !userInfo.getUserId().isEmpty()) {
-                                userInfoData[0] = userInfo;
-                                loginSuccess.set(true);
-                                log.info("从API响应中获取到用户信息，用户ID: {}, 昵称: {}", 
-                                    userInfo.getUserId(), 
-                                    (userInfo.getNickname() != null ? userInfo.getNickname() : "未知昵称"));
-                            } else {
-                                log.warn("用户信息不完整，缺少必要字段: {}", data);
-                            }
+                    if (jsonObject.getBool("success", false)) {
+                        UserInfoResponse userInfo = UserMeClient.parseUserInfo(jsonObject.getJSONObject("data"));
+                        if (userInfo != null) {
+                            userInfoData[0] = userInfo;
+                            loginSuccess.set(true);
+                            log.info("从API响应中获取到用户信息，用户ID: {}, 昵称: {}", 
+                                userInfo.getUserId(), 
+                                (userInfo.getNickname() != null ? userInfo.getNickname() : "未知昵称"));
                         }
                     }
                 } catch (Exception e) {
-                    if (e.getMessage() != null && e.getMessage().contains("Target page, context or browser has been closed")) {
-                        browserClosed.set(true);
-                        log.info("浏览器已被用户关闭，中断API监听");
-                    } else {
-                        log.error("处理用户信息响应时出错: {}", e.getMessage(), e);
-                    }
+                    log.error("处理用户信息响应时出错: {}", e.getMessage(), e);
                 }
                 
-                // 继续请求
+                // 用已获取的响应完成请求
                 try {
-                    route.resume();
+                    route.fulfill(new Route.FulfillOptions().setResponse(apiResponse));
                 } catch (Exception ignored) {
                     // 忽略已关闭的路由错误
                 }
@@ -598,6 +656,105 @@ public class LoginService {
         }
     }
 
+    /**
+     * 并发续期所有已保存的账号，只校验并刷新cookies，不进行扫码登录
+     * <p>
+     * 同时校验的账号数由app.login.renew-all.concurrency限制，需要打开浏览器的账号还会受浏览器池大小约束；
+     * 每个账号完成后立即通过回调返回结果，不等待其余账号。
+     *
+     * @param resultCallback 单个账号完成时的回调，在工作线程中调用
+     * @return 全部账号完成后的汇总
+     */
+    public RenewSummary renewAllUsers(Consumer<RenewResult> resultCallback) {
+        long start = System.currentTimeMillis();
+        List<UserInfo> allUsers;
+        try {
+            allUsers = userService.loadAllUsers();
+        } catch (IOException e) {
+            log.error("读取用户信息时发生错误: {}", e.getMessage(), e);
+            return new RenewSummary(0, 0, System.currentTimeMillis() - start);
+        }
+        if (allUsers.isEmpty()) {
+            log.info("没有找到保存的用户信息");
+            return new RenewSummary(0, 0, System.currentTimeMillis() - start);
+        }
+        
+        int concurrency = Math.max(1, Math.min(renewAllConcurrency, allUsers.size()));
+        log.info("开始批量续期{}个账号，并发数: {}", allUsers.size(), concurrency);
+        
+        AtomicInteger successCount = new AtomicInteger();
+        // 共用受监控的I/O线程池，用信号量把同时续期的账号数限制在concurrency以内
+        Semaphore slots = new Semaphore(concurrency);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (UserInfo user : allUsers) {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CompletableFuture<Void> future;
+            try {
+                future = CompletableFuture.runAsync(() -> {
+                    RenewResult result = renewUser(user);
+                    if (result.isSuccess()) {
+                        successCount.incrementAndGet();
+                    }
+                    if (resultCallback != null) {
+                        try {
+                            resultCallback.accept(result);
+                        } catch (Exception e) {
+                            log.warn("处理账号[{}]续期结果时出错: {}", user.getNickname(), e.getMessage());
+                        }
+                    }
+                }, workloadExecutors.io());
+            } catch (RejectedExecutionException e) {
+                log.warn("I/O线程池繁忙，跳过账号[{}]的续期", user.getNickname());
+                slots.release();
+                continue;
+            }
+            futures.add(future.whenComplete((result, e) -> slots.release()).exceptionally(e -> {
+                log.warn("续期账号[{}]时出错: {}", user.getNickname(), e.getMessage());
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        
+        RenewSummary summary = new RenewSummary(allUsers.size(), successCount.get(), System.currentTimeMillis() - start);
+        log.info("批量续期完成: {}/{}个账号有效，成功率{}%，总耗时{}ms",
+                summary.getSuccessCount(), summary.getTotal(),
+                String.format("%.1f", summary.getSuccessRate()), summary.getElapsedMs());
+        return summary;
+    }
+    
+    /**
+     * 续期单个账号并重新读取保存后的用户信息
+     */
+    private RenewResult renewUser(UserInfo user) {
+        long start = System.currentTimeMillis();
+        String userId = user.getUserId();
+        boolean success;
+        try {
+            success = checkLoginWithCookies(user);
+        } catch (Exception e) {
+            log.error("续期用户[{}]时发生错误: {}", user.getNickname(), e.getMessage(), e);
+            success = false;
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("用户[{}]续期{}，耗时{}ms", user.getNickname(), success ? "成功" : "失败", elapsed);
+        
+        UserInfo refreshed = user;
+        try {
+            UserInfo saved = userService.loadUserInfo(user.getUserId());
+            if (saved != null) {
+                refreshed = saved;
+            }
+        } catch (IOException e) {
+            log.warn("续期后读取用户[{}]信息失败: {}", user.getNickname(), e.getMessage());
+        }
+        return new RenewResult(userId, refreshed, success, elapsed);
+    }
+
     /**
      * 执行全新的扫码登录流程，不检查现有cookies
      *
@@ -0,0 +1,453 @@
+package com.redbook.tool.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.service.CircuitBreakerRegistry.Endpoint;
+import com.redbook.tool.service.CrawlPacer.ThrottleSignal;
+import com.redbook.tool.util.CancellationToken;
+import com.redbook.tool.util.CookieHeaderUtil;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 笔记详情HTTP获取器，不启动浏览器，直接携带用户cookies请求服务端渲染的详情页
+ * <p>
+ * 使用Jackson流式解析器从页面内嵌的初始状态JSON中只读取需要的字段，其余节点直接跳过。
+ * 返回的数据与浏览器中读取初始状态的脚本结果字段一致，由 {@link NoteDetailService} 统一转换为笔记信息。
+ * 响应疑似被拦截（登录/验证页、状态码异常）或数据不完整时返回null，由调用方回退到浏览器方式。
+ * 请求前按账号速率的等待由调用方进行，回退到浏览器时同一次获取只计一次；被限流或跳转验证/登录页时通知 {@link CrawlPacer} 降速。
+ */
+@Slf4j
+@Service
+public class NoteDetailHttpFetcher {
+
+    private static final String STATE_MARKER = "window.__INITIAL_STATE__=";
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/115.0.0.0 Safari/537.36";
+
+    /**
+     * 初始状态中的undefined不是合法JSON，字符串以外的undefined替换为null后再解析
+     */
+    private static final String UNDEFINED = "undefined";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Value("${app.crawl.detail.http.timeout:10000}")
+    private long timeoutMs;
+
+    private final HttpClient httpClient;
+    private final CrawlPacer crawlPacer;
+    private final CircuitBreakerRegistry circuitBreakers;
+
+    public NoteDetailHttpFetcher(CrawlPacer crawlPacer, CircuitBreakerRegistry circuitBreakers) {
+        this.crawlPacer = crawlPacer;
+        this.circuitBreakers = circuitBreakers;
+        this.httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * 携带用户cookies请求笔记详情页并解析初始状态数据
+     *
+     * @param user 用户信息
+     * @param noteUrl 笔记URL
+     * @param noteId 笔记ID，用于在状态数据中定位笔记，可为空
+     * @return 笔记字段，疑似被拦截或数据不完整时返回null
+     */
+    public JSONObject fetch(UserInfo user, String noteUrl, String noteId) {
+        return fetch(user, noteUrl, noteId, CancellationToken.NONE);
+    }
+
+    /**
+     * 携带用户cookies请求笔记详情页，取消时放弃等待中的请求并返回null
+     *
+     * @param user 用户信息
+     * @param noteUrl 笔记URL
+     * @param noteId 笔记ID，用于在状态数据中定位笔记，可为空
+     * @param token 取消令牌
+     * @return 笔记字段，疑似被拦截、数据不完整或已取消时返回null
+     */
+    public JSONObject fetch(UserInfo user, String noteUrl, String noteId, CancellationToken token) {
+        long start = System.currentTimeMillis();
+        try {
+            URI uri = URI.create(noteUrl);
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept", "text/html,application/xhtml+xml")
+                    .header("Accept-Language", "zh-CN,zh;q=0.9")
+                    .GET();
+            String cookieHeader = CookieHeaderUtil.toHeader(user.getCookies(), uri);
+            if (!cookieHeader.isEmpty()) {
+                builder.header("Cookie", cookieHeader);
+            }
+
+            HttpResponse<String> response = send(builder.build(), token);
+            if (response == null) {
+                log.info("HTTP获取笔记详情已取消: {}", noteUrl);
+                return null;
+            }
+            String blockedReason = detectBlocked(response);
+            if (blockedReason != null) {
+                log.warn("HTTP获取笔记详情疑似被拦截({})，回退到浏览器方式: {}", blockedReason, noteUrl);
+                ThrottleSignal signal = throttleSignalOf(response);
+                crawlPacer.onThrottle(user.getUserId(), signal, blockedReason);
+                if (signal == ThrottleSignal.CAPTCHA) {
+                    circuitBreakers.onCaptcha(user.getUserId(), Endpoint.DETAIL, blockedReason);
+                }
+                return null;
+            }
+
+            String stateJson = extractStateJson(response.body());
+            if (stateJson == null) {
+                log.warn("HTTP响应中未找到初始状态数据，回退到浏览器方式: {}", noteUrl);
+                return null;
+            }
+
+            JSONObject note = parseNoteState(stateJson, noteId);
+            if (!isComplete(note)) {
+                log.warn("HTTP响应中的笔记数据不完整，回退到浏览器方式: {}", noteUrl);
+                return null;
+            }
+
+            crawlPacer.onSuccess(user.getUserId());
+            log.info("HTTP获取笔记详情成功，耗时{}ms: {}", System.currentTimeMillis() - start, noteUrl);
+            return note;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("HTTP获取笔记详情失败，回退到浏览器方式: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 发送请求并等待响应，取消时放弃请求
+     *
+     * @return 响应，已取消时返回null
+     */
+    private HttpResponse<String> send(HttpRequest request, CancellationToken token)
+            throws IOException, InterruptedException {
+        if (token == CancellationToken.NONE) {
+            return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+        CompletableFuture<HttpResponse<String>> pending = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        Runnable abort = () -> pending.cancel(true);
+        token.addListener(abort);
+        try {
+            return pending.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            token.removeListener(abort);
+        }
+    }
+
+    /**
+     * 判断响应是否被拦截，返回拦截原因，正常响应返回null
+     */
+    private String detectBlocked(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return "状态码" + response.statusCode();
+        }
+        String path = response.uri().getPath();
+        if (path != null && (path.contains("login") || path.contains("captcha")
+                || path.contains("verify") || path.startsWith("/404"))) {
+            return "跳转到" + path;
+        }
+        String body = response.body();
+        if (body == null || body.isEmpty()) {
+            return "响应为空";
+        }
+        return null;
+    }
+
+    /**
+     * 判断被拦截的响应是否属于限流信号，笔记不存在等其它情况返回null
+     */
+    private ThrottleSignal throttleSignalOf(HttpResponse<String> response) {
+        ThrottleSignal signal = CrawlPacer.classifyStatus(response.statusCode());
+        return signal != null ? signal : CrawlPacer.classifyUrl(response.uri().toString());
+    }
+
+    /**
+     * 截取页面中初始状态脚本的JSON文本
+     */
+    static String extractStateJson(String html) {
+        int start = html.indexOf(STATE_MARKER);
+        if (start < 0) {
+            return null;
+        }
+        start += STATE_MARKER.length();
+        int end = html.indexOf("</script>", start);
+        if (end < 0) {
+            return null;
+        }
+        String json = html.substring(start, end).trim();
+        if (json.endsWith(";")) {
+            json = json.substring(0, json.length() - 1);
+        }
+        return replaceUndefined(json);
+    }
+
+    /**
+     * 把字符串字面量以外的undefined替换为null，标题、正文等字符串中的文字保持不变
+     */
+    static String replaceUndefined(String json) {
+        StringBuilder result = null;
+        int copied = 0;
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == 'u' && json.startsWith(UNDEFINED, i)
+                    && !isIdentifierChar(json, i - 1) && !isIdentifierChar(json, i + UNDEFINED.length())) {
+                if (result == null) {
+                    result = new StringBuilder(json.length());
+                }
+                result.append(json, copied, i).append("null");
+                i += UNDEFINED.length() - 1;
+                copied = i + 1;
+            }
+        }
+        return result == null ? json : result.append(json, copied, json.length()).toString();
+    }
+
+    private static boolean isIdentifierChar(String text, int index) {
+        return index >= 0 && index < text.length() && Character.isJavaIdentifierPart(text.charAt(index));
+    }
+
+    /**
+     * 流式解析初始状态，定位 note.noteDetailMap 中的笔记并读取需要的字段
+     *
+     * @param stateJson 初始状态JSON
+     * @param noteId 优先匹配的笔记ID，可为空
+     * @return 笔记字段，未找到笔记时返回null
+     */
+    static JSONObject parseNoteState(String stateJson, String noteId) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(stateJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JSONObject result = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("note".equals(name) && value == JsonToken.START_OBJECT) {
+                    result = readNoteModule(parser, noteId);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return result;
+        }
+    }
+
+    private static JSONObject readNoteModule(JsonParser parser, String noteId) throws IOException {
+        JSONObject result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (!"noteDetailMap".equals(name) || value != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                JSONObject note = readDetailEntry(parser);
+                // 优先使用与URL中笔记ID一致的条目
+                if (note != null && (result == null || key.equals(noteId))) {
+                    result = note;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static JSONObject readDetailEntry(JsonParser parser) throws IOException {
+        JSONObject note = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("note".equals(name) && value == JsonToken.START_OBJECT) {
+                note = readNote(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return note;
+    }
+
+    private static JSONObject readNote(JsonParser parser) throws IOException {
+        JSONObject note = new JSONObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (name) {
+                case "noteId":
+                case "title":
+                case "desc":
+                    note.set(name, value.isScalarValue() ? parser.getValueAsString() : null);
+                    parser.skipChildren();
+                    break;
+                case "time":
+                    if (value.isNumeric()) {
+                        note.set("time", parser.getLongValue());
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "user":
+                    readObjectFields(parser, value, note, "userId", "userId", "nickname", "nickname", "nickName", "nickname");
+                    break;
+                case "interactInfo":
+                    readObjectFields(parser, value, note, "likedCount", "likedCount", "collectedCount", "collectedCount",
+                            "commentCount", "commentCount", "shareCount", "shareCount");
+                    break;
+                case "tagList":
+                    note.set("tags", readTags(parser, value));
+                    break;
+                case "imageList":
+                    note.set("images", readImages(parser, value));
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+        return note;
+    }
+
+    /**
+     * 读取对象中的标量字段，mapping为成对的“源字段名, 目标字段名”
+     */
+    private static void readObjectFields(JsonParser parser, JsonToken value, JSONObject target, String... mapping)
+            throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken fieldValue = parser.nextToken();
+            boolean matched = false;
+            for (int i = 0; i < mapping.length; i += 2) {
+                if (mapping[i].equals(name) && fieldValue.isScalarValue() && fieldValue != JsonToken.VALUE_NULL) {
+                    if (!target.containsKey(mapping[i + 1])) {
+                        target.set(mapping[i + 1], parser.getValueAsString());
+                    }
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static JSONArray readTags(JsonParser parser, JsonToken value) throws IOException {
+        JSONArray tags = new JSONArray();
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return tags;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            JSONObject tag = new JSONObject();
+            readObjectFields(parser, parser.currentToken(), tag, "name", "name");
+            if (tag.getStr("name") != null) {
+                tags.add(tag.getStr("name"));
+            }
+        }
+        return tags;
+    }
+
+    private static JSONArray readImages(JsonParser parser, JsonToken value) throws IOException {
+        JSONArray images = new JSONArray();
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return images;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String defaultUrl = null;
+            String sceneUrl = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken fieldValue = parser.nextToken();
+                if (("urlDefault".equals(name) || "url".equals(name)) && fieldValue == JsonToken.VALUE_STRING) {
+                    if (defaultUrl == null || "urlDefault".equals(name)) {
+                        defaultUrl = parser.getText();
+                    }
+                } else if ("infoList".equals(name) && fieldValue == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        JSONObject info = new JSONObject();
+                        readObjectFields(parser, parser.currentToken(), info, "imageScene", "imageScene", "url", "url");
+                        if ("WB_DFT".equals(info.getStr("imageScene")) && info.getStr("url") != null) {
+                            sceneUrl = info.getStr("url");
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            String url = sceneUrl != null ? sceneUrl : defaultUrl;
+            if (url != null && !url.isEmpty()) {
+                images.add(url);
+            }
+        }
+        return images;
+    }
+
+    /**
+     * 笔记数据是否完整：至少要有笔记ID，并且标题、正文或图片之一不为空
+     */
+    private static boolean isComplete(JSONObject note) {
+        if (note == null || note.getStr("noteId") == null) {
+            return false;
+        }
+        boolean hasText = !note.getStr("title", "").isEmpty() || !note.getStr("desc", "").isEmpty();
+        JSONArray images = note.getJSONArray("images");
+        return hasText || (images != null && !images.isEmpty());
+    }
+}
@@ -1,30 +1,62 @@
 package com.redbook.tool.service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import com.microsoft.playwright.Browser;
-import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.PlaywrightException;
-import com.microsoft.playwright.options.LoadState;
-import com.microsoft.playwright.options.WaitForSelectorState;
+import com.microsoft.playwright.TimeoutError;
+import com.microsoft.playwright.options.WaitUntilState;
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.dto.NoteDetailDTO;
 import com.redbook.tool.entity.NoteInfo;
 import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.manager.BrowserCrashedException;
+import com.redbook.tool.manager.BrowserManager;
+import com.redbook.tool.manager.BrowserManager.ContextLease;
+import com.redbook.tool.manager.OperationType;
+import com.redbook.tool.manager.PageProbe;
+import com.redbook.tool.manager.PageProbe.LoginProbeResult;
+import com.redbook.tool.manager.PageProbe.LoginState;
+import com.redbook.tool.manager.TimeoutManager;
+import com.redbook.tool.service.AccountScheduler.AccountPermit;
 import com.redbook.tool.service.ArticleCrawlService.LogCallback;
 import com.redbook.tool.service.ArticleCrawlService.ProgressCallback;
 import com.redbook.tool.service.ArticleCrawlService.SearchResult;
+import com.redbook.tool.service.CircuitBreakerRegistry.Endpoint;
+import com.redbook.tool.service.CrawlPacer.ThrottleSignal;
+import com.redbook.tool.util.CancellationToken;
+import com.redbook.tool.util.PageWaitUtil;
 
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,17 +68,6 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class NoteDetailService {
 
-    // 登录状态检测选择器 - 与 ArticleCrawlService 保持一致
-    private static final String LOGGED_IN_SELECTOR = "li.user.side-bar-component";
-    private static final String LOGGED_OUT_SELECTOR = "div.side-bar-component.login-btn";
-    // 备用选择器 - 更宽松的选择器
-    private static final String LOGGED_IN_SELECTOR_BACKUP = "li.user";
-    private static final String LOGGED_OUT_SELECTOR_BACKUP = "div.login-btn";
-    private static final String LOGIN_TEXT_SELECTOR = "text='登录'";
-    
-    // 检查超时设置
-    private static final int LOGIN_CHECK_TIMEOUT = 10000; // 总超时时间10秒
-    
     // 笔记详情页元素选择器
     private static final String NOTE_TITLE_SELECTOR = "div#detail-title";
     private static final String NOTE_CONTENT_SELECTOR = "span.note-text";
@@ -54,12 +75,114 @@ public class NoteDetailService {
     private static final String NOTE_IMAGE_CONTAINER_SELECTOR = "div.swiper-slide";
     private static final String NOTE_IMAGE_SELECTOR = "img.note-slider-img";
     
+    // 等待标题元素的默认超时时间(ms)，实际超时由TimeoutManager按观察到的耗时收紧
+    private static final long TITLE_TIMEOUT_MS = 5000;
+    
+    // 单条详情请求的耗时在TimeoutManager中的统计名称，用于计算对冲的等待时间
+    private static final String HEDGE_LATENCY_TARGET = "fetch";
+    
+    /**
+     * 从页面初始状态中读取笔记模型的脚本，只挑选需要的字段返回JSON字符串，未找到时返回null
+     */
+    private static final String INITIAL_STATE_SCRIPT = String.join("\n",
+            "(noteId) => {",
+            "  const state = window.__INITIAL_STATE__;",
+            "  const map = state && state.note && state.note.noteDetailMap;",
+            "  if (!map) return null;",
+            "  let detail = noteId ? map[noteId] : null;",
+            "  if (!detail || !detail.note) {",
+            "    detail = Object.values(map).find(d => d && d.note && d.note.noteId);",
+            "  }",
+            "  const note = detail && detail.note;",
+            "  if (!note) return null;",
+            "  const interact = note.interactInfo || {};",
+            "  const user = note.user || {};",
+            "  return JSON.stringify({",
+            "    noteId: note.noteId,",
+            "    title: note.title,",
+            "    desc: note.desc,",
+            "    time: note.time,",
+            "    userId: user.userId,",
+            "    nickname: user.nickname || user.nickName,",
+            "    likedCount: interact.likedCount,",
+            "    collectedCount: interact.collectedCount,",
+            "    commentCount: interact.commentCount,",
+            "    shareCount: interact.shareCount,",
+            "    tags: (note.tagList || []).map(t => t && t.name).filter(n => n),",
+            "    images: (note.imageList || []).map(img => {",
+            "      const dft = (img.infoList || []).find(i => i.imageScene === 'WB_DFT');",
+            "      return (dft && dft.url) || img.urlDefault || img.url || null;",
+            "    }).filter(u => u)",
+            "  });",
+            "}");
+    
+    /**
+     * 正文中话题标签的占位文本，如 #旅行[话题]#
+     */
+    private static final Pattern TOPIC_PATTERN = Pattern.compile("#[^#\\[\\]]+\\[话题\\]#");
+    
     private final UserService userService;
+    private final BrowserManager browserManager;
+    private final PageProbe pageProbe;
+    private final TimeoutManager timeoutManager;
+    private final NoteDetailHttpFetcher noteDetailHttpFetcher;
+    private final AccountScheduler accountScheduler;
+    private final CrawlPacer crawlPacer;
+    private final WorkloadExecutors workloadExecutors;
+    private final CircuitBreakerRegistry circuitBreakers;
+    
+    /**
+     * 笔记详情提取方式：state 读取页面初始状态数据（失败时回退到页面元素），dom 仅解析页面元素
+     */
+    @Value("${app.crawl.detail.extraction-mode:state}")
+    private String extractionMode;
+    
+    /**
+     * 是否优先使用HTTP方式获取服务端渲染的详情页
+     */
+    @Value("${app.crawl.detail.http.enabled:true}")
+    private boolean httpEnabled;
+    
+    /**
+     * 批量爬取时同时进行的HTTP请求数，以及浏览器中同时加载的页面数
+     */
+    @Value("${app.crawl.detail.batch.parallelism:3}")
+    private int batchParallelism;
+    
+    /**
+     * 单条笔记详情是否启用对冲请求：耗时超过观察到的分位数时用另一个账号再请求一次，先成功的结果生效
+     */
+    @Value("${app.crawl.detail.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+    
+    /**
+     * 发出对冲请求前等待的耗时分位数
+     */
+    @Value("${app.crawl.detail.hedge.percentile:0.95}")
+    private double hedgePercentile;
+    
+    /**
+     * 对冲请求占请求总数的比例上限
+     */
+    @Value("${app.crawl.detail.hedge.budget-ratio:0.05}")
+    private double hedgeBudgetRatio;
+    
+    /**
+     * 最多累积的对冲额度，避免长时间没有对冲后短时间内集中发出
+     */
+    @Value("${app.crawl.detail.hedge.max-burst:2}")
+    private double hedgeMaxBurst;
+    
+    // 对冲额度，每个请求增加budget-ratio，每次对冲消耗1
+    private final Object hedgeLock = new Object();
+    private double hedgeBalance;
+    private final AtomicLong hedgesIssued = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
     
     /**
      * 使用指定用户的cookies爬取笔记详情，支持实时状态更新
      * 
-     * @param userId 要使用的用户ID
+     * @param userId 要使用的用户ID，为空时由账号调度器自动分配
      * @param noteUrl 笔记URL
      * @param logCallback 日志回调，用于实时获取日志信息
      * @param progressCallback 进度回调，用于实时获取进度信息
@@ -70,54 +193,317 @@ public class NoteDetailService {
             String noteUrl, 
             LogCallback logCallback,
             ProgressCallback progressCallback) {
+        return fetchNoteDetail(userId, noteUrl, logCallback, progressCallback, CancellationToken.NONE);
+    }
+    
+    /**
+     * 使用指定用户的cookies爬取笔记详情，可以通过取消令牌中途停止
+     * <p>
+     * 取消后在当前步骤结束时返回INTERRUPTED状态的结果，并立即归还浏览器上下文。
+     * 启用对冲时，请求耗时过长会同时使用另一个账号获取，返回的结果可能来自备用账号。
+     * 
+     * @param userId 要使用的用户ID，为空时由账号调度器自动分配
+     * @param noteUrl 笔记URL
+     * @param logCallback 日志回调，用于实时获取日志信息
+     * @param progressCallback 进度回调，用于实时获取进度信息
+     * @param token 取消令牌，为null时不可取消
+     * @return CompletableFuture<NoteDetailDTO> 表示爬取操作的结果及数据
+     */
+    public CompletableFuture<NoteDetailDTO> fetchNoteDetail(
+            String userId, 
+            String noteUrl, 
+            LogCallback logCallback,
+            ProgressCallback progressCallback,
+            CancellationToken token) {
         
-        if (userId == null || userId.isEmpty() || noteUrl == null || noteUrl.isEmpty()) {
-            log.warn("用户ID或笔记URL为空，无法执行爬取");
+        final CancellationToken cancellation = CancellationToken.orNone(token);
+        if (noteUrl == null || noteUrl.isEmpty()) {
+            log.warn("笔记URL为空，无法执行爬取");
             if (logCallback != null) {
-                logCallback.log("用户ID或笔记URL为空，无法执行爬取");
+                logCallback.log("笔记URL为空，无法执行爬取");
             }
             return CompletableFuture.completedFuture(NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED));
         }
         
-        return CompletableFuture.supplyAsync(() -> {
-            // 用于标记是否是用户主动关闭浏览器
-            AtomicBoolean browserClosedByUser = new AtomicBoolean(false);
+        if (hedgeEnabled) {
+            return fetchHedged(userId, noteUrl, logCallback, progressCallback, cancellation);
+        }
+        return CompletableFuture.supplyAsync(() -> fetchWithScheduledAccount(userId, noteUrl, logCallback,
+                progressCallback, cancellation, null), workloadExecutors.browser());
+    }
+    
+    /**
+     * 经账号调度器分配账号后爬取笔记详情
+     *
+     * @param onPermit 获得许可后以实际使用的账号调用，可为null
+     */
+    private NoteDetailDTO fetchWithScheduledAccount(String userId, String noteUrl, LogCallback logCallback,
+            ProgressCallback progressCallback, CancellationToken cancellation, Consumer<String> onPermit) {
+        // 指定的账号详情接口熔断中时直接返回，不占用配额也不启动浏览器
+        if (userId != null && !circuitBreakers.tryAcquire(userId, Endpoint.DETAIL)) {
+            return circuitOpen(userId, noteUrl, logCallback);
+        }
+        // 经账号调度器限流，未指定用户时由调度器选择负载最低、未熔断的有效账号
+        try (AccountPermit permit = accountScheduler.acquire(userId, OperationType.DETAIL, cancellation)) {
+            if (cancellation.isCancelled()) {
+                circuitBreakers.release(userId, Endpoint.DETAIL);
+                return NoteDetailDTO.failed(userId, noteUrl, SearchResult.INTERRUPTED);
+            }
+            if (permit == null) {
+                circuitBreakers.release(userId, Endpoint.DETAIL);
+                log.warn("没有可用的账号配额，无法爬取笔记详情");
+                if (logCallback != null) {
+                    logCallback.log("没有可用的账号配额(配额已用完或等待超时)，无法爬取笔记详情");
+                }
+                return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
+            }
+            if (onPermit != null) {
+                onPermit.accept(permit.getUserId());
+            }
+            return fetchWithPermit(permit, userId == null, noteUrl, logCallback, progressCallback, cancellation);
+        }
+    }
+    
+    /**
+     * 使用已获得许可的账号爬取笔记详情，浏览器崩溃时重新执行一次，并记录熔断器结果
+     * <p>
+     * 成功请求从获得许可起的耗时作为对冲的等待基准，不包含在账号调度器中排队的时间。
+     *
+     * @param checkBreaker 是否需要检查熔断器，指定账号时调用方已经检查过
+     */
+    private NoteDetailDTO fetchWithPermit(AccountPermit permit, boolean checkBreaker, String noteUrl,
+            LogCallback logCallback, ProgressCallback progressCallback, CancellationToken cancellation) {
+        String accountId = permit.getUserId();
+        if (checkBreaker && !circuitBreakers.tryAcquire(accountId, Endpoint.DETAIL)) {
+            return circuitOpen(accountId, noteUrl, logCallback);
+        }
+        long start = System.currentTimeMillis();
+        NoteDetailDTO result = browserManager.retryOnCrash("爬取笔记详情[" + noteUrl + "]",
+                () -> fetchNoteDetailWithAccount(accountId, noteUrl, logCallback, progressCallback, cancellation),
+                e -> NoteDetailDTO.failed(accountId, noteUrl, SearchResult.FAILED));
+        circuitBreakers.onResult(accountId, Endpoint.DETAIL, result.getStatus());
+        if (result.getStatus() == SearchResult.SUCCESS) {
+            timeoutManager.observe("detail", HEDGE_LATENCY_TARGET, System.currentTimeMillis() - start);
+        }
+        return result;
+    }
+    
+    /**
+     * 带对冲的单条详情请求
+     * <p>
+     * 原请求获得账号许可后，超过观察到的耗时分位数(默认p95)仍未完成时，立即用另一个空闲的有效账号再请求一次，
+     * 先成功的结果生效并取消另一个请求；两个请求都失败时返回原请求的结果。在账号调度器中排队的时间不计入等待。
+     * 每个请求积累budget-ratio的对冲额度，每次对冲消耗1，额外请求量因此约为请求数的budget-ratio。
+     * 样本不足、额度不够或没有空闲账号时不对冲。
+     */
+    private CompletableFuture<NoteDetailDTO> fetchHedged(String userId, String noteUrl, LogCallback logCallback,
+            ProgressCallback progressCallback, CancellationToken token) {
+        depositHedgeBudget();
+        HedgeRace race = new HedgeRace();
+        // 两个请求各用一个取消令牌，胜出后只取消另一个，用户取消时两个都取消
+        Runnable cancelAll = () -> {
+            race.primaryToken.cancel();
+            race.hedgeToken.cancel();
+        };
+        token.addListener(cancelAll);
+        race.outcome.whenComplete((result, error) -> token.removeListener(cancelAll));
+        
+        // 原请求拿到账号后才开始计时，对冲时排除该账号
+        Consumer<String> scheduleHedge = primaryAccount -> {
+            long delay = timeoutManager.percentile("detail", HEDGE_LATENCY_TARGET, hedgePercentile);
+            if (delay < 0) {
+                return;
+            }
+            CompletableFuture.runAsync(() -> runHedge(race, primaryAccount, delay, noteUrl, logCallback),
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, workloadExecutors.browser()));
+        };
+        CompletableFuture.supplyAsync(() -> fetchWithScheduledAccount(userId, noteUrl, logCallback, progressCallback,
+                race.primaryToken, scheduleHedge), workloadExecutors.browser())
+                .whenComplete((result, error) -> race.finish(false, result != null ? result
+                        : NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED)));
+        return race.outcome;
+    }
+    
+    /**
+     * 原请求仍未完成时，用原请求账号以外的空闲账号发出对冲请求
+     */
+    private void runHedge(HedgeRace race, String primaryAccount, long delay, String noteUrl, LogCallback logCallback) {
+        if (!race.startHedge()) {
+            return;
+        }
+        if (!withdrawHedgeBudget()) {
+            race.finish(true, null);
+            return;
+        }
+        NoteDetailDTO result = null;
+        try (AccountPermit permit = accountScheduler.tryAcquireOther(primaryAccount, OperationType.DETAIL,
+                race.hedgeToken)) {
+            if (permit == null) {
+                refundHedgeBudget();
+                log.debug("没有空闲的备用账号，笔记详情请求不对冲: {}", noteUrl);
+                return;
+            }
+            long issued = hedgesIssued.incrementAndGet();
+            log.info("笔记详情请求超过{}ms未完成，使用备用账号[{}]对冲(累计对冲{}次): {}",
+                    delay, permit.getUserId(), issued, noteUrl);
+            if (logCallback != null) {
+                logCallback.log("请求耗时较长，同时使用备用账号[" + permit.getUserId() + "]获取，先完成的结果生效");
+            }
+            LogCallback hedgeLog = logCallback == null ? null : message -> logCallback.log("[备用账号] " + message);
+            result = fetchWithPermit(permit, true, noteUrl, hedgeLog, null, race.hedgeToken);
+            if (result.getStatus() == SearchResult.SUCCESS && race.isOpen()) {
+                log.info("对冲请求先完成(累计胜出{}次): {}", hedgeWins.incrementAndGet(), noteUrl);
+            }
+        } catch (Exception e) {
+            log.warn("对冲请求出错: {}", e.getMessage());
+        } finally {
+            race.finish(true, result);
+        }
+    }
+    
+    /**
+     * 原请求与对冲请求的竞争状态
+     */
+    private static class HedgeRace {
+        final CompletableFuture<NoteDetailDTO> outcome = new CompletableFuture<>();
+        final CancellationToken primaryToken = new CancellationToken();
+        final CancellationToken hedgeToken = new CancellationToken();
+        private int running = 1;
+        private boolean primaryDone;
+        private NoteDetailDTO primaryResult;
+        
+        /**
+         * 原请求仍在进行时登记对冲请求
+         *
+         * @return 是否需要发出对冲请求
+         */
+        synchronized boolean startHedge() {
+            if (primaryDone || outcome.isDone()) {
+                return false;
+            }
+            running++;
+            return true;
+        }
+        
+        synchronized boolean isOpen() {
+            return !outcome.isDone();
+        }
+        
+        /**
+         * 记录一个请求的结果：成功时立即生效并取消另一个请求；都结束时返回原请求的结果
+         *
+         * @param result 请求结果，对冲没有发出时为null
+         */
+        void finish(boolean hedge, NoteDetailDTO result) {
+            boolean won = false;
+            synchronized (this) {
+                running--;
+                if (!hedge) {
+                    primaryDone = true;
+                    primaryResult = result;
+                }
+                if (result != null && result.getStatus() == SearchResult.SUCCESS) {
+                    won = outcome.complete(result);
+                } else if (running == 0) {
+                    outcome.complete(primaryResult);
+                }
+            }
+            if (won) {
+                (hedge ? primaryToken : hedgeToken).cancel();
+            }
+        }
+    }
+    
+    private void depositHedgeBudget() {
+        synchronized (hedgeLock) {
+            hedgeBalance = Math.min(hedgeMaxBurst, hedgeBalance + hedgeBudgetRatio);
+        }
+    }
+    
+    private boolean withdrawHedgeBudget() {
+        synchronized (hedgeLock) {
+            if (hedgeBalance < 1) {
+                return false;
+            }
+            hedgeBalance -= 1;
+            return true;
+        }
+    }
+    
+    private void refundHedgeBudget() {
+        synchronized (hedgeLock) {
+            hedgeBalance = Math.min(hedgeMaxBurst, hedgeBalance + 1);
+        }
+    }
+    
+    /**
+     * 账号详情接口熔断中，不发送请求直接返回
+     */
+    private NoteDetailDTO circuitOpen(String userId, String noteUrl, LogCallback logCallback) {
+        log.warn("账号[{}]详情接口熔断中，跳过笔记: {}", userId, noteUrl);
+        if (logCallback != null) {
+            logCallback.log("账号[" + userId + "]详情接口熔断中，稍后自动恢复，本次未发送请求");
+        }
+        return NoteDetailDTO.failed(userId, noteUrl, SearchResult.CIRCUIT_OPEN);
+    }
+    
+    /**
+     * 使用已分配的账号爬取笔记详情
+     */
+    private NoteDetailDTO fetchNoteDetailWithAccount(
+            String userId, 
+            String noteUrl, 
+            LogCallback logCallback,
+            ProgressCallback progressCallback,
+            CancellationToken token) {
+        // 本次借用的上下文租约，出错时用于判断浏览器是否崩溃
+        AtomicReference<ContextLease> leaseRef = new AtomicReference<>();
+        
+        try {
+            log.info("开始使用用户[{}]爬取笔记详情: {}", userId, noteUrl);
+            if (logCallback != null) {
+                logCallback.log("开始使用用户[" + userId + "]爬取笔记详情: " + noteUrl);
+            }
             
-            try {
-                log.info("开始使用用户[{}]爬取笔记详情: {}", userId, noteUrl);
+            // 加载用户信息
+            UserInfo user = userService.getUserById(userId);
+            if (user == null || user.getCookies() == null || user.getCookies().isEmpty()) {
+                log.warn("未找到用户[{}]的信息或cookies为空", userId);
                 if (logCallback != null) {
-                    logCallback.log("开始使用用户[" + userId + "]爬取笔记详情: " + noteUrl);
+                    logCallback.log("未找到用户[" + userId + "]的信息或cookies为空");
                 }
-                
-                // 加载用户信息
-                UserInfo user = userService.getUserById(userId);
-                if (user == null || user.getCookies() == null || user.getCookies().isEmpty()) {
-                    log.warn("未找到用户[{}]的信息或cookies为空", userId);
-                    if (logCallback != null) {
-                        logCallback.log("未找到用户[" + userId + "]的信息或cookies为空");
-                    }
-                    return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
+                return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
+            }
+            
+            // 按该账号当前的速率等待，HTTP失败回退到浏览器时不再重复等待；等待期间不占用浏览器，可以取消
+            if (!crawlPacer.acquire(userId, token)) {
+                log.info("爬取笔记详情已取消: {}", noteUrl);
+                if (logCallback != null) {
+                    logCallback.log("爬取笔记详情已取消");
                 }
-                
-                if (progressCallback != null) {
-                    progressCallback.onProgress(0, 100, "初始化浏览器...");
+                return NoteDetailDTO.failed(userId, noteUrl, SearchResult.INTERRUPTED);
+            }
+            
+            // 优先尝试不启动浏览器的HTTP方式，失败时继续使用浏览器
+            if (httpEnabled) {
+                NoteDetailDTO httpResult = fetchNoteDetailOverHttp(user, noteUrl, logCallback, progressCallback, token);
+                if (httpResult != null) {
+                    return httpResult;
                 }
-                
-                // 使用try-with-resources确保资源正确关闭
-                try (Playwright playwright = Playwright.create()) {
-                    // 创建浏览器实例 - 使用Chromium
-                    BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                            .setHeadless(true)  // 非无头模式，可以看到界面
-                            .setSlowMo(100);     // 减缓操作速度，便于观察
-                    
-                    try (Browser browser = playwright.chromium().launch(launchOptions)) {
-                        // 创建浏览器上下文
-                        try (BrowserContext context = browser.newContext()) {
-                            // 添加用户的cookies
-                context.addCookies(user.getCookies());
+            }
+            token.throwIfCancelled();
+            
+            if (progressCallback != null) {
+                progressCallback.onProgress(0, 100, "初始化浏览器...");
+            }
+            
+            // 借用该用户已登录的浏览器上下文，操作在浏览器所属线程中执行，结束后自动归还
+            return browserManager.callWithContext(user, lease -> {
+                leaseRef.set(lease);
                 
                 if (logCallback != null) {
-                    logCallback.log("浏览器初始化完成，正在加载cookies");
+                    logCallback.log(lease.isFresh() ? "浏览器初始化完成，已加载cookies" : "复用已登录的浏览器上下文");
+                    logCallback.log("执行配置: " + lease.getPacingProfile());
                 }
                 
                 if (progressCallback != null) {
@@ -125,53 +511,51 @@ public class NoteDetailService {
                 }
                 
                 // 创建页面对象并导航到笔记URL
-                            Page page = context.newPage();
-                
-                // 添加页面关闭事件监听器
-                page.onClose(p -> {
-                    log.info("浏览器页面被关闭");
-                        log.info("检测到页面被用户手动关闭");
-                        browserClosedByUser.set(true);
-                });
+                Page page = lease.newPage(OperationType.DETAIL);
                 
                 // 导航到笔记详情页
                 log.info("导航到笔记详情页: {}", noteUrl);
                 if (logCallback != null) {
                     logCallback.log("正在打开笔记页面: " + noteUrl);
                 }
-                page.navigate(noteUrl);
                 
-                try {
-                    // 等待页面加载完成
-                    page.waitForLoadState(LoadState.DOMCONTENTLOADED);
-                    
-                    if (progressCallback != null) {
-                        progressCallback.onProgress(20, 100, "页面加载完成，检查登录状态...");
-                    }
-                } catch (PlaywrightException e) {
-                    if (e.getMessage().contains("Target page, context or browser has been closed")) {
-                        log.info("在页面加载过程中浏览器被关闭");
-                        if (browserClosedByUser.get()) {
-                            return NoteDetailDTO.failed(userId, noteUrl, SearchResult.INTERRUPTED);
-                        }
+                // 打开页面并等待加载完成，等待期间可以取消
+                PageWaitUtil.navigate(page, noteUrl, token);
+                
+                if (progressCallback != null) {
+                    progressCallback.onProgress(20, 100, "页面加载完成，检查登录状态...");
+                }
+                
+                // 被重定向到验证页时降速并结束本次爬取
+                if (CrawlPacer.classifyUrl(page.url()) == ThrottleSignal.CAPTCHA) {
+                    crawlPacer.onThrottle(userId, ThrottleSignal.CAPTCHA, page.url());
+                    circuitBreakers.onCaptcha(userId, Endpoint.DETAIL, page.url());
+                    log.warn("笔记详情页被重定向到验证页: {}", page.url());
+                    if (logCallback != null) {
+                        logCallback.log("笔记详情页被重定向到验证页，已降低请求速率，请稍后再试");
                     }
-                    throw e;
+                    return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
                 }
                 
                 // 检查登录状态
-                Boolean isLoggedIn = checkLoginStatus(page, userId);
-                if (isLoggedIn == null) {
+                LoginProbeResult loginProbe = pageProbe.probeLoginState(page);
+                if (logCallback != null) {
+                    logCallback.log("登录状态检测完成，耗时" + loginProbe.getElapsedMs() + "ms");
+                }
+                if (loginProbe.getState() == LoginState.UNKNOWN) {
                     log.warn("登录状态检查超时或出错");
                     if (logCallback != null) {
                         logCallback.log("登录状态检查超时或出错，继续尝试爬取");
                     }
-                } else if (!isLoggedIn) {
+                } else if (loginProbe.getState() == LoginState.LOGGED_OUT) {
                     log.warn("检测到用户[{}]登录已失效", userId);
                     if (logCallback != null) {
                         logCallback.log("检测到用户登录已失效，无法爬取笔记详情");
                     }
+                    crawlPacer.onThrottle(userId, ThrottleSignal.LOGIN_WALL, page.url());
                     // 标记用户登录状态为失效
                     userService.markUserLoginExpired(userId);
+                    lease.invalidate();
                     
                     return NoteDetailDTO.failed(userId, noteUrl, SearchResult.LOGIN_EXPIRED);
                 }
@@ -184,31 +568,10 @@ public class NoteDetailService {
                     logCallback.log("开始爬取笔记详情...");
                 }
                 
-                // 等待数据加载
-                try {
-                    page.waitForSelector(NOTE_TITLE_SELECTOR, new Page.WaitForSelectorOptions().setTimeout(5000));
-                } catch (PlaywrightException e) {
-                    if (e.getMessage().contains("Target page, context or browser has been closed")) {
-                        if (browserClosedByUser.get()) {
-                            return NoteDetailDTO.failed(userId, noteUrl, SearchResult.INTERRUPTED);
-                        }
-                    } else if (e.getMessage().contains("Timeout")) {
-                        log.warn("等待标题元素超时，可能页面结构发生变化");
-                        if (logCallback != null) {
-                            logCallback.log("等待标题元素超时，可能页面结构发生变化");
-                        }
-                    }
-                    // 对于超时错误，我们继续尝试爬取
-                }
-                
-                // 提取笔记详情
-                NoteInfo noteDetail = extractNoteDetail(page);
-                
-                // 设置基本属性
-                noteDetail.setNoteUrl(noteUrl);
-                // 从URL提取笔记ID
-                String noteId = extractNoteIdFromUrl(noteUrl);
-                noteDetail.setNoteId(noteId);
+                // 等待数据加载并提取笔记详情
+                token.throwIfCancelled();
+                NoteInfo noteDetail = readNoteDetail(page, noteUrl, logCallback);
+                crawlPacer.onSuccess(userId);
                 
                 if (progressCallback != null) {
                     progressCallback.onProgress(90, 100, "笔记详情爬取完成，准备结束...");
@@ -216,6 +579,9 @@ public class NoteDetailService {
                 
                 if (logCallback != null) {
                     logCallback.log("笔记详情爬取完成: " + noteDetail.getTitle());
+                    if (lease.getFilterStats() != null) {
+                        logCallback.log(lease.getFilterStats().summary());
+                    }
                 }
                 
                 if (progressCallback != null) {
@@ -223,128 +589,611 @@ public class NoteDetailService {
                 }
                 
                 return NoteDetailDTO.success(userId, noteUrl, noteDetail);
-                        }
+            });
+        } catch (CancellationException e) {
+            log.info("爬取笔记详情已取消: {}", noteUrl);
+            if (logCallback != null) {
+                logCallback.log("爬取笔记详情已取消");
+            }
+            return NoteDetailDTO.failed(userId, noteUrl, SearchResult.INTERRUPTED);
+        } catch (PlaywrightException e) {
+            // 浏览器崩溃时租约归还时已重启浏览器，交给上层重新执行
+            if (leaseRef.get() != null && leaseRef.get().isCrashed()) {
+                if (logCallback != null) {
+                    logCallback.log("浏览器崩溃，已自动重启: " + e.getMessage());
+                }
+                throw new BrowserCrashedException("爬取笔记详情过程中浏览器崩溃", e);
+            }
+            log.error("爬取过程中发生Playwright错误: {}", e.getMessage(), e);
+            if (logCallback != null) {
+                logCallback.log("爬取过程中发生错误: " + e.getMessage());
+            }
+            return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
+        } catch (Exception e) {
+            log.error("爬取过程中发生错误: {}", e.getMessage(), e);
+            if (logCallback != null) {
+                logCallback.log("爬取过程中发生错误: " + e.getMessage());
+            }
+            return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
+        }
+    }
+    
+    /**
+     * 简化版的fetchNoteDetail方法，没有回调函数
+     */
+    public CompletableFuture<NoteDetailDTO> fetchNoteDetail(String userId, String noteUrl) {
+        return fetchNoteDetail(userId, noteUrl, null, null);
+    }
+    
+    /**
+     * 使用指定用户批量爬取笔记详情，每条笔记完成后立即通过回调返回
+     * <p>
+     * 先以有限并发通过HTTP方式获取，未获取到的笔记再交给同一个已登录的浏览器上下文：
+     * 同时打开多个页面，导航只等待响应开始返回就切换到下一个页面，使多个详情页的加载相互重叠，
+     * 页面读取仍在当前线程上依次进行。并发数由app.crawl.detail.batch.parallelism控制。
+     * 每条笔记的每次请求都消耗所用账号的一个令牌。
+     *
+     * @param userId 要使用的用户ID，为空时由账号调度器自动分配
+     * @param noteUrls 笔记URL列表，重复的URL只爬取一次
+     * @param resultConsumer 单条笔记完成时的回调，在工作线程中调用
+     * @param logCallback 日志回调
+     * @param progressCallback 进度回调，current为已完成的笔记数
+     * @return CompletableFuture<List<NoteDetailDTO>> 按输入顺序排列的全部结果
+     */
+    public CompletableFuture<List<NoteDetailDTO>> fetchNoteDetails(
+            String userId,
+            List<String> noteUrls,
+            Consumer<NoteDetailDTO> resultConsumer,
+            LogCallback logCallback,
+            ProgressCallback progressCallback) {
+        return fetchNoteDetails(userId, noteUrls, resultConsumer, logCallback, progressCallback, CancellationToken.NONE);
+    }
+    
+    /**
+     * 批量爬取笔记详情，可以通过取消令牌中途停止
+     * <p>
+     * 取消后不再发出新的请求，正在加载的页面在当前步骤结束时放弃，
+     * 已完成的笔记保留在结果中，未完成的笔记记为INTERRUPTED。
+     *
+     * @param userId 要使用的用户ID，为空时由账号调度器自动分配
+     * @param noteUrls 笔记URL列表，重复的URL只爬取一次
+     * @param resultConsumer 单条笔记完成时的回调，在工作线程中调用
+     * @param logCallback 日志回调
+     * @param progressCallback 进度回调，current为已完成的笔记数
+     * @param token 取消令牌，为null时不可取消
+     * @return CompletableFuture<List<NoteDetailDTO>> 按输入顺序排列的全部结果
+     */
+    public CompletableFuture<List<NoteDetailDTO>> fetchNoteDetails(
+            String userId,
+            List<String> noteUrls,
+            Consumer<NoteDetailDTO> resultConsumer,
+            LogCallback logCallback,
+            ProgressCallback progressCallback,
+            CancellationToken token) {
+        
+        final CancellationToken cancellation = CancellationToken.orNone(token);
+        if (noteUrls == null || noteUrls.isEmpty()) {
+            log.warn("笔记URL列表为空，无法执行批量爬取");
+            if (logCallback != null) {
+                logCallback.log("笔记URL列表为空，无法执行批量爬取");
+            }
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+        
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            List<String> urls = new ArrayList<>(new LinkedHashSet<>(noteUrls));
+            Map<String, NoteDetailDTO> results = new ConcurrentHashMap<>();
+            AtomicInteger completed = new AtomicInteger();
+            
+            Consumer<NoteDetailDTO> publish = result -> {
+                if (results.putIfAbsent(result.getNoteUrl(), result) != null) {
+                    return;
+                }
+                int done = completed.incrementAndGet();
+                if (progressCallback != null) {
+                    progressCallback.onProgress(done, urls.size(), "已完成" + done + "/" + urls.size() + "条笔记");
+                }
+                if (resultConsumer != null) {
+                    try {
+                        resultConsumer.accept(result);
+                    } catch (Exception e) {
+                        log.warn("处理笔记详情结果时出错: {}", e.getMessage());
                     }
                 }
-            } catch (PlaywrightException e) {
-                // 检查是否是浏览器被手动关闭的异常
-                if (e.getMessage().contains("Target page, context or browser has been closed")) {
-                    if (browserClosedByUser.get()) {
-                        log.info("爬取过程被用户中断");
-                        return NoteDetailDTO.failed(userId, noteUrl, SearchResult.INTERRUPTED);
+            };
+            
+            SearchResult unfinishedStatus = SearchResult.FAILED;
+            String accountId = userId;
+            // 指定的账号详情接口熔断中时不占用配额，全部笔记直接记为熔断
+            if (userId != null && !circuitBreakers.tryAcquire(userId, Endpoint.DETAIL)) {
+                circuitOpen(userId, urls.size() + "条笔记", logCallback);
+                unfinishedStatus = SearchResult.CIRCUIT_OPEN;
+            } else {
+                try (AccountPermit permit = accountScheduler.acquire(userId, OperationType.DETAIL, cancellation)) {
+                    if (permit == null) {
+                        circuitBreakers.release(userId, Endpoint.DETAIL);
+                        log.warn("没有可用的账号配额，无法批量爬取笔记详情");
+                        if (logCallback != null) {
+                            logCallback.log("没有可用的账号配额(配额已用完或等待超时)，无法批量爬取笔记详情");
+                        }
+                    } else if (userId == null && !circuitBreakers.tryAcquire(permit.getUserId(), Endpoint.DETAIL)) {
+                        accountId = permit.getUserId();
+                        circuitOpen(accountId, urls.size() + "条笔记", logCallback);
+                        unfinishedStatus = SearchResult.CIRCUIT_OPEN;
                     } else {
-                        log.error("浏览器被意外关闭: {}", e.getMessage());
+                        String account = permit.getUserId();
+                        accountId = account;
+                        // 获取许可时已消耗一个令牌，之后每次请求再各消耗一个
+                        AtomicBoolean firstTokenUsed = new AtomicBoolean(false);
+                        BooleanSupplier tokenGate = () -> !cancellation.isCancelled()
+                                && (firstTokenUsed.compareAndSet(false, true) || permit.consume());
+                    
+                        log.info("开始使用用户[{}]批量爬取{}条笔记详情，并发数: {}", accountId, urls.size(), batchParallelism);
                         if (logCallback != null) {
-                            logCallback.log("浏览器被意外关闭: " + e.getMessage());
+                            logCallback.log("开始使用用户[" + accountId + "]批量爬取" + urls.size() + "条笔记详情，并发数: " + batchParallelism);
+                        }
+                    
+                        UserInfo user = userService.getUserById(accountId);
+                        if (user == null || user.getCookies() == null || user.getCookies().isEmpty()) {
+                            log.warn("未找到用户[{}]的信息或cookies为空", accountId);
+                            if (logCallback != null) {
+                                logCallback.log("未找到用户[" + accountId + "]的信息或cookies为空");
+                            }
+                        } else {
+                            List<String> pending = httpEnabled
+                                    ? fetchBatchOverHttp(user, urls, tokenGate, publish, logCallback, cancellation) : urls;
+                            if (!pending.isEmpty() && !cancellation.isCancelled()
+                                    && !circuitBreakers.isOpen(account, Endpoint.DETAIL)) {
+                                if (logCallback != null && httpEnabled) {
+                                    logCallback.log(pending.size() + "条笔记未能通过HTTP获取，改用浏览器爬取");
+                                }
+                                // 浏览器崩溃时在重启后的浏览器上重新爬取尚未完成的笔记
+                                unfinishedStatus = browserManager.retryOnCrash("批量爬取笔记详情",
+                                        () -> fetchBatchInBrowser(user, pending.stream()
+                                                .filter(url -> !results.containsKey(url))
+                                                .collect(Collectors.toList()),
+                                                tokenGate, publish, logCallback, cancellation),
+                                        e -> SearchResult.FAILED);
+                            }
+                        }
+                        circuitBreakers.release(account, Endpoint.DETAIL);
+                        if (circuitBreakers.isOpen(account, Endpoint.DETAIL)) {
+                            unfinishedStatus = SearchResult.CIRCUIT_OPEN;
+                            if (logCallback != null) {
+                                logCallback.log("账号[" + account + "]详情接口已熔断，剩余笔记未发送请求");
+                            }
                         }
-                        return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
                     }
-                } else {
-                    log.error("爬取过程中发生Playwright错误: {}", e.getMessage(), e);
-                    if (logCallback != null) {
-                        logCallback.log("爬取过程中发生错误: " + e.getMessage());
+                }
+            }
+            
+            // 未完成的笔记统一补齐失败结果，取消时记为中断
+            if (cancellation.isCancelled()) {
+                unfinishedStatus = SearchResult.INTERRUPTED;
+                log.info("批量爬取已取消，已完成{}/{}条", results.size(), urls.size());
+                if (logCallback != null) {
+                    logCallback.log("批量爬取已取消，已完成" + results.size() + "/" + urls.size() + "条");
+                }
+            }
+            for (String url : urls) {
+                if (!results.containsKey(url)) {
+                    publish.accept(NoteDetailDTO.failed(accountId, url, unfinishedStatus));
+                }
+            }
+            
+            List<NoteDetailDTO> ordered = new ArrayList<>();
+            for (String url : urls) {
+                ordered.add(results.get(url));
+            }
+            long successCount = ordered.stream().filter(r -> r.getStatus() == SearchResult.SUCCESS).count();
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("批量爬取完成: 成功{}/{}条，耗时{}ms", successCount, urls.size(), elapsed);
+            if (logCallback != null) {
+                logCallback.log("批量爬取完成: 成功" + successCount + "/" + urls.size() + "条，耗时" + elapsed + "ms");
+            }
+            return ordered;
+        }, workloadExecutors.browser());
+    }
+    
+    /**
+     * 以有限并发通过HTTP方式批量获取笔记详情
+     *
+     * @return 未能通过HTTP获取的笔记URL，保持输入顺序
+     */
+    private List<String> fetchBatchOverHttp(UserInfo user, List<String> urls, BooleanSupplier tokenGate,
+            Consumer<NoteDetailDTO> publish, LogCallback logCallback, CancellationToken token) {
+        // 共用受监控的I/O线程池，用信号量把本批次的并发限制在batchParallelism以内
+        Semaphore slots = new Semaphore(Math.max(1, Math.min(batchParallelism, urls.size())));
+        List<CompletableFuture<NoteDetailDTO>> futures = new ArrayList<>();
+        for (String url : urls) {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            CompletableFuture<NoteDetailDTO> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> {
+                    // 取消或熔断后排队中的请求直接放弃，留给调用方记为中断或熔断
+                    if (token.isCancelled() || circuitBreakers.isOpen(user.getUserId(), Endpoint.DETAIL)) {
+                        return null;
                     }
-                    return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
+                    if (!tokenGate.getAsBoolean()) {
+                        if (token.isCancelled()) {
+                            return null;
+                        }
+                        NoteDetailDTO denied = NoteDetailDTO.failed(user.getUserId(), url, SearchResult.FAILED);
+                        publish.accept(denied);
+                        return denied;
+                    }
+                    if (!crawlPacer.acquire(user.getUserId(), token)) {
+                        return null;
+                    }
+                    NoteDetailDTO result = fetchNoteDetailOverHttp(user, url, null, null, token);
+                    if (result != null) {
+                        circuitBreakers.onSuccess(user.getUserId(), Endpoint.DETAIL);
+                        if (logCallback != null) {
+                            logCallback.log("笔记详情爬取完成(HTTP): " + result.getNoteDetail().getTitle());
+                        }
+                        publish.accept(result);
+                    }
+                    return result;
+                }, workloadExecutors.io());
+            } catch (RejectedExecutionException e) {
+                log.warn("I/O线程池繁忙，笔记改由浏览器获取: {}", url);
+                slots.release();
+                futures.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            futures.add(future.whenComplete((result, e) -> slots.release()).exceptionally(e -> {
+                log.warn("通过HTTP获取笔记详情时出错: {}", e.getMessage());
+                return null;
+            }));
+        }
+        
+        List<String> pending = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            if (futures.get(i).join() == null) {
+                pending.add(urls.get(i));
+            }
+        }
+        return pending;
+    }
+    
+    /**
+     * 在同一个已登录的浏览器上下文中用多个页面流水线式地爬取笔记详情
+     * <p>
+     * 账号的下一个请求位置未到时归还浏览器上下文，在浏览器所属线程以外等待后再借用，等待期间其它账号可以使用该浏览器。
+     *
+     * @return 中途停止时剩余笔记应标记的状态
+     */
+    private SearchResult fetchBatchInBrowser(UserInfo user, List<String> urls, BooleanSupplier tokenGate,
+            Consumer<NoteDetailDTO> publish, LogCallback logCallback, CancellationToken token) {
+        String userId = user.getUserId();
+        AtomicReference<ContextLease> leaseRef = new AtomicReference<>();
+        Deque<String> queue = new ArrayDeque<>(urls);
+        AtomicBoolean loginChecked = new AtomicBoolean(false);
+        int rounds = 0;
+        
+        try {
+            // 按账号速率的等待在借用浏览器之前进行；借用期间下一个请求位置未到时先归还浏览器，等待后再借用
+            while (!queue.isEmpty() && !token.isCancelled() && !circuitBreakers.isOpen(userId, Endpoint.DETAIL)) {
+                if (!crawlPacer.acquire(userId, token)) {
+                    break;
                 }
-            } catch (Exception e) {
-                log.error("爬取过程中发生错误: {}", e.getMessage(), e);
+                AtomicBoolean paced = new AtomicBoolean(true);
+                boolean firstRound = rounds++ == 0;
+                // 所有页面都在浏览器所属线程中操作，返回null表示暂停等待下一个请求位置
+                SearchResult stopped = browserManager.callWithContext(user, lease -> {
+                    leaseRef.set(lease);
+                    if (logCallback != null && firstRound) {
+                        logCallback.log("执行配置: " + lease.getPacingProfile());
+                    }
+                    int maxPages = Math.max(1, Math.min(batchParallelism, queue.size()));
+                    List<Page> pages = new ArrayList<>();
+                    String[] inFlight = new String[maxPages];
+                    
+                    // 先让每个页面都开始加载，请求位置未到或队列已空时不再打开更多页面
+                    for (int i = 0; i < maxPages; i++) {
+                        Page page = lease.newPage(OperationType.DETAIL);
+                        pages.add(page);
+                        inFlight[i] = startNavigation(page, queue, userId, paced, tokenGate, publish, token);
+                        if (inFlight[i] == null) {
+                            break;
+                        }
+                    }
+                    int pageCount = pages.size();
+                    
+                    boolean anyInFlight = true;
+                    while (anyInFlight && !token.isCancelled()) {
+                        anyInFlight = false;
+                        // 依次读取加载时间最长的页面，读取完立刻让该页面开始加载下一条
+                        for (int i = 0; i < pageCount; i++) {
+                            String noteUrl = inFlight[i];
+                            if (noteUrl == null) {
+                                continue;
+                            }
+                            Page page = pages.get(i);
+                            
+                            try {
+                                PageWaitUtil.waitForDomContentLoaded(page, token);
+                                
+                                // 跳转到验证页的笔记记为失败，降速后继续，后续页面按降低后的速率加载
+                                if (CrawlPacer.classifyUrl(page.url()) == ThrottleSignal.CAPTCHA) {
+                                    crawlPacer.onThrottle(userId, ThrottleSignal.CAPTCHA, page.url());
+                                    circuitBreakers.onCaptcha(userId, Endpoint.DETAIL, page.url());
+                                    log.warn("笔记详情页被重定向到验证页: {}", noteUrl);
+                                    if (logCallback != null) {
+                                        logCallback.log("笔记详情页被重定向到验证页，已降低请求速率: " + noteUrl);
+                                    }
+                                    circuitBreakers.onFailure(userId, Endpoint.DETAIL, "跳转验证页");
+                                    publish.accept(NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED));
+                                    inFlight[i] = startNavigation(page, queue, userId, paced, tokenGate, publish, token);
+                                    anyInFlight |= inFlight[i] != null;
+                                    continue;
+                                }
+                                
+                                if (!loginChecked.get()) {
+                                    LoginProbeResult loginProbe = pageProbe.probeLoginState(page);
+                                    loginChecked.set(true);
+                                    if (loginProbe.getState() == LoginState.LOGGED_OUT) {
+                                        log.warn("检测到用户[{}]登录已失效", userId);
+                                        if (logCallback != null) {
+                                            logCallback.log("检测到用户登录已失效，停止批量爬取");
+                                        }
+                                        crawlPacer.onThrottle(userId, ThrottleSignal.LOGIN_WALL, page.url());
+                                        userService.markUserLoginExpired(userId);
+                                        lease.invalidate();
+                                        return SearchResult.LOGIN_EXPIRED;
+                                    }
+                                }
+                                
+                                NoteInfo noteDetail = readNoteDetail(page, noteUrl, logCallback);
+                                if (logCallback != null) {
+                                    logCallback.log("笔记详情爬取完成: " + noteDetail.getTitle());
+                                }
+                                crawlPacer.onSuccess(userId);
+                                circuitBreakers.onSuccess(userId, Endpoint.DETAIL);
+                                publish.accept(NoteDetailDTO.success(userId, noteUrl, noteDetail));
+                            } catch (PlaywrightException e) {
+                                if (BrowserManager.isBrowserGone(e) || lease.isCrashed()) {
+                                    throw e;
+                                }
+                                log.warn("爬取笔记详情[{}]时出错: {}", noteUrl, e.getMessage());
+                                if (logCallback != null) {
+                                    logCallback.log("爬取笔记详情失败: " + noteUrl);
+                                }
+                                circuitBreakers.onFailure(userId, Endpoint.DETAIL, e.getMessage());
+                                publish.accept(NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED));
+                            }
+                            
+                            inFlight[i] = startNavigation(page, queue, userId, paced, tokenGate, publish, token);
+                            anyInFlight |= inFlight[i] != null;
+                        }
+                    }
+                    
+                    if (logCallback != null && queue.isEmpty() && lease.getFilterStats() != null) {
+                        logCallback.log(lease.getFilterStats().summary());
+                    }
+                    return null;
+                });
+                if (stopped != null) {
+                    return stopped;
+                }
+            }
+            return token.isCancelled() ? SearchResult.INTERRUPTED : SearchResult.FAILED;
+        } catch (CancellationException e) {
+            log.info("批量爬取已取消，放弃正在加载的页面");
+            return SearchResult.INTERRUPTED;
+        } catch (PlaywrightException e) {
+            if (leaseRef.get() != null && leaseRef.get().isCrashed()) {
                 if (logCallback != null) {
-                    logCallback.log("爬取过程中发生错误: " + e.getMessage());
+                    logCallback.log("浏览器崩溃，已自动重启: " + e.getMessage());
                 }
-                return NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED);
+                throw new BrowserCrashedException("批量爬取过程中浏览器崩溃", e);
+            }
+            log.error("批量爬取过程中发生Playwright错误: {}", e.getMessage(), e);
+            if (logCallback != null) {
+                logCallback.log("批量爬取过程中发生错误: " + e.getMessage());
             }
-        });
+            return SearchResult.FAILED;
+        } catch (Exception e) {
+            log.error("批量爬取过程中发生错误: {}", e.getMessage(), e);
+            if (logCallback != null) {
+                logCallback.log("批量爬取过程中发生错误: " + e.getMessage());
+            }
+            return SearchResult.FAILED;
+        }
     }
     
     /**
-     * 简化版的fetchNoteDetail方法，没有回调函数
+     * 让页面开始加载队列中的下一条笔记，只等待响应开始返回，账号配额不足的笔记直接记为失败
+     * <p>
+     * 每次导航占用账号的一个请求位置，多个页面共用同一个账号的节奏。在浏览器所属线程中不等待，
+     * 下一个请求位置未到时笔记留在队列中，由调用方归还浏览器后再等待。取消后不再开始新的导航。
+     *
+     * @param paced 是否持有尚未使用的请求位置，导航后清除
+     * @return 正在加载的笔记URL，队列为空、请求位置未到或已取消时返回null
      */
-    public CompletableFuture<NoteDetailDTO> fetchNoteDetail(String userId, String noteUrl) {
-        return fetchNoteDetail(userId, noteUrl, null, null);
+    private String startNavigation(Page page, Deque<String> queue, String userId, AtomicBoolean paced,
+            BooleanSupplier tokenGate, Consumer<NoteDetailDTO> publish, CancellationToken token) {
+        String noteUrl;
+        while (!token.isCancelled() && !circuitBreakers.isOpen(userId, Endpoint.DETAIL)
+                && (noteUrl = queue.peek()) != null) {
+            if (!paced.get()) {
+                if (!crawlPacer.tryAcquire(userId)) {
+                    return null;
+                }
+                paced.set(true);
+            }
+            queue.poll();
+            if (!tokenGate.getAsBoolean()) {
+                if (token.isCancelled()) {
+                    return null;
+                }
+                log.warn("账号[{}]配额不足，跳过笔记[{}]", userId, noteUrl);
+                publish.accept(NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED));
+                continue;
+            }
+            paced.set(false);
+            try {
+                page.navigate(noteUrl, new Page.NavigateOptions().setWaitUntil(WaitUntilState.COMMIT));
+                return noteUrl;
+            } catch (PlaywrightException e) {
+                if (BrowserManager.isBrowserGone(e)) {
+                    throw e;
+                }
+                log.warn("打开笔记页面[{}]失败: {}", noteUrl, e.getMessage());
+                circuitBreakers.onFailure(userId, Endpoint.DETAIL, e.getMessage());
+                publish.accept(NoteDetailDTO.failed(userId, noteUrl, SearchResult.FAILED));
+            }
+        }
+        return null;
     }
     
     /**
-     * 检查登录状态
-     * 
-     * @param page Playwright页面对象
-     * @param userId 用户ID，用于日志记录
-     * @return Boolean 登录状态: true=已登录, false=未登录, null=检查失败
+     * 等待已打开的详情页渲染并提取笔记详情，优先读取页面内嵌的初始状态数据，失败时回退到页面元素解析
+     *
+     * @param page 已导航到笔记URL的页面
+     * @param noteUrl 笔记URL
+     * @param logCallback 日志回调，可为null
+     * @return 笔记信息，已设置URL和笔记ID
      */
-    private Boolean checkLoginStatus(Page page, String userId) {
+    private NoteInfo readNoteDetail(Page page, String noteUrl, LogCallback logCallback) {
         try {
-            log.info("开始检查用户[{}]的登录状态", userId);
-            
-            // 先尝试使用主选择器检查登录状态
-            boolean hasLoggedInElement = page.waitForSelector(LOGGED_IN_SELECTOR, 
-                            new Page.WaitForSelectorOptions().setState(WaitForSelectorState.ATTACHED).setTimeout(LOGIN_CHECK_TIMEOUT / 4))
-                    .isVisible();
-            
-            if (hasLoggedInElement) {
-                log.info("检测到已登录元素(主选择器)");
-                return true;
+            timeoutManager.waitForSelector(page, "detail", NOTE_TITLE_SELECTOR, TITLE_TIMEOUT_MS);
+        } catch (PlaywrightException e) {
+            if (BrowserManager.isBrowserGone(e)) {
+                throw e;
             }
-            
-            // 尝试使用备用选择器
-            boolean hasLoggedInElementBackup = page.waitForSelector(LOGGED_IN_SELECTOR_BACKUP, 
-                            new Page.WaitForSelectorOptions().setState(WaitForSelectorState.ATTACHED).setTimeout(LOGIN_CHECK_TIMEOUT / 4))
-                    .isVisible();
-            
-            if (hasLoggedInElementBackup) {
-                log.info("检测到已登录元素(备用选择器)");
-                return true;
+            if (e instanceof TimeoutError) {
+                log.warn("等待标题元素超时，可能页面结构发生变化");
+                if (logCallback != null) {
+                    logCallback.log("等待标题元素超时，可能页面结构发生变化");
+                }
             }
-            
-            // 检查登出状态元素
-            boolean hasLoggedOutElement = page.waitForSelector(LOGGED_OUT_SELECTOR, 
-                            new Page.WaitForSelectorOptions().setState(WaitForSelectorState.ATTACHED).setTimeout(LOGIN_CHECK_TIMEOUT / 4))
-                    .isVisible();
-            
-            if (hasLoggedOutElement) {
-                log.info("检测到未登录元素(主选择器)");
-                return false;
+            // 对于超时错误，我们继续尝试爬取
+        }
+        
+        // 从URL提取笔记ID
+        String noteId = extractNoteIdFromUrl(noteUrl);
+        
+        NoteInfo noteDetail = null;
+        if ("state".equalsIgnoreCase(extractionMode)) {
+            noteDetail = extractNoteDetailFromState(page, noteId);
+            if (noteDetail == null && logCallback != null) {
+                logCallback.log("未读取到页面初始状态数据，改为解析页面元素");
             }
-            
-            // 尝试使用备用选择器
-            boolean hasLoggedOutElementBackup = page.waitForSelector(LOGGED_OUT_SELECTOR_BACKUP, 
-                            new Page.WaitForSelectorOptions().setState(WaitForSelectorState.ATTACHED).setTimeout(LOGIN_CHECK_TIMEOUT / 4))
-                    .isVisible();
-            
-            if (hasLoggedOutElementBackup) {
-                log.info("检测到未登录元素(备用选择器)");
-                return false;
+        }
+        if (noteDetail == null) {
+            noteDetail = extractNoteDetail(page);
+        }
+        
+        // 设置基本属性
+        noteDetail.setNoteUrl(noteUrl);
+        noteDetail.setNoteId(noteId);
+        return noteDetail;
+    }
+    
+    /**
+     * 不启动浏览器，携带用户cookies直接请求详情页获取笔记详情
+     *
+     * @return 成功时返回结果，疑似被拦截或数据不完整时返回null
+     */
+    private NoteDetailDTO fetchNoteDetailOverHttp(UserInfo user, String noteUrl,
+            LogCallback logCallback, ProgressCallback progressCallback, CancellationToken token) {
+        if (progressCallback != null) {
+            progressCallback.onProgress(10, 100, "正在通过HTTP获取笔记详情...");
+        }
+        
+        String noteId = extractNoteIdFromUrl(noteUrl);
+        JSONObject state = noteDetailHttpFetcher.fetch(user, noteUrl, noteId, token);
+        if (state == null) {
+            if (logCallback != null && !token.isCancelled()) {
+                logCallback.log("HTTP方式未获取到完整的笔记数据，改用浏览器爬取");
             }
-            
-            // 最后尝试检查是否存在"登录"文本
-            boolean hasLoginText = page.waitForSelector(LOGIN_TEXT_SELECTOR, 
-                            new Page.WaitForSelectorOptions().setState(WaitForSelectorState.ATTACHED).setTimeout(LOGIN_CHECK_TIMEOUT / 4))
-                    .isVisible();
-            
-            if (hasLoginText) {
-                log.info("检测到'登录'文本");
-                return false;
+            return null;
+        }
+        
+        NoteInfo noteDetail = noteInfoFromState(state);
+        noteDetail.setNoteUrl(noteUrl);
+        noteDetail.setNoteId(noteId.isEmpty() ? state.getStr("noteId") : noteId);
+        
+        if (logCallback != null) {
+            logCallback.log("笔记详情爬取完成(HTTP): " + noteDetail.getTitle());
+        }
+        if (progressCallback != null) {
+            progressCallback.onProgress(100, 100, "爬取完成!");
+        }
+        return NoteDetailDTO.success(user.getUserId(), noteUrl, noteDetail);
+    }
+    
+    /**
+     * 通过一次页面脚本调用读取服务端渲染的初始状态数据并转换为笔记信息
+     *
+     * @param page Playwright页面对象
+     * @param noteId 从URL中提取的笔记ID，可为空
+     * @return 笔记信息，页面中没有初始状态数据或解析失败时返回null
+     */
+    private NoteInfo extractNoteDetailFromState(Page page, String noteId) {
+        try {
+            Object result = page.evaluate(INITIAL_STATE_SCRIPT, noteId);
+            if (!(result instanceof String)) {
+                log.warn("页面中未找到笔记初始状态数据");
+                return null;
             }
             
-            // 如果上面的检查都未能确定登录状态，则默认假设已登录
-            log.info("未明确检测到登录状态，默认假设已登录");
-            return true;
-            
+            NoteInfo noteInfo = noteInfoFromState(JSONUtil.parseObj((String) result));
+            log.info("从初始状态数据提取笔记: 标题[{}]，正文长度{}，{}个标签，{}张图片",
+                    noteInfo.getTitle(), noteInfo.getContent().length(),
+                    noteInfo.getTags().size(), noteInfo.getImageUrls().size());
+            return noteInfo;
         } catch (PlaywrightException e) {
-            if (e.getMessage().contains("Timeout")) {
-                log.warn("登录状态检查超时，可能网络较慢或页面结构变化");
-                // 如果超时，我们继续尝试，默认假设已登录
-                return true;
-            } else {
-                log.error("检查登录状态时发生错误: {}", e.getMessage(), e);
-                return null;
+            if (BrowserManager.isBrowserGone(e)) {
+                throw e;
             }
+            log.warn("读取笔记初始状态数据时出错: {}", e.getMessage());
+            return null;
         } catch (Exception e) {
-            log.error("检查登录状态时发生未知错误: {}", e.getMessage(), e);
+            log.warn("解析笔记初始状态数据时出错: {}", e.getMessage());
             return null;
         }
     }
     
     /**
-     * 从笔记详情页提取笔记信息
+     * 将初始状态中读取的笔记字段转换为笔记信息，浏览器脚本和HTTP获取器返回的字段一致
+     */
+    private NoteInfo noteInfoFromState(JSONObject note) {
+        String authorId = note.getStr("userId", "");
+        String content = note.getStr("desc", "");
+        // 正文中的话题标签单独存放在tags中，与页面元素解析的结果保持一致
+        content = TOPIC_PATTERN.matcher(content).replaceAll("").trim();
+        
+        Long time = note.getLong("time");
+        LocalDateTime publishTime = time == null ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        
+        return NoteInfo.builder()
+                .title(note.getStr("title", ""))
+                .content(content)
+                .authorId(authorId)
+                .authorUrl(authorId.isEmpty() ? "" : "https://www.xiaohongshu.com/user/profile/" + authorId)
+                .authorName(note.getStr("nickname", ""))
+                .likeCount(note.getStr("likedCount", "0"))
+                .collectCount(note.getStr("collectedCount", "0"))
+                .commentCount(note.getStr("commentCount", "0"))
+                .shareCount(note.getStr("shareCount", "0"))
+                .publishTime(publishTime)
+                .tags(note.getJSONArray("tags") == null ? new ArrayList<>() : note.getJSONArray("tags").toList(String.class))
+                .imageUrls(note.getJSONArray("images") == null ? new ArrayList<>() : note.getJSONArray("images").toList(String.class))
+                .build();
+    }
+    
+    /**
+     * 从笔记详情页元素中提取笔记信息
      * 
      * @param page Playwright页面对象
      * @return NoteInfo 笔记信息对象
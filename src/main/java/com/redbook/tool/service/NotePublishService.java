@@ -10,7 +10,10 @@ import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -20,18 +23,25 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.microsoft.playwright.Browser;
-import com.microsoft.playwright.BrowserContext;
-import com.microsoft.playwright.BrowserType;
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
 import com.microsoft.playwright.TimeoutError;
 import com.microsoft.playwright.options.AriaRole;
-import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.WaitForSelectorState;
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.dto.PublishResultDTO;
 import com.redbook.tool.entity.NoteInfo;
 import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.manager.BrowserCrashedException;
+import com.redbook.tool.manager.BrowserManager;
+import com.redbook.tool.manager.BrowserManager.ContextLease;
+import com.redbook.tool.manager.OperationType;
+import com.redbook.tool.manager.PacingProfile;
+import com.redbook.tool.manager.TimeoutManager;
+import com.redbook.tool.service.CircuitBreakerRegistry.Endpoint;
+import com.redbook.tool.util.CancellationToken;
+import com.redbook.tool.util.PageWaitUtil;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
@@ -68,10 +78,19 @@ public class NotePublishService {
     private static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
     
     private final UserService userService;
+    private final BrowserManager browserManager;
+    private final WorkloadExecutors workloadExecutors;
+    private final TimeoutManager timeoutManager;
+    private final CircuitBreakerRegistry circuitBreakers;
     
     @Autowired
-    public NotePublishService(UserService userService) {
+    public NotePublishService(UserService userService, BrowserManager browserManager, WorkloadExecutors workloadExecutors,
+            TimeoutManager timeoutManager, CircuitBreakerRegistry circuitBreakers) {
         this.userService = userService;
+        this.browserManager = browserManager;
+        this.workloadExecutors = workloadExecutors;
+        this.timeoutManager = timeoutManager;
+        this.circuitBreakers = circuitBreakers;
     }
     
     /**
@@ -88,8 +107,34 @@ public class NotePublishService {
             NoteInfo noteInfo,
             Consumer<String> logCallback,
             BiConsumer<Integer, Integer> progressCallback) {
+        return publishNote(userId, noteInfo, logCallback, progressCallback, CancellationToken.NONE);
+    }
+    
+    /**
+     * 发布笔记，可以在点击发布按钮之前取消
+     * <p>
+     * 取消后在当前步骤结束时返回中断结果并归还浏览器上下文；已点击发布按钮后不再响应取消，避免发布状态不明。
+     * 
+     * @param userId 用户ID
+     * @param noteInfo 笔记信息
+     * @param logCallback 日志回调
+     * @param progressCallback 进度回调
+     * @param token 取消令牌，为null时不可取消
+     * @return 发布结果的CompletableFuture
+     */
+    public CompletableFuture<PublishResultDTO> publishNote(
+            String userId, 
+            NoteInfo noteInfo,
+            Consumer<String> logCallback,
+            BiConsumer<Integer, Integer> progressCallback,
+            CancellationToken token) {
         
+        final CancellationToken cancellation = CancellationToken.orNone(token);
         return CompletableFuture.supplyAsync(() -> {
+            if (cancellation.isCancelled()) {
+                logCallback.accept("发布已取消");
+                return PublishResultDTO.interrupted();
+            }
             logCallback.accept("开始发布笔记: " + noteInfo.getTitle());
             progressCallback.accept(0, 100);
             
@@ -100,12 +145,20 @@ public class NotePublishService {
                 return PublishResultDTO.fail("用户不存在或未登录");
             }
             
+            // 发布接口熔断中时直接返回，不下载图片也不启动浏览器
+            if (!circuitBreakers.tryAcquire(userId, Endpoint.PUBLISH)) {
+                log.warn("账号[{}]发布接口熔断中，跳过发布: {}", userId, noteInfo.getTitle());
+                logCallback.accept("账号发布接口熔断中，稍后自动恢复，本次未发布");
+                return PublishResultDTO.circuitOpen();
+            }
+            
             // 下载图片到本地
             List<String> localImagePaths = new ArrayList<>();
             try {
-                localImagePaths = downloadImages(noteInfo.getImageUrls(), logCallback, progressCallback);
+                localImagePaths = downloadImages(noteInfo.getImageUrls(), logCallback, progressCallback, cancellation);
             } catch (Exception e) {
                 log.error("下载图片失败", e);
+                circuitBreakers.release(userId, Endpoint.PUBLISH);
                 logCallback.accept("下载图片失败: " + e.getMessage());
                 return PublishResultDTO.fail("下载图片失败: " + e.getMessage());
             }
@@ -113,101 +166,146 @@ public class NotePublishService {
             progressCallback.accept(20, 100);
             
             try {
-                // 使用try-with-resources确保资源正确关闭
-                try (Playwright playwright = Playwright.create()) {
-                    // 创建浏览器实例 - 使用Chromium
-                    BrowserType.LaunchOptions launchOptions = new BrowserType.LaunchOptions()
-                            .setHeadless(true)  // 非无头模式，可以看到界面
-                            .setSlowMo(100);     // 减缓操作速度，便于观察
-                    
-                    try (Browser browser = playwright.chromium().launch(launchOptions)) {
-                // 创建浏览器上下文
-                        try (BrowserContext context = browser.newContext()) {
-                // 恢复用户的cookies
-                log.info("cookies是{}", userInfo.getCookies());
-                context.addCookies(userInfo.getCookies());
-                            
-                            // 创建新页面
-                            Page page = context.newPage();
-                            
-                            // 先访问小红书主页
-                            page.navigate(XIAO_HONG_SHU_URL);
-                            page.waitForLoadState(LoadState.DOMCONTENTLOADED);
-
-                // 打开发布页面
-                page.navigate(PUBLISH_URL);
-                logCallback.accept("已打开发布页面");
-                
-                // 等待页面加载完成
-                page.waitForLoadState(LoadState.DOMCONTENTLOADED);
-                progressCallback.accept(30, 100);
-                
-                // 检查登录状态
-                if (!isLoggedIn(page)) {
-                    logCallback.accept("用户登录已失效，请重新登录");
-                    return PublishResultDTO.loginExpired();
-                }
-                
-                // 检查是否可以发布
-                if (!canPublish(page)) {
-                    logCallback.accept("无法发布笔记，请检查账号状态");
-                    return PublishResultDTO.fail("无法发布笔记，请检查账号状态");
-                }
-                
-                // 选择上传图文
-                clickUploadImageText(page);
-                logCallback.accept("已选择上传图文");
-                progressCallback.accept(40, 100);
-                
-                // 上传图片
-                boolean uploadSuccess = uploadImages(page, localImagePaths, logCallback);
-                if (!uploadSuccess) {
-                    return PublishResultDTO.fail("上传图片失败");
-                }
-                progressCallback.accept(60, 100);
-                
-                // 输入标题
-                inputTitle(page, noteInfo.getTitle());
-                logCallback.accept("已输入标题");
-                
-                // 输入正文
-                inputContent(page, noteInfo.getContent());
-                logCallback.accept("已输入正文");
-                progressCallback.accept(70, 100);
-                
-                // 输入标签
-                if (noteInfo.getTags() != null && !noteInfo.getTags().isEmpty()) {
-                    inputTags(page, noteInfo.getTags(), logCallback);
-                    logCallback.accept("已输入标签");
-                }
-                progressCallback.accept(80, 100);
-                
-                // 点击发布
-                boolean publishSuccess = clickPublishButton(page, logCallback);
-                if (!publishSuccess) {
-                    return PublishResultDTO.fail("发布失败，请重试");
-                }
-                
-                progressCallback.accept(100, 100);
-                logCallback.accept("笔记发布成功！");
-                
-                // 获取发布后的笔记ID和URL (这部分需要根据实际情况调整)
-                String noteId = extractNoteId(page);
-                String noteUrl = extractNoteUrl(page);
-                
-                return PublishResultDTO.success(noteId, noteUrl);
-                        }
-                    }
+                cancellation.throwIfCancelled();
+                // 点击发布按钮之前浏览器崩溃时，在重启后的浏览器上重新执行一次
+                final List<String> imagePaths = localImagePaths;
+                PublishResultDTO result = browserManager.retryOnCrash("发布笔记《" + noteInfo.getTitle() + "》",
+                        () -> publishInBrowser(userInfo, noteInfo, imagePaths, logCallback, progressCallback, cancellation),
+                        e -> PublishResultDTO.fail("浏览器崩溃，发布未完成，请重试"));
+                if (result.getStatus() == PublishResultDTO.Status.SUCCESS) {
+                    circuitBreakers.onSuccess(userId, Endpoint.PUBLISH);
+                } else if (result.getStatus() == PublishResultDTO.Status.FAILED) {
+                    circuitBreakers.onFailure(userId, Endpoint.PUBLISH, result.getErrorMessage());
                 }
+                return result;
+            } catch (CancellationException e) {
+                log.info("发布笔记已取消: {}", noteInfo.getTitle());
+                logCallback.accept("发布已取消，笔记未提交");
+                return PublishResultDTO.interrupted();
             } catch (Exception e) {
                 log.error("发布笔记失败", e);
                 logCallback.accept("发布笔记失败: " + e.getMessage());
                 return PublishResultDTO.fail(e.getMessage());
             } finally {
+                // 没有记录结果的试探请求(取消、登录失效等)释放试探名额
+                circuitBreakers.release(userId, Endpoint.PUBLISH);
                 // 清理临时文件
                 cleanupTempFiles(localImagePaths);
             }
-        });
+        }, workloadExecutors.browser());
+    }
+    
+    /**
+     * 借用已登录的浏览器上下文完成发布，点击发布按钮之前浏览器崩溃时抛出 {@link BrowserCrashedException}
+     */
+    private PublishResultDTO publishInBrowser(UserInfo userInfo, NoteInfo noteInfo, List<String> localImagePaths,
+            Consumer<String> logCallback, BiConsumer<Integer, Integer> progressCallback, CancellationToken cancellation) {
+        AtomicBoolean publishClicked = new AtomicBoolean(false);
+        AtomicReference<ContextLease> leaseRef = new AtomicReference<>();
+        PublishResultDTO result;
+        try {
+            // 页面操作在浏览器所属线程中执行，返回时租约已经归还
+            result = browserManager.callWithContext(userInfo, lease -> {
+                leaseRef.set(lease);
+                return publishWithLease(lease, noteInfo, localImagePaths, logCallback, progressCallback, cancellation,
+                        publishClicked);
+            });
+        } catch (PlaywrightException e) {
+            if (leaseRef.get() != null && leaseRef.get().isCrashed() && !publishClicked.get()) {
+                logCallback.accept("浏览器崩溃，已自动重启: " + e.getMessage());
+                throw new BrowserCrashedException("发布过程中浏览器崩溃", e);
+            }
+            throw e;
+        }
+        // 上传图片等步骤会把异常转为失败结果，浏览器崩溃时同样重新执行
+        if (result.getStatus() == PublishResultDTO.Status.FAILED && leaseRef.get().isCrashed() && !publishClicked.get()) {
+            logCallback.accept("浏览器崩溃，已自动重启");
+            throw new BrowserCrashedException("发布过程中浏览器崩溃: " + result.getErrorMessage(), null);
+        }
+        return result;
+    }
+    
+    /**
+     * 在借用的上下文中打开发布页面，依次上传图片、填写内容并点击发布
+     */
+    private PublishResultDTO publishWithLease(ContextLease lease, NoteInfo noteInfo, List<String> localImagePaths,
+            Consumer<String> logCallback, BiConsumer<Integer, Integer> progressCallback, CancellationToken cancellation,
+            AtomicBoolean publishClicked) {
+        // 创建新页面，各步骤之间的等待按本次操作的执行节奏配置进行
+        PacingProfile pacing = lease.getPacingProfile();
+        Page page = lease.newPage(OperationType.PUBLISH);
+        logCallback.accept("执行配置: " + pacing);
+        
+        // 新建的上下文先访问小红书主页完成cookies握手，复用的上下文可直接跳过
+        if (lease.isFresh()) {
+            PageWaitUtil.navigate(page, XIAO_HONG_SHU_URL, cancellation);
+        }
+        
+        // 打开发布页面并等待加载完成
+        PageWaitUtil.navigate(page, PUBLISH_URL, cancellation);
+        logCallback.accept("已打开发布页面");
+        progressCallback.accept(30, 100);
+        
+        // 检查登录状态
+        if (!isLoggedIn(page)) {
+            lease.invalidate();
+            logCallback.accept("用户登录已失效，请重新登录");
+            return PublishResultDTO.loginExpired();
+        }
+        
+        // 检查是否可以发布
+        if (!canPublish(page)) {
+            logCallback.accept("无法发布笔记，请检查账号状态");
+            return PublishResultDTO.fail("无法发布笔记，请检查账号状态");
+        }
+        
+        // 选择上传图文
+        cancellation.throwIfCancelled();
+        clickUploadImageText(page, pacing, cancellation);
+        logCallback.accept("已选择上传图文");
+        progressCallback.accept(40, 100);
+        
+        // 上传图片
+        boolean uploadSuccess = uploadImages(page, localImagePaths, logCallback, cancellation);
+        if (!uploadSuccess) {
+            return PublishResultDTO.fail("上传图片失败");
+        }
+        progressCallback.accept(60, 100);
+        
+        // 输入标题
+        cancellation.throwIfCancelled();
+        inputTitle(page, noteInfo.getTitle(), pacing);
+        logCallback.accept("已输入标题");
+        
+        // 输入正文
+        pacing.pauseBetweenActions(page, cancellation);
+        inputContent(page, noteInfo.getContent(), pacing);
+        logCallback.accept("已输入正文");
+        progressCallback.accept(70, 100);
+        
+        // 输入标签
+        if (noteInfo.getTags() != null && !noteInfo.getTags().isEmpty()) {
+            inputTags(page, noteInfo.getTags(), logCallback, pacing, cancellation);
+            logCallback.accept("已输入标签");
+        }
+        progressCallback.accept(80, 100);
+        
+        // 点击发布，之后不再响应取消，浏览器崩溃也不再重新执行，避免重复发布
+        cancellation.throwIfCancelled();
+        publishClicked.set(true);
+        boolean publishSuccess = clickPublishButton(page, logCallback);
+        if (!publishSuccess) {
+            return PublishResultDTO.fail("发布失败，请重试");
+        }
+        
+        progressCallback.accept(100, 100);
+        logCallback.accept("笔记发布成功！");
+        
+        // 获取发布后的笔记ID和URL (这部分需要根据实际情况调整)
+        String noteId = extractNoteId(page);
+        String noteUrl = extractNoteUrl(page);
+        
+        return PublishResultDTO.success(noteId, noteUrl);
     }
     
     /**
@@ -239,14 +337,16 @@ public class NotePublishService {
     }
     
     /**
-     * 点击"上传图文"
+     * 点击"上传图文"，上传输入框出现即可继续，不再固定等待
      */
-    private void clickUploadImageText(Page page) {
+    private void clickUploadImageText(Page page, PacingProfile pacing, CancellationToken token) {
         try {
             // 定位并点击"上传图文"按钮
             page.waitForSelector("span.title:has-text('上传图文')");
             page.click("span.title:has-text('上传图文')");
-            page.waitForTimeout(1000); // 等待点击生效
+            pacing.pauseBetweenActions(page, token);
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("点击上传图文按钮失败", e);
             throw new RuntimeException("点击上传图文按钮失败", e);
@@ -256,7 +356,8 @@ public class NotePublishService {
     /**
      * 上传图片
      */
-    private boolean uploadImages(Page page, List<String> imagePaths, Consumer<String> logCallback) {
+    private boolean uploadImages(Page page, List<String> imagePaths, Consumer<String> logCallback,
+            CancellationToken token) {
         try {
             if (imagePaths.isEmpty()) {
                 logCallback.accept("没有图片可上传");
@@ -272,11 +373,12 @@ public class NotePublishService {
                     .toArray(Path[]::new);
             uploadInput.setInputFiles(paths);
             
-            // 等待上传完成，检查是否有预览图显示
+            // 等待上传完成，检查是否有预览图显示，等待期间可以取消
             logCallback.accept("正在上传图片...");
-            return page.waitForSelector(UPLOAD_SUCCESS_IMAGE_SELECTOR, 
-                    new Page.WaitForSelectorOptions().setTimeout(30000)) != null;
+            return PageWaitUtil.waitForSelector(page, UPLOAD_SUCCESS_IMAGE_SELECTOR, 30000, token) != null;
             
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("上传图片失败", e);
             logCallback.accept("上传图片失败: " + e.getMessage());
@@ -287,12 +389,12 @@ public class NotePublishService {
     /**
      * 输入标题
      */
-    private void inputTitle(Page page, String title) {
+    private void inputTitle(Page page, String title, PacingProfile pacing) {
         try {
             // 定位标题输入框并输入
             ElementHandle titleInput = page.waitForSelector(TITLE_INPUT_SELECTOR);
             titleInput.click();
-            titleInput.fill(title);
+            enterText(titleInput, title, pacing);
         } catch (Exception e) {
             log.error("输入标题失败", e);
             throw new RuntimeException("输入标题失败", e);
@@ -302,12 +404,12 @@ public class NotePublishService {
     /**
      * 输入正文内容
      */
-    private void inputContent(Page page, String content) {
+    private void inputContent(Page page, String content, PacingProfile pacing) {
         try {
             // 定位内容编辑器并输入
             ElementHandle contentEditor = page.waitForSelector(CONTENT_EDITOR_SELECTOR);
             contentEditor.click();
-            contentEditor.fill(content);
+            enterText(contentEditor, content, pacing);
         } catch (Exception e) {
             log.error("输入正文失败", e);
             throw new RuntimeException("输入正文失败", e);
@@ -315,9 +417,21 @@ public class NotePublishService {
     }
     
     /**
-     * 输入标签
+     * 按执行节奏配置输入文本：配置了逐字输入间隔时逐字输入，否则直接填入
      */
-    private void inputTags(Page page, List<String> tags, Consumer<String> logCallback) {
+    private void enterText(ElementHandle input, String text, PacingProfile pacing) {
+        if (pacing.getTypingDelayMs() > 0) {
+            input.type(text, new ElementHandle.TypeOptions().setDelay(pacing.getTypingDelayMs()));
+        } else {
+            input.fill(text);
+        }
+    }
+    
+    /**
+     * 输入标签，选中建议后等待建议列表收起即继续
+     */
+    private void inputTags(Page page, List<String> tags, Consumer<String> logCallback, PacingProfile pacing,
+            CancellationToken token) {
         try {
             // 定位内容编辑器
             ElementHandle contentEditor = page.waitForSelector(CONTENT_EDITOR_SELECTOR);
@@ -327,26 +441,36 @@ public class NotePublishService {
             for (String tag : tags) {
                 logCallback.accept("添加标签: " + tag);
                 
-                // 先输入空格
-                contentEditor.type(" ");
-                page.waitForTimeout(300);
-                
-                // 输入#后跟标签
-                contentEditor.type("#" + tag);
-                page.waitForTimeout(500);
+                // 先输入空格，再输入#后跟标签
+                ElementHandle.TypeOptions typeOptions = new ElementHandle.TypeOptions()
+                        .setDelay(pacing.getTypingDelayMs());
+                contentEditor.type(" ", typeOptions);
+                pacing.pauseBetweenActions(page, token);
+                contentEditor.type("#" + tag, typeOptions);
                 
                 // 等待标签建议出现
                 try {
-                    page.waitForSelector(TAG_SUGGESTION_SELECTOR, 
-                            new Page.WaitForSelectorOptions().setTimeout(2000));
+                    timeoutManager.waitForSelector(page, "publish", TAG_SUGGESTION_SELECTOR, 2000);
                     
                     // 按回车选择第一个标签建议
                     contentEditor.press("Enter");
-                    page.waitForTimeout(500);
                 } catch (TimeoutError e) {
                     // 如果没有建议，就继续输入下一个标签
                     logCallback.accept("标签 '" + tag + "' 没有建议，直接使用");
+                    continue;
                 }
+                
+                // 建议列表收起后再输入下一个标签
+                try {
+                    timeoutManager.await("publish", TAG_SUGGESTION_SELECTOR + " hidden", 2000, timeout -> {
+                        page.waitForSelector(TAG_SUGGESTION_SELECTOR, new Page.WaitForSelectorOptions()
+                                .setState(WaitForSelectorState.HIDDEN).setTimeout(timeout));
+                        return Boolean.TRUE;
+                    });
+                } catch (TimeoutError e) {
+                    log.debug("标签建议列表未收起，继续输入");
+                }
+                pacing.pauseBetweenActions(page, token);
             }
         } catch (Exception e) {
             log.error("输入标签失败", e);
@@ -427,13 +551,17 @@ public class NotePublishService {
      * 下载图片到本地临时文件夹
      */
     private List<String> downloadImages(List<String> imageUrls, Consumer<String> logCallback, 
-            BiConsumer<Integer, Integer> progressCallback) throws IOException {
+            BiConsumer<Integer, Integer> progressCallback, CancellationToken token) throws IOException {
         
         List<String> localPaths = new ArrayList<>();
         int total = imageUrls.size();
         AtomicInteger current = new AtomicInteger(0);
         
         for (String imageUrl : imageUrls) {
+            // 取消后不再下载剩余图片，已下载的临时文件由调用方清理
+            if (token.isCancelled()) {
+                break;
+            }
             if (StringUtils.isBlank(imageUrl)) {
                 continue;
             }
@@ -0,0 +1,227 @@
+package com.redbook.tool.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Response;
+import com.redbook.tool.entity.NoteInfo;
+import com.redbook.tool.service.CrawlPacer.ThrottleSignal;
+import com.redbook.tool.util.CancellationToken;
+import com.redbook.tool.util.PageWaitUtil;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 搜索接口响应捕获器
+ * <p>
+ * 搜索页面通过网页版搜索接口以JSON形式获取结果，在页面导航前注册响应监听，
+ * 即可直接从接口数据构建 {@link NoteInfo}，无需逐个查询搜索结果DOM元素。
+ * 响应体在调用线程上读取，事件回调中只记录响应对象。
+ * 解析时遇到限流状态码或业务码会记录下来，由调用方交给 {@link CrawlPacer} 降速。
+ */
+@Slf4j
+class SearchApiCapture {
+
+    /**
+     * 网页版搜索笔记接口路径
+     */
+    static final String SEARCH_API_PATH = "/api/sns/web/v1/search/notes";
+
+    private static final String REDBOOK_BASE_URL = "https://www.xiaohongshu.com";
+
+    private final List<Response> responses = new CopyOnWriteArrayList<>();
+    private int consumed = 0;
+    private boolean hasMore = true;
+    private ThrottleSignal throttleSignal;
+    private String throttleDetail;
+
+    private SearchApiCapture() {
+    }
+
+    /**
+     * 在页面上注册搜索接口响应监听，必须在导航前调用
+     */
+    static SearchApiCapture attach(Page page) {
+        SearchApiCapture capture = new SearchApiCapture();
+        page.onResponse(response -> {
+            if (response.url().contains(SEARCH_API_PATH) && "POST".equals(response.request().method())) {
+                capture.responses.add(response);
+            }
+        });
+        return capture;
+    }
+
+    /**
+     * 等待新的搜索接口响应
+     *
+     * @param page 页面对象
+     * @param timeoutMs 最长等待时间
+     * @param token 取消令牌，取消时立即返回
+     * @return 是否有尚未处理的响应
+     */
+    boolean awaitResponse(Page page, long timeoutMs, CancellationToken token) {
+        return PageWaitUtil.waitFor(page, () -> responses.size() > consumed, timeoutMs, token);
+    }
+
+    /**
+     * 最近一次接口响应是否表示还有更多结果
+     */
+    boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * 解析所有尚未处理的接口响应
+     *
+     * @return 解析出的笔记列表，接口返回失败时跳过该响应
+     */
+    List<NoteInfo> drain() {
+        List<NoteInfo> notes = new ArrayList<>();
+        while (consumed < responses.size()) {
+            Response response = responses.get(consumed++);
+            try {
+                if (response.status() != 200) {
+                    log.warn("搜索接口返回状态码: {}", response.status());
+                    recordThrottle(CrawlPacer.classifyStatus(response.status()), "状态码" + response.status());
+                    continue;
+                }
+                JSONObject json = JSONUtil.parseObj(response.text());
+                if (!json.getBool("success", false)) {
+                    log.warn("搜索接口返回失败: code={}, msg={}", json.get("code"), json.getStr("msg"));
+                    recordThrottle(CrawlPacer.classifyApiCode(json.getInt("code", 0)),
+                            "code=" + json.get("code") + ", msg=" + json.getStr("msg"));
+                    continue;
+                }
+                JSONObject data = json.getJSONObject("data");
+                if (data == null) {
+                    continue;
+                }
+                hasMore = data.getBool("has_more", false);
+                JSONArray items = data.getJSONArray("items");
+                if (items == null) {
+                    continue;
+                }
+                for (int i = 0; i < items.size(); i++) {
+                    NoteInfo note = toNoteInfo(items.getJSONObject(i));
+                    if (note != null) {
+                        notes.add(note);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("解析搜索接口响应时出错: {}", e.getMessage());
+            }
+        }
+        return notes;
+    }
+
+    /**
+     * 取出最近一次解析时遇到的限流信号，取出后清除
+     *
+     * @return 限流信号，没有时返回null
+     */
+    ThrottleSignal takeThrottleSignal() {
+        ThrottleSignal signal = throttleSignal;
+        throttleSignal = null;
+        return signal;
+    }
+
+    /**
+     * 最近一次限流信号的详情(状态码或接口返回码)
+     */
+    String getThrottleDetail() {
+        return throttleDetail;
+    }
+
+    private void recordThrottle(ThrottleSignal signal, String detail) {
+        if (signal != null) {
+            throttleSignal = signal;
+            throttleDetail = detail;
+        }
+    }
+
+    /**
+     * 将接口返回的单个结果项转换为笔记信息，非笔记结果（如相关搜索推荐）返回null
+     */
+    static NoteInfo toNoteInfo(JSONObject item) {
+        if (item == null || !"note".equals(item.getStr("model_type"))) {
+            return null;
+        }
+        JSONObject card = item.getJSONObject("note_card");
+        String noteId = item.getStr("id");
+        if (card == null || noteId == null || noteId.isEmpty()) {
+            return null;
+        }
+
+        String xsecToken = item.getStr("xsec_token", "");
+        String noteUrl = REDBOOK_BASE_URL + "/search_result/" + noteId
+                + (xsecToken.isEmpty() ? "" : "?xsec_token=" + xsecToken + "&xsec_source=pc_search");
+
+        String title = card.getStr("display_title", "");
+        if (title.isEmpty()) {
+            title = "未获取到标题";
+        }
+
+        String authorId = "";
+        String authorName = "未获取到作者";
+        JSONObject user = card.getJSONObject("user");
+        if (user != null) {
+            authorId = user.getStr("user_id", "");
+            authorName = user.getStr("nickname", user.getStr("nick_name", authorName));
+        }
+
+        JSONObject interact = card.getJSONObject("interact_info");
+        JSONObject cover = card.getJSONObject("cover");
+
+        return NoteInfo.builder()
+                .noteId(noteId)
+                .noteUrl(noteUrl)
+                .title(title)
+                .coverImageUrl(cover == null ? "" : cover.getStr("url_default", cover.getStr("url", "")))
+                .authorId(authorId)
+                .authorUrl(authorId.isEmpty() ? "" : REDBOOK_BASE_URL + "/user/profile/" + authorId)
+                .authorName(authorName)
+                .likeCount(interact == null ? "0" : interact.getStr("liked_count", "0"))
+                .collectCount(interact == null ? "0" : interact.getStr("collected_count", "0"))
+                .commentCount(interact == null ? "0" : interact.getStr("comment_count", "0"))
+                .shareCount(interact == null ? "0" : interact.getStr("shared_count", "0"))
+                .imageUrls(extractImageUrls(card.getJSONArray("image_list")))
+                .build();
+    }
+
+    /**
+     * 从图片列表中提取每张图片的默认尺寸URL
+     */
+    private static List<String> extractImageUrls(JSONArray imageList) {
+        List<String> urls = new ArrayList<>();
+        if (imageList == null) {
+            return urls;
+        }
+        for (int i = 0; i < imageList.size(); i++) {
+            JSONObject image = imageList.getJSONObject(i);
+            String url = null;
+            JSONArray infoList = image.getJSONArray("info_list");
+            if (infoList != null) {
+                for (int j = 0; j < infoList.size(); j++) {
+                    JSONObject info = infoList.getJSONObject(j);
+                    url = info.getStr("url");
+                    // 优先使用默认尺寸，其次为任意可用尺寸
+                    if ("WB_DFT".equals(info.getStr("image_scene"))) {
+                        break;
+                    }
+                }
+            }
+            if (url == null || url.isEmpty()) {
+                url = image.getStr("url_default", image.getStr("url"));
+            }
+            if (url != null && !url.isEmpty()) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,226 @@
+package com.redbook.tool.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.stereotype.Component;
+
+import com.redbook.tool.dto.NoteDetailDTO;
+import com.redbook.tool.dto.PublishResultDTO;
+import com.redbook.tool.dto.SearchResultDTO;
+import com.redbook.tool.entity.NoteInfo;
+import com.redbook.tool.entity.TaskJob;
+import com.redbook.tool.service.ArticleCrawlService.SearchResult;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 任务执行器，把任务队列中的任务参数转换为对搜索、详情和发布服务的调用
+ * <p>
+ * 任务在调度器的工作线程中同步执行；执行结果区分是否可以重试，
+ * 由 {@link TaskSchedulerService} 决定重新排队还是结束任务。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskJobExecutor {
+
+    private final ArticleCrawlService articleCrawlService;
+    private final NoteDetailService noteDetailService;
+    private final NotePublishService notePublishService;
+
+    /**
+     * 任务执行上下文，用于上报进度和日志
+     */
+    public interface JobContext {
+        void progress(int percent, String message);
+
+        void log(String message);
+    }
+
+    /**
+     * 单次执行的结果
+     */
+    @Getter
+    public static class JobOutcome {
+        private final boolean success;
+        /**
+         * 失败时是否可以自动重试
+         */
+        private final boolean retryable;
+        private final String message;
+        /**
+         * 结果JSON，为null时保留任务原有的结果
+         */
+        private final String result;
+        /**
+         * 重试时使用的新参数(如只包含未完成的笔记)，为null时沿用原参数
+         */
+        private final String nextPayload;
+        /**
+         * 实际使用的账号ID
+         */
+        private final String userId;
+
+        private JobOutcome(boolean success, boolean retryable, String message, String result,
+                String nextPayload, String userId) {
+            this.success = success;
+            this.retryable = retryable;
+            this.message = message;
+            this.result = result;
+            this.nextPayload = nextPayload;
+            this.userId = userId;
+        }
+
+        public static JobOutcome success(String userId, String message, String result) {
+            return new JobOutcome(true, false, message, result, null, userId);
+        }
+
+        public static JobOutcome failure(String userId, String message, boolean retryable) {
+            return new JobOutcome(false, retryable, message, null, null, userId);
+        }
+
+        public static JobOutcome partial(String userId, String message, String result, String nextPayload) {
+            return new JobOutcome(false, true, message, result, nextPayload, userId);
+        }
+    }
+
+    /**
+     * 构建搜索任务参数
+     */
+    public static String searchPayload(String keyword, int maxResults) {
+        return new JSONObject().set("keyword", keyword).set("maxResults", maxResults).toString();
+    }
+
+    /**
+     * 构建笔记详情任务参数
+     */
+    public static String detailPayload(List<String> noteUrls) {
+        return new JSONObject().set("noteUrls", new JSONArray(noteUrls)).toString();
+    }
+
+    /**
+     * 构建发布任务参数
+     */
+    public static String publishPayload(NoteInfo note) {
+        return JSONUtil.toJsonStr(note);
+    }
+
+    /**
+     * 解析任务结果中的笔记列表，搜索和详情任务的结果都是笔记数组
+     */
+    public static List<NoteInfo> parseNotes(String result) {
+        if (result == null || result.isEmpty() || !JSONUtil.isTypeJSONArray(result)) {
+            return new ArrayList<>();
+        }
+        return JSONUtil.toList(JSONUtil.parseArray(result), NoteInfo.class);
+    }
+
+    /**
+     * 执行任务
+     *
+     * @param job 已领取的任务
+     * @param context 执行上下文
+     * @return 执行结果
+     */
+    public JobOutcome execute(TaskJob job, JobContext context) {
+        switch (job.getType()) {
+            case SEARCH:
+                return executeSearch(job, context);
+            case DETAIL:
+                return executeDetail(job, context);
+            case PUBLISH:
+                return executePublish(job, context);
+            default:
+                return JobOutcome.failure(job.getUserId(), "不支持的任务类型: " + job.getType(), false);
+        }
+    }
+
+    private JobOutcome executeSearch(TaskJob job, JobContext context) {
+        JSONObject payload = JSONUtil.parseObj(job.getPayload());
+        String keyword = payload.getStr("keyword");
+        int maxResults = payload.getInt("maxResults", 0);
+
+        List<NoteInfo> notes = new CopyOnWriteArrayList<>();
+        SearchResultDTO result = articleCrawlService.searchWithUserCookies(job.getUserId(), keyword, maxResults,
+                notes::add, context::log,
+                (current, total, message) -> context.progress(current * 100 / Math.max(total, 1), message)).join();
+
+        String usedUserId = result.getUserId();
+        switch (result.getStatus()) {
+            case SUCCESS:
+                return JobOutcome.success(usedUserId, "共获取" + notes.size() + "条笔记", JSONUtil.toJsonStr(notes));
+            case LOGIN_EXPIRED:
+                // 自动分配账号时失效账号已被标记，重试会换用其它账号
+                return JobOutcome.failure(usedUserId, "账号登录已失效", job.getUserId() == null);
+            case INTERRUPTED:
+                return JobOutcome.failure(usedUserId, "搜索被中断", false);
+            case CIRCUIT_OPEN:
+                // 自动分配时重试会换用其它未熔断的账号，指定账号时等待熔断恢复后重试
+                return JobOutcome.failure(usedUserId, "账号搜索接口熔断中", true);
+            default:
+                return JobOutcome.failure(usedUserId, "搜索失败", true);
+        }
+    }
+
+    private JobOutcome executeDetail(TaskJob job, JobContext context) {
+        JSONObject payload = JSONUtil.parseObj(job.getPayload());
+        List<String> urls = payload.getJSONArray("noteUrls").toList(String.class);
+
+        List<NoteDetailDTO> results = noteDetailService.fetchNoteDetails(job.getUserId(), urls, null, context::log,
+                (current, total, message) -> context.progress(current * 100 / Math.max(total, 1), message)).join();
+
+        // 之前几次执行已完成的笔记保留在结果中，本次只补充新完成的
+        List<NoteInfo> details = parseNotes(job.getResult());
+        List<String> remaining = new ArrayList<>();
+        boolean loginExpired = false;
+        String usedUserId = job.getUserId();
+        for (NoteDetailDTO result : results) {
+            if (result.getUserId() != null) {
+                usedUserId = result.getUserId();
+            }
+            if (result.getStatus() == SearchResult.SUCCESS && result.getNoteDetail() != null) {
+                details.add(result.getNoteDetail());
+            } else {
+                remaining.add(result.getNoteUrl());
+                loginExpired |= result.getStatus() == SearchResult.LOGIN_EXPIRED;
+            }
+        }
+
+        String resultJson = JSONUtil.toJsonStr(details);
+        if (remaining.isEmpty()) {
+            return JobOutcome.success(usedUserId, "共获取" + details.size() + "条笔记详情", resultJson);
+        }
+        String message = "完成" + (urls.size() - remaining.size()) + "/" + urls.size() + "条，"
+                + remaining.size() + "条未完成" + (loginExpired ? "(账号登录已失效)" : "");
+        if (loginExpired && job.getUserId() != null) {
+            return new JobOutcome(false, false, message, resultJson, detailPayload(remaining), usedUserId);
+        }
+        return JobOutcome.partial(usedUserId, message, resultJson, detailPayload(remaining));
+    }
+
+    private JobOutcome executePublish(TaskJob job, JobContext context) {
+        NoteInfo note = JSONUtil.toBean(job.getPayload(), NoteInfo.class);
+        PublishResultDTO result = notePublishService.publishNote(job.getUserId(), note, context::log,
+                (current, total) -> context.progress(current * 100 / Math.max(total, 1), null)).join();
+
+        if (result.getStatus() == PublishResultDTO.Status.SUCCESS) {
+            JSONObject published = new JSONObject().set("noteId", result.getNoteId()).set("noteUrl", result.getNoteUrl());
+            return JobOutcome.success(job.getUserId(), "发布成功", published.toString());
+        }
+        // 熔断时没有打开发布页面，可以放心重试
+        if (result.getStatus() == PublishResultDTO.Status.CIRCUIT_OPEN) {
+            return JobOutcome.failure(job.getUserId(), result.getErrorMessage(), true);
+        }
+        // 发布失败时可能已经提交过，不自动重试以免重复发布
+        return JobOutcome.failure(job.getUserId(),
+                result.getStatus() == PublishResultDTO.Status.LOGIN_EXPIRED ? "账号登录已失效" : "发布失败: " + result.getErrorMessage(),
+                false);
+    }
+}
@@ -0,0 +1,397 @@
+package com.redbook.tool.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.stereotype.Component;
+
+import com.redbook.tool.entity.TaskJob;
+import com.redbook.tool.entity.TaskJob.Status;
+import com.redbook.tool.entity.TaskJob.Type;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 任务队列存储，使用repository目录下的H2数据库保存任务和每次执行记录
+ * <p>
+ * task_job 保存任务本身，task_attempt 保存每次执行的开始/结束时间、账号和结果，
+ * 程序重启后任务仍然保留。所有方法都是同步的短事务，由 {@link TaskSchedulerService} 调用。
+ */
+@Slf4j
+@Component
+public class TaskJobStore {
+
+    private static final String DB_URL = "jdbc:h2:file:./repository/tasks;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static final String CREATE_JOB_TABLE = "CREATE TABLE IF NOT EXISTS task_job ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "type VARCHAR(16) NOT NULL, "
+            + "status VARCHAR(16) NOT NULL, "
+            + "user_id VARCHAR(64), "
+            + "title VARCHAR(512), "
+            + "payload CLOB, "
+            + "result CLOB, "
+            + "message VARCHAR(1024), "
+            + "progress INT DEFAULT 0 NOT NULL, "
+            + "attempts INT DEFAULT 0 NOT NULL, "
+            + "max_attempts INT DEFAULT 1 NOT NULL, "
+            + "created_at TIMESTAMP NOT NULL, "
+            + "updated_at TIMESTAMP NOT NULL, "
+            + "next_run_at TIMESTAMP NOT NULL)";
+
+    private static final String CREATE_ATTEMPT_TABLE = "CREATE TABLE IF NOT EXISTS task_attempt ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "job_id BIGINT NOT NULL, "
+            + "attempt_no INT NOT NULL, "
+            + "user_id VARCHAR(64), "
+            + "status VARCHAR(16) NOT NULL, "
+            + "message VARCHAR(1024), "
+            + "started_at TIMESTAMP NOT NULL, "
+            + "finished_at TIMESTAMP)";
+
+    private static final String JOB_COLUMNS = "id, type, status, user_id, title, payload, result, message, "
+            + "progress, attempts, max_attempts, created_at, updated_at, next_run_at";
+
+    private JdbcConnectionPool pool;
+
+    @PostConstruct
+    public void init() {
+        pool = JdbcConnectionPool.create(DB_URL, "sa", "");
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_JOB_TABLE);
+            statement.execute(CREATE_ATTEMPT_TABLE);
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_task_job_status ON task_job(status, next_run_at)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_task_attempt_job ON task_attempt(job_id)");
+        } catch (SQLException e) {
+            throw new IllegalStateException("初始化任务数据库失败: " + e.getMessage(), e);
+        }
+        log.info("任务数据库已初始化: {}", DB_URL);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+
+    /**
+     * 新增任务
+     *
+     * @return 保存后的任务，包含生成的ID
+     */
+    public synchronized TaskJob insert(TaskJob job) {
+        String sql = "INSERT INTO task_job (type, status, user_id, title, payload, result, message, progress, "
+                + "attempts, max_attempts, created_at, updated_at, next_run_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        LocalDateTime now = LocalDateTime.now();
+        TaskJob saved = job.toBuilder()
+                .createdAt(now)
+                .updatedAt(now)
+                .nextRunAt(job.getNextRunAt() != null ? job.getNextRunAt() : now)
+                .build();
+        try (Connection connection = pool.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, saved.getType().name());
+            statement.setString(2, saved.getStatus().name());
+            statement.setString(3, saved.getUserId());
+            statement.setString(4, truncate(saved.getTitle(), 512));
+            statement.setString(5, saved.getPayload());
+            statement.setString(6, saved.getResult());
+            statement.setString(7, truncate(saved.getMessage(), 1024));
+            statement.setInt(8, saved.getProgress());
+            statement.setInt(9, saved.getAttempts());
+            statement.setInt(10, saved.getMaxAttempts());
+            statement.setTimestamp(11, Timestamp.valueOf(saved.getCreatedAt()));
+            statement.setTimestamp(12, Timestamp.valueOf(saved.getUpdatedAt()));
+            statement.setTimestamp(13, Timestamp.valueOf(saved.getNextRunAt()));
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (keys.next()) {
+                    saved.setId(keys.getLong(1));
+                }
+            }
+            return saved;
+        } catch (SQLException e) {
+            throw new IllegalStateException("保存任务失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 更新任务的状态、参数、结果、进度和执行时间等可变字段
+     */
+    public synchronized void update(TaskJob job) {
+        String sql = "UPDATE task_job SET status = ?, user_id = ?, payload = ?, result = ?, message = ?, progress = ?, "
+                + "attempts = ?, max_attempts = ?, updated_at = ?, next_run_at = ? WHERE id = ?";
+        job.setUpdatedAt(LocalDateTime.now());
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, job.getStatus().name());
+            statement.setString(2, job.getUserId());
+            statement.setString(3, job.getPayload());
+            statement.setString(4, job.getResult());
+            statement.setString(5, truncate(job.getMessage(), 1024));
+            statement.setInt(6, job.getProgress());
+            statement.setInt(7, job.getAttempts());
+            statement.setInt(8, job.getMaxAttempts());
+            statement.setTimestamp(9, Timestamp.valueOf(job.getUpdatedAt()));
+            statement.setTimestamp(10, Timestamp.valueOf(job.getNextRunAt()));
+            statement.setLong(11, job.getId());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.error("更新任务[{}]失败: {}", job.getId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 只更新任务进度和状态信息，执行过程中频繁调用
+     */
+    public synchronized void updateProgress(long jobId, int progress, String message) {
+        String sql = "UPDATE task_job SET progress = ?, message = ?, updated_at = ? WHERE id = ?";
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, progress);
+            statement.setString(2, truncate(message, 1024));
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(4, jobId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.warn("更新任务[{}]进度失败: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * 领取下一个到期的排队任务并标记为执行中，执行次数加一
+     * <p>
+     * 只有任务仍在排队时才会被领取，与取消任务互不覆盖。
+     *
+     * @return 领取到的任务，没有到期任务时返回null
+     */
+    public synchronized TaskJob claimNext() {
+        String select = "SELECT " + JOB_COLUMNS + " FROM task_job WHERE status = ? AND next_run_at <= ? "
+                + "AND attempts < max_attempts ORDER BY next_run_at, id LIMIT 1";
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement(select)) {
+            statement.setString(1, Status.QUEUED.name());
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            TaskJob job;
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                job = map(rs);
+            }
+            job.setStatus(Status.RUNNING);
+            job.setAttempts(job.getAttempts() + 1);
+            job.setProgress(0);
+            job.setMessage("开始第" + job.getAttempts() + "次执行");
+            job.setUpdatedAt(LocalDateTime.now());
+            String claim = "UPDATE task_job SET status = ?, attempts = attempts + 1, progress = 0, message = ?, "
+                    + "updated_at = ? WHERE id = ? AND status = ?";
+            try (PreparedStatement update = connection.prepareStatement(claim)) {
+                update.setString(1, Status.RUNNING.name());
+                update.setString(2, job.getMessage());
+                update.setTimestamp(3, Timestamp.valueOf(job.getUpdatedAt()));
+                update.setLong(4, job.getId());
+                update.setString(5, Status.QUEUED.name());
+                return update.executeUpdate() == 1 ? job : null;
+            }
+        } catch (SQLException e) {
+            log.error("领取任务失败: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 取消排队中的任务，任务已被领取或已结束时不做修改
+     *
+     * @return 是否已取消
+     */
+    public synchronized boolean cancelQueued(long jobId) {
+        String sql = "UPDATE task_job SET status = ?, message = ?, updated_at = ? WHERE id = ? AND status = ?";
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, Status.CANCELLED.name());
+            statement.setString(2, "已取消");
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(4, jobId);
+            statement.setString(5, Status.QUEUED.name());
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            log.error("取消任务[{}]失败: {}", jobId, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 查询单个任务
+     */
+    public synchronized TaskJob findById(long jobId) {
+        String sql = "SELECT " + JOB_COLUMNS + " FROM task_job WHERE id = ?";
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, jobId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? map(rs) : null;
+            }
+        } catch (SQLException e) {
+            log.error("查询任务[{}]失败: {}", jobId, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 按创建顺序倒序查询最近的任务
+     */
+    public synchronized List<TaskJob> findRecent(int limit) {
+        String sql = "SELECT " + JOB_COLUMNS + " FROM task_job ORDER BY id DESC LIMIT ?";
+        List<TaskJob> jobs = new ArrayList<>();
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, limit);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    jobs.add(map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            log.error("查询任务列表失败: {}", e.getMessage(), e);
+        }
+        return jobs;
+    }
+
+    /**
+     * 把上次退出时仍在执行的任务放回队列，并结束对应的执行记录
+     * <p>
+     * 发布任务中断时可能已经提交，与已用完执行次数的任务一样直接标记为失败，不重新执行。
+     *
+     * @return 恢复的任务数
+     */
+    public synchronized int requeueInterrupted() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try (Connection connection = pool.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE task_attempt SET status = ?, message = ?, finished_at = ? WHERE finished_at IS NULL")) {
+                statement.setString(1, Status.FAILED.name());
+                statement.setString(2, "程序退出时中断");
+                statement.setTimestamp(3, now);
+                statement.executeUpdate();
+            }
+            int failed = failInterrupted(connection, "type = '" + Type.PUBLISH.name() + "'",
+                    "程序退出时中断，请确认是否已发布", now);
+            failed += failInterrupted(connection, "attempts >= max_attempts", "程序退出时中断，已达到最多执行次数", now);
+            if (failed > 0) {
+                log.warn("{}个上次中断的任务不再重新执行，已标记为失败", failed);
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE task_job SET status = ?, message = ?, updated_at = ?, next_run_at = ? WHERE status = ?")) {
+                statement.setString(1, Status.QUEUED.name());
+                statement.setString(2, "程序重启后重新排队");
+                statement.setTimestamp(3, now);
+                statement.setTimestamp(4, now);
+                statement.setString(5, Status.RUNNING.name());
+                return statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            log.error("恢复中断的任务失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    private int failInterrupted(Connection connection, String condition, String message, Timestamp now) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE task_job SET status = ?, message = ?, updated_at = ? WHERE status = ? AND " + condition)) {
+            statement.setString(1, Status.FAILED.name());
+            statement.setString(2, message);
+            statement.setTimestamp(3, now);
+            statement.setString(4, Status.RUNNING.name());
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 删除已结束的任务及其执行记录
+     *
+     * @return 删除的任务数
+     */
+    public synchronized int deleteFinished() {
+        String finished = "'" + Status.SUCCEEDED.name() + "', '" + Status.FAILED.name() + "', '" + Status.CANCELLED.name() + "'";
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM task_attempt WHERE job_id IN (SELECT id FROM task_job WHERE status IN (" + finished + "))");
+            return statement.executeUpdate("DELETE FROM task_job WHERE status IN (" + finished + ")");
+        } catch (SQLException e) {
+            log.error("清除已结束的任务失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 记录一次执行的开始
+     *
+     * @return 执行记录ID
+     */
+    public synchronized long startAttempt(TaskJob job) {
+        String sql = "INSERT INTO task_attempt (job_id, attempt_no, user_id, status, started_at) VALUES (?, ?, ?, ?, ?)";
+        try (Connection connection = pool.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setLong(1, job.getId());
+            statement.setInt(2, job.getAttempts());
+            statement.setString(3, job.getUserId());
+            statement.setString(4, Status.RUNNING.name());
+            statement.setTimestamp(5, Timestamp.valueOf(LocalDateTime.now()));
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                return keys.next() ? keys.getLong(1) : -1;
+            }
+        } catch (SQLException e) {
+            log.warn("记录任务[{}]执行开始失败: {}", job.getId(), e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 记录一次执行的结束
+     */
+    public synchronized void finishAttempt(long attemptId, String userId, Status status, String message) {
+        if (attemptId < 0) {
+            return;
+        }
+        String sql = "UPDATE task_attempt SET user_id = COALESCE(?, user_id), status = ?, message = ?, finished_at = ? WHERE id = ?";
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, userId);
+            statement.setString(2, status.name());
+            statement.setString(3, truncate(message, 1024));
+            statement.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            statement.setLong(5, attemptId);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            log.warn("记录任务执行结束失败: {}", e.getMessage());
+        }
+    }
+
+    private TaskJob map(ResultSet rs) throws SQLException {
+        return TaskJob.builder()
+                .id(rs.getLong("id"))
+                .type(Type.valueOf(rs.getString("type")))
+                .status(Status.valueOf(rs.getString("status")))
+                .userId(rs.getString("user_id"))
+                .title(rs.getString("title"))
+                .payload(rs.getString("payload"))
+                .result(rs.getString("result"))
+                .message(rs.getString("message"))
+                .progress(rs.getInt("progress"))
+                .attempts(rs.getInt("attempts"))
+                .maxAttempts(rs.getInt("max_attempts"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                .nextRunAt(rs.getTimestamp("next_run_at").toLocalDateTime())
+                .build();
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,329 @@
+package com.redbook.tool.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.redbook.tool.entity.TaskJob;
+import com.redbook.tool.entity.TaskJob.Status;
+import com.redbook.tool.entity.TaskJob.Type;
+import com.redbook.tool.service.TaskJobExecutor.JobContext;
+import com.redbook.tool.service.TaskJobExecutor.JobOutcome;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 任务调度服务，把搜索、详情和发布任务保存到H2任务队列中，由固定数量的工作线程依次执行
+ * <p>
+ * 调度线程按到期时间领取排队中的任务；执行失败且可以重试的任务按指数退避推迟后重新排队，
+ * 超过最大执行次数后标记为失败。程序退出时仍在执行的任务会在下次启动时重新排队，
+ * 发布任务和已用完执行次数的任务除外，直接标记为失败以免重复发布。
+ * 任务状态和进度的变化通过监听器通知界面。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskSchedulerService {
+
+    private final TaskJobStore taskJobStore;
+    private final TaskJobExecutor taskJobExecutor;
+
+    @Value("${app.task.enabled:true}")
+    private boolean enabled;
+
+    // 同时执行的任务数
+    @Value("${app.task.workers:2}")
+    private int workerCount;
+
+    // 搜索和详情任务的最多执行次数，发布任务只执行一次
+    @Value("${app.task.max-attempts:3}")
+    private int defaultMaxAttempts;
+
+    // 第一次重试前的等待时间(ms)，之后每次翻倍
+    @Value("${app.task.retry.base-delay:30000}")
+    private long retryBaseDelayMs;
+
+    // 重试等待时间的上限(ms)
+    @Value("${app.task.retry.max-delay:600000}")
+    private long retryMaxDelayMs;
+
+    // 没有新任务提交时检查到期任务的间隔(ms)
+    @Value("${app.task.poll-interval:5000}")
+    private long pollIntervalMs;
+
+    private final List<Consumer<TaskJob>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger runningCount = new AtomicInteger();
+    private final Object dispatchLock = new Object();
+    private ExecutorService workers;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("任务调度已禁用");
+            return;
+        }
+        int requeued = taskJobStore.requeueInterrupted();
+        if (requeued > 0) {
+            log.info("{}个上次未执行完的任务已重新排队", requeued);
+        }
+
+        int size = Math.max(1, workerCount);
+        workers = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "task-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "task-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("任务调度服务已启动: 工作线程{}个，最多执行{}次", size, defaultMaxAttempts);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 提交任务
+     *
+     * @param type 任务类型
+     * @param userId 执行任务的账号ID，为空时由账号调度器自动分配
+     * @param title 任务描述
+     * @param payload 任务参数JSON，见 {@link TaskJobExecutor} 中的构建方法
+     * @return 保存后的任务
+     */
+    public TaskJob submit(Type type, String userId, String title, String payload) {
+        TaskJob job = taskJobStore.insert(TaskJob.builder()
+                .type(type)
+                .status(Status.QUEUED)
+                .userId(userId == null || userId.isEmpty() ? null : userId)
+                .title(title)
+                .payload(payload)
+                .message("等待执行")
+                .maxAttempts(type == Type.PUBLISH ? 1 : Math.max(1, defaultMaxAttempts))
+                .build());
+        log.info("已提交任务[{}]: {} {}", job.getId(), type.getDescription(), title);
+        notifyListeners(job);
+        wakeUp();
+        return job;
+    }
+
+    /**
+     * 取消排队中的任务，正在执行的任务不能取消
+     *
+     * @return 是否已取消
+     */
+    public boolean cancel(long jobId) {
+        // 按状态条件更新，调度线程已领取的任务不会被改为已取消
+        if (!taskJobStore.cancelQueued(jobId)) {
+            return false;
+        }
+        TaskJob job = taskJobStore.findById(jobId);
+        if (job != null) {
+            notifyListeners(job);
+        }
+        return true;
+    }
+
+    /**
+     * 把失败或已取消的任务重新排队，执行次数重新计算
+     *
+     * @return 是否已重新排队
+     */
+    public boolean retry(long jobId) {
+        TaskJob job = taskJobStore.findById(jobId);
+        if (job == null || (job.getStatus() != Status.FAILED && job.getStatus() != Status.CANCELLED)) {
+            return false;
+        }
+        job.setStatus(Status.QUEUED);
+        job.setMaxAttempts(job.getMaxAttempts() + job.getAttempts());
+        job.setProgress(0);
+        job.setMessage("等待重新执行");
+        job.setNextRunAt(LocalDateTime.now());
+        taskJobStore.update(job);
+        notifyListeners(job);
+        wakeUp();
+        return true;
+    }
+
+    /**
+     * 查询最近的任务
+     */
+    public List<TaskJob> listRecent(int limit) {
+        return taskJobStore.findRecent(limit);
+    }
+
+    /**
+     * 查询单个任务
+     */
+    public TaskJob getJob(long jobId) {
+        return taskJobStore.findById(jobId);
+    }
+
+    /**
+     * 删除所有已结束的任务
+     *
+     * @return 删除的任务数
+     */
+    public int clearFinished() {
+        return taskJobStore.deleteFinished();
+    }
+
+    /**
+     * 注册任务变化监听器，回调在工作线程或调用线程中执行
+     */
+    public void addListener(Consumer<TaskJob> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<TaskJob> listener) {
+        listeners.remove(listener);
+    }
+
+    private void wakeUp() {
+        synchronized (dispatchLock) {
+            dispatchLock.notifyAll();
+        }
+    }
+
+    /**
+     * 调度循环：有空闲工作线程时领取到期任务，否则等待新任务提交、任务结束或轮询间隔到达
+     */
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                TaskJob job = null;
+                if (runningCount.get() < Math.max(1, workerCount)) {
+                    job = taskJobStore.claimNext();
+                }
+                if (job != null) {
+                    runningCount.incrementAndGet();
+                    TaskJob claimed = job;
+                    notifyListeners(claimed);
+                    workers.execute(() -> {
+                        try {
+                            runJob(claimed);
+                        } finally {
+                            runningCount.decrementAndGet();
+                            wakeUp();
+                        }
+                    });
+                    continue;
+                }
+                synchronized (dispatchLock) {
+                    dispatchLock.wait(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("任务调度出错: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 执行一次任务并根据结果结束任务或按退避时间重新排队
+     */
+    private void runJob(TaskJob job) {
+        long start = System.currentTimeMillis();
+        long attemptId = taskJobStore.startAttempt(job);
+        log.info("开始执行任务[{}]第{}次: {} {}", job.getId(), job.getAttempts(), job.getType().getDescription(), job.getTitle());
+
+        JobOutcome outcome;
+        try {
+            outcome = taskJobExecutor.execute(job, new JobContext() {
+                private int lastProgress = -1;
+
+                @Override
+                public void progress(int percent, String message) {
+                    int value = Math.max(0, Math.min(100, percent));
+                    // 进度没有变化时不写数据库
+                    if (value == lastProgress && message == null) {
+                        return;
+                    }
+                    lastProgress = value;
+                    job.setProgress(value);
+                    if (message != null) {
+                        job.setMessage(message);
+                    }
+                    taskJobStore.updateProgress(job.getId(), value, job.getMessage());
+                    notifyListeners(job);
+                }
+
+                @Override
+                public void log(String message) {
+                    log.debug("任务[{}]: {}", job.getId(), message);
+                }
+            });
+        } catch (Exception e) {
+            log.error("任务[{}]执行出错: {}", job.getId(), e.getMessage(), e);
+            outcome = JobOutcome.failure(job.getUserId(), "执行出错: " + e.getMessage(), true);
+        }
+
+        if (outcome.getResult() != null) {
+            job.setResult(outcome.getResult());
+        }
+        if (outcome.getNextPayload() != null) {
+            job.setPayload(outcome.getNextPayload());
+        }
+        job.setMessage(outcome.getMessage());
+        if (outcome.isSuccess()) {
+            job.setStatus(Status.SUCCEEDED);
+            job.setProgress(100);
+        } else if (outcome.isRetryable() && job.getAttempts() < job.getMaxAttempts()) {
+            long delay = retryDelayMs(job.getAttempts());
+            job.setStatus(Status.QUEUED);
+            job.setNextRunAt(LocalDateTime.now().plusNanos(delay * 1_000_000));
+            job.setMessage(outcome.getMessage() + "，" + (delay / 1000) + "秒后重试");
+        } else {
+            job.setStatus(Status.FAILED);
+        }
+        taskJobStore.update(job);
+        taskJobStore.finishAttempt(attemptId, outcome.getUserId(),
+                outcome.isSuccess() ? Status.SUCCEEDED : Status.FAILED, outcome.getMessage());
+
+        log.info("任务[{}]第{}次执行结束: {}，{}，耗时{}ms", job.getId(), job.getAttempts(),
+                job.getStatus().getDescription(), job.getMessage(), System.currentTimeMillis() - start);
+        notifyListeners(job);
+    }
+
+    /**
+     * 第n次执行失败后的重试等待时间：基础时间乘以2的n-1次方，不超过上限
+     */
+    private long retryDelayMs(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 20);
+        return Math.min(retryMaxDelayMs, retryBaseDelayMs << exponent);
+    }
+
+    private void notifyListeners(TaskJob job) {
+        TaskJob snapshot = job.toBuilder().build();
+        for (Consumer<TaskJob> listener : listeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (Exception e) {
+                log.warn("处理任务变化事件时出错: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.redbook.tool.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.microsoft.playwright.options.Cookie;
+import com.redbook.tool.entity.UserInfoResponse;
+import com.redbook.tool.util.CookieHeaderUtil;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 用户信息接口客户端，不打开页面直接校验cookies是否有效
+ * <p>
+ * 先在本地检查登录会话cookie是否已过期，未过期再携带cookies请求一次 user/me 接口。
+ * 接口无法给出明确结论（网络错误、需要签名、响应不是JSON等）时返回UNKNOWN，由调用方决定是否回退到浏览器校验。
+ */
+@Slf4j
+@Service
+public class UserMeClient {
+
+    /**
+     * 用户信息接口
+     */
+    private static final String USER_ME_URL = "https://edith.xiaohongshu.com/api/sns/web/v2/user/me";
+
+    /**
+     * 登录会话cookie名称
+     */
+    private static final String SESSION_COOKIE = "web_session";
+
+    /**
+     * 接口返回的未登录业务码("登录已过期")
+     */
+    private static final int NOT_LOGGED_IN_CODE = -100;
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/115.0.0.0 Safari/537.36";
+
+    /**
+     * 校验状态
+     */
+    public enum Status {
+        VALID,
+        INVALID,
+        UNKNOWN
+    }
+
+    /**
+     * 校验结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Result {
+        private final Status status;
+        /**
+         * 接口返回的用户信息，仅在VALID时不为null
+         */
+        private final UserInfoResponse userInfo;
+        /**
+         * 校验耗时(ms)
+         */
+        private final long elapsedMs;
+    }
+
+    @Value("${app.login.api-check.timeout:8000}")
+    private long timeoutMs;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * 校验cookies是否仍处于登录状态
+     *
+     * @param cookies 用户保存的cookies
+     * @return 校验结果
+     */
+    public Result check(List<Cookie> cookies) {
+        long start = System.currentTimeMillis();
+        if (isSessionExpiredLocally(cookies)) {
+            log.info("登录会话cookie已过期，无需请求接口");
+            return new Result(Status.INVALID, null, System.currentTimeMillis() - start);
+        }
+
+        try {
+            URI uri = URI.create(USER_ME_URL);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("User-Agent", USER_AGENT)
+                    .header("Accept", "application/json, text/plain, */*")
+                    .header("Origin", "https://www.xiaohongshu.com")
+                    .header("Referer", "https://www.xiaohongshu.com/")
+                    .header("Cookie", CookieHeaderUtil.toHeader(cookies, uri))
+                    .GET()
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.currentTimeMillis() - start;
+
+            if (response.statusCode() != 200) {
+                log.warn("用户信息接口返回状态码{}，无法确定登录状态", response.statusCode());
+                return new Result(Status.UNKNOWN, null, elapsed);
+            }
+
+            JSONObject json = JSONUtil.parseObj(response.body());
+            if (!json.getBool("success", false)) {
+                // 只有明确的未登录业务码才判定失效，签名校验、风控等其它失败交给浏览器确认
+                Integer code = json.getInt("code");
+                if (code != null && code == NOT_LOGGED_IN_CODE) {
+                    log.info("用户信息接口返回未登录: code={}, msg={}", code, json.getStr("msg"));
+                    return new Result(Status.INVALID, null, elapsed);
+                }
+                log.warn("用户信息接口返回失败，无法确定登录状态: code={}, msg={}", json.get("code"), json.getStr("msg"));
+                return new Result(Status.UNKNOWN, null, elapsed);
+            }
+
+            UserInfoResponse userInfo = parseUserInfo(json.getJSONObject("data"));
+            return new Result(userInfo != null ? Status.VALID : Status.INVALID, userInfo, elapsed);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(Status.UNKNOWN, null, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("请求用户信息接口失败: {}", e.getMessage());
+            return new Result(Status.UNKNOWN, null, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 本地判断登录会话cookie是否已过期，没有会话cookie或为会话级cookie时交给接口判断
+     */
+    static boolean isSessionExpiredLocally(List<Cookie> cookies) {
+        if (cookies == null) {
+            return true;
+        }
+        double nowSeconds = System.currentTimeMillis() / 1000.0;
+        return cookies.stream()
+                .filter(cookie -> SESSION_COOKIE.equals(cookie.name))
+                .anyMatch(cookie -> cookie.expires != null && cookie.expires > 0 && cookie.expires <= nowSeconds);
+    }
+
+    /**
+     * 解析 user/me 接口的data字段，游客或缺少用户ID时返回null
+     *
+     * @param data 接口返回的data对象
+     * @return 用户信息响应
+     */
+    static UserInfoResponse parseUserInfo(JSONObject data) {
+        if (data == null) {
+            return null;
+        }
+        // 检查是否为guest用户，guest=true表示游客模式
+        if (data.getBool("guest", false)) {
+            log.info("检测到游客模式用户，需要完成登录");
+            return null;
+        }
+
+        UserInfoResponse userInfo = new UserInfoResponse();
+        // 正确匹配API字段 - 使用user_id而不是userId
+        if (data.containsKey("user_id")) userInfo.setUserId(data.getStr("user_id"));
+        if (data.containsKey("nickname")) userInfo.setNickname(data.getStr("nickname"));
+        if (data.containsKey("desc")) userInfo.setDesc(data.getStr("desc"));
+        if (data.containsKey("gender")) userInfo.setGender(data.getInt("gender", 0));
+        if (data.containsKey("image")) userInfo.setImages(data.getStr("image"));
+        if (data.containsKey("images")) userInfo.setImages(data.getStr("images")); // 尝试两种可能的字段名
+        if (data.containsKey("imageb")) userInfo.setImageb(data.getStr("imageb"));
+        if (data.containsKey("red_id")) userInfo.setRedId(data.getStr("red_id"));
+        if (data.containsKey("redId")) userInfo.setRedId(data.getStr("redId")); // 尝试两种可能的字段名
+
+        // 确保至少有用户ID，才认为有效
+        if (userInfo.getUserId() == null || userInfo.getUserId().isEmpty()) {
+            log.warn("用户信息不完整，缺少必要字段: {}", data);
+            return null;
+        }
+        return userInfo;
+    }
+}
@@ -13,6 +13,7 @@ import java.util.stream.Stream;
 
 import org.springframework.stereotype.Service;
 
+import com.microsoft.playwright.options.Cookie;
 import com.redbook.tool.entity.UserInfo;
 
 import cn.hutool.core.io.FileUtil;
@@ -223,6 +224,36 @@ public class UserService {
         }
     }
     
+    /**
+     * 回写浏览器上下文中刷新后的cookies
+     * 仅更新仍处于有效登录状态的用户，不修改最后登录时间
+     * 
+     * @param userId 用户ID
+     * @param cookies 浏览器上下文中的最新cookies
+     * @return 是否成功回写
+     */
+    public boolean updateUserCookies(String userId, List<Cookie> cookies) {
+        if (userId == null || userId.isEmpty() || cookies == null || cookies.isEmpty()) {
+            return false;
+        }
+        
+        try {
+            UserInfo user = loadUserInfo(userId);
+            if (user == null || !user.isActive()) {
+                log.info("用户[{}]不存在或登录已失效，跳过cookies回写", userId);
+                return false;
+            }
+            
+            user.setCookies(cookies);
+            saveUserInfo(user);
+            log.info("已回写用户[{}]的{}个cookies", user.getNickname(), cookies.size());
+            return true;
+        } catch (IOException e) {
+            log.error("回写用户[{}]cookies时发生错误: {}", userId, e.getMessage(), e);
+            return false;
+        }
+    }
+    
     /**
      * 将用户标记为登录失效状态
      * 清除cookies并更新用户状态
@@ -2,19 +2,35 @@ package com.redbook.tool.ui.controller;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.redbook.tool.config.WorkloadExecutors;
+import com.redbook.tool.dto.NoteDetailDTO;
 import com.redbook.tool.dto.SearchResultDTO;
 import com.redbook.tool.entity.NoteInfo;
+import com.redbook.tool.entity.TaskJob;
 import com.redbook.tool.entity.UserInfo;
 import com.redbook.tool.service.ArticleCrawlService;
 import com.redbook.tool.service.ArticleCrawlService.SearchResult;
+import com.redbook.tool.service.BatchSearchService;
+import com.redbook.tool.service.CrawlPacer;
+import com.redbook.tool.service.CrawlPacer.EventType;
+import com.redbook.tool.service.CrawlPacer.PacingEvent;
 import com.redbook.tool.service.NoteDetailService;
+import com.redbook.tool.service.TaskJobExecutor;
+import com.redbook.tool.service.TaskSchedulerService;
 import com.redbook.tool.service.UserService;
 import com.redbook.tool.ui.util.AlertUtils;
+import com.redbook.tool.ui.util.BatchSearchDialog;
 import com.redbook.tool.ui.viewmodel.ArticleCrawlViewModel;
+import com.redbook.tool.util.CancellationToken;
 import com.redbook.tool.util.SpringContextUtil;
 
 import javafx.application.HostServices;
@@ -22,11 +38,17 @@ import javafx.application.Platform;
 import javafx.collections.ListChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.ObservableSet;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.Pagination;
 import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
@@ -57,12 +79,27 @@ public class ArticleCrawlController {
     @FXML
     private ComboBox<UserInfo> userComboBox;
     
+    @FXML
+    private CheckBox autoAccountCheckBox;
+    
     @FXML
     private TextField keywordTextField;
     
+    @FXML
+    private Spinner<Integer> maxResultsSpinner;
+    
     @FXML
     private Button searchButton;
     
+    @FXML
+    private Button batchSearchButton;
+    
+    @FXML
+    private Button queueSearchButton;
+    
+    @FXML
+    private Button stopButton;
+    
     @FXML
     private HBox searchContainer;
     
@@ -81,14 +118,36 @@ public class ArticleCrawlController {
     @FXML
     private ProgressBar searchProgressBar;
     
+    @FXML
+    private Button fetchDetailsButton;
+    
+    @FXML
+    private Button queueDetailsButton;
+    
+    @FXML
+    private Label pacingRateLabel;
+    
     private final UserService userService;
     private final ArticleCrawlService articleCrawlService;
+    private final WorkloadExecutors workloadExecutors;
     private ArticleCrawlViewModel viewModel;
     private HostServices hostServices;
     
+    // 爬取速率变化监听器，重新加载界面时先移除旧的监听器
+    private Consumer<PacingEvent> pacingListener;
+    
+    // 正在进行的搜索、批量搜索和详情爬取的取消令牌，只在JavaFX线程中修改
+    private final ObservableSet<CancellationToken> activeTokens = FXCollections.observableSet();
+    
     // 分页相关常量
     private static final int ROWS_PER_PAGE = 10;
     
+    // 单次搜索最大条数的上限
+    private static final int MAX_RESULTS_LIMIT = 500;
+    
+    @Value("${app.crawl.search.max-results:50}")
+    private int defaultMaxResults;
+    
     // 日期时间格式化器
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
@@ -100,11 +159,14 @@ public class ArticleCrawlController {
      *
      * @param userService 用户服务
      * @param articleCrawlService 文章爬取服务
+     * @param workloadExecutors 工作负载执行器
      */
     @Autowired
-    public ArticleCrawlController(UserService userService, ArticleCrawlService articleCrawlService) {
+    public ArticleCrawlController(UserService userService, ArticleCrawlService articleCrawlService,
+            WorkloadExecutors workloadExecutors) {
         this.userService = userService;
         this.articleCrawlService = articleCrawlService;
+        this.workloadExecutors = workloadExecutors;
     }
     
     /**
@@ -124,7 +186,7 @@ public class ArticleCrawlController {
         log.info("初始化文章爬取控制器");
         
         // 创建ViewModel实例
-        viewModel = new ArticleCrawlViewModel(userService, articleCrawlService);
+        viewModel = new ArticleCrawlViewModel(userService, articleCrawlService, workloadExecutors);
         
         // 设置用户选择框
         setupUserComboBox();
@@ -147,9 +209,16 @@ public class ArticleCrawlController {
         // 绑定关键词输入框
         keywordTextField.textProperty().bindBidirectional(viewModel.getKeyword());
         
+        // 设置最大条数选择框
+        maxResultsSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(
+                1, MAX_RESULTS_LIMIT, Math.min(Math.max(defaultMaxResults, 1), MAX_RESULTS_LIMIT), 10));
+        
         // 绑定UI状态
         bindUIState();
         
+        // 显示自适应爬取速率
+        setupPacingMonitor();
+        
         // 加载用户列表
         loadUserData();
         
@@ -165,6 +234,29 @@ public class ArticleCrawlController {
         logTextArea.setStyle("-fx-font-family: 'Consolas', 'Monaco', monospace; -fx-font-size: 12px;");
     }
     
+    /**
+     * 监听爬取节奏控制器，显示最近变化账号的当前速率，降速事件同时写入日志
+     */
+    private void setupPacingMonitor() {
+        CrawlPacer crawlPacer = SpringContextUtil.getBean(CrawlPacer.class);
+        if (!crawlPacer.isEnabled()) {
+            pacingRateLabel.setText("采集速率: 未启用自适应");
+            return;
+        }
+        if (pacingListener != null) {
+            crawlPacer.removeListener(pacingListener);
+        }
+        pacingListener = event -> Platform.runLater(() -> {
+            String account = accountName(event.getUserId());
+            pacingRateLabel.setText(String.format("采集速率: %s %.1f次/分钟", account, event.getRate()));
+            if (event.getType() == EventType.BACKOFF) {
+                appendToLog(String.format("账号[%s]检测到%s，速率从%.1f降至%.1f次/分钟",
+                    account, event.getSignal().getDescription(), event.getPreviousRate(), event.getRate()));
+            }
+        });
+        crawlPacer.addListener(pacingListener);
+    }
+    
     /**
      * 添加日志到文本区域，并自动滚动到底部
      * 
@@ -230,9 +322,8 @@ public class ArticleCrawlController {
                     if (note != null) {
                         appendToLog("开始爬取笔记详情: " + note.getTitle());
                         
-                        // 获取当前选中的用户
-                        UserInfo selectedUser = viewModel.getSelectedUser().get();
-                        if (selectedUser == null || !selectedUser.isActive()) {
+                        // 检查当前选中的用户，自动轮换时由账号调度器分配
+                        if (!hasUsableAccount()) {
                             appendToLog("未选择有效用户，无法爬取笔记详情");
                             AlertUtils.showWarning("操作失败", "未选择有效用户，请先选择一个有效登录的账号");
                             return;
@@ -258,7 +349,7 @@ public class ArticleCrawlController {
                         
                         // 调用爬取服务
                         noteDetailService.fetchNoteDetail(
-                            selectedUser.getUserId(),
+                            resolveCrawlUserId(),
                             note.getNoteUrl(),
                             // 日志回调
                             message -> appendToLog(message),
@@ -303,7 +394,7 @@ public class ArticleCrawlController {
                                     // 登录状态失效
                                     appendToLog("用户登录已失效");
                                     AlertUtils.showWarning("登录已失效", 
-                                        "用户 " + selectedUser.getNickname() + " 的登录状态已失效，请重新登录");
+                                        "用户 " + accountName(result.getUserId()) + " 的登录状态已失效，请重新登录");
                                     
                                     // 刷新用户列表
                                     loadUserData();
@@ -347,6 +438,9 @@ public class ArticleCrawlController {
         // 设置行高
         notesTableView.setFixedCellSize(40);
         
+        // 允许多选，用于批量爬取笔记详情
+        notesTableView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        
         // 监听ViewModel的数据变化
         viewModel.getNotes().addListener((ListChangeListener<NoteInfo>) c -> {
             updatePagination();
@@ -401,10 +495,39 @@ public class ArticleCrawlController {
         // 绑定搜索按钮状态
         searchButton.disableProperty().bind(
             viewModel.getKeyword().isEmpty()
-            .or(viewModel.getSelectedUser().isNull())
+            .or(viewModel.getSelectedUser().isNull().and(autoAccountCheckBox.selectedProperty().not()))
             .or(viewModel.getSearchInProgress())
         );
         
+        // 自动轮换账号时不使用下拉框中的账号
+        userComboBox.disableProperty().bind(autoAccountCheckBox.selectedProperty());
+        
+        // 绑定批量搜索按钮状态
+        batchSearchButton.disableProperty().bind(
+            javafx.beans.binding.Bindings.isEmpty(viewModel.getUsers())
+            .or(viewModel.getSearchInProgress())
+        );
+        
+        // 加入队列只需要关键词和账号，不受正在进行的搜索影响
+        queueSearchButton.disableProperty().bind(
+            viewModel.getKeyword().isEmpty()
+            .or(viewModel.getSelectedUser().isNull().and(autoAccountCheckBox.selectedProperty().not()))
+        );
+        queueDetailsButton.disableProperty().bind(
+            javafx.beans.binding.Bindings.isEmpty(notesTableView.getSelectionModel().getSelectedItems())
+            .or(viewModel.getSelectedUser().isNull().and(autoAccountCheckBox.selectedProperty().not()))
+        );
+        
+        // 绑定批量爬取详情按钮状态
+        fetchDetailsButton.disableProperty().bind(
+            javafx.beans.binding.Bindings.isEmpty(notesTableView.getSelectionModel().getSelectedItems())
+            .or(viewModel.getSelectedUser().isNull().and(autoAccountCheckBox.selectedProperty().not()))
+            .or(viewModel.getDetailFetchInProgress())
+        );
+        
+        // 没有进行中的操作时禁用停止按钮
+        stopButton.disableProperty().bind(javafx.beans.binding.Bindings.isEmpty(activeTokens));
+        
         // 绑定搜索中状态
         viewModel.getSearchInProgress().addListener((obs, oldVal, newVal) -> {
             if (newVal) {
@@ -415,6 +538,46 @@ public class ArticleCrawlController {
         });
     }
 
+    /**
+     * 是否勾选了自动轮换账号
+     */
+    private boolean isAutoAccount() {
+        return autoAccountCheckBox.isSelected();
+    }
+    
+    /**
+     * 是否有可用于爬取的账号：自动轮换时至少有一个有效账号，否则需选中有效账号
+     */
+    private boolean hasUsableAccount() {
+        if (isAutoAccount()) {
+            return !viewModel.getUsers().isEmpty();
+        }
+        UserInfo selectedUser = viewModel.getSelectedUser().get();
+        return selectedUser != null && selectedUser.isActive();
+    }
+    
+    /**
+     * 本次爬取使用的账号ID，自动轮换时返回null，由账号调度器分配
+     */
+    private String resolveCrawlUserId() {
+        if (isAutoAccount()) {
+            return null;
+        }
+        UserInfo selectedUser = viewModel.getSelectedUser().get();
+        return selectedUser != null ? selectedUser.getUserId() : null;
+    }
+    
+    /**
+     * 根据账号ID查找昵称，找不到时返回ID本身
+     */
+    private String accountName(String userId) {
+        return viewModel.getUsers().stream()
+            .filter(user -> user.getUserId().equals(userId))
+            .map(UserInfo::getNickname)
+            .findFirst()
+            .orElse(userId);
+    }
+
     /**
      * 加载用户数据
      */
@@ -430,13 +593,12 @@ public class ArticleCrawlController {
     private void onSearch() {
         UserInfo selectedUser = viewModel.getSelectedUser().get();
         String keyword = viewModel.getKeyword().get();
+        String accountLabel = isAutoAccount() ? "自动轮换"
+            : (selectedUser != null ? selectedUser.getNickname() : "未选择");
         
-        appendToLog("开始搜索，关键词: " + keyword + ", 用户: " + 
-            (selectedUser != null ? selectedUser.getNickname() : "未选择"));
+        appendToLog("开始搜索，关键词: " + keyword + ", 用户: " + accountLabel);
         
-        log.info("开始搜索，关键词: {}, 用户: {}", 
-            keyword, 
-            selectedUser != null ? selectedUser.getNickname() : "未选择");
+        log.info("开始搜索，关键词: {}, 用户: {}", keyword, accountLabel);
         
         // 清空之前的搜索结果
         viewModel.clearNotes();
@@ -457,9 +619,11 @@ public class ArticleCrawlController {
         }
         
         // 使用实时回调进行搜索
+        CancellationToken token = startOperation();
         CompletableFuture<SearchResultDTO> searchFuture = articleCrawlService.searchWithUserCookies(
-            selectedUser.getUserId(),
+            resolveCrawlUserId(),
             keyword,
+            maxResultsSpinner.getValue(),
             // 笔记实时回调，每获取到一条笔记就更新UI
             noteInfo -> Platform.runLater(() -> {
                 viewModel.addNote(noteInfo);
@@ -479,11 +643,13 @@ public class ArticleCrawlController {
                         appendToLog(message);
                     }
                 }
-            })
+            }),
+            token
         );
         
         searchFuture.thenAccept(result -> {
             Platform.runLater(() -> {
+                activeTokens.remove(token);
                 // 隐藏进度条或设置为完成状态
                 if (searchProgressBar != null) {
                     searchProgressBar.setProgress(1.0);
@@ -512,20 +678,25 @@ public class ArticleCrawlController {
                         log.info("搜索完成，共获取到 {} 条笔记", result.getNoteList() != null ? result.getNoteList().size() : 0);
                         break;
                     case INTERRUPTED:
-                        // 中断不需要提示，因为是用户主动关闭浏览器
+                        // 中断不需要提示，因为是用户主动停止或关闭浏览器，已获取的笔记保留在表格中
                         log.info("搜索被用户中断，不显示提示");
                         break;
                     case LOGIN_EXPIRED:
                         // 登录状态失效，提示用户并刷新用户列表
-                        if (selectedUser != null) {
+                        if (result.getUserId() != null) {
                             AlertUtils.showWarning("登录已失效", 
                                 String.format("用户 %s 的登录状态已失效，请重新登录此账号", 
-                                selectedUser.getNickname()));
+                                accountName(result.getUserId())));
                             
                             // 刷新用户列表，过滤掉失效的用户
                             loadUserData();
                         }
                         break;
+                    case CIRCUIT_OPEN:
+                        AlertUtils.showWarning("账号暂停搜索", String.format(
+                            "用户 %s 的搜索接口连续失败或遇到验证码，已暂停使用，稍后自动恢复",
+                            accountName(result.getUserId())));
+                        break;
                     case FAILED:
                     default:
                         AlertUtils.showError("搜索失败", "无法完成搜索，请检查网络连接或用户登录状态");
@@ -535,6 +706,259 @@ public class ArticleCrawlController {
         });
     }
 
+    /**
+     * 批量搜索按钮点击事件：输入或导入多个关键词，分配给选中的账号执行
+     */
+    @FXML
+    private void onBatchSearch() {
+        Optional<BatchSearchDialog.Request> request = BatchSearchDialog.show(
+            contentRoot.getScene() != null ? contentRoot.getScene().getWindow() : null,
+            viewModel.getUsers(),
+            viewModel.getSelectedUser().get(),
+            isAutoAccount(),
+            maxResultsSpinner.getValue(),
+            MAX_RESULTS_LIMIT);
+        if (request.isEmpty()) {
+            return;
+        }
+        
+        List<String> keywords = request.get().getKeywords();
+        appendToLog("开始批量搜索，共" + keywords.size() + "个关键词，"
+            + (request.get().getUserIds().isEmpty() ? "自动分配账号" : request.get().getUserIds().size() + "个账号"));
+        
+        // 清空之前的搜索结果
+        viewModel.clearNotes();
+        currentPageData.clear();
+        forceTableHeight();
+        updatePagination();
+        
+        viewModel.getSearchInProgress().set(true);
+        batchSearchButton.setText("批量搜索中...");
+        if (searchProgressBar != null) {
+            searchProgressBar.setProgress(0);
+            searchProgressBar.setVisible(true);
+        }
+        
+        AtomicInteger finishedKeywords = new AtomicInteger();
+        CancellationToken token = startOperation();
+        BatchSearchService batchSearchService = SpringContextUtil.getBean(BatchSearchService.class);
+        batchSearchService.runBatchSearch(
+            keywords,
+            request.get().getUserIds(),
+            request.get().getMaxResultsPerKeyword(),
+            // 去重后的笔记实时加入表格
+            noteInfo -> Platform.runLater(() -> {
+                viewModel.addNote(noteInfo);
+                forceTableHeight();
+            }),
+            // 每个关键词完成时更新进度
+            report -> {
+                int finished = finishedKeywords.incrementAndGet();
+                Platform.runLater(() -> {
+                    if (searchProgressBar != null) {
+                        searchProgressBar.setProgress(finished / (double) keywords.size());
+                    }
+                });
+            },
+            message -> appendToLog(message),
+            token
+        ).whenComplete((summary, e) -> {
+            Platform.runLater(() -> {
+                activeTokens.remove(token);
+                viewModel.getSearchInProgress().set(false);
+                batchSearchButton.setText("批量搜索");
+                if (searchProgressBar != null) {
+                    searchProgressBar.setVisible(false);
+                }
+                forceTableHeight();
+                
+                if (e != null || summary == null) {
+                    AlertUtils.showError("批量搜索失败", "批量搜索时发生错误，请稍后再试");
+                    return;
+                }
+                
+                long expiredCount = summary.getReports().stream()
+                    .filter(r -> r.getStatus() == SearchResult.LOGIN_EXPIRED)
+                    .count();
+                String message = String.format("%d/%d个关键词成功，去重后共%d条笔记，总耗时%.1f秒",
+                    summary.getSucceededKeywords(), summary.getKeywordCount(),
+                    summary.getUniqueNotes(), summary.getElapsedMs() / 1000.0);
+                if (token.isCancelled()) {
+                    AlertUtils.showInfo("批量搜索已停止", message);
+                } else if (expiredCount > 0) {
+                    AlertUtils.showWarning("批量搜索完成", message + "\n有账号登录已失效，请重新登录");
+                    loadUserData();
+                } else {
+                    AlertUtils.showInfo("批量搜索完成", message);
+                }
+            });
+        });
+    }
+    
+    /**
+     * 批量爬取选中笔记的详情，每条完成后立即更新表格中对应的行
+     */
+    @FXML
+    private void onFetchSelectedDetails() {
+        if (!hasUsableAccount()) {
+            appendToLog("未选择有效用户，无法爬取笔记详情");
+            AlertUtils.showWarning("操作失败", "未选择有效用户，请先选择一个有效登录的账号");
+            return;
+        }
+        
+        List<String> noteUrls = notesTableView.getSelectionModel().getSelectedItems().stream()
+            .map(NoteInfo::getNoteUrl)
+            .filter(url -> url != null && !url.isEmpty())
+            .collect(Collectors.toList());
+        if (noteUrls.isEmpty()) {
+            return;
+        }
+        
+        appendToLog("开始批量爬取" + noteUrls.size() + "条笔记详情");
+        viewModel.getDetailFetchInProgress().set(true);
+        fetchDetailsButton.setText("爬取中...");
+        
+        if (searchProgressBar != null) {
+            searchProgressBar.setProgress(0);
+            searchProgressBar.setVisible(true);
+        }
+        
+        CancellationToken token = startOperation();
+        NoteDetailService noteDetailService = SpringContextUtil.getBean(NoteDetailService.class);
+        noteDetailService.fetchNoteDetails(
+            resolveCrawlUserId(),
+            noteUrls,
+            // 单条结果回调，成功时替换表格中对应的行
+            result -> Platform.runLater(() -> {
+                if (result.getStatus() == SearchResult.SUCCESS && result.getNoteDetail() != null) {
+                    viewModel.mergeNoteDetail(result.getNoteDetail());
+                }
+            }),
+            // 日志回调
+            message -> appendToLog(message),
+            // 进度回调
+            (current, total, message) -> Platform.runLater(() -> {
+                if (searchProgressBar != null) {
+                    searchProgressBar.setProgress(current / (double) total);
+                }
+            }),
+            token
+        ).whenComplete((results, e) -> {
+            Platform.runLater(() -> {
+                activeTokens.remove(token);
+                viewModel.getDetailFetchInProgress().set(false);
+                fetchDetailsButton.setText("爬取详情");
+                if (searchProgressBar != null) {
+                    searchProgressBar.setVisible(false);
+                }
+                forceTableHeight();
+                
+                if (e != null || results == null) {
+                    AlertUtils.showError("爬取失败", "批量爬取笔记详情时发生错误，请稍后再试");
+                    return;
+                }
+                
+                long successCount = results.stream().filter(r -> r.getStatus() == SearchResult.SUCCESS).count();
+                Optional<NoteDetailDTO> expired = results.stream()
+                    .filter(r -> r.getStatus() == SearchResult.LOGIN_EXPIRED)
+                    .findFirst();
+                if (expired.isPresent()) {
+                    AlertUtils.showWarning("登录已失效", 
+                        "用户 " + accountName(expired.get().getUserId()) + " 的登录状态已失效，请重新登录");
+                    loadUserData();
+                } else if (token.isCancelled()) {
+                    appendToLog(String.format("详情爬取已停止，成功%d条，未完成%d条", successCount, results.size() - successCount));
+                } else if (successCount < results.size()) {
+                    AlertUtils.showWarning("批量爬取完成", 
+                        String.format("成功%d条，失败%d条", successCount, results.size() - successCount));
+                }
+            });
+        });
+    }
+    
+    /**
+     * 停止按钮点击事件，取消所有进行中的搜索和详情爬取，已获取的结果保留在表格中
+     */
+    @FXML
+    private void onStop() {
+        if (activeTokens.isEmpty()) {
+            return;
+        }
+        appendToLog("正在停止...");
+        log.info("用户停止{}个进行中的操作", activeTokens.size());
+        for (CancellationToken token : List.copyOf(activeTokens)) {
+            token.cancel();
+        }
+    }
+    
+    /**
+     * 创建新操作的取消令牌并登记，操作结束时需在JavaFX线程中从 {@link #activeTokens} 移除
+     */
+    private CancellationToken startOperation() {
+        CancellationToken token = new CancellationToken();
+        activeTokens.add(token);
+        return token;
+    }
+    
+    /**
+     * 把当前关键词作为后台任务加入任务队列
+     */
+    @FXML
+    private void onQueueSearch() {
+        String keyword = viewModel.getKeyword().get();
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return;
+        }
+        TaskSchedulerService taskSchedulerService = SpringContextUtil.getBean(TaskSchedulerService.class);
+        TaskJob job = taskSchedulerService.submit(TaskJob.Type.SEARCH, resolveCrawlUserId(), keyword.trim(),
+            TaskJobExecutor.searchPayload(keyword.trim(), maxResultsSpinner.getValue()));
+        appendToLog("已将关键词[" + keyword.trim() + "]加入任务队列，任务ID: " + job.getId());
+    }
+    
+    /**
+     * 把选中笔记的详情爬取作为后台任务加入任务队列
+     */
+    @FXML
+    private void onQueueSelectedDetails() {
+        List<String> noteUrls = notesTableView.getSelectionModel().getSelectedItems().stream()
+            .map(NoteInfo::getNoteUrl)
+            .filter(url -> url != null && !url.isEmpty())
+            .collect(Collectors.toList());
+        if (noteUrls.isEmpty()) {
+            return;
+        }
+        NoteInfo first = notesTableView.getSelectionModel().getSelectedItems().get(0);
+        String title = noteUrls.size() == 1 ? first.getTitle() : first.getTitle() + " 等" + noteUrls.size() + "条笔记";
+        TaskSchedulerService taskSchedulerService = SpringContextUtil.getBean(TaskSchedulerService.class);
+        TaskJob job = taskSchedulerService.submit(TaskJob.Type.DETAIL, resolveCrawlUserId(), title,
+            TaskJobExecutor.detailPayload(noteUrls));
+        appendToLog("已将" + noteUrls.size() + "条笔记详情加入任务队列，任务ID: " + job.getId());
+    }
+    
+    /**
+     * 载入任务队列中已完成任务的结果
+     *
+     * @param notes 任务结果中的笔记
+     * @param details 是否为笔记详情，详情替换列表中对应的笔记，其余追加到列表末尾
+     * @param title 任务描述
+     */
+    public void loadTaskResult(List<NoteInfo> notes, boolean details, String title) {
+        Platform.runLater(() -> {
+            if (!details) {
+                viewModel.clearNotes();
+                currentPageData.clear();
+            }
+            for (NoteInfo note : notes) {
+                if (!details || !viewModel.mergeNoteDetail(note)) {
+                    viewModel.addNote(note);
+                }
+            }
+            forceTableHeight();
+            updatePagination();
+            appendToLog("已载入任务[" + title + "]的结果，共" + notes.size() + "条笔记");
+        });
+    }
+    
     /**
      * 设置分页控件
      */
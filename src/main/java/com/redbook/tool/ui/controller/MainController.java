@@ -1,9 +1,14 @@
 package com.redbook.tool.ui.controller;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.redbook.tool.manager.ExecutionPacing;
+import com.redbook.tool.manager.PacingProfile;
+
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.StackPane;
@@ -35,6 +40,9 @@ public class MainController {
     @FXML
     private Button publishBtn;
     
+    @FXML
+    private Button taskQueueBtn;
+    
     @FXML
     private ScrollPane userManagementView;
     
@@ -44,6 +52,24 @@ public class MainController {
     @FXML
     private ScrollPane publishView;
     
+    @FXML
+    private ScrollPane taskQueueView;
+    
+    @FXML
+    private ComboBox<PacingProfile> pacingProfileComboBox;
+    
+    private final ExecutionPacing executionPacing;
+    
+    /**
+     * 构造函数
+     *
+     * @param executionPacing 执行节奏配置
+     */
+    @Autowired
+    public MainController(ExecutionPacing executionPacing) {
+        this.executionPacing = executionPacing;
+    }
+    
     /**
      * FXML初始化方法
      */
@@ -51,11 +77,18 @@ public class MainController {
     public void initialize() {
         log.info("主界面控制器初始化");
         
+        // 执行节奏配置，切换后新的操作立即生效
+        pacingProfileComboBox.getItems().setAll(PacingProfile.values());
+        pacingProfileComboBox.getSelectionModel().select(executionPacing.getActiveProfile());
+        pacingProfileComboBox.valueProperty().addListener((obs, oldValue, newValue) ->
+                executionPacing.setActiveProfile(newValue));
+        
         // 默认显示用户管理页面
         setActiveButton(userManagementBtn);
         userManagementView.setVisible(true);
         articleCrawlView.setVisible(false);
         publishView.setVisible(false);
+        taskQueueView.setVisible(false);
     }
     
     /**
@@ -69,6 +102,7 @@ public class MainController {
         userManagementView.setVisible(true);
         articleCrawlView.setVisible(false);
         publishView.setVisible(false);
+        taskQueueView.setVisible(false);
     }
     
     /**
@@ -82,6 +116,7 @@ public class MainController {
         userManagementView.setVisible(false);
         articleCrawlView.setVisible(true);
         publishView.setVisible(false);
+        taskQueueView.setVisible(false);
     }
     
     /**
@@ -95,6 +130,21 @@ public class MainController {
         userManagementView.setVisible(false);
         articleCrawlView.setVisible(false);
         publishView.setVisible(true);
+        taskQueueView.setVisible(false);
+    }
+    
+    /**
+     * 切换到任务队列页面
+     */
+    @FXML
+    public void onSwitchToTaskQueue() {
+        log.info("切换到任务队列页面");
+        setActiveButton(taskQueueBtn);
+        
+        userManagementView.setVisible(false);
+        articleCrawlView.setVisible(false);
+        publishView.setVisible(false);
+        taskQueueView.setVisible(true);
     }
     
     /**
@@ -107,6 +157,7 @@ public class MainController {
         userManagementBtn.getStyleClass().remove("active-menu-item");
         articleCrawlBtn.getStyleClass().remove("active-menu-item");
         publishBtn.getStyleClass().remove("active-menu-item");
+        taskQueueBtn.getStyleClass().remove("active-menu-item");
         
         // 给当前按钮添加active样式
         if (!activeButton.getStyleClass().contains("active-menu-item")) {
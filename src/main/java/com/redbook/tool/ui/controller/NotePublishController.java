@@ -2,19 +2,26 @@ package com.redbook.tool.ui.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.dto.PublishResultDTO;
 import com.redbook.tool.entity.NoteInfo;
+import com.redbook.tool.entity.TaskJob;
 import com.redbook.tool.entity.UserInfo;
 import com.redbook.tool.service.NoteDetailService;
 import com.redbook.tool.service.NotePublishService;
+import com.redbook.tool.service.TaskJobExecutor;
+import com.redbook.tool.service.TaskSchedulerService;
 import com.redbook.tool.service.UserService;
 import com.redbook.tool.ui.util.AlertUtils;
+import com.redbook.tool.util.CancellationToken;
+import com.redbook.tool.util.SpringContextUtil;
 
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -67,6 +74,9 @@ public class NotePublishController {
     @FXML
     private Button publishButton;
     
+    @FXML
+    private Button cancelPublishButton;
+    
     @FXML
     private ProgressBar publishProgressBar;
     
@@ -79,6 +89,7 @@ public class NotePublishController {
     private final NoteDetailService noteDetailService;
     private final NotePublishService notePublishService;
     private final UserService userService;
+    private final WorkloadExecutors workloadExecutors;
     private MainController mainController;
     
     // 当前的笔记信息
@@ -87,14 +98,18 @@ public class NotePublishController {
     private List<String> tags = new ArrayList<>();
     // 图片URL列表
     private List<String> imageUrls = new ArrayList<>();
+    // 正在进行的发布的取消令牌，只在JavaFX线程中修改
+    private CancellationToken publishToken;
     
     @Autowired
     public NotePublishController(NoteDetailService noteDetailService, 
                                 NotePublishService notePublishService,
-                                UserService userService) {
+                                UserService userService,
+                                WorkloadExecutors workloadExecutors) {
         this.noteDetailService = noteDetailService;
         this.notePublishService = notePublishService;
         this.userService = userService;
+        this.workloadExecutors = workloadExecutors;
     }
     
     /**
@@ -363,19 +378,23 @@ public class NotePublishController {
             // 使用占位图
             imageView.setImage(new Image(getClass().getResourceAsStream("/images/image-placeholder.png")));
             
-            // 尝试异步加载实际图片
+            // 在图片解码线程中按缩略图尺寸同步加载实际图片
             if (imageUrl != null && !imageUrl.isEmpty()) {
-                new Thread(() -> {
-                    try {
-                        Image image = new Image(imageUrl, true);
-                        // 图片加载完成后更新UI
-                        if (!image.isError()) {
-                            Platform.runLater(() -> imageView.setImage(image));
+                try {
+                    workloadExecutors.image().execute(() -> {
+                        try {
+                            Image image = new Image(imageUrl, 150, 150, true, true, false);
+                            // 图片加载完成后更新UI
+                            if (!image.isError()) {
+                                Platform.runLater(() -> imageView.setImage(image));
+                            }
+                        } catch (Exception e) {
+                            log.error("加载图片失败: {}", e.getMessage());
                         }
-                    } catch (Exception e) {
-                        log.error("加载图片失败: {}", e.getMessage());
-                    }
-                }).start();
+                    });
+                } catch (RejectedExecutionException e) {
+                    log.warn("图片解码任务过多，保留占位图: {}", imageUrl);
+                }
             }
             
             // 图片标签
@@ -449,29 +468,12 @@ public class NotePublishController {
      */
     @FXML
     private void onPublish() {
-        // 获取当前编辑的数据
-        String title = titleField.getText().trim();
-        String content = contentArea.getText().trim();
-        
-        if (title.isEmpty()) {
-            AlertUtils.showWarning("标题不能为空", "请输入笔记标题");
-            return;
-        }
-        
-        if (content.isEmpty()) {
-            AlertUtils.showWarning("内容不能为空", "请输入笔记内容");
-            return;
-        }
-        
-        // 检查是否选择了用户
-        UserInfo selectedUser = userComboBox != null ? userComboBox.getSelectionModel().getSelectedItem() : null;
+        // 检查输入并更新当前笔记信息
+        UserInfo selectedUser = validatePublishInput();
         if (selectedUser == null) {
-            AlertUtils.showWarning("请选择用户", "请选择要发布笔记的用户账号");
             return;
         }
-        
-        // 更新当前笔记信息
-        updateCurrentNoteInfo(title, content);
+        String title = currentNote.getTitle();
         
         // 显示进度条
         if (publishProgressBar != null) {
@@ -479,8 +481,11 @@ public class NotePublishController {
             publishProgressBar.setVisible(true);
         }
         
-        // 禁用发布按钮
+        // 禁用发布按钮，发布期间可以取消
         publishButton.setDisable(true);
+        CancellationToken token = new CancellationToken();
+        publishToken = token;
+        cancelPublishButton.setDisable(false);
         
         // 清空日志区域
         if (logTextArea != null) {
@@ -500,11 +505,16 @@ public class NotePublishController {
                 if (publishProgressBar != null) {
                     publishProgressBar.setProgress(current / (double) total);
                 }
-            })
+            }),
+            token
         ).thenAccept(result -> {
             Platform.runLater(() -> {
                 // 启用发布按钮
                 publishButton.setDisable(false);
+                if (publishToken == token) {
+                    publishToken = null;
+                    cancelPublishButton.setDisable(true);
+                }
                 
                 // 设置进度条完成
                 if (publishProgressBar != null) {
@@ -539,6 +549,16 @@ public class NotePublishController {
                         loadUserList();
                         break;
                         
+                    case INTERRUPTED:
+                        appendToLog("发布已取消");
+                        break;
+                        
+                    case CIRCUIT_OPEN:
+                        AlertUtils.showWarning("账号暂停发布", "用户 " + selectedUser.getNickname()
+                            + " 的发布接口连续失败已熔断，请稍后再试或在用户管理中查看状态");
+                        appendToLog(result.getErrorMessage());
+                        break;
+                        
                     case FAILED:
                     default:
                         AlertUtils.showError("发布失败", "发布笔记失败: " + result.getErrorMessage());
@@ -549,6 +569,65 @@ public class NotePublishController {
         });
     }
     
+    /**
+     * 取消发布按钮点击事件，点击发布按钮之前的步骤都可以取消
+     */
+    @FXML
+    private void onCancelPublish() {
+        if (publishToken != null && publishToken.cancel()) {
+            appendToLog("正在取消发布...");
+            cancelPublishButton.setDisable(true);
+        }
+    }
+    
+    /**
+     * 加入队列按钮点击事件，把当前编辑的笔记作为后台发布任务提交
+     */
+    @FXML
+    private void onQueuePublish() {
+        UserInfo selectedUser = validatePublishInput();
+        if (selectedUser == null) {
+            return;
+        }
+        TaskSchedulerService taskSchedulerService = SpringContextUtil.getBean(TaskSchedulerService.class);
+        TaskJob job = taskSchedulerService.submit(TaskJob.Type.PUBLISH, selectedUser.getUserId(),
+            currentNote.getTitle(), TaskJobExecutor.publishPayload(currentNote));
+        appendToLog("已将笔记《" + currentNote.getTitle() + "》加入任务队列，任务ID: " + job.getId());
+        AlertUtils.showInfo("已加入队列", "发布任务将在后台执行，可在任务队列页面查看进度");
+    }
+    
+    /**
+     * 检查标题、内容和账号，通过时用当前编辑的数据更新笔记信息
+     *
+     * @return 选中的账号，检查不通过时返回null
+     */
+    private UserInfo validatePublishInput() {
+        // 获取当前编辑的数据
+        String title = titleField.getText().trim();
+        String content = contentArea.getText().trim();
+        
+        if (title.isEmpty()) {
+            AlertUtils.showWarning("标题不能为空", "请输入笔记标题");
+            return null;
+        }
+        
+        if (content.isEmpty()) {
+            AlertUtils.showWarning("内容不能为空", "请输入笔记内容");
+            return null;
+        }
+        
+        // 检查是否选择了用户
+        UserInfo selectedUser = userComboBox != null ? userComboBox.getSelectionModel().getSelectedItem() : null;
+        if (selectedUser == null) {
+            AlertUtils.showWarning("请选择用户", "请选择要发布笔记的用户账号");
+            return null;
+        }
+        
+        // 更新当前笔记信息
+        updateCurrentNoteInfo(title, content);
+        return selectedUser;
+    }
+    
     /**
      * 更新当前笔记信息
      */
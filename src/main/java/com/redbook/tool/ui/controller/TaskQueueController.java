@@ -0,0 +1,286 @@
+package com.redbook.tool.ui.controller;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.redbook.tool.entity.NoteInfo;
+import com.redbook.tool.entity.TaskJob;
+import com.redbook.tool.entity.TaskJob.Status;
+import com.redbook.tool.entity.TaskJob.Type;
+import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.service.TaskJobExecutor;
+import com.redbook.tool.service.TaskSchedulerService;
+import com.redbook.tool.service.UserService;
+import com.redbook.tool.ui.util.AlertUtils;
+import com.redbook.tool.util.SpringContextUtil;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 任务队列界面控制器，显示排队、执行中和已结束的后台任务
+ */
+@Slf4j
+@Component
+public class TaskQueueController {
+
+    // 界面中显示的最多任务数
+    private static final int MAX_DISPLAYED_JOBS = 200;
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+
+    @FXML
+    private VBox contentRoot;
+
+    @FXML
+    private TableView<TaskJob> jobTableView;
+
+    @FXML
+    private Label summaryLabel;
+
+    @FXML
+    private Button loadResultButton;
+
+    @FXML
+    private Button retryButton;
+
+    @FXML
+    private Button cancelButton;
+
+    private final TaskSchedulerService taskSchedulerService;
+    private final UserService userService;
+    private final ObservableList<TaskJob> jobs = FXCollections.observableArrayList();
+
+    // 任务变化监听器，重新加载界面时先移除旧的监听器
+    private Consumer<TaskJob> jobListener;
+
+    /**
+     * 构造函数
+     *
+     * @param taskSchedulerService 任务调度服务
+     * @param userService 用户服务
+     */
+    @Autowired
+    public TaskQueueController(TaskSchedulerService taskSchedulerService, UserService userService) {
+        this.taskSchedulerService = taskSchedulerService;
+        this.userService = userService;
+    }
+
+    /**
+     * 初始化方法
+     */
+    @FXML
+    public void initialize() {
+        log.info("初始化任务队列控制器");
+        setupJobTable();
+
+        if (jobListener != null) {
+            taskSchedulerService.removeListener(jobListener);
+        }
+        jobListener = job -> Platform.runLater(() -> upsertJob(job));
+        taskSchedulerService.addListener(jobListener);
+
+        // 按选中任务的状态启用操作按钮
+        jobTableView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> updateButtons());
+        updateButtons();
+
+        onRefresh();
+    }
+
+    /**
+     * 设置任务表格
+     */
+    private void setupJobTable() {
+        TableColumn<TaskJob, String> idColumn = new TableColumn<>("ID");
+        idColumn.setCellValueFactory(data -> new SimpleStringProperty(String.valueOf(data.getValue().getId())));
+        idColumn.setPrefWidth(50);
+
+        TableColumn<TaskJob, String> typeColumn = new TableColumn<>("类型");
+        typeColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getType().getDescription()));
+        typeColumn.setPrefWidth(80);
+
+        TableColumn<TaskJob, String> titleColumn = new TableColumn<>("任务");
+        titleColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getTitle()));
+        titleColumn.setPrefWidth(180);
+
+        TableColumn<TaskJob, String> userColumn = new TableColumn<>("账号");
+        userColumn.setCellValueFactory(data -> new SimpleStringProperty(accountName(data.getValue().getUserId())));
+        userColumn.setPrefWidth(100);
+
+        TableColumn<TaskJob, String> statusColumn = new TableColumn<>("状态");
+        statusColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getStatus().getDescription()));
+        statusColumn.setPrefWidth(70);
+
+        TableColumn<TaskJob, TaskJob> progressColumn = new TableColumn<>("进度");
+        progressColumn.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue()));
+        progressColumn.setPrefWidth(110);
+        progressColumn.setCellFactory(column -> new TableCell<>() {
+            private final ProgressBar progressBar = new ProgressBar(0);
+
+            {
+                progressBar.setPrefWidth(100);
+            }
+
+            @Override
+            protected void updateItem(TaskJob job, boolean empty) {
+                super.updateItem(job, empty);
+                if (empty || job == null) {
+                    setGraphic(null);
+                    return;
+                }
+                progressBar.setProgress(job.getStatus() == Status.QUEUED ? 0 : job.getProgress() / 100.0);
+                setGraphic(progressBar);
+            }
+        });
+
+        TableColumn<TaskJob, String> attemptsColumn = new TableColumn<>("执行次数");
+        attemptsColumn.setCellValueFactory(data -> new SimpleStringProperty(
+            data.getValue().getAttempts() + "/" + data.getValue().getMaxAttempts()));
+        attemptsColumn.setPrefWidth(70);
+
+        TableColumn<TaskJob, String> messageColumn = new TableColumn<>("信息");
+        messageColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getMessage()));
+        messageColumn.setPrefWidth(220);
+
+        TableColumn<TaskJob, String> updatedColumn = new TableColumn<>("更新时间");
+        updatedColumn.setCellValueFactory(data -> new SimpleStringProperty(
+            data.getValue().getUpdatedAt() != null ? data.getValue().getUpdatedAt().format(TIME_FORMATTER) : ""));
+        updatedColumn.setPrefWidth(110);
+
+        jobTableView.getColumns().setAll(List.of(idColumn, typeColumn, titleColumn, userColumn, statusColumn,
+            progressColumn, attemptsColumn, messageColumn, updatedColumn));
+        jobTableView.setItems(jobs);
+        jobTableView.setPlaceholder(new Label("暂无任务"));
+    }
+
+    /**
+     * 用最新的任务状态替换表格中的行，新任务插入到最前面
+     */
+    private void upsertJob(TaskJob job) {
+        for (int i = 0; i < jobs.size(); i++) {
+            if (jobs.get(i).getId() == job.getId()) {
+                // 进度事件不带更新时间，保留之前的值
+                if (job.getUpdatedAt() == null) {
+                    job.setUpdatedAt(jobs.get(i).getUpdatedAt());
+                }
+                jobs.set(i, job);
+                updateSummary();
+                updateButtons();
+                return;
+            }
+        }
+        jobs.add(0, job);
+        updateSummary();
+    }
+
+    private void updateSummary() {
+        long queued = jobs.stream().filter(job -> job.getStatus() == Status.QUEUED).count();
+        long running = jobs.stream().filter(job -> job.getStatus() == Status.RUNNING).count();
+        long finished = jobs.size() - queued - running;
+        summaryLabel.setText(String.format("排队%d / 执行中%d / 已结束%d", queued, running, finished));
+    }
+
+    private void updateButtons() {
+        TaskJob selected = jobTableView.getSelectionModel().getSelectedItem();
+        cancelButton.setDisable(selected == null || selected.getStatus() != Status.QUEUED);
+        retryButton.setDisable(selected == null
+            || (selected.getStatus() != Status.FAILED && selected.getStatus() != Status.CANCELLED));
+        loadResultButton.setDisable(selected == null || selected.getType() == Type.PUBLISH
+            || selected.getResult() == null || selected.getResult().isEmpty());
+    }
+
+    private String accountName(String userId) {
+        if (userId == null) {
+            return "自动轮换";
+        }
+        UserInfo user = userService.getUserById(userId);
+        return user != null && user.getNickname() != null ? user.getNickname() : userId;
+    }
+
+    /**
+     * 刷新按钮点击事件，从任务数据库重新加载
+     */
+    @FXML
+    private void onRefresh() {
+        List<TaskJob> recent = taskSchedulerService.listRecent(MAX_DISPLAYED_JOBS);
+        jobs.setAll(recent);
+        updateSummary();
+        updateButtons();
+    }
+
+    /**
+     * 取消选中的排队任务
+     */
+    @FXML
+    private void onCancel() {
+        TaskJob selected = jobTableView.getSelectionModel().getSelectedItem();
+        if (selected != null && !taskSchedulerService.cancel(selected.getId())) {
+            AlertUtils.showWarning("无法取消", "只能取消排队中的任务");
+        }
+    }
+
+    /**
+     * 重新执行选中的失败或已取消任务
+     */
+    @FXML
+    private void onRetry() {
+        TaskJob selected = jobTableView.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+        if (selected.getType() == Type.PUBLISH && !AlertUtils.showConfirmation("重新发布",
+                "发布任务失败时可能已经提交过，重新执行可能导致重复发布，是否继续？")) {
+            return;
+        }
+        if (!taskSchedulerService.retry(selected.getId())) {
+            AlertUtils.showWarning("无法重试", "只能重试失败或已取消的任务");
+        }
+    }
+
+    /**
+     * 删除所有已结束的任务
+     */
+    @FXML
+    private void onClearFinished() {
+        int removed = taskSchedulerService.clearFinished();
+        log.info("已清除{}个已结束的任务", removed);
+        onRefresh();
+    }
+
+    /**
+     * 把选中任务的结果载入文章爬取页面的笔记列表
+     */
+    @FXML
+    private void onLoadResult() {
+        TaskJob selected = jobTableView.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            return;
+        }
+        // 表格中的任务可能来自进度事件，重新读取以获得完整结果
+        TaskJob job = taskSchedulerService.getJob(selected.getId());
+        List<NoteInfo> notes = job != null ? TaskJobExecutor.parseNotes(job.getResult()) : List.of();
+        if (notes.isEmpty()) {
+            AlertUtils.showInfo("没有结果", "该任务没有可载入的笔记");
+            return;
+        }
+        ArticleCrawlController crawlController = SpringContextUtil.getBean(ArticleCrawlController.class);
+        crawlController.loadTaskResult(notes, job.getType() == Type.DETAIL, job.getTitle());
+        SpringContextUtil.getBean(MainController.class).onSwitchToArticleCrawl();
+    }
+}
@@ -12,15 +12,23 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.kordamp.ikonli.javafx.FontIcon;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.service.CircuitBreakerRegistry;
+import com.redbook.tool.service.CircuitBreakerRegistry.BreakerEvent;
+import com.redbook.tool.service.CircuitBreakerRegistry.Endpoint;
+import com.redbook.tool.service.CircuitBreakerRegistry.State;
 import com.redbook.tool.service.LoginService;
 import com.redbook.tool.service.UserService;
 import com.redbook.tool.ui.util.AlertUtils;
@@ -96,10 +104,18 @@ public class UserManagementController {
     @FXML
     private Button loginNewAccountButton;
     
+    @FXML
+    private Button renewAllButton;
+    
     private final UserService userService;
     private final LoginService loginService;
+    private final WorkloadExecutors workloadExecutors;
+    private final CircuitBreakerRegistry circuitBreakers;
     private UserManagementViewModel viewModel;
     
+    // 熔断状态变化时刷新状态列
+    private Consumer<BreakerEvent> breakerListener;
+    
     // 每页显示的行数
     private static final int ROWS_PER_PAGE = 10;
     
@@ -107,9 +123,12 @@ public class UserManagementController {
     private final Map<String, Button> renewButtons = new HashMap<>();
 
     @Autowired
-    public UserManagementController(UserService userService, LoginService loginService) {
+    public UserManagementController(UserService userService, LoginService loginService, WorkloadExecutors workloadExecutors,
+            CircuitBreakerRegistry circuitBreakers) {
         this.userService = userService;
         this.loginService = loginService;
+        this.workloadExecutors = workloadExecutors;
+        this.circuitBreakers = circuitBreakers;
     }
 
     /**
@@ -117,7 +136,7 @@ public class UserManagementController {
      */
     @FXML
     public void initialize() {
-        this.viewModel = new UserManagementViewModel(userService, loginService);
+        this.viewModel = new UserManagementViewModel(userService, loginService, workloadExecutors);
         
         // 确保用户ID列不可见
         userIdColumn.setVisible(false);
@@ -140,8 +159,20 @@ public class UserManagementController {
         // 设置登录按钮状态
         loginNewAccountButton.disableProperty().bind(viewModel.getLoginInProgress());
         
+        // 熔断状态在工作线程中变化，切回界面线程刷新状态列
+        if (breakerListener != null) {
+            circuitBreakers.removeListener(breakerListener);
+        }
+        breakerListener = event -> Platform.runLater(userTableView::refresh);
+        circuitBreakers.addListener(breakerListener);
+        
         // 为登录按钮添加事件处理器
         loginNewAccountButton.setOnAction(event -> onLoginNewAccount());
+        
+        // 批量续期进行中或单个账号登录中时禁用全部续期按钮
+        renewAllButton.disableProperty().bind(
+            Bindings.or(viewModel.getRenewAllInProgress(), viewModel.getLoginInProgress())
+        );
     }
     
     /**
@@ -244,6 +275,8 @@ public class UserManagementController {
             private final FontIcon userIcon = new FontIcon("fas-user");
             private final ImageView avatarView = new ImageView();
             private final Label nameLabel = new Label();
+            // 正在解码的头像文件，单元格被复用后丢弃旧的解码结果
+            private File pendingAvatarFile;
             
             {
                 // 设置头像样式
@@ -278,6 +311,7 @@ public class UserManagementController {
                     
                     // 清除之前的头像显示
                     avatarPane.getChildren().clear();
+                    pendingAvatarFile = null;
                     
                     // 如果有头像URL，加载真实头像
                     if (user.getAvatar() != null && !user.getAvatar().isEmpty()) {
@@ -341,10 +375,29 @@ public class UserManagementController {
              * 从本地文件添加头像
              */
             private void loadAvatarFromFile(StackPane avatarPane, ImageView avatarView, FontIcon userIcon, File localAvatarFile) {
+                pendingAvatarFile = localAvatarFile;
+                // 在图片解码线程中使用ImageUtils加载图像(支持WebP格式)，完成后回到JavaFX应用线程显示
+                CompletableFuture.supplyAsync(() -> ImageUtils.loadImage(localAvatarFile), workloadExecutors.image())
+                    .whenComplete((image, error) -> Platform.runLater(() -> {
+                        if (pendingAvatarFile != localAvatarFile) {
+                            return;
+                        }
+                        pendingAvatarFile = null;
+                        if (error != null) {
+                            log.error("加载头像失败: {}", error.getMessage());
+                            userIcon.setIconLiteral("fas-user-circle");
+                            avatarPane.getChildren().setAll(userIcon);
+                            return;
+                        }
+                        showAvatar(avatarPane, avatarView, userIcon, localAvatarFile, image);
+                    }));
+            }
+            
+            /**
+             * 显示解码后的头像，解码失败时使用默认图标
+             */
+            private void showAvatar(StackPane avatarPane, ImageView avatarView, FontIcon userIcon, File localAvatarFile, Image image) {
                 try {
-                    // 使用ImageUtils加载图像(支持WebP格式)
-                    Image image = ImageUtils.loadImage(localAvatarFile);
-                    
                     if (image != null && !image.isError() && image.getWidth() > 0) {
                         avatarView.setImage(image);
                         applyCircleClip(avatarView);
@@ -560,7 +613,8 @@ public class UserManagementController {
                     setGraphic(null);
                 } else {
                     UserInfo user = getTableView().getItems().get(getIndex());
-                    renewButton.setDisable(viewModel.getLoginInProgress().get());
+                    renewButton.setDisable(viewModel.getLoginInProgress().get()
+                            || viewModel.getRenewAllInProgress().get());
                     
                     // 存储续期按钮用于后续更新状态
                     renewButtons.put(user.getUserId(), renewButton);
@@ -651,7 +705,7 @@ public class UserManagementController {
      * 续期用户账号
      */
     private void onRenewUser(UserInfo user) {
-        if (user == null || viewModel.getLoginInProgress().get()) {
+        if (user == null || viewModel.getLoginInProgress().get() || viewModel.getRenewAllInProgress().get()) {
             return;
         }
         
@@ -691,6 +745,57 @@ public class UserManagementController {
             });
     }
     
+    /**
+     * 全部续期：并发校验所有已保存账号，每个账号完成后立即刷新对应行，结束后显示汇总
+     */
+    @FXML
+    private void onRenewAllUsers() {
+        if (viewModel.getRenewAllInProgress().get() || viewModel.getLoginInProgress().get()) {
+            return;
+        }
+        if (viewModel.getUsers().isEmpty()) {
+            AlertUtils.showInfo("全部续期", "没有已保存的账号");
+            return;
+        }
+        
+        log.info("开始批量续期所有账号");
+        renewAllButton.setText("续期中...");
+        
+        // 续期期间禁用每行的续期按钮
+        renewButtons.values().forEach(button -> button.setDisable(true));
+        
+        List<String> failedUsers = new ArrayList<>();
+        viewModel.renewAllUsers(result -> {
+                if (!result.isSuccess()) {
+                    failedUsers.add(result.getUser().getNickname());
+                }
+            })
+            .thenAccept(summary -> {
+                Platform.runLater(() -> {
+                    renewAllButton.setText("全部续期");
+                    userTableView.refresh();
+                    
+                    String message = String.format("共%d个账号，续期成功%d个，成功率%.1f%%，总耗时%.1f秒",
+                        summary.getTotal(), summary.getSuccessCount(),
+                        summary.getSuccessRate(), summary.getElapsedMs() / 1000.0);
+                    if (failedUsers.isEmpty()) {
+                        AlertUtils.showInfo("全部续期完成", message);
+                    } else {
+                        AlertUtils.showWarning("全部续期完成",
+                            message + "\n已失效账号: " + String.join("、", failedUsers));
+                    }
+                });
+            })
+            .exceptionally(e -> {
+                Platform.runLater(() -> {
+                    renewAllButton.setText("全部续期");
+                    userTableView.refresh();
+                    AlertUtils.showError("全部续期失败", "批量续期时发生错误，请稍后再试");
+                });
+                return null;
+            });
+    }
+    
     /**
      * 删除用户
      */
@@ -771,13 +876,18 @@ public class UserManagementController {
         // 自定义状态列渲染 - 改为圆点指示器
         statusColumn.setCellFactory(column -> new TableCell<>() {
             private final StackPane dotContainer = new StackPane();
+            // 圆点旁的熔断标记，所有接口正常时隐藏
+            private final Label breakerBadge = new Label();
             
             {
                 // 设置圆点容器
                 dotContainer.getStyleClass().add("status-dot");
+                breakerBadge.getStyleClass().add("circuit-badge");
+                breakerBadge.setManaged(false);
+                breakerBadge.setVisible(false);
                 
                 // 设置容器居中
-                HBox container = new HBox(dotContainer);
+                HBox container = new HBox(5, dotContainer, breakerBadge);
                 container.setAlignment(Pos.CENTER);
                 setGraphic(container);
             }
@@ -805,8 +915,30 @@ public class UserManagementController {
                         dotContainer.getStyleClass().add("status-inactive-dot");
                         Tooltip.install(dotContainer, new Tooltip("已失效"));
                     }
+                    updateBreakerBadge();
                 }
             }
+            
+            /**
+             * 按该行账号的熔断状态显示标记：有接口熔断时显示"熔断"，只有试探中的接口时显示"试探"
+             */
+            private void updateBreakerBadge() {
+                breakerBadge.getStyleClass().removeAll("circuit-open-badge", "circuit-half-open-badge");
+                UserInfo user = getTableRow() != null ? getTableRow().getItem() : null;
+                Map<Endpoint, State> states = circuitBreakers.getStates(user != null ? user.getUserId() : null);
+                if (states.isEmpty()) {
+                    breakerBadge.setVisible(false);
+                    breakerBadge.setManaged(false);
+                    breakerBadge.setTooltip(null);
+                    return;
+                }
+                State shown = states.containsValue(State.OPEN) ? State.OPEN : State.HALF_OPEN;
+                breakerBadge.setText(shown.getDisplayName());
+                breakerBadge.getStyleClass().add(shown == State.OPEN ? "circuit-open-badge" : "circuit-half-open-badge");
+                breakerBadge.setTooltip(new Tooltip(circuitBreakers.describe(user.getUserId())));
+                breakerBadge.setVisible(true);
+                breakerBadge.setManaged(true);
+            }
         });
         // 确保值工厂设置正确
         statusColumn.setCellValueFactory(new PropertyValueFactory<>("active"));
@@ -894,7 +1026,7 @@ public class UserManagementController {
                 log.error("下载头像失败: {}", e.getMessage());
                 return false;
             }
-        });
+        }, workloadExecutors.io());
     }
     
     /**
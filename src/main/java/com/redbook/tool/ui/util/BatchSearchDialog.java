@@ -0,0 +1,177 @@
+package com.redbook.tool.ui.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.redbook.tool.entity.UserInfo;
+import com.redbook.tool.util.KeywordImportUtil;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.SelectionMode;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 批量搜索对话框，输入或导入关键词并选择参与搜索的账号
+ */
+public class BatchSearchDialog {
+
+    /**
+     * 对话框中确认的批量搜索参数
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Request {
+        private final List<String> keywords;
+        /**
+         * 参与搜索的账号，为空表示由账号调度器自动分配
+         */
+        private final List<String> userIds;
+        private final int maxResultsPerKeyword;
+    }
+
+    private BatchSearchDialog() {
+    }
+
+    /**
+     * 显示批量搜索对话框
+     *
+     * @param owner 父窗口，可为null
+     * @param users 可选的有效账号
+     * @param selectedUser 默认选中的账号，可为null
+     * @param autoAssign 是否默认勾选自动分配账号
+     * @param defaultMaxResults 每个关键词默认的最大条数
+     * @param maxResultsLimit 每个关键词最大条数的上限
+     * @return 用户确认时返回搜索参数
+     */
+    public static Optional<Request> show(Window owner, List<UserInfo> users, UserInfo selectedUser,
+            boolean autoAssign, int defaultMaxResults, int maxResultsLimit) {
+        Dialog<Request> dialog = new Dialog<>();
+        dialog.initOwner(owner);
+        dialog.setTitle("批量搜索");
+        dialog.setHeaderText(null);
+
+        // 关键词输入区域，每行一个
+        TextArea keywordArea = new TextArea();
+        keywordArea.setPromptText("每行一个关键词，也可以用逗号分隔");
+        keywordArea.setPrefRowCount(10);
+        keywordArea.setPrefColumnCount(30);
+
+        Label keywordCountLabel = new Label("共0个关键词");
+        keywordArea.textProperty().addListener((obs, oldVal, newVal) ->
+            keywordCountLabel.setText("共" + KeywordImportUtil.parseKeywords(newVal).size() + "个关键词"));
+
+        Button importButton = new Button("从文件导入");
+        importButton.getStyleClass().add("btn-secondary");
+        importButton.setGraphic(new org.kordamp.ikonli.javafx.FontIcon("fas-file-import"));
+        importButton.setOnAction(event -> {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("选择关键词文件");
+            chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("关键词文件", "*.xlsx", "*.xls", "*.csv", "*.txt"),
+                new FileChooser.ExtensionFilter("所有文件", "*.*")
+            );
+            File file = chooser.showOpenDialog(dialog.getDialogPane().getScene().getWindow());
+            if (file == null) {
+                return;
+            }
+            try {
+                List<String> imported = KeywordImportUtil.readKeywords(file);
+                List<String> merged = new ArrayList<>(KeywordImportUtil.parseKeywords(keywordArea.getText()));
+                merged.addAll(imported);
+                keywordArea.setText(String.join("\n", KeywordImportUtil.parseKeywords(String.join("\n", merged))));
+            } catch (IOException e) {
+                AlertUtils.showError("导入失败", e.getMessage());
+            }
+        });
+
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
+        HBox keywordHeader = new HBox(10, new Label("关键词:"), spacer, keywordCountLabel, importButton);
+        keywordHeader.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        // 账号多选列表
+        ListView<UserInfo> accountList = new ListView<>();
+        accountList.getItems().setAll(users);
+        accountList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        accountList.setPrefHeight(120);
+        accountList.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(UserInfo user, boolean empty) {
+                super.updateItem(user, empty);
+                setText(empty || user == null ? null
+                    : user.getNickname() + (user.getRedId() != null ? " (" + user.getRedId() + ")" : ""));
+            }
+        });
+        if (selectedUser != null && users.contains(selectedUser)) {
+            accountList.getSelectionModel().select(selectedUser);
+        } else if (!users.isEmpty()) {
+            accountList.getSelectionModel().selectFirst();
+        }
+
+        // 自动分配时由账号调度器在所有有效账号间轮换，不使用列表中的选择
+        CheckBox autoAssignCheckBox = new CheckBox("自动分配所有有效账号(按配额轮换)");
+        autoAssignCheckBox.setSelected(autoAssign);
+        accountList.disableProperty().bind(autoAssignCheckBox.selectedProperty());
+
+        Spinner<Integer> maxResultsSpinner = new Spinner<>(1, maxResultsLimit,
+            Math.min(Math.max(defaultMaxResults, 1), maxResultsLimit), 10);
+        maxResultsSpinner.setEditable(true);
+        maxResultsSpinner.setPrefWidth(90);
+        HBox maxResultsBox = new HBox(10, new Label("每个关键词最大条数:"), maxResultsSpinner);
+        maxResultsBox.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+
+        VBox content = new VBox(10,
+            keywordHeader, keywordArea,
+            new Label("参与搜索的账号(可多选):"), autoAssignCheckBox, accountList,
+            maxResultsBox);
+        content.setPadding(new Insets(10));
+        dialog.getDialogPane().setContent(content);
+
+        ButtonType startButtonType = new ButtonType("开始搜索", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(startButtonType, ButtonType.CANCEL);
+        dialog.getDialogPane().getStylesheets().add(
+            BatchSearchDialog.class.getResource("/css/style.css").toExternalForm());
+
+        // 没有关键词或账号时禁用开始按钮
+        Button startButton = (Button) dialog.getDialogPane().lookupButton(startButtonType);
+        startButton.disableProperty().bind(
+            keywordArea.textProperty().isEmpty()
+            .or(javafx.beans.binding.Bindings.isEmpty(accountList.getSelectionModel().getSelectedItems())
+                .and(autoAssignCheckBox.selectedProperty().not()))
+        );
+
+        dialog.setResultConverter(buttonType -> {
+            if (buttonType != startButtonType) {
+                return null;
+            }
+            List<String> keywords = KeywordImportUtil.parseKeywords(keywordArea.getText());
+            List<String> userIds = autoAssignCheckBox.isSelected() ? new ArrayList<>()
+                : accountList.getSelectionModel().getSelectedItems().stream()
+                    .map(UserInfo::getUserId)
+                    .collect(Collectors.toList());
+            return new Request(keywords, userIds, maxResultsSpinner.getValue());
+        });
+
+        return dialog.showAndWait().filter(request -> !request.getKeywords().isEmpty());
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.dto.SearchResultDTO;
 import com.redbook.tool.entity.NoteInfo;
 import com.redbook.tool.entity.UserInfo;
@@ -32,6 +33,7 @@ public class ArticleCrawlViewModel {
 
     private final UserService userService;
     private final ArticleCrawlService articleCrawlService;
+    private final WorkloadExecutors workloadExecutors;
 
     // UI绑定属性
     @Getter
@@ -49,6 +51,9 @@ public class ArticleCrawlViewModel {
     @Getter
     private final BooleanProperty searchInProgress = new SimpleBooleanProperty(false);
     
+    @Getter
+    private final BooleanProperty detailFetchInProgress = new SimpleBooleanProperty(false);
+    
     @Getter
     private final ObservableList<NoteInfo> notes = FXCollections.observableArrayList();
     
@@ -59,10 +64,13 @@ public class ArticleCrawlViewModel {
      *
      * @param userService 用户服务
      * @param articleCrawlService 文章爬取服务
+     * @param workloadExecutors 工作负载执行器
      */
-    public ArticleCrawlViewModel(UserService userService, ArticleCrawlService articleCrawlService) {
+    public ArticleCrawlViewModel(UserService userService, ArticleCrawlService articleCrawlService,
+            WorkloadExecutors workloadExecutors) {
         this.userService = userService;
         this.articleCrawlService = articleCrawlService;
+        this.workloadExecutors = workloadExecutors;
     }
 
     /**
@@ -78,7 +86,7 @@ public class ArticleCrawlViewModel {
                 log.error("加载用户列表失败: {}", e.getMessage(), e);
                 return Collections.<UserInfo>emptyList();
             }
-        }).thenAccept(loadedUsers -> {
+        }, workloadExecutors.io()).thenAccept(loadedUsers -> {
             // 在JavaFX应用线程上更新UI
             Platform.runLater(() -> {
                 users.clear();
@@ -148,6 +156,32 @@ public class ArticleCrawlViewModel {
         }
     }
     
+    /**
+     * 用爬取到的笔记详情替换列表中对应的笔记，保留搜索结果中的封面图
+     * 
+     * @param detail 笔记详情
+     * @return 列表中是否有对应的笔记
+     */
+    public boolean mergeNoteDetail(NoteInfo detail) {
+        if (detail == null) {
+            return false;
+        }
+        for (int i = 0; i < notes.size(); i++) {
+            NoteInfo note = notes.get(i);
+            boolean sameNote = detail.getNoteId() != null && !detail.getNoteId().isEmpty()
+                    ? detail.getNoteId().equals(note.getNoteId())
+                    : detail.getNoteUrl() != null && detail.getNoteUrl().equals(note.getNoteUrl());
+            if (sameNote) {
+                if (detail.getCoverImageUrl() == null) {
+                    detail.setCoverImageUrl(note.getCoverImageUrl());
+                }
+                notes.set(i, detail);
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * 清空笔记列表
      */
@@ -4,7 +4,9 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
+import com.redbook.tool.config.WorkloadExecutors;
 import com.redbook.tool.entity.UserInfo;
 import com.redbook.tool.service.LoginService;
 import com.redbook.tool.service.UserService;
@@ -27,6 +29,7 @@ public class UserManagementViewModel {
 
     private final UserService userService;
     private final LoginService loginService;
+    private final WorkloadExecutors workloadExecutors;
 
     // UI绑定属性
     @Getter
@@ -39,16 +42,20 @@ public class UserManagementViewModel {
     private final ObjectProperty<UserInfo> selectedUser = new SimpleObjectProperty<>();
     @Getter
     private final BooleanProperty loginInProgress = new SimpleBooleanProperty(false);
+    @Getter
+    private final BooleanProperty renewAllInProgress = new SimpleBooleanProperty(false);
 
     /**
      * 构造函数
      *
      * @param userService 用户服务
      * @param loginService 登录服务
+     * @param workloadExecutors 工作负载执行器
      */
-    public UserManagementViewModel(UserService userService, LoginService loginService) {
+    public UserManagementViewModel(UserService userService, LoginService loginService, WorkloadExecutors workloadExecutors) {
         this.userService = userService;
         this.loginService = loginService;
+        this.workloadExecutors = workloadExecutors;
     }
 
     /**
@@ -65,7 +72,7 @@ public class UserManagementViewModel {
                 log.error("加载用户列表失败: {}", e.getMessage(), e);
                 return Collections.<UserInfo>emptyList();
             }
-        }).thenAccept(loadedUsers -> {
+        }, workloadExecutors.io()).thenAccept(loadedUsers -> {
             // 在JavaFX应用线程上更新UI
             Platform.runLater(() -> {
                 users.clear();
@@ -116,8 +123,48 @@ public class UserManagementViewModel {
             // 在JavaFX应用线程上更新UI状态
             Platform.runLater(() -> loginInProgress.set(false));
             return success;
+        }, workloadExecutors.browser());
+    }
+
+    /**
+     * 并发续期所有已保存的账号，每个账号完成后立即更新列表
+     *
+     * @param resultCallback 单个账号完成时的回调，在JavaFX应用线程上调用
+     * @return CompletableFuture<LoginService.RenewSummary> 全部完成后的汇总
+     */
+    public CompletableFuture<LoginService.RenewSummary> renewAllUsers(Consumer<LoginService.RenewResult> resultCallback) {
+        renewAllInProgress.set(true);
+        
+        return CompletableFuture.supplyAsync(() -> loginService.renewAllUsers(result -> {
+            // 在JavaFX应用线程上更新对应用户行
+            Platform.runLater(() -> {
+                replaceUser(result.getUserId(), result.getUser());
+                if (resultCallback != null) {
+                    resultCallback.accept(result);
+                }
+            });
+        }), workloadExecutors.io()).whenComplete((summary, e) -> {
+            if (e != null) {
+                log.error("批量续期失败: {}", e.getMessage(), e);
+            }
+            Platform.runLater(() -> renewAllInProgress.set(false));
         });
     }
+    
+    /**
+     * 替换列表中指定用户的信息
+     */
+    private void replaceUser(String userId, UserInfo updatedUser) {
+        if (updatedUser == null) {
+            return;
+        }
+        for (int i = 0; i < users.size(); i++) {
+            if (users.get(i).getUserId().equals(userId)) {
+                users.set(i, updatedUser);
+                break;
+            }
+        }
+    }
 
     /**
      * 登录新账号 (旧逻辑，保留以备不时之需)
@@ -149,7 +196,7 @@ public class UserManagementViewModel {
             // 在JavaFX应用线程上更新UI状态
             Platform.runLater(() -> loginInProgress.set(false));
             return success;
-        });
+        }, workloadExecutors.browser());
     }
 
     /**
@@ -183,7 +230,7 @@ public class UserManagementViewModel {
             // 在JavaFX应用线程上更新UI状态
             Platform.runLater(() -> loginInProgress.set(false));
             return success;
-        });
+        }, workloadExecutors.browser());
     }
     
     /**
@@ -0,0 +1,122 @@
+package com.redbook.tool.util;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 协作式取消令牌，由界面触发取消，爬取、详情和发布操作在各步骤之间检查
+ * <p>
+ * Playwright对象只能在使用它的线程中操作，取消时不会从其它线程关闭页面，
+ * 而是让正在等待的步骤尽快返回，由操作线程自行结束并归还浏览器上下文。
+ */
+@Slf4j
+public class CancellationToken {
+
+    /**
+     * 不会被取消的令牌，用于不需要取消的调用
+     */
+    public static final CancellationToken NONE = new CancellationToken(false);
+
+    private final boolean cancellable;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean cancelled;
+
+    public CancellationToken() {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * 参数为null时返回 {@link #NONE}
+     */
+    public static CancellationToken orNone(CancellationToken token) {
+        return token != null ? token : NONE;
+    }
+
+    /**
+     * 取消操作并唤醒所有等待中的步骤，重复调用无效
+     *
+     * @return 本次调用是否触发了取消
+     */
+    public boolean cancel() {
+        if (!cancellable) {
+            return false;
+        }
+        synchronized (this) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            notifyAll();
+        }
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.warn("执行取消回调时出错: {}", e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 已取消时抛出 {@link CancellationException}
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("操作已取消");
+        }
+    }
+
+    /**
+     * 注册取消回调，回调在调用 {@link #cancel()} 的线程中执行；已取消时立即执行
+     */
+    public void addListener(Runnable listener) {
+        if (!cancellable) {
+            return;
+        }
+        listeners.add(listener);
+        if (cancelled && listeners.remove(listener)) {
+            listener.run();
+        }
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 等待指定时间，取消时立即返回
+     *
+     * @param millis 等待时间(ms)
+     * @return 等待完整结束返回true，被取消或线程被中断返回false
+     */
+    public boolean sleep(long millis) {
+        long deadline = System.currentTimeMillis() + millis;
+        synchronized (this) {
+            while (!cancelled) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return true;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
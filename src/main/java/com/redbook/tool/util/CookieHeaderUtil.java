@@ -0,0 +1,57 @@
+package com.redbook.tool.util;
+
+import java.net.URI;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.microsoft.playwright.options.Cookie;
+
+/**
+ * Cookie请求头工具类，将浏览器保存的cookies转换为HTTP请求的Cookie头
+ */
+public final class CookieHeaderUtil {
+
+    private CookieHeaderUtil() {
+    }
+
+    /**
+     * 按域名、路径、安全标记和过期时间筛选适用于目标地址的cookies，拼接为Cookie请求头
+     *
+     * @param cookies 浏览器保存的cookies
+     * @param uri 请求地址
+     * @return Cookie请求头的值，没有适用的cookie时返回空字符串
+     */
+    public static String toHeader(List<Cookie> cookies, URI uri) {
+        if (cookies == null || cookies.isEmpty() || uri == null || uri.getHost() == null) {
+            return "";
+        }
+        String host = uri.getHost().toLowerCase();
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        double nowSeconds = System.currentTimeMillis() / 1000.0;
+
+        return cookies.stream()
+                .filter(cookie -> cookie.name != null && cookie.value != null)
+                .filter(cookie -> domainMatches(host, cookie.domain))
+                .filter(cookie -> cookie.path == null || path.startsWith(cookie.path))
+                .filter(cookie -> !Boolean.TRUE.equals(cookie.secure) || secure)
+                // expires为-1或未设置表示会话cookie
+                .filter(cookie -> cookie.expires == null || cookie.expires <= 0 || cookie.expires > nowSeconds)
+                .map(cookie -> cookie.name + "=" + cookie.value)
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * 判断请求主机是否属于cookie的域名，".example.com"形式的域名同时匹配其子域名
+     */
+    static boolean domainMatches(String host, String cookieDomain) {
+        if (cookieDomain == null || cookieDomain.isEmpty()) {
+            return true;
+        }
+        String domain = cookieDomain.toLowerCase();
+        if (domain.startsWith(".")) {
+            domain = domain.substring(1);
+        }
+        return host.equals(domain) || host.endsWith("." + domain);
+    }
+}
@@ -0,0 +1,119 @@
+package com.redbook.tool.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+/**
+ * 关键词导入工具类，从Excel或CSV/文本文件中读取批量搜索的关键词
+ * <p>
+ * Excel读取第一个工作表的第一列，CSV/文本读取每行第一个逗号之前的内容；
+ * 空行和重复的关键词会被忽略，表头"关键词"/"keyword"也会被跳过。
+ */
+public class KeywordImportUtil {
+
+    private KeywordImportUtil() {
+    }
+
+    /**
+     * 从文件中读取关键词
+     *
+     * @param file 关键词文件，支持xlsx、xls、csv、txt
+     * @return 去重后的关键词，保持文件中的顺序
+     * @throws IOException 读取失败或文件格式不受支持时抛出
+     */
+    public static List<String> readKeywords(File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".xlsx") || name.endsWith(".xls")) {
+            return readFromExcel(file);
+        }
+        if (name.endsWith(".csv") || name.endsWith(".txt")) {
+            return readFromText(file);
+        }
+        throw new IOException("不支持的关键词文件格式: " + file.getName());
+    }
+
+    /**
+     * 从多行文本中解析关键词，每行一个，也可以用逗号分隔
+     *
+     * @param text 输入的文本
+     * @return 去重后的关键词
+     */
+    public static List<String> parseKeywords(String text) {
+        if (text == null || text.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> parts = new ArrayList<>();
+        for (String line : text.split("\\r?\\n")) {
+            for (String part : line.split("[,，]")) {
+                parts.add(part);
+            }
+        }
+        return normalize(parts);
+    }
+
+    private static List<String> readFromExcel(File file) throws IOException {
+        List<String> values = new ArrayList<>();
+        DataFormatter formatter = new DataFormatter();
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            if (workbook.getNumberOfSheets() == 0) {
+                return values;
+            }
+            Sheet sheet = workbook.getSheetAt(0);
+            for (Row row : sheet) {
+                Cell cell = row.getCell(0);
+                if (cell != null) {
+                    values.add(formatter.formatCellValue(cell));
+                }
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("读取Excel文件失败: " + e.getMessage(), e);
+        }
+        return normalize(values);
+    }
+
+    private static List<String> readFromText(File file) throws IOException {
+        List<String> values = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            int comma = line.indexOf(',');
+            values.add(comma >= 0 ? line.substring(0, comma) : line);
+        }
+        return normalize(values);
+    }
+
+    /**
+     * 去除空白、引号、BOM和表头，并按出现顺序去重
+     */
+    private static List<String> normalize(Collection<String> values) {
+        Set<String> keywords = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            String keyword = value.replace("\uFEFF", "").trim();
+            if (keyword.length() >= 2 && keyword.startsWith("\"") && keyword.endsWith("\"")) {
+                keyword = keyword.substring(1, keyword.length() - 1).trim();
+            }
+            if (keyword.isEmpty() || "关键词".equals(keyword) || "keyword".equalsIgnoreCase(keyword)) {
+                continue;
+            }
+            keywords.add(keyword);
+        }
+        return new ArrayList<>(keywords);
+    }
+}
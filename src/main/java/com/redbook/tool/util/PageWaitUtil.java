@@ -0,0 +1,164 @@
+package com.redbook.tool.util;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+import com.microsoft.playwright.ElementHandle;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.TimeoutError;
+import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.WaitUntilState;
+
+/**
+ * 可取消的页面等待工具类
+ * <p>
+ * Playwright在等待条件时大约每10ms检查一次条件，同时继续分发页面事件，
+ * 因此把取消令牌加入等待条件即可让等待在取消后立即返回，不需要从其它线程操作页面。
+ */
+public final class PageWaitUtil {
+
+    // 与Playwright默认值一致的导航超时时间(ms)
+    private static final long DEFAULT_NAVIGATION_TIMEOUT_MS = 30000;
+
+    // 等待页面加载时检查取消令牌的间隔(ms)
+    private static final long CANCEL_CHECK_INTERVAL_MS = 200;
+
+    private PageWaitUtil() {
+    }
+
+    /**
+     * 等待指定时间，期间继续处理页面事件，取消时立即返回
+     *
+     * @return 等待完整结束返回true，被取消返回false
+     */
+    public static boolean pause(Page page, long millis, CancellationToken token) {
+        CancellationToken cancellation = CancellationToken.orNone(token);
+        if (cancellation == CancellationToken.NONE) {
+            page.waitForTimeout(millis);
+            return true;
+        }
+        waitFor(page, () -> false, millis, cancellation);
+        return !cancellation.isCancelled();
+    }
+
+    /**
+     * 等待条件成立，超时或取消时返回
+     *
+     * @return 条件是否成立
+     */
+    public static boolean waitFor(Page page, BooleanSupplier condition, long timeoutMs, CancellationToken token) {
+        CancellationToken cancellation = CancellationToken.orNone(token);
+        if (condition.getAsBoolean()) {
+            return true;
+        }
+        if (cancellation.isCancelled()) {
+            return false;
+        }
+        try {
+            page.waitForCondition(() -> condition.getAsBoolean() || cancellation.isCancelled(),
+                    new Page.WaitForConditionOptions().setTimeout(timeoutMs));
+        } catch (TimeoutError e) {
+            return false;
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * 使用默认超时时间导航，见 {@link #navigate(Page, String, long, CancellationToken)}
+     */
+    public static void navigate(Page page, String url, CancellationToken token) {
+        navigate(page, url, DEFAULT_NAVIGATION_TIMEOUT_MS, token);
+    }
+
+    /**
+     * 导航到指定地址并等待DOMContentLoaded，等待期间取消时抛出 {@link CancellationException}
+     * <p>
+     * 导航只等待服务器开始返回页面，之后的加载过程可以被取消；加载超时时抛出Playwright的超时异常。
+     */
+    public static void navigate(Page page, String url, long timeoutMs, CancellationToken token) {
+        CancellationToken cancellation = CancellationToken.orNone(token);
+        cancellation.throwIfCancelled();
+        if (cancellation == CancellationToken.NONE) {
+            page.navigate(url, new Page.NavigateOptions().setTimeout(timeoutMs)
+                    .setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+            return;
+        }
+        page.navigate(url, new Page.NavigateOptions().setTimeout(timeoutMs).setWaitUntil(WaitUntilState.COMMIT));
+        waitForDomContentLoaded(page, timeoutMs, cancellation);
+    }
+
+    /**
+     * 使用默认超时时间等待页面触发DOMContentLoaded，见 {@link #waitForDomContentLoaded(Page, long, CancellationToken)}
+     */
+    public static void waitForDomContentLoaded(Page page, CancellationToken token) {
+        waitForDomContentLoaded(page, DEFAULT_NAVIGATION_TIMEOUT_MS, token);
+    }
+
+    /**
+     * 分段等待页面触发DOMContentLoaded，每段之间检查取消令牌，取消时抛出 {@link CancellationException}
+     */
+    public static void waitForDomContentLoaded(Page page, long timeoutMs, CancellationToken token) {
+        CancellationToken cancellation = CancellationToken.orNone(token);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            cancellation.throwIfCancelled();
+            long remaining = deadline - System.currentTimeMillis();
+            try {
+                page.waitForLoadState(LoadState.DOMCONTENTLOADED, new Page.WaitForLoadStateOptions()
+                        .setTimeout(Math.max(1, Math.min(CANCEL_CHECK_INTERVAL_MS, remaining))));
+                return;
+            } catch (TimeoutError e) {
+                if (remaining <= CANCEL_CHECK_INTERVAL_MS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 分段等待页面中的脚本条件成立，每段之间检查取消令牌，取消时抛出 {@link CancellationException}
+     *
+     * @param expression 接收arg参数并返回真假的脚本函数
+     * @return 条件是否在超时前成立
+     */
+    public static boolean waitForFunction(Page page, String expression, Object arg, long timeoutMs,
+            CancellationToken token) {
+        CancellationToken cancellation = CancellationToken.orNone(token);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            cancellation.throwIfCancelled();
+            long remaining = deadline - System.currentTimeMillis();
+            try {
+                page.waitForFunction(expression, arg, new Page.WaitForFunctionOptions()
+                        .setTimeout(Math.max(1, Math.min(CANCEL_CHECK_INTERVAL_MS, remaining))));
+                return true;
+            } catch (TimeoutError e) {
+                if (remaining <= CANCEL_CHECK_INTERVAL_MS) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * 分段等待元素出现，每段之间检查取消令牌，取消时抛出 {@link CancellationException}
+     *
+     * @return 出现的元素，超时返回null
+     */
+    public static ElementHandle waitForSelector(Page page, String selector, long timeoutMs, CancellationToken token) {
+        CancellationToken cancellation = CancellationToken.orNone(token);
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (true) {
+            cancellation.throwIfCancelled();
+            long remaining = deadline - System.currentTimeMillis();
+            try {
+                return page.waitForSelector(selector, new Page.WaitForSelectorOptions()
+                        .setTimeout(Math.max(1, Math.min(CANCEL_CHECK_INTERVAL_MS, remaining))));
+            } catch (TimeoutError e) {
+                if (remaining <= CANCEL_CHECK_INTERVAL_MS) {
+                    return null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.redbook.tool.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.redbook.tool.entity.UserInfo;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import cn.hutool.json.JSONObject;
+
+/**
+ * 笔记详情HTTP获取器测试，使用本地HTTP服务模拟详情页
+ */
+class NoteDetailHttpFetcherTest {
+
+    private static final String NOTE_ID = "64f0a1b2c3d4e5f6a7b8c9d0";
+
+    private static final String STATE_JSON = "{\"global\":{\"flag\":undefined},"
+            + "\"note\":{\"noteDetailMap\":{"
+            + "\"other\":{\"note\":{\"noteId\":\"other\",\"title\":\"其它笔记\"}},"
+            + "\"" + NOTE_ID + "\":{\"comments\":[undefined],\"note\":{"
+            + "\"noteId\":\"" + NOTE_ID + "\","
+            + "\"time\":{\"value\":1700000000000},"
+            + "\"title\":\"标题,undefined,[undefined]\","
+            + "\"desc\":\"正文\\\"undefined\\\"\","
+            + "\"lastUpdateTime\":undefined,"
+            + "\"user\":{\"userId\":\"u1\",\"nickname\":\"作者\",\"avatar\":\"a.png\"},"
+            + "\"interactInfo\":{\"likedCount\":\"10\",\"collectedCount\":\"2\",\"commentCount\":\"3\",\"shareCount\":\"1\"},"
+            + "\"tagList\":[{\"name\":\"旅行\"},{\"id\":\"t2\"}],"
+            + "\"imageList\":[{\"urlDefault\":\"https://img/default.jpg\","
+            + "\"infoList\":[{\"imageScene\":\"WB_PRV\",\"url\":\"https://img/prv.jpg\"},"
+            + "{\"imageScene\":\"WB_DFT\",\"url\":\"https://img/dft.jpg\"}]},"
+            + "{\"url\":\"https://img/second.jpg\"}]"
+            + "}}}}}";
+
+    private HttpServer server;
+    private NoteDetailHttpFetcher fetcher;
+    private UserInfo user;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/explore/ok", exchange -> respond(exchange, 200, page(STATE_JSON)));
+        server.createContext("/explore/incomplete", exchange -> respond(exchange, 200,
+                page("{\"note\":{\"noteDetailMap\":{\"" + NOTE_ID + "\":{\"note\":{\"noteId\":\"" + NOTE_ID + "\"}}}}}")));
+        server.createContext("/explore/captcha", exchange -> respond(exchange, 461, "captcha"));
+        server.createContext("/explore/redirect", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/website-login/captcha");
+            respond(exchange, 302, "");
+        });
+        server.createContext("/website-login/captcha", exchange -> respond(exchange, 200, "<html>请完成验证</html>"));
+        server.start();
+
+        fetcher = new NoteDetailHttpFetcher(new CrawlPacer(), new CircuitBreakerRegistry());
+        ReflectionTestUtils.setField(fetcher, "timeoutMs", 5000L);
+        user = new UserInfo();
+        user.setUserId("u1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void extractStateJsonReplacesUndefinedOnlyOutsideStrings() {
+        String json = NoteDetailHttpFetcher.extractStateJson(page(STATE_JSON));
+
+        assertNotNull(json);
+        assertEquals(STATE_JSON.replace("\"flag\":undefined", "\"flag\":null")
+                .replace("[undefined]}", "[null]}").replace("[undefined],", "[null],")
+                .replace("\"lastUpdateTime\":undefined", "\"lastUpdateTime\":null"), json);
+    }
+
+    @Test
+    void extractStateJsonReturnsNullWithoutState() {
+        assertNull(NoteDetailHttpFetcher.extractStateJson("<html><script>var a = 1;</script></html>"));
+        assertNull(NoteDetailHttpFetcher.extractStateJson("<script>window.__INITIAL_STATE__={\"note\":{}"));
+    }
+
+    @Test
+    void parseNoteStateReadsMatchingNote() throws IOException {
+        JSONObject note = NoteDetailHttpFetcher.parseNoteState(NoteDetailHttpFetcher.extractStateJson(page(STATE_JSON)), NOTE_ID);
+
+        assertNotNull(note);
+        assertEquals(NOTE_ID, note.getStr("noteId"));
+        assertEquals("标题,undefined,[undefined]", note.getStr("title"));
+        assertEquals("正文\"undefined\"", note.getStr("desc"));
+        assertNull(note.get("time"));
+        assertEquals("u1", note.getStr("userId"));
+        assertEquals("作者", note.getStr("nickname"));
+        assertEquals("10", note.getStr("likedCount"));
+        assertEquals("1", note.getStr("shareCount"));
+        assertEquals(1, note.getJSONArray("tags").size());
+        assertEquals("旅行", note.getJSONArray("tags").getStr(0));
+        assertEquals(2, note.getJSONArray("images").size());
+        assertEquals("https://img/dft.jpg", note.getJSONArray("images").getStr(0));
+        assertEquals("https://img/second.jpg", note.getJSONArray("images").getStr(1));
+    }
+
+    @Test
+    void parseNoteStateWithoutNoteModule() throws IOException {
+        assertNull(NoteDetailHttpFetcher.parseNoteState("{\"global\":{}}", NOTE_ID));
+        assertNull(NoteDetailHttpFetcher.parseNoteState("[]", NOTE_ID));
+    }
+
+    @Test
+    void fetchReturnsNoteFields() {
+        JSONObject note = fetcher.fetch(user, url("/explore/ok"), NOTE_ID);
+
+        assertNotNull(note);
+        assertEquals(NOTE_ID, note.getStr("noteId"));
+        assertEquals("标题,undefined,[undefined]", note.getStr("title"));
+    }
+
+    @Test
+    void fetchReturnsNullWhenNoteIncomplete() {
+        assertNull(fetcher.fetch(user, url("/explore/incomplete"), NOTE_ID));
+    }
+
+    @Test
+    void fetchReturnsNullWhenBlocked() {
+        assertNull(fetcher.fetch(user, url("/explore/captcha"), NOTE_ID));
+        assertNull(fetcher.fetch(user, url("/explore/redirect"), NOTE_ID));
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static String page(String stateJson) {
+        return "<html><head><script>window.__INITIAL_STATE__=" + stateJson + ";</script></head><body></body></html>";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}